@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core;
+
+/**
+ * This exception is raised when a request is not dispatched because the circuit breaker of the
+ * target endpoint is open, so it has been failing or responding too slowly recently.
+ *
+ * The request has not been written to the network, so it is safe to retry once the endpoint recovers.
+ *
+ * @since 1.5.2
+ */
+public class CircuitBreakerOpenException extends CouchbaseException {
+
+    public CircuitBreakerOpenException() {
+        super();
+    }
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+    public CircuitBreakerOpenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public CircuitBreakerOpenException(Throwable cause) {
+        super(cause);
+    }
+}
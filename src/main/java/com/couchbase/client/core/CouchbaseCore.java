@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core;
 
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.ConfigurationProvider;
 import com.couchbase.client.core.config.DefaultConfigurationProvider;
@@ -25,8 +27,11 @@ import com.couchbase.client.core.hooks.CouchbaseCoreSendHook;
 import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.RequestPhase;
+import com.couchbase.client.core.message.ResponseCallback;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.cluster.CloseBucketRequest;
 import com.couchbase.client.core.message.cluster.CloseBucketResponse;
@@ -51,6 +56,15 @@ import com.couchbase.client.core.message.internal.RemoveNodeRequest;
 import com.couchbase.client.core.message.internal.RemoveNodeResponse;
 import com.couchbase.client.core.message.internal.RemoveServiceRequest;
 import com.couchbase.client.core.message.internal.RemoveServiceResponse;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.HedgedReadExecutor;
+import com.couchbase.client.core.message.observe.ObserveBatcher;
+import com.couchbase.client.core.message.observe.ObserveSeqnoBatcher;
+import com.couchbase.client.core.message.observe.ObserveTimings;
+import com.couchbase.client.core.message.query.GenericQueryRequest;
+import com.couchbase.client.core.message.query.PreparedStatementCache;
+import com.couchbase.client.core.metrics.RuntimeMetricsCollector;
+import com.couchbase.client.core.retry.RetryBudget;
 import com.couchbase.client.core.service.Service;
 import com.couchbase.client.core.state.LifecycleState;
 import com.lmax.disruptor.EventTranslatorOneArg;
@@ -60,10 +74,12 @@ import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import rx.Observable;
+import rx.Subscriber;
 import rx.functions.Func1;
 import rx.subjects.Subject;
 
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The general implementation of a {@link ClusterFacade}.
@@ -94,6 +110,11 @@ public class CouchbaseCore implements ClusterFacade {
      */
     public static final BackpressureException BACKPRESSURE_EXCEPTION = new BackpressureException();
 
+    /**
+     * Hands out the identifiers of the cores, so that cores sharing an environment report apart.
+     */
+    private static final AtomicInteger CORE_IDS = new AtomicInteger();
+
     /**
      * The {@link RequestEvent} {@link RingBuffer}.
      */
@@ -111,12 +132,47 @@ public class CouchbaseCore implements ClusterFacade {
 
     private final CoreEnvironment environment;
 
+    /**
+     * The identifier of this core, used to name its ring buffers in the runtime metrics.
+     */
+    private final int coreId = CORE_IDS.incrementAndGet();
+
     private final Disruptor<RequestEvent> requestDisruptor;
     private final Disruptor<ResponseEvent> responseDisruptor;
 
     private volatile boolean sharedEnvironment = true;
     private final CouchbaseCoreSendHook coreSendHook;
 
+    /**
+     * The N1QL prepared statement cache, null if disabled.
+     */
+    private final PreparedStatementCache preparedStatementCache;
+
+    /**
+     * The executor for hedged replica reads, null if disabled.
+     */
+    private final HedgedReadExecutor hedgedReadExecutor;
+
+    /**
+     * The budget which first attempts are recorded with, null if disabled.
+     */
+    private final RetryBudget retryBudget;
+
+    /**
+     * The persist and replicate timings learned from the observe polls of this core.
+     */
+    private final ObserveTimings observeTimings;
+
+    /**
+     * Coalesces the CAS based observe polls sent through this core.
+     */
+    private final ObserveBatcher observeBatcher;
+
+    /**
+     * Coalesces the sequence number based observe polls sent through this core.
+     */
+    private final ObserveSeqnoBatcher observeSeqnoBatcher;
+
     /**
      * Populate the static exceptions with stack trace elements.
      */
@@ -141,12 +197,28 @@ public class CouchbaseCore implements ClusterFacade {
 
         this.environment = environment;
         this.coreSendHook = environment.couchbaseCoreSendHook();
+        this.preparedStatementCache = environment.queryPreparedStatementCacheSize() > 0
+            ? new PreparedStatementCache(environment.queryPreparedStatementCacheSize())
+            : null;
         configProvider = new DefaultConfigurationProvider(this, environment);
+        this.hedgedReadExecutor = environment.hedgedReadConfig() != null && environment.hedgedReadConfig().enabled()
+            ? new HedgedReadExecutor(environment.hedgedReadConfig(), configProvider, environment.scheduler(),
+                environment.metricsRegistry())
+            : null;
+        this.retryBudget = environment.retryBudget() != null && environment.retryBudget().enabled()
+            ? environment.retryBudget()
+            : null;
+        this.observeTimings = new ObserveTimings(
+            environment.metricsRegistryEnabled() ? environment.metricsRegistry() : null, String.valueOf(coreId));
+        this.observeBatcher = new ObserveBatcher(environment.scheduler());
+        this.observeSeqnoBatcher = new ObserveSeqnoBatcher(environment.scheduler());
         ThreadFactory disruptorThreadFactory = new DefaultThreadFactory("cb-core", true);
         responseDisruptor = new Disruptor<ResponseEvent>(
             new ResponseEventFactory(),
             environment.responseBufferSize(),
-            disruptorThreadFactory
+            disruptorThreadFactory,
+            ProducerType.MULTI,
+            environment.responseBufferWaitStrategy().newWaitStrategy()
         );
         responseDisruptor.setDefaultExceptionHandler(new ExceptionHandler<ResponseEvent>() {
             @Override
@@ -195,6 +267,12 @@ public class CouchbaseCore implements ClusterFacade {
         requestDisruptor.handleEventsWith(requestHandler);
         requestDisruptor.start();
         requestRingBuffer = requestDisruptor.getRingBuffer();
+
+        RuntimeMetricsCollector runtimeMetrics = environment.runtimeMetricsCollector();
+        if (runtimeMetrics != null) {
+            runtimeMetrics.registerRingBuffer("request-" + coreId, requestRingBuffer);
+            runtimeMetrics.registerRingBuffer("response-" + coreId, responseRingBuffer);
+        }
     }
 
     @Override
@@ -206,10 +284,23 @@ public class CouchbaseCore implements ClusterFacade {
         } else if (request instanceof ClusterRequest) {
             handleClusterRequest(request);
             return (Observable<R>) request.observable().observeOn(environment.scheduler());
+        } else if (preparedStatementCache != null && PreparedStatementCache.handles(request)) {
+            RequestPhase.SEND.mark(request);
+            preparedStatementCache.send(this, (GenericQueryRequest) request).subscribe(request.observable());
+            return (Observable<R>) request.observable();
+        } else if (hedgedReadExecutor != null && HedgedReadExecutor.handles(request)) {
+            RequestPhase.SEND.mark(request);
+            hedgedReadExecutor.send(this, (GetRequest) request).subscribe(request.observable());
+            return (Observable<R>) request.observable();
         } else {
+            RequestPhase.SEND.mark(request);
+            if (retryBudget != null) {
+                retryBudget.recordAttempt(request);
+            }
             if (coreSendHook == null) {
                 boolean published = requestRingBuffer.tryPublishEvent(REQUEST_TRANSLATOR, request);
                 if (!published) {
+                    recordBackpressure();
                     request.observable().onError(BACKPRESSURE_EXCEPTION);
                 }
                 return (Observable<R>) request.observable();
@@ -219,6 +310,7 @@ public class CouchbaseCore implements ClusterFacade {
                         .beforeSend(request, response);
                 boolean published = requestRingBuffer.tryPublishEvent(REQUEST_TRANSLATOR, hook.value1());
                 if (!published) {
+                    recordBackpressure();
                     response.onError(BACKPRESSURE_EXCEPTION);
                 }
                 return (Observable<R>) hook.value2();
@@ -226,6 +318,99 @@ public class CouchbaseCore implements ClusterFacade {
         }
     }
 
+    /**
+     * Sends a {@link CouchbaseRequest} into the cluster and notifies the given {@link ResponseCallback} once
+     * its {@link CouchbaseResponse} arrives.
+     *
+     * This is a lower level variant of {@link #send(CouchbaseRequest)} for requests which complete with a single
+     * response: the callback is stored on the request and called from the IO layer directly, without creating a
+     * subject or hopping through an observable. Requests which do not extend {@link AbstractCouchbaseRequest}
+     * are sent through the observable and their result relayed to the callback.
+     *
+     * @param request the request to send.
+     * @param callback the callback to notify with the response or the error.
+     */
+    @InterfaceStability.Uncommitted
+    @InterfaceAudience.Public
+    public void send(final CouchbaseRequest request, final ResponseCallback callback) {
+        if (!(request instanceof AbstractCouchbaseRequest) || request instanceof InternalRequest
+            || request instanceof ClusterRequest || coreSendHook != null
+            || (preparedStatementCache != null && PreparedStatementCache.handles(request))
+            || (hedgedReadExecutor != null && HedgedReadExecutor.handles(request))) {
+            send(request).subscribe(new Subscriber<CouchbaseResponse>() {
+                @Override
+                public void onNext(CouchbaseResponse response) {
+                    callback.onResponse(response);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    callback.onError(e);
+                }
+
+                @Override
+                public void onCompleted() {
+                    // the response has been handed to the callback already.
+                }
+            });
+            return;
+        }
+
+        final AbstractCouchbaseRequest callbackRequest = (AbstractCouchbaseRequest) request;
+        callbackRequest.callback(callback);
+        callbackRequest.markPhase(RequestPhase.SEND);
+        if (retryBudget != null) {
+            retryBudget.recordAttempt(request);
+        }
+        if (!requestRingBuffer.tryPublishEvent(REQUEST_TRANSLATOR, request)) {
+            recordBackpressure();
+            callbackRequest.fail(BACKPRESSURE_EXCEPTION);
+        }
+    }
+
+    /**
+     * Returns the persist and replicate timings learned from the observe polls sent through this core.
+     *
+     * @return the observe timings.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Private
+    public ObserveTimings observeTimings() {
+        return observeTimings;
+    }
+
+    /**
+     * Returns the batcher which coalesces the CAS based observe polls sent through this core.
+     *
+     * @return the observe batcher.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Private
+    public ObserveBatcher observeBatcher() {
+        return observeBatcher;
+    }
+
+    /**
+     * Returns the batcher which coalesces the sequence number based observe polls sent through this core.
+     *
+     * @return the observe seqno batcher.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Private
+    public ObserveSeqnoBatcher observeSeqnoBatcher() {
+        return observeSeqnoBatcher;
+    }
+
+    /**
+     * Counts a request rejected because the request ring buffer is full, if runtime metrics are collected.
+     */
+    private void recordBackpressure() {
+        RuntimeMetricsCollector runtimeMetrics = environment.runtimeMetricsCollector();
+        if (runtimeMetrics != null) {
+            runtimeMetrics.recordBackpressure();
+        }
+    }
+
     /**
      * Helper method to handle the cluster requests.
      *
@@ -294,6 +479,14 @@ public class CouchbaseCore implements ClusterFacade {
                     public Boolean call(Boolean success) {
                         requestDisruptor.shutdown();
                         responseDisruptor.shutdown();
+                        RuntimeMetricsCollector runtimeMetrics = environment.runtimeMetricsCollector();
+                        if (runtimeMetrics != null) {
+                            runtimeMetrics.unregisterRingBuffer("request-" + coreId);
+                            runtimeMetrics.unregisterRingBuffer("response-" + coreId);
+                        }
+                        observeTimings.close();
+                        observeBatcher.shutdown();
+                        observeSeqnoBatcher.shutdown();
                         return success;
                     }
                 })
@@ -25,8 +25,8 @@ import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.BootstrapMessage;
 import com.couchbase.client.core.message.CouchbaseRequest;
-import com.couchbase.client.core.message.analytics.AnalyticsRequest;
-import com.couchbase.client.core.message.config.ConfigRequest;
+import com.couchbase.client.core.message.RequestKind;
+import com.couchbase.client.core.message.RequestPhase;
 import com.couchbase.client.core.message.internal.AddServiceRequest;
 import com.couchbase.client.core.message.internal.EndpointHealth;
 import com.couchbase.client.core.message.internal.HealthCheckRequest;
@@ -34,10 +34,6 @@ import com.couchbase.client.core.message.internal.HealthCheckResponse;
 import com.couchbase.client.core.message.internal.RemoveServiceRequest;
 import com.couchbase.client.core.message.internal.ServicesHealth;
 import com.couchbase.client.core.message.internal.SignalFlush;
-import com.couchbase.client.core.message.kv.BinaryRequest;
-import com.couchbase.client.core.message.query.QueryRequest;
-import com.couchbase.client.core.message.search.SearchRequest;
-import com.couchbase.client.core.message.view.ViewRequest;
 import com.couchbase.client.core.node.CouchbaseNode;
 import com.couchbase.client.core.node.Node;
 import com.couchbase.client.core.node.locate.AnalyticsLocator;
@@ -222,6 +218,7 @@ public class RequestHandler implements EventHandler<RequestEvent> {
      * @param request the request to dispatch.
      */
     private void dispatchRequest(final CouchbaseRequest request) {
+        RequestPhase.DISPATCH.mark(request);
         ClusterConfig config = configuration;
 
         //prevent non-bootstrap requests to go through if bucket not part of config
@@ -258,21 +255,39 @@ public class RequestHandler implements EventHandler<RequestEvent> {
      * @throws ServiceNotAvailableException if the request type needs a particular feature which isn't activated.
      */
     protected void checkFeaturesForRequest(final CouchbaseRequest request, final BucketConfig config) {
-        if (request instanceof BinaryRequest && !config.serviceEnabled(ServiceType.BINARY)) {
-            throw new ServiceNotAvailableException("The KeyValue service is not enabled or no node in the cluster "
-                + "supports it.");
-        } else if (request instanceof ViewRequest && !config.serviceEnabled(ServiceType.VIEW)) {
-            throw new ServiceNotAvailableException("The View service is not enabled or no node in the cluster "
-                + "supports it.");
-        } else if (request instanceof QueryRequest && !config.serviceEnabled(ServiceType.QUERY)) {
-            throw new ServiceNotAvailableException("The Query service is not enabled or no node in the "
-                + "cluster supports it.");
-        } else if (request instanceof SearchRequest && !config.serviceEnabled(ServiceType.SEARCH)) {
-            throw new ServiceNotAvailableException("The Search service is not enabled or no node in the "
-                + "cluster supports it.");
-        } else if (request instanceof AnalyticsRequest && !config.serviceEnabled(ServiceType.ANALYTICS)) {
-            throw new ServiceNotAvailableException("The Analytics service is not enabled or no node in the "
-                + "cluster supports it.");
+        switch (RequestKind.family(RequestKind.of(request))) {
+            case RequestKind.BINARY:
+                if (!config.serviceEnabled(ServiceType.BINARY)) {
+                    throw new ServiceNotAvailableException("The KeyValue service is not enabled or no node in the "
+                        + "cluster supports it.");
+                }
+                break;
+            case RequestKind.VIEW:
+                if (!config.serviceEnabled(ServiceType.VIEW)) {
+                    throw new ServiceNotAvailableException("The View service is not enabled or no node in the "
+                        + "cluster supports it.");
+                }
+                break;
+            case RequestKind.QUERY:
+                if (!config.serviceEnabled(ServiceType.QUERY)) {
+                    throw new ServiceNotAvailableException("The Query service is not enabled or no node in the "
+                        + "cluster supports it.");
+                }
+                break;
+            case RequestKind.SEARCH:
+                if (!config.serviceEnabled(ServiceType.SEARCH)) {
+                    throw new ServiceNotAvailableException("The Search service is not enabled or no node in the "
+                        + "cluster supports it.");
+                }
+                break;
+            case RequestKind.ANALYTICS:
+                if (!config.serviceEnabled(ServiceType.ANALYTICS)) {
+                    throw new ServiceNotAvailableException("The Analytics service is not enabled or no node in the "
+                        + "cluster supports it.");
+                }
+                break;
+            default:
+                break;
         }
     }
 
@@ -385,20 +400,21 @@ public class RequestHandler implements EventHandler<RequestEvent> {
      * @return the locator for the given request type.
      */
     protected Locator locator(final CouchbaseRequest request) {
-        if (request instanceof BinaryRequest) {
-            return binaryLocator;
-        } else if (request instanceof ViewRequest) {
-            return viewLocator;
-        } else if (request instanceof QueryRequest) {
-            return queryLocator;
-        } else if (request instanceof ConfigRequest) {
-            return configLocator;
-        } else if (request instanceof SearchRequest) {
-            return searchLocator;
-        } else if (request instanceof AnalyticsRequest) {
-            return analyticsLocator;
-        } else {
-            throw new IllegalArgumentException("Unknown Request Type: " + request);
+        switch (RequestKind.family(RequestKind.of(request))) {
+            case RequestKind.BINARY:
+                return binaryLocator;
+            case RequestKind.VIEW:
+                return viewLocator;
+            case RequestKind.QUERY:
+                return queryLocator;
+            case RequestKind.CONFIG:
+                return configLocator;
+            case RequestKind.SEARCH:
+                return searchLocator;
+            case RequestKind.ANALYTICS:
+                return analyticsLocator;
+            default:
+                throw new IllegalArgumentException("Unknown Request Type: " + request);
         }
     }
 
@@ -18,19 +18,24 @@ package com.couchbase.client.core;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.DefaultConfigurationProvider;
+import com.couchbase.client.core.config.parser.BucketConfigParser;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.CouchbaseMessage;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.internal.ClustermapChangeNotification;
+import com.couchbase.client.core.message.internal.SignalClustermapNotifications;
 import com.couchbase.client.core.message.internal.SignalConfigReload;
 import com.couchbase.client.core.message.kv.BinaryResponse;
 import com.couchbase.client.core.time.Delay;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventTranslatorTwoArg;
-import io.netty.util.CharsetUtil;
+import io.netty.buffer.ByteBuf;
 import rx.Scheduler;
 import rx.functions.Action0;
 import rx.subjects.Subject;
@@ -47,6 +52,11 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
     private final boolean traceLoggingEnabled;
     private final int nmvbRetryDelay;
 
+    /**
+     * The time in nanoseconds when the last config reload signal has been handled.
+     */
+    private long lastConfigReload;
+
     /**
      * Creates a new {@link ResponseHandler}.
      *
@@ -94,13 +104,25 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
         try {
             CouchbaseMessage message = event.getMessage();
             if (message instanceof SignalConfigReload) {
-                configurationProvider.signalOutdated();
+                signalConfigReload();
+            } else if (message instanceof ClustermapChangeNotification) {
+                proposePushedConfig((ClustermapChangeNotification) message);
+            } else if (message instanceof SignalClustermapNotifications) {
+                if (configurationProvider instanceof DefaultConfigurationProvider) {
+                    SignalClustermapNotifications signal = (SignalClustermapNotifications) message;
+                    ((DefaultConfigurationProvider) configurationProvider)
+                        .signalClustermapNotifications(signal.bucket(), signal.node(), signal.enabled());
+                }
             } else if (message instanceof CouchbaseResponse) {
                 final CouchbaseResponse response = (CouchbaseResponse) message;
                 ResponseStatus status = response.status();
-                if (status == ResponseStatus.RETRY) {
+                if (status == ResponseStatus.RETRY && !isBoundToNode(response)) {
                     retry(event, true);
                 } else {
+                    if (status == ResponseStatus.RETRY) {
+                        // can't be relocated, so the caller gets to fall back while the config catches up.
+                        signalConfigReload();
+                    }
                     final Scheduler.Worker worker = environment.scheduler().createWorker();
                     final Subject<CouchbaseResponse, CouchbaseResponse> obs = event.getObservable();
                     worker.schedule(new Action0() {
@@ -128,6 +150,18 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
         }
     }
 
+    /**
+     * Checks if the request of the given response is bound to a single node, like a multi-key observe,
+     * which can't be relocated on a "not my vbucket" response.
+     *
+     * @param response the response to check.
+     * @return true if its request can't be relocated.
+     */
+    private static boolean isBoundToNode(final CouchbaseResponse response) {
+        CouchbaseRequest request = response.request();
+        return request != null && RequestKind.of(request) == RequestKind.MULTI_OBSERVE;
+    }
+
     private void retry(final ResponseEvent event, final boolean isNotMyVbucket) {
         final CouchbaseMessage message = event.getMessage();
         if (message instanceof CouchbaseRequest) {
@@ -145,9 +179,9 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
                 BinaryResponse response = (BinaryResponse) message;
                 if (response.content() != null && response.content().readableBytes() > 0) {
                     try {
-                        String config = response.content().toString(CharsetUtil.UTF_8).trim();
-                        if (config.startsWith("{")) {
-                            configurationProvider.proposeBucketConfig(response.bucket(), config);
+                        if (BucketConfigParser.isConfig(response.content())) {
+                            DefaultConfigurationProvider.proposeBucketConfig(configurationProvider, response.bucket(),
+                                response.content(), null);
                         }
                     } finally {
                         response.content().release();
@@ -157,6 +191,48 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
         }
     }
 
+    /**
+     * Signals the configuration provider that its config may be outdated, unless this has been done within
+     * the deduplication window already.
+     *
+     * When a node goes away or comes back, every endpoint signals a reload on each failed connect attempt,
+     * so a single refresh per window is enough to pick up the new config.
+     */
+    private void signalConfigReload() {
+        long now = System.nanoTime();
+        long window = TimeUnit.MILLISECONDS.toNanos(environment.configReloadDedupWindow());
+        if (window > 0 && lastConfigReload != 0 && now - lastConfigReload < window) {
+            if (traceLoggingEnabled) {
+                LOGGER.trace("Dropping config reload signal, one has been handled within the last {}ms.",
+                    environment.configReloadDedupWindow());
+            }
+            return;
+        }
+        lastConfigReload = now;
+        configurationProvider.signalOutdated();
+    }
+
+    /**
+     * Helper method which proposes a config pushed by the server and releases its content afterwards.
+     *
+     * @param notification the pushed notification.
+     */
+    private void proposePushedConfig(final ClustermapChangeNotification notification) {
+        ByteBuf content = notification.content();
+        try {
+            if (content != null && BucketConfigParser.isConfig(content)) {
+                DefaultConfigurationProvider.proposeBucketConfig(configurationProvider, notification.bucket(), content,
+                    notification.origin());
+            }
+        } catch (Exception ex) {
+            LOGGER.debug("Could not apply pushed config {}, ignoring.", notification, ex);
+        } finally {
+            if (content != null && content.refCnt() > 0) {
+                content.release();
+            }
+        }
+    }
+
     /**
      * Helper method which schedules the given {@link CouchbaseRequest} with a delay for further retry.
      *
@@ -164,6 +240,12 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
      */
     private void scheduleForRetry(final CouchbaseRequest request, final boolean isNotMyVbucket) {
         CoreEnvironment env = environment;
+        if (!isNotMyVbucket && env.retryBudget() != null && !env.retryBudget().tryRetry(request)) {
+            request.observable().onError(new RequestCancelledException("Could not dispatch request, cancelling "
+                + "instead of retrying as the retry budget is exhausted."));
+            return;
+        }
+
         long delayTime;
         TimeUnit delayUnit;
 
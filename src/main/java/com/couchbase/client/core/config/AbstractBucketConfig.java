@@ -30,6 +30,7 @@ public abstract class AbstractBucketConfig implements BucketConfig {
     private final String name;
     private String username;
     private String password;
+    private volatile String rawConfig;
     private final BucketNodeLocator locator;
     private final String uri;
     private final String streamingUri;
@@ -140,6 +141,26 @@ public abstract class AbstractBucketConfig implements BucketConfig {
         return this;
     }
 
+    /**
+     * The raw JSON this config has been parsed from, if it has been kept.
+     *
+     * @return the raw config or null if not available.
+     */
+    public String rawConfig() {
+        return rawConfig;
+    }
+
+    /**
+     * Set the raw JSON this config has been parsed from.
+     *
+     * @param rawConfig the raw config.
+     * @return the config for chaining
+     */
+    public BucketConfig rawConfig(final String rawConfig) {
+        this.rawConfig = rawConfig;
+        return this;
+    }
+
     @Override
     public boolean serviceEnabled(ServiceType type) {
         return (enabledServices & (1 << type.ordinal())) != 0;
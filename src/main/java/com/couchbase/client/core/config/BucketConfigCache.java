@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last applied raw config of every bucket in a directory, so that a new process can start connecting
+ * to the nodes before a config has been loaded from the cluster.
+ *
+ * Each bucket is stored in its own file, which is replaced atomically by writing to a temporary file first
+ * and renaming it afterwards. Use one directory per cluster, since the files are only keyed by bucket name.
+ *
+ * Configs handed to {@link #storeAsync(String, long, String)} are written by a dedicated thread, so the disk I/O
+ * never blocks a shared pool. Configs of a bucket which arrive while a write is pending replace the pending one,
+ * so only the latest is written.
+ *
+ * @since 1.5.2
+ */
+public class BucketConfigCache {
+
+    /**
+     * The logger used.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(BucketConfigCache.class);
+
+    private static final String SUFFIX = ".json";
+
+    private final File directory;
+    private final ThreadPoolExecutor writer;
+    private final ConcurrentMap<String, PendingWrite> pending;
+
+    /**
+     * The revision last written per bucket, only accessed while holding the lock of the cache.
+     */
+    private final Map<String, Long> writtenRevs;
+
+    /**
+     * Creates a new {@link BucketConfigCache}.
+     *
+     * @param directory the directory to keep the configs in, created if it does not exist.
+     */
+    public BucketConfigCache(final File directory) {
+        this.directory = directory;
+        this.pending = new ConcurrentHashMap<String, PendingWrite>();
+        this.writtenRevs = new HashMap<String, Long>();
+        this.writer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new DefaultThreadFactory("cb-config-cache", true));
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Loads the last stored raw config of a bucket.
+     *
+     * @param bucket the name of the bucket.
+     * @return the raw config or null if none is stored or it could not be read.
+     */
+    public String load(final String bucket) {
+        File file = file(bucket);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), CharsetUtil.UTF_8);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read the cached config of bucket {} from {}.", bucket, file, ex);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the raw config of a bucket, replacing the previous one atomically.
+     *
+     * @param bucket the name of the bucket.
+     * @param rawConfig the raw config.
+     * @return true if it has been stored, false otherwise.
+     */
+    public synchronized boolean store(final String bucket, final String rawConfig) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOGGER.warn("Could not create the config cache directory {}.", directory);
+            return false;
+        }
+
+        File target = file(bucket);
+        File temp = new File(directory, target.getName() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(rawConfig.getBytes(CharsetUtil.UTF_8));
+            out.getFD().sync();
+        } catch (IOException ex) {
+            LOGGER.warn("Could not write the config of bucket {} to {}.", bucket, temp, ex);
+            close(out);
+            temp.delete();
+            return false;
+        }
+        close(out);
+
+        // renaming onto an existing file fails on some platforms, retry once it has been removed.
+        if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target))) {
+            LOGGER.warn("Could not move the config of bucket {} to {}.", bucket, target);
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stores the raw config of a bucket in the background.
+     *
+     * If a config of the bucket is still waiting to be written, the one with the higher revision wins. Configs
+     * with a revision lower or equal to the one last written are ignored.
+     *
+     * @param bucket the name of the bucket.
+     * @param rev the revision of the config.
+     * @param rawConfig the raw config.
+     */
+    public void storeAsync(final String bucket, final long rev, final String rawConfig) {
+        PendingWrite write = new PendingWrite(rev, rawConfig);
+        while (true) {
+            PendingWrite existing = pending.putIfAbsent(bucket, write);
+            if (existing == null) {
+                break;
+            } else if (existing.rev >= rev || pending.replace(bucket, existing, write)) {
+                // a write is already scheduled and picks up the latest config.
+                return;
+            }
+        }
+
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flush(bucket);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            pending.remove(bucket);
+            LOGGER.debug("Not writing the config of bucket {}, the config cache is shut down.", bucket);
+        }
+    }
+
+    /**
+     * Writes the pending config of a bucket, unless a newer one has been written already.
+     */
+    private synchronized void flush(final String bucket) {
+        PendingWrite write = pending.remove(bucket);
+        if (write == null) {
+            return;
+        }
+        Long written = writtenRevs.get(bucket);
+        if (written != null && written >= write.rev) {
+            return;
+        }
+        if (store(bucket, write.rawConfig)) {
+            writtenRevs.put(bucket, write.rev);
+        }
+    }
+
+    /**
+     * Removes the stored config of a bucket, if any, and drops a pending write of it.
+     *
+     * @param bucket the name of the bucket.
+     * @return true if no config is stored anymore, false otherwise.
+     */
+    public synchronized boolean remove(final String bucket) {
+        pending.remove(bucket);
+        writtenRevs.remove(bucket);
+        File file = file(bucket);
+        return !file.exists() || file.delete();
+    }
+
+    /**
+     * Stops the background writer, pending writes are still completed.
+     */
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * The directory the configs are kept in.
+     */
+    public File directory() {
+        return directory;
+    }
+
+    private File file(final String bucket) {
+        try {
+            return new File(directory, URLEncoder.encode(bucket, "UTF-8") + SUFFIX);
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void close(final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ex) {
+            LOGGER.debug("Could not close the config cache file.", ex);
+        }
+    }
+
+    /**
+     * A config waiting to be written.
+     */
+    private static class PendingWrite {
+
+        final long rev;
+        final String rawConfig;
+
+        PendingWrite(final long rev, final String rawConfig) {
+            this.rev = rev;
+            this.rawConfig = rawConfig;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BucketConfigCache{directory=" + directory + '}';
+    }
+}
@@ -31,12 +31,16 @@ import com.couchbase.client.core.lang.Tuple2;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.CharsetUtil;
 import rx.Observable;
 import rx.functions.Action1;
 import rx.functions.Func1;
 import rx.subjects.PublishSubject;
 import rx.subjects.Subject;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -45,6 +49,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * **The default implementation of a {@link ConfigurationProvider}.**
@@ -124,6 +131,26 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
      */
     private volatile Set<NetworkAddress> seedHosts;
 
+    /**
+     * The highest revision proposed per bucket, used to discard duplicate proposals before parsing.
+     */
+    private final ConcurrentMap<String, Long> proposedRevs;
+
+    /**
+     * The body hash of the last proposal per bucket, used as a fallback when a config carries no revision.
+     */
+    private final ConcurrentMap<String, Integer> proposedHashes;
+
+    /**
+     * The cache of the last applied bucket configs, null if disabled.
+     */
+    private final BucketConfigCache configCache;
+
+    /**
+     * Buckets whose current config has been loaded from the cache and not been confirmed by the cluster yet.
+     */
+    private final Set<String> cachedBuckets;
+
     /**
      * Create a new {@link DefaultConfigurationProvider}.
      *
@@ -170,6 +197,11 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
 
         configObservable = PublishSubject.<ClusterConfig>create().toSerialized();
         seedHosts = null;
+        proposedRevs = new ConcurrentHashMap<String, Long>();
+        proposedHashes = new ConcurrentHashMap<String, Integer>();
+        configCache = environment.configCacheDirectory() == null
+            ? null : new BucketConfigCache(new File(environment.configCacheDirectory()));
+        cachedBuckets = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         bootstrapped = false;
         terminated = false;
         currentConfig = new DefaultClusterConfig();
@@ -255,8 +287,7 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
                 })
         ).take(1);
 
-        return
-                observable
+        Observable<ClusterConfig> loaded = observable
                         .doOnNext(new Action1<Tuple2<LoaderType, BucketConfig>>() {
                             @Override
                             public void call(final Tuple2<LoaderType, BucketConfig> tuple) {
@@ -269,7 +300,15 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
                                 upsertBucketConfig(tuple.value2());
                                 return currentConfig;
                             }
-                        })
+                        });
+
+        BucketConfig cached = loadCachedConfig(bucket, username, password);
+        if (cached != null) {
+            return openCachedBucket(cached, loaded);
+        }
+
+        return
+                loaded
                         .doOnNext(new Action1<ClusterConfig>() {
                             @Override
                             public void call(ClusterConfig clusterConfig) {
@@ -295,6 +334,92 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
                         });
     }
 
+    /**
+     * Loads the cached config of a bucket, if the config cache is enabled and has one.
+     *
+     * @param bucket the name of the bucket.
+     * @param username the user authorized for bucket access.
+     * @param password the password of the user.
+     * @return the cached config or null if none is available.
+     */
+    private BucketConfig loadCachedConfig(final String bucket, final String username, final String password) {
+        if (configCache == null) {
+            return null;
+        }
+        String rawConfig = configCache.load(bucket);
+        if (rawConfig == null) {
+            return null;
+        }
+        try {
+            BucketConfig config = BucketConfigParser.parse(rawConfig, environment);
+            config.username(username);
+            config.password(password);
+            return config;
+        } catch (Exception ex) {
+            LOGGER.warn("Could not parse the cached config of bucket {}, ignoring it.", bucket, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Opens a bucket with its cached config, so that the nodes are connected right away.
+     *
+     * The config is loaded from the cluster in the background and replaces the cached one regardless of its
+     * revision, since the cached config might stem from an earlier incarnation of the cluster. If loading
+     * fails before the cached config has been replaced, it cannot be trusted (the credentials might be wrong,
+     * the bucket deleted or the cache from a different cluster), so the cached config is dropped and the bucket
+     * is closed again, failing subsequent requests with a
+     * {@link com.couchbase.client.core.BucketClosedException}.
+     *
+     * @param cached the cached config.
+     * @param loaded the config loaded from the cluster.
+     * @return the cluster config including the cached bucket.
+     */
+    private Observable<ClusterConfig> openCachedBucket(final BucketConfig cached,
+        final Observable<ClusterConfig> loaded) {
+        final String bucket = cached.name();
+        LOGGER.info("Opening bucket {} with its cached config rev {}, validating against the cluster.",
+            bucket, cached.rev());
+        upsertBucketConfig(cached, true);
+        registerBucketForRefresh(cached instanceof CouchbaseBucketConfig ? LoaderType.Carrier : LoaderType.HTTP,
+            cached);
+        if (eventBus != null && eventBus.hasSubscribers()) {
+            eventBus.publish(new BucketOpenedEvent(bucket));
+        }
+        bootstrapped = true;
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        loaded.subscribe(new Action1<ClusterConfig>() {
+            @Override
+            public void call(ClusterConfig clusterConfig) {
+                LOGGER.debug("Replaced the cached config of bucket {} with the one from the cluster.", bucket);
+            }
+        }, new Action1<Throwable>() {
+            @Override
+            public void call(Throwable throwable) {
+                if (!cachedBuckets.contains(bucket)) {
+                    LOGGER.debug("Could not load the config of bucket {} from the cluster, but it has been "
+                        + "refreshed in the meantime.", bucket, throwable);
+                    return;
+                }
+                LOGGER.warn("Could not validate the cached config of bucket {} against the cluster, closing "
+                    + "the bucket.", bucket, throwable);
+                removeBucketConfig(bucket);
+                configCache.remove(bucket);
+                if (eventBus != null && eventBus.hasSubscribers()) {
+                    eventBus.publish(new BucketClosedEvent(bucket));
+                }
+                failure.set(throwable);
+            }
+        });
+
+        // the load might have failed right away, in which case the caller learns about it directly.
+        if (failure.get() != null) {
+            return Observable.error(new ConfigurationException("Could not open bucket.", failure.get()));
+        }
+        return Observable.just(currentConfig);
+    }
+
     @Override
     public Observable<ClusterConfig> closeBucket(String name) {
         LOGGER.debug("Closing bucket {}", name);
@@ -348,6 +473,111 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         upsertBucketConfig(config);
     }
 
+    /**
+     * Propose a raw, still encoded bucket config to the given provider.
+     *
+     * A {@link DefaultConfigurationProvider} takes the buffer as is, see
+     * {@link #proposeBucketConfig(String, ByteBuf, NetworkAddress)}. Other providers get the decoded config
+     * through {@link ConfigurationProvider#proposeBucketConfig(String, String)}. The buffer is not released,
+     * the caller stays responsible for it.
+     *
+     * @param provider the provider to propose the config to.
+     * @param bucket the name of the bucket.
+     * @param rawConfig the raw encoded config.
+     * @param origin the host the config has been received from, used to replace "$HOST" placeholders.
+     *               If null, no replacement is performed.
+     */
+    public static void proposeBucketConfig(final ConfigurationProvider provider, final String bucket,
+        final ByteBuf rawConfig, final NetworkAddress origin) {
+        if (provider instanceof DefaultConfigurationProvider) {
+            ((DefaultConfigurationProvider) provider).proposeBucketConfig(bucket, rawConfig, origin);
+        } else {
+            String raw = rawConfig.toString(CharsetUtil.UTF_8);
+            provider.proposeBucketConfig(bucket, origin == null ? raw : raw.replace("$HOST", origin.address()));
+        }
+    }
+
+    /**
+     * Propose a raw, still encoded bucket config.
+     *
+     * Configs which are not newer than the one already applied are discarded cheaply before performing
+     * a full parse. The buffer is not released and its reader index is not modified, the caller stays
+     * responsible for it.
+     *
+     * @param bucket the name of the bucket.
+     * @param rawConfig the raw encoded config.
+     * @param origin the host the config has been received from, used to replace "$HOST" placeholders.
+     *               If null, no replacement is performed.
+     */
+    public void proposeBucketConfig(final String bucket, final ByteBuf rawConfig, final NetworkAddress origin) {
+        LOGGER.debug("New Bucket {} config proposed.", bucket);
+
+        long rev = BucketConfigParser.parseRev(rawConfig);
+        int hash = 0;
+        if (rev > 0) {
+            if (!claimRev(bucket, rev)) {
+                LOGGER.trace("Not parsing proposed configuration, rev {} already seen.", rev);
+                return;
+            }
+        } else {
+            hash = 31 * ByteBufUtil.hashCode(rawConfig) + (origin == null ? 0 : origin.hashCode());
+            Integer lastHash = proposedHashes.put(bucket, hash);
+            if (lastHash != null && lastHash == hash && currentConfig.hasBucket(bucket)) {
+                LOGGER.trace("Not parsing proposed configuration, content did not change.");
+                return;
+            }
+        }
+
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Proposed raw config is {}", rawConfig.toString(CharsetUtil.UTF_8));
+        }
+        try {
+            BucketConfig config = BucketConfigParser.parse(rawConfig, environment, origin);
+            if (configCache != null && config instanceof AbstractBucketConfig) {
+                String raw = rawConfig.toString(CharsetUtil.UTF_8);
+                ((AbstractBucketConfig) config).rawConfig(
+                    origin == null ? raw : raw.replace("$HOST", origin.address()));
+            }
+            upsertBucketConfig(config);
+        } catch (RuntimeException ex) {
+            // forget the claim so that an intact copy of the same config is not dropped as already seen.
+            if (rev > 0) {
+                proposedRevs.remove(bucket, rev);
+            } else {
+                proposedHashes.remove(bucket, hash);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Records the given revision as seen for the bucket if it is newer than both the last proposed one
+     * and the currently applied one.
+     *
+     * @param bucket the name of the bucket.
+     * @param rev the proposed revision.
+     * @return true if the revision is newer and should be parsed, false otherwise.
+     */
+    private boolean claimRev(final String bucket, final long rev) {
+        BucketConfig current = currentConfig.bucketConfig(bucket);
+        if (current != null && rev <= current.rev() && !cachedBuckets.contains(bucket)) {
+            return false;
+        }
+
+        while (true) {
+            Long seen = proposedRevs.get(bucket);
+            if (seen == null) {
+                if (proposedRevs.putIfAbsent(bucket, rev) == null) {
+                    return true;
+                }
+            } else if (rev <= seen) {
+                return false;
+            } else if (proposedRevs.replace(bucket, seen, rev)) {
+                return true;
+            }
+        }
+    }
+
     @Override
     public void signalOutdated() {
         LOGGER.debug("Received signal to proactively refresh (a maybe outdated) configuration.");
@@ -362,6 +592,23 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         }
     }
 
+    /**
+     * Signals that the given node started (or stopped) to push cluster map change notifications for
+     * the bucket, so that refreshers can relax their proactive polling accordingly.
+     *
+     * @param bucket the name of the bucket.
+     * @param node the node which pushes notifications.
+     * @param enabled true if notifications are delivered, false if the connection went away.
+     */
+    public void signalClustermapNotifications(final String bucket, final NetworkAddress node, final boolean enabled) {
+        LOGGER.debug("Cluster map change notifications for bucket {} from {} enabled: {}", bucket, node, enabled);
+        for (Refresher refresher : refreshers.values()) {
+            if (refresher instanceof CarrierRefresher) {
+                ((CarrierRefresher) refresher).markClustermapNotifications(bucket, node, enabled);
+            }
+        }
+    }
+
     @Override
     public synchronized Observable<Boolean> shutdown() {
         if (terminated) {
@@ -370,6 +617,9 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         } else {
             LOGGER.debug("Shutting down ConfigurationProvider.");
             terminated = true;
+            if (configCache != null) {
+                configCache.shutdown();
+            }
 
             return Observable
                 .just(true)
@@ -427,10 +677,31 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
      * @param newConfig the configuration of the bucket.
      */
     private void upsertBucketConfig(final BucketConfig newConfig) {
+        upsertBucketConfig(newConfig, false);
+    }
+
+    /**
+     * Helper method which takes the given bucket config and applies it to the cluster config.
+     *
+     * A config from the cache is not written back to it, and the first config from the cluster which
+     * follows it is applied regardless of its revision.
+     *
+     * @param newConfig the configuration of the bucket.
+     * @param fromCache true if the config has been loaded from the config cache.
+     */
+    private void upsertBucketConfig(final BucketConfig newConfig, final boolean fromCache) {
         ClusterConfig cluster = currentConfig;
         BucketConfig oldConfig = cluster.bucketConfig(newConfig.name());
 
-        if (newConfig.rev() > 0 && oldConfig != null && newConfig.rev() <= oldConfig.rev()) {
+        boolean replacesCached;
+        if (fromCache) {
+            cachedBuckets.add(newConfig.name());
+            replacesCached = false;
+        } else {
+            replacesCached = cachedBuckets.remove(newConfig.name());
+        }
+
+        if (!replacesCached && newConfig.rev() > 0 && oldConfig != null && newConfig.rev() <= oldConfig.rev()) {
             LOGGER.trace("Not applying new configuration, older rev ID.");
             return;
         }
@@ -463,6 +734,25 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         }
 
         configObservable.onNext(currentConfig);
+
+        if (!fromCache) {
+            persistConfig(newConfig);
+        }
+    }
+
+    /**
+     * Writes the given config to the config cache in the background, if enabled.
+     *
+     * @param config the applied config.
+     */
+    private void persistConfig(final BucketConfig config) {
+        if (configCache == null || !(config instanceof AbstractBucketConfig)) {
+            return;
+        }
+        String rawConfig = ((AbstractBucketConfig) config).rawConfig();
+        if (rawConfig != null) {
+            configCache.storeAsync(config.name(), config.rev(), rawConfig);
+        }
     }
 
     /**
@@ -474,6 +764,9 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         LOGGER.debug("Removing bucket {} configuration from known configs.", name);
         ClusterConfig cluster = currentConfig;
         cluster.deleteBucketConfig(name);
+        proposedRevs.remove(name);
+        proposedHashes.remove(name);
+        cachedBuckets.remove(name);
         currentConfig = cluster;
         configObservable.onNext(currentConfig);
     }
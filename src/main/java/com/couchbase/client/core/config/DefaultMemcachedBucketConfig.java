@@ -27,17 +27,43 @@ import io.netty.util.CharsetUtil;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implements MemcachedBucketConfig {
 
+    /**
+     * Reusable MD5 digest per thread, since obtaining a new one for every key is costly.
+     */
+    private static final ThreadLocal<MessageDigest> MD5 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Could not initialize MD5 digest.", e);
+            }
+        }
+    };
+
     private final long rev;
     private final TreeMap<Long, NodeInfo> ketamaNodes;
     private final ConfigParserEnvironment env;
 
+    /**
+     * The sorted ketama points, flattened from {@link #ketamaNodes} for allocation-free lookups.
+     */
+    private final long[] ketamaPoints;
+
+    /**
+     * The hostname owning the point at the same index in {@link #ketamaPoints}.
+     */
+    private final NetworkAddress[] ketamaHosts;
+
     /**
      * Creates a new {@link MemcachedBucketConfig}.
      *
@@ -64,6 +90,15 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
         this.rev = rev;
         this.ketamaNodes = new TreeMap<Long, NodeInfo>();
         populateKetamaNodes();
+
+        this.ketamaPoints = new long[ketamaNodes.size()];
+        this.ketamaHosts = new NetworkAddress[ketamaNodes.size()];
+        int i = 0;
+        for (Map.Entry<Long, NodeInfo> entry : ketamaNodes.entrySet()) {
+            ketamaPoints[i] = entry.getKey();
+            ketamaHosts[i] = entry.getValue().hostname();
+            i++;
+        }
     }
 
     @Override
@@ -87,26 +122,22 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
     }
 
     private void populateKetamaNodes() {
+        MessageDigest md5 = MD5.get();
         for (NodeInfo node : nodes()) {
             if (!node.services().containsKey(ServiceType.BINARY)) {
                 continue;
             }
 
             for (int i = 0; i < 40; i++) {
-                MessageDigest md5;
-                try {
-                    md5 = MessageDigest.getInstance("MD5");
-                    md5.update(env.memcachedHashingStrategy().hash(node, i).getBytes(CharsetUtil.UTF_8));
-                    byte[] digest = md5.digest();
-                    for (int j = 0; j < 4; j++) {
-                        Long key = ((long) (digest[3 + j * 4] & 0xFF) << 24)
-                            | ((long) (digest[2 + j * 4] & 0xFF) << 16)
-                            | ((long) (digest[1 + j * 4] & 0xFF) << 8)
-                            | (digest[j * 4] & 0xFF);
-                        ketamaNodes.put(key, node);
-                    }
-                } catch (NoSuchAlgorithmException e) {
-                    throw new IllegalStateException("Could not populate ketama nodes.", e);
+                md5.reset();
+                md5.update(env.memcachedHashingStrategy().hash(node, i).getBytes(CharsetUtil.UTF_8));
+                byte[] digest = md5.digest();
+                for (int j = 0; j < 4; j++) {
+                    Long key = ((long) (digest[3 + j * 4] & 0xFF) << 24)
+                        | ((long) (digest[2 + j * 4] & 0xFF) << 16)
+                        | ((long) (digest[1 + j * 4] & 0xFF) << 8)
+                        | (digest[j * 4] & 0xFF);
+                    ketamaNodes.put(key, node);
                 }
             }
         }
@@ -114,18 +145,18 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
 
     @Override
     public NetworkAddress nodeForId(final byte[] id) {
-        long hash = calculateKetamaHash(id);
-
-        if (!ketamaNodes.containsKey(hash)) {
-            SortedMap<Long, NodeInfo> tailMap = ketamaNodes.tailMap(hash);
-            if (tailMap.isEmpty()) {
-                hash = ketamaNodes.firstKey();
-            } else {
-                hash = tailMap.firstKey();
-            }
+        if (ketamaPoints.length == 0) {
+            throw new IllegalStateException("No data nodes available in the ketama ring.");
         }
 
-        return ketamaNodes.get(hash).hostname();
+        int idx = Arrays.binarySearch(ketamaPoints, calculateKetamaHash(id));
+        if (idx < 0) {
+            idx = -(idx + 1);
+            if (idx == ketamaPoints.length) {
+                idx = 0;
+            }
+        }
+        return ketamaHosts[idx];
     }
 
     @Override
@@ -140,18 +171,15 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
      * @return the calculated hash.
      */
     private static long calculateKetamaHash(final byte[] key) {
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            md5.update(key);
-            byte[] digest = md5.digest();
-            long rv = ((long) (digest[3] & 0xFF) << 24)
-                    | ((long) (digest[2] & 0xFF) << 16)
-                    | ((long) (digest[1] & 0xFF) << 8)
-                    | (digest[0] & 0xFF);
-            return rv & 0xffffffffL;
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Could not encode ketama hash.", e);
-        }
+        MessageDigest md5 = MD5.get();
+        md5.reset();
+        md5.update(key);
+        byte[] digest = md5.digest();
+        long rv = ((long) (digest[3] & 0xFF) << 24)
+                | ((long) (digest[2] & 0xFF) << 16)
+                | ((long) (digest[1] & 0xFF) << 8)
+                | (digest[0] & 0xFF);
+        return rv & 0xffffffffL;
     }
 
     @Override
@@ -16,10 +16,18 @@
 package com.couchbase.client.core.config.parser;
 
 import com.couchbase.client.core.CouchbaseException;
+import com.couchbase.client.core.config.AbstractBucketConfig;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.env.ConfigParserEnvironment;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.utils.NetworkAddress;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 
 import java.io.IOException;
 
@@ -37,9 +45,27 @@ public final class BucketConfigParser {
      */
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    /**
+     * The placeholder the server uses in configs for the host the config has been fetched from.
+     */
+    private static final String HOST_PLACEHOLDER = "$HOST";
+
+    /**
+     * The UTF-8 encoded revision field name, including its quotes.
+     */
+    private static final byte[] REV_FIELD = new byte[] { '"', 'r', 'e', 'v', '"' };
+
+    /**
+     * Returned from {@link #parseRev(ByteBuf)} if no revision could be found.
+     */
+    public static final long NO_REV = -1;
+
     /**
      * Parse a raw configuration into a {@link BucketConfig}.
      *
+     * If the config cache is enabled on the environment, the config keeps the input as its raw config so it can
+     * be persisted later on.
+     *
      * @param input the raw string input.
      * @return the parsed bucket configuration.
      */
@@ -47,9 +73,192 @@ public final class BucketConfigParser {
         try {
             InjectableValues inject = new InjectableValues.Std()
                     .addValue("env", env);
-            return OBJECT_MAPPER.readerFor(BucketConfig.class).with(inject).readValue(input);
+            BucketConfig config = OBJECT_MAPPER.readerFor(BucketConfig.class).with(inject).readValue(input);
+            if (config instanceof AbstractBucketConfig && env instanceof CoreEnvironment
+                && ((CoreEnvironment) env).configCacheDirectory() != null) {
+                ((AbstractBucketConfig) config).rawConfig(input);
+            }
+            return config;
         } catch (IOException e) {
             throw new CouchbaseException("Could not parse configuration", e);
         }
     }
+
+    /**
+     * Parse a raw configuration straight from its encoded bytes into a {@link BucketConfig}.
+     *
+     * The content is streamed into the parser without decoding it into an intermediate {@link String} first.
+     * If an origin is given, every "$HOST" placeholder in string values is replaced with its address while
+     * parsing. The reader index of the buffer is not modified and it is not released.
+     *
+     * @param input the raw encoded input.
+     * @param env the environment to inject.
+     * @param origin the host the config has been loaded from, can be null if no replacement should happen.
+     * @return the parsed bucket configuration.
+     */
+    public static BucketConfig parse(final ByteBuf input, final ConfigParserEnvironment env,
+        final NetworkAddress origin) {
+        try {
+            InjectableValues inject = new InjectableValues.Std()
+                    .addValue("env", env);
+            JsonParser parser = OBJECT_MAPPER.getFactory().createParser(new ByteBufInputStream(input.slice()));
+            if (origin != null) {
+                parser = new HostReplacingParser(parser, origin.address());
+            }
+            try {
+                return OBJECT_MAPPER.readerFor(BucketConfig.class).with(inject).readValue(parser);
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            throw new CouchbaseException("Could not parse configuration", e);
+        }
+    }
+
+    /**
+     * Extracts the revision of a raw configuration without parsing the whole document.
+     *
+     * This scans for the first "rev" field and reads the number which follows. Since the server puts
+     * the revision at the very beginning of the config, this is much cheaper than a full parse and can
+     * be used to discard configs which are not newer than the one already applied.
+     *
+     * @param input the raw encoded input, the reader index is not modified.
+     * @return the revision or {@link #NO_REV} if none could be found.
+     */
+    public static long parseRev(final ByteBuf input) {
+        int end = input.writerIndex();
+        int fieldEnd = end - REV_FIELD.length;
+        for (int i = input.readerIndex(); i <= fieldEnd; i++) {
+            if (!matchesAt(input, i, REV_FIELD)) {
+                continue;
+            }
+
+            int pos = skipWhitespace(input, i + REV_FIELD.length, end);
+            if (pos >= end || input.getByte(pos) != ':') {
+                continue;
+            }
+            pos = skipWhitespace(input, pos + 1, end);
+
+            long rev = 0;
+            int digits = 0;
+            while (pos < end) {
+                byte b = input.getByte(pos);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                rev = rev * 10 + (b - '0');
+                digits++;
+                pos++;
+            }
+            return digits > 0 ? rev : NO_REV;
+        }
+        return NO_REV;
+    }
+
+    /**
+     * Checks if the given raw content looks like a JSON config (its first non-whitespace character
+     * opens an object).
+     *
+     * @param input the raw encoded input, the reader index is not modified.
+     * @return true if the content starts with a JSON object.
+     */
+    public static boolean isConfig(final ByteBuf input) {
+        int end = input.writerIndex();
+        int pos = skipWhitespace(input, input.readerIndex(), end);
+        return pos < end && input.getByte(pos) == '{';
+    }
+
+    private static boolean matchesAt(final ByteBuf input, final int index, final byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (input.getByte(index + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(final ByteBuf input, final int from, final int end) {
+        int pos = from;
+        while (pos < end) {
+            byte b = input.getByte(pos);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * A {@link JsonParser} which replaces the "$HOST" placeholder in all string values with the
+     * actual hostname on the fly.
+     */
+    static class HostReplacingParser extends JsonParserDelegate {
+
+        private final String host;
+
+        HostReplacingParser(final JsonParser delegate, final String host) {
+            super(delegate);
+            this.host = host;
+        }
+
+        private String replace(final String value) {
+            if (value == null || value.indexOf('$') < 0) {
+                return value;
+            }
+            return value.replace(HOST_PLACEHOLDER, host);
+        }
+
+        private boolean isValueString() {
+            return delegate.getCurrentToken() == JsonToken.VALUE_STRING;
+        }
+
+        @Override
+        public String getText() throws IOException {
+            String text = delegate.getText();
+            return isValueString() ? replace(text) : text;
+        }
+
+        @Override
+        public boolean hasTextCharacters() {
+            // force callers through getText so the replacement cannot be bypassed
+            return !isValueString() && delegate.hasTextCharacters();
+        }
+
+        @Override
+        public char[] getTextCharacters() throws IOException {
+            if (isValueString()) {
+                return getText().toCharArray();
+            }
+            return delegate.getTextCharacters();
+        }
+
+        @Override
+        public int getTextLength() throws IOException {
+            if (isValueString()) {
+                return getText().length();
+            }
+            return delegate.getTextLength();
+        }
+
+        @Override
+        public int getTextOffset() throws IOException {
+            return isValueString() ? 0 : delegate.getTextOffset();
+        }
+
+        @Override
+        public String getValueAsString() throws IOException {
+            return replace(delegate.getValueAsString());
+        }
+
+        @Override
+        public String getValueAsString(final String defaultValue) throws IOException {
+            return replace(delegate.getValueAsString(defaultValue));
+        }
+
+        @Override
+        public String nextTextValue() throws IOException {
+            return replace(delegate.nextTextValue());
+        }
+    }
 }
@@ -19,7 +19,9 @@ import com.couchbase.client.core.ClusterFacade;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.ConfigurationException;
+import com.couchbase.client.core.config.DefaultConfigurationProvider;
 import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.config.parser.BucketConfigParser;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
@@ -28,7 +30,7 @@ import com.couchbase.client.core.message.kv.GetBucketConfigResponse;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.utils.Buffers;
 import com.couchbase.client.core.utils.NetworkAddress;
-import io.netty.util.CharsetUtil;
+import io.netty.buffer.ByteBuf;
 import rx.Observable;
 import rx.Subscriber;
 import rx.Subscription;
@@ -38,10 +40,12 @@ import rx.functions.Func1;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -78,6 +82,12 @@ public class CarrierRefresher extends AbstractRefresher {
      */
     private final Map<String, Long> lastPollTimestamps;
 
+    /**
+     * Stores the nodes which push cluster map change notifications per bucket, together with the number of
+     * their endpoints which do so. A node stops counting once all of its endpoints stopped.
+     */
+    private final ConcurrentMap<String, Map<NetworkAddress, Integer>> notifyingNodes;
+
     /**
      * Creates a new {@link CarrierRefresher}.
      *
@@ -89,6 +99,7 @@ public class CarrierRefresher extends AbstractRefresher {
         subscriptions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         this.environment = environment;
         this.lastPollTimestamps = new ConcurrentHashMap<String, Long>();
+        this.notifyingNodes = new ConcurrentHashMap<String, Map<NetworkAddress, Integer>>();
         this.nodeOffset = 0;
 
         long pollInterval = environment.configPollInterval();
@@ -150,9 +161,9 @@ public class CarrierRefresher extends AbstractRefresher {
                     }
                     return allowed;
                 }
-            }).flatMap(new Func1<Long, Observable<String>>() {
+            }).flatMap(new Func1<Long, Observable<GetBucketConfigResponse>>() {
                 @Override
-                public Observable<String> call(Long aLong) {
+                public Observable<GetBucketConfigResponse> call(Long aLong) {
                     List<NodeInfo> nodeInfos = new ArrayList<NodeInfo>(config.nodes());
                     if (nodeInfos.isEmpty()) {
                         LOGGER.debug("Cannot poll bucket, because node list contains no nodes.");
@@ -161,7 +172,7 @@ public class CarrierRefresher extends AbstractRefresher {
                     shiftNodeList(nodeInfos);
                     return buildRefreshFallbackSequence(nodeInfos, bucketName);
                 }
-            }).subscribe(new Subscriber<String>() {
+            }).subscribe(new Subscriber<GetBucketConfigResponse>() {
                 @Override
                 public void onCompleted() {
                     LOGGER.debug("Completed polling for bucket \"{}\".", bucketName);
@@ -173,10 +184,8 @@ public class CarrierRefresher extends AbstractRefresher {
                 }
 
                 @Override
-                public void onNext(String rawConfig) {
-                    if (rawConfig.startsWith("{")) {
-                        provider().proposeBucketConfig(bucketName, rawConfig);
-                    }
+                public void onNext(GetBucketConfigResponse response) {
+                    proposeAndRelease(bucketName, response);
                 }
             });
     }
@@ -223,8 +232,9 @@ public class CarrierRefresher extends AbstractRefresher {
                         return;
                     }
                     shiftNodeList(nodeInfos);
-                    Observable<String> refreshSequence = buildRefreshFallbackSequence(nodeInfos, bucketName);
-                    refreshSequence.subscribe(new Subscriber<String>() {
+                    Observable<GetBucketConfigResponse> refreshSequence =
+                        buildRefreshFallbackSequence(nodeInfos, bucketName);
+                    refreshSequence.subscribe(new Subscriber<GetBucketConfigResponse>() {
                         @Override
                         public void onCompleted() {
                             LOGGER.debug("Completed refreshing config for bucket \"{}\"", bucketName);
@@ -236,16 +246,74 @@ public class CarrierRefresher extends AbstractRefresher {
                         }
 
                         @Override
-                        public void onNext(String rawConfig) {
-                            if (rawConfig.startsWith("{")) {
-                                provider().proposeBucketConfig(config.name(), rawConfig);
-                            }
+                        public void onNext(GetBucketConfigResponse response) {
+                            proposeAndRelease(bucketName, response);
                         }
                     });
                 }
             });
     }
 
+    /**
+     * Marks the given bucket as receiving (or not receiving anymore) server-pushed cluster map change
+     * notifications from the given node.
+     *
+     * @param bucket the name of the bucket.
+     * @param node the node which pushes notifications.
+     * @param enabled true if notifications are delivered, false if the connection went away.
+     */
+    public void markClustermapNotifications(final String bucket, final NetworkAddress node, final boolean enabled) {
+        Map<NetworkAddress, Integer> nodes = notifyingNodes.get(bucket);
+        if (nodes == null) {
+            if (!enabled) {
+                return;
+            }
+            Map<NetworkAddress, Integer> newNodes = new HashMap<NetworkAddress, Integer>();
+            nodes = notifyingNodes.putIfAbsent(bucket, newNodes);
+            if (nodes == null) {
+                nodes = newNodes;
+            }
+        }
+
+        synchronized (nodes) {
+            Integer endpoints = nodes.get(node);
+            if (enabled) {
+                nodes.put(node, endpoints == null ? 1 : endpoints + 1);
+                if (endpoints == null) {
+                    LOGGER.debug("Node {} pushes cluster map changes for bucket \"{}\", relaxing polling.",
+                        node, bucket);
+                }
+            } else if (endpoints != null) {
+                if (endpoints > 1) {
+                    nodes.put(node, endpoints - 1);
+                } else {
+                    nodes.remove(node);
+                    LOGGER.debug("Node {} stopped pushing cluster map changes for bucket \"{}\".", node, bucket);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method which proposes the raw config of a successful response (if it looks like one)
+     * and releases its content afterwards.
+     *
+     * @param bucketName the name of the bucket.
+     * @param response the response carrying the raw config.
+     */
+    private void proposeAndRelease(final String bucketName, final GetBucketConfigResponse response) {
+        ByteBuf content = response.content();
+        try {
+            if (BucketConfigParser.isConfig(content)) {
+                DefaultConfigurationProvider.proposeBucketConfig(provider(), bucketName, content, response.hostname());
+            }
+        } finally {
+            if (content.refCnt() > 0) {
+                content.release();
+            }
+        }
+    }
+
     /**
      * Helper method which builds the refresh fallback sequence based on the node list.
      *
@@ -253,8 +321,9 @@ public class CarrierRefresher extends AbstractRefresher {
      * @param bucketName the name of the bucket.
      * @return an observable containing flatMapped failback sequences.
      */
-    private Observable<String> buildRefreshFallbackSequence(List<NodeInfo> nodeInfos, String bucketName) {
-        Observable<String> failbackSequence = null;
+    private Observable<GetBucketConfigResponse> buildRefreshFallbackSequence(List<NodeInfo> nodeInfos,
+        String bucketName) {
+        Observable<GetBucketConfigResponse> failbackSequence = null;
         for (final NodeInfo nodeInfo : nodeInfos) {
             if (!isValidCarrierNode(environment.sslEnabled(), nodeInfo)) {
                 continue;
@@ -306,10 +375,34 @@ public class CarrierRefresher extends AbstractRefresher {
 
     /**
      * Returns true if polling is allowed, false if we are below the configured floor poll interval.
+     *
+     * If the bucket receives server-pushed cluster map change notifications, polling only acts as a safety
+     * net and the floor is raised to the configured safety net interval.
      */
     private boolean allowedToPoll(final String bucket) {
         Long bucketLastPollTimestamp = lastPollTimestamps.get(bucket);
-        return bucketLastPollTimestamp == null || ((System.nanoTime() - bucketLastPollTimestamp) >= POLL_FLOOR_NS);
+        if (bucketLastPollTimestamp == null) {
+            return true;
+        }
+
+        long floor = POLL_FLOOR_NS;
+        if (hasNotifyingNodes(bucket)) {
+            floor = Math.max(floor, TimeUnit.MILLISECONDS.toNanos(environment.configSafetyNetPollInterval()));
+        }
+        return (System.nanoTime() - bucketLastPollTimestamp) >= floor;
+    }
+
+    /**
+     * Returns true if at least one node pushes cluster map change notifications for the bucket.
+     */
+    private boolean hasNotifyingNodes(final String bucket) {
+        Map<NetworkAddress, Integer> nodes = notifyingNodes.get(bucket);
+        if (nodes == null) {
+            return false;
+        }
+        synchronized (nodes) {
+            return !nodes.isEmpty();
+        }
     }
 
     /**
@@ -317,9 +410,9 @@ public class CarrierRefresher extends AbstractRefresher {
      *
      * @param bucketName the name of the bucket.
      * @param hostname the hostname of the node to fetch from.
-     * @return a raw configuration or an error.
+     * @return a successful response carrying the raw configuration or an error.
      */
-    private Observable<String> refreshAgainstNode(final String bucketName, final NetworkAddress hostname) {
+    private Observable<GetBucketConfigResponse> refreshAgainstNode(final String bucketName, final NetworkAddress hostname) {
         return Buffers.wrapColdWithAutoRelease(Observable.defer(new Func0<Observable<GetBucketConfigResponse>>() {
             @Override
             public Observable<GetBucketConfigResponse> call() {
@@ -337,16 +430,6 @@ public class CarrierRefresher extends AbstractRefresher {
                 }
             }
         })
-        .map(new Func1<GetBucketConfigResponse, String>() {
-            @Override
-            public String call(GetBucketConfigResponse response) {
-                String raw = response.content().toString(CharsetUtil.UTF_8).trim();
-                if (response.content().refCnt() > 0) {
-                    response.content().release();
-                }
-                return raw.replace("$HOST", response.hostname().address());
-            }
-        })
         .doOnError(new Action1<Throwable>() {
             @Override
             public void call(Throwable ex) {
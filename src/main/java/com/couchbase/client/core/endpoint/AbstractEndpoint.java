@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.endpoint;
 
+import com.couchbase.client.core.CircuitBreakerOpenException;
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.ResponseHandler;
 import com.couchbase.client.core.endpoint.kv.AuthenticationException;
@@ -23,9 +24,12 @@ import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.KeepAlive;
 import com.couchbase.client.core.message.internal.EndpointHealth;
 import com.couchbase.client.core.message.internal.SignalConfigReload;
 import com.couchbase.client.core.message.internal.SignalFlush;
+import com.couchbase.client.core.message.kv.BinaryRequest;
+import com.couchbase.client.core.retry.RetryHelper;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.state.AbstractStateMachine;
 import com.couchbase.client.core.state.LifecycleState;
@@ -33,7 +37,6 @@ import com.couchbase.client.core.state.NotConnectedException;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -150,6 +153,16 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
 
     private final String hostname;
 
+    /**
+     * The circuit breaker guarding this endpoint, null if disabled.
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * The limiter for connect attempts against the node of this endpoint, null if not available.
+     */
+    private final ConnectLimiter connectLimiter;
+
     /**
      * Factory which handles {@link SSLEngine} creation.
      */
@@ -220,6 +233,8 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         this.lastResponse = 0;
         this.free = true;
         this.hostname = "127.0.0.1"; // let's consider its localhost for testing, use other constructor if not.
+        this.circuitBreaker = createCircuitBreaker();
+        this.connectLimiter = env == null ? null : env.connectLimiter();
     }
 
     /**
@@ -247,6 +262,8 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         this.pipeline = pipeline;
         this.free = true;
         this.hostname = hostname;
+        this.circuitBreaker = createCircuitBreaker();
+        this.connectLimiter = environment.connectLimiter();
         this.connectCallbackGracePeriod = Integer.parseInt(
             System.getProperty("com.couchbase.connectCallbackGracePeriod", DEFAULT_CONNECT_CALLBACK_GRACE_PERIOD)
         );
@@ -264,7 +281,7 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         }
 
         ByteBufAllocator allocator = env.bufferPoolingEnabled()
-                ? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT;
+                ? env.bufferPoolAllocator() : UnpooledByteBufAllocator.DEFAULT;
 
         boolean tcpNodelay = environment().tcpNodelayEnabled();
         bootstrap = new BootstrapAdapter(new Bootstrap()
@@ -289,6 +306,20 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
             }));
     }
 
+    /**
+     * Creates the circuit breaker for this endpoint if enabled, transient endpoints are never guarded.
+     *
+     * @return the circuit breaker or null if disabled.
+     */
+    private CircuitBreaker createCircuitBreaker() {
+        CircuitBreakerConfig config = env == null ? null : env.circuitBreakerConfig();
+        if (config == null || !config.enabled() || isTransient) {
+            return null;
+        }
+        return new CircuitBreaker(config, env.scheduler(), env.eventBus(), hostname, bucket,
+            getClass().getSimpleName());
+    }
+
     /**
      * Add custom endpoint handlers to the {@link ChannelPipeline}.
      *
@@ -332,6 +363,29 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
      *                      some errors (like socket connect timeout).
      */
     protected void doConnect(final Subject<LifecycleState, LifecycleState> observable, final boolean bootstrapping) {
+        final ConnectLimiter limiter = connectLimiter;
+        if (limiter == null) {
+            connectChannel(observable, bootstrapping, null);
+        } else {
+            limiter.acquire(hostname, new Runnable() {
+                @Override
+                public void run() {
+                    connectChannel(observable, bootstrapping, limiter);
+                }
+            });
+        }
+    }
+
+    /**
+     * Connects the channel once the connect limiter of the node handed out a permit.
+     *
+     * @param observable the {@link Subject} which is eventually notified if the connect process
+     *                   succeeded or failed.
+     * @param bootstrapping true if connection attempt is for bootstrapping phase.
+     * @param limiter the limiter to release the permit to once the attempt completed, may be null.
+     */
+    private void connectChannel(final Subject<LifecycleState, LifecycleState> observable, final boolean bootstrapping,
+        final ConnectLimiter limiter) {
         Single.create(new Single.OnSubscribe<ChannelFuture>() {
             @Override
             public void call(final SingleSubscriber<? super ChannelFuture> ss) {
@@ -377,6 +431,9 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         .subscribe(new SingleSubscriber<ChannelFuture>() {
             @Override
             public void onSuccess(ChannelFuture future) {
+                if (limiter != null) {
+                    limiter.release(hostname);
+                }
                 if (disconnected) {
                     LOGGER.debug(logIdent(channel, AbstractEndpoint.this) + "Endpoint connect completed, "
                             + "but got instructed to disconnect in the meantime.");
@@ -480,6 +537,9 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
                 // All errors are converted to failed ChannelFutures before, so this observable
                 // should never fail.
                 LOGGER.warn("Unexpected error on connect callback wrapper, this is a bug.", error);
+                if (limiter != null) {
+                    limiter.release(hostname);
+                }
             }
         });
     }
@@ -527,7 +587,10 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
                     hasWritten = false;
                 }
             } else {
-                if (channel.isActive() && channel.isWritable()) {
+                if (circuitBreaker != null && !(request instanceof KeepAlive)
+                    && !circuitBreaker.allowRequest(request)) {
+                    rejectOpenCircuit(request);
+                } else if (channel.isActive() && channel.isWritable()) {
                     if (!pipeline) {
                         free = false;
                     }
@@ -546,6 +609,32 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         }
     }
 
+    /**
+     * Handles a request which is not dispatched because the circuit breaker is open.
+     *
+     * Key/value requests can only be served by the node owning the partition, so they fail fast. Requests
+     * to the other services are retried, which gives the locator a chance to pick another endpoint or node.
+     *
+     * @param request the rejected request.
+     */
+    private void rejectOpenCircuit(final CouchbaseRequest request) {
+        if (request instanceof BinaryRequest) {
+            failSafe(env.scheduler(), true, request.observable(),
+                new CircuitBreakerOpenException("Circuit breaker for " + hostname + " is open."));
+        } else {
+            RetryHelper.retryOrCancel(env, request, responseBuffer);
+        }
+    }
+
+    /**
+     * The circuit breaker guarding this endpoint.
+     *
+     * @return the circuit breaker or null if disabled.
+     */
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
     /**
      * Helper method that is called from inside the event loop to notify the upper {@link Endpoint} of a disconnect.
      *
@@ -23,13 +23,17 @@ import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.CoreScheduler;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.KeepAlive;
+import com.couchbase.client.core.message.RequestPhase;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.metrics.NetworkLatencyMetricsIdentifier;
+import com.couchbase.client.core.metrics.SlowOperationReporter;
 import com.couchbase.client.core.retry.RetryHelper;
 import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
 import com.lmax.disruptor.EventSink;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -171,6 +175,11 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
      */
     private volatile ScheduledFuture<?> continuousKeepAliveFuture;
 
+    /**
+     * The reporter which is handed every completed request, null if not available.
+     */
+    private final SlowOperationReporter slowOperationReporter;
+
     /**
      * Creates a new {@link AbstractGenericHandler} with the default queue.
      *
@@ -202,6 +211,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         this.moveResponseOut = env() == null || !env().callbacksOnIoPool();
         this.sentQueueLimit = Integer.parseInt(System.getProperty("com.couchbase.sentRequestQueueLimit", "5120"));
         this.keepAliveThreshold = 0;
+        this.slowOperationReporter = env() == null ? null : env().slowOperationReporter();
     }
 
     /**
@@ -257,6 +267,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
 
     @Override
     protected void encode(ChannelHandlerContext ctx, REQUEST msg, List<Object> out) throws Exception {
+        RequestPhase.ENCODE.mark(msg);
         ENCODED request;
         try {
             request = encodeRequest(ctx, msg);
@@ -269,6 +280,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         sentRequestQueue.offer(msg);
         out.add(request);
         sentRequestTimings.offer(System.nanoTime());
+        RequestPhase.WRITE.mark(msg);
     }
 
     @Override
@@ -280,17 +292,20 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         try {
             CouchbaseResponse response = decodeResponse(ctx, msg);
             if (response != null) {
-                publishResponse(response, currentRequest.observable());
+                publishResponse(response);
                 if (currentDecodingState == DecodingState.FINISHED) {
                     writeMetrics(response);
+                    recordCircuitOutcome(response.status());
                     if (currentRequest instanceof KeepAlive) {
                         endpoint.setLastKeepAliveLatency(currentOpTime);
                     }
                 }
             }
         } catch (CouchbaseException e) {
+            recordCircuitFailure(currentRequest);
             failSafe(env().scheduler(), moveResponseOut, currentRequest.observable(), e);
         } catch (Exception e) {
+            recordCircuitFailure(currentRequest);
             failSafe(env().scheduler(), moveResponseOut, currentRequest.observable(), new CouchbaseException(e));
         }
 
@@ -310,17 +325,10 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
             && env().networkLatencyMetricsCollector().isEnabled()) {
 
             try {
-                Class<? extends CouchbaseRequest> requestClass = currentRequest.getClass();
-                String simpleName = classNameCache.get(requestClass);
-                if (simpleName == null) {
-                    simpleName = requestClass.getSimpleName();
-                    classNameCache.put(requestClass, simpleName);
-                }
-
                 NetworkLatencyMetricsIdentifier identifier = new NetworkLatencyMetricsIdentifier(
                         remoteHostname,
                         serviceType().toString(),
-                        simpleName,
+                        requestName(currentRequest),
                         response.status().toString()
                 );
                 env().networkLatencyMetricsCollector().record(identifier, currentOpTime);
@@ -331,6 +339,56 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         }
     }
 
+    /**
+     * Records the outcome of the current response with the circuit breaker of the endpoint, if enabled.
+     *
+     * Statuses which signal an overloaded or unhealthy server count as failures, as well as responses
+     * which took longer than the configured slow call threshold. Keep alives are not tracked, they are
+     * not subject to the breaker.
+     *
+     * @param status the status of the response.
+     */
+    private void recordCircuitOutcome(final ResponseStatus status) {
+        CircuitBreaker circuitBreaker = endpoint.circuitBreaker();
+        if (circuitBreaker == null || currentRequest instanceof KeepAlive) {
+            return;
+        }
+        if (status == ResponseStatus.TEMPORARY_FAILURE || status == ResponseStatus.SERVER_BUSY
+            || status == ResponseStatus.OUT_OF_MEMORY || status == ResponseStatus.INTERNAL_ERROR) {
+            circuitBreaker.onFailure(currentRequest);
+        } else {
+            circuitBreaker.onSuccess(currentRequest, currentOpTime);
+        }
+    }
+
+    /**
+     * Records a failed request with the circuit breaker of the endpoint, if enabled.
+     *
+     * @param request the request which failed.
+     */
+    private void recordCircuitFailure(final CouchbaseRequest request) {
+        CircuitBreaker circuitBreaker = endpoint.circuitBreaker();
+        if (circuitBreaker != null && !(request instanceof KeepAlive)) {
+            circuitBreaker.onFailure(request);
+        }
+    }
+
+    /**
+     * Returns the simple class name of the request, cached to avoid computing it on every response.
+     *
+     * @param request the request to name.
+     * @return the simple name of the request class.
+     */
+    protected String requestName(final CouchbaseRequest request) {
+        Class<? extends CouchbaseRequest> requestClass = request.getClass();
+        String simpleName = classNameCache.get(requestClass);
+        if (simpleName == null) {
+            simpleName = requestClass.getSimpleName();
+            classNameCache.put(requestClass, simpleName);
+        }
+        return simpleName;
+    }
+
     /**
      * Helper method which performs the final tasks in the decoding process.
      *
@@ -354,6 +412,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         currentDecodingState = DecodingState.STARTED;
 
         if (currentRequest != null) {
+            RequestPhase.DECODE.mark(currentRequest);
             Long st = sentRequestTimings.poll();
             if (st != null) {
                 currentOpTime = System.nanoTime() - st;
@@ -367,6 +426,20 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         }
     }
 
+    /**
+     * Publishes a response to the current request, either through its callback or its observable.
+     *
+     * @param response the response to publish.
+     */
+    protected void publishResponse(final CouchbaseResponse response) {
+        if (currentRequest instanceof AbstractCouchbaseRequest
+            && ((AbstractCouchbaseRequest) currentRequest).hasCallback()) {
+            dispatchResponse(response, null);
+        } else {
+            publishResponse(response, currentRequest == null ? null : currentRequest.observable());
+        }
+    }
+
     /**
      * Publishes a response with the attached observable.
      *
@@ -375,30 +448,61 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
      */
     protected void publishResponse(final CouchbaseResponse response,
         final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
-        if (response.status() != ResponseStatus.RETRY && observable != null) {
-            if (moveResponseOut) {
-                Scheduler scheduler = env().scheduler();
-                if (scheduler instanceof CoreScheduler) {
-                    scheduleDirect((CoreScheduler) scheduler, response, observable);
-                } else {
-                    scheduleWorker(scheduler, response, observable);
-                }
+        if (observable != null) {
+            dispatchResponse(response, observable);
+        } else {
+            responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, response, observable);
+        }
+    }
+
+    /**
+     * Completes the current request with the response on the proper thread, or hands it to the response
+     * buffer for retry.
+     *
+     * @param response the response to dispatch.
+     * @param observable the observable to complete, or null if the request completes through its callback.
+     */
+    private void dispatchResponse(final CouchbaseResponse response,
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        final CouchbaseRequest request = currentRequest;
+        if (response.status() == ResponseStatus.RETRY) {
+            responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, response,
+                observable == null ? request.observable() : observable);
+            return;
+        }
+
+        final SlowOperationReporter reporter = request instanceof KeepAlive ? null : slowOperationReporter;
+        if (moveResponseOut) {
+            Scheduler scheduler = env().scheduler();
+            if (scheduler instanceof CoreScheduler) {
+                scheduleDirect((CoreScheduler) scheduler, response, observable, request, reporter, serviceType());
             } else {
-                completeResponse(response, observable);
+                scheduleWorker(scheduler, response, observable, request, reporter, serviceType());
             }
         } else {
-            responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, response, observable);
+            completeResponse(response, observable, request, reporter, serviceType());
         }
     }
 
     /**
-     * Fulfill and complete the response observable.
+     * Fulfill and complete the response observable, or the callback of the request if no observable is given.
      *
      * When called directly, this method completes on the event loop, but it can also be used in a callback (see
-     * {@link #scheduleDirect(CoreScheduler, CouchbaseResponse, Subject)} for example.
+     * {@link #scheduleDirect(CoreScheduler, CouchbaseResponse, Subject, CouchbaseRequest, SlowOperationReporter,
+     * ServiceType)} for example.
      */
     private static void completeResponse(final CouchbaseResponse response,
-        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable, final CouchbaseRequest request,
+        final SlowOperationReporter reporter, final ServiceType serviceType) {
+        markCompleted(request, reporter, serviceType);
+        if (observable == null) {
+            try {
+                ((AbstractCouchbaseRequest) request).complete(response);
+            } catch (Exception ex) {
+                LOGGER.warn("Caught exception while completing callback of " + request, ex);
+            }
+            return;
+        }
         try {
             observable.onNext(response);
             observable.onCompleted();
@@ -411,34 +515,52 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
     /**
      * Optimized version of dispatching onto the core scheduler through direct scheduling.
      *
-     * This method has less GC overhead compared to {@link #scheduleWorker(Scheduler, CouchbaseResponse, Subject)}
-     * since no worker needs to be generated explicitly (but is not part of the public Scheduler interface).
+     * This method has less GC overhead compared to {@link #scheduleWorker(Scheduler, CouchbaseResponse, Subject,
+     * CouchbaseRequest, SlowOperationReporter, ServiceType)} since no worker needs to be generated explicitly (but
+     * is not part of the public Scheduler interface).
      */
     private static void scheduleDirect(CoreScheduler scheduler, final CouchbaseResponse response,
-        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable, final CouchbaseRequest request,
+        final SlowOperationReporter reporter, final ServiceType serviceType) {
         scheduler.scheduleDirect(new Action0() {
             @Override
             public void call() {
-                completeResponse(response, observable);
+                completeResponse(response, observable, request, reporter, serviceType);
             }
         });
     }
 
+    /**
+     * Marks the request as completed right before its response is handed out and records it as a
+     * potentially slow operation.
+     */
+    private static void markCompleted(final CouchbaseRequest request, final SlowOperationReporter reporter,
+        final ServiceType serviceType) {
+        if (request == null) {
+            return;
+        }
+        RequestPhase.COMPLETE.mark(request);
+        if (reporter != null) {
+            try {
+                reporter.record(request, serviceType);
+            } catch (Throwable e) {
+                LOGGER.warn("Could not record slow operation for request " + request, e);
+            }
+        }
+    }
+
     /**
      * Dispatches the response on a generic scheduler through creating a worker.
      */
     private static void scheduleWorker(Scheduler scheduler, final CouchbaseResponse response,
-        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable, final CouchbaseRequest request,
+        final SlowOperationReporter reporter, final ServiceType serviceType) {
         final Scheduler.Worker worker = scheduler.createWorker();
         worker.schedule(new Action0() {
             @Override
             public void call() {
                 try {
-                    observable.onNext(response);
-                    observable.onCompleted();
-                } catch (Exception ex) {
-                    LOGGER.warn("Caught exception while onNext on observable", ex);
-                    observable.onError(ex);
+                    completeResponse(response, observable, request, reporter, serviceType);
                 } finally {
                     worker.unsubscribe();
                 }
@@ -457,6 +579,35 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         }
     }
 
+    /**
+     * Applies the configured streaming rows watermarks to the given subject, so that reading from the
+     * channel is paused while its subscriber lags behind and resumed once it caught up.
+     *
+     * @param ctx the channel handler context.
+     * @param rows the subject the rows are emitted on.
+     */
+    protected void applyRowsWatermarks(final ChannelHandlerContext ctx, final UnicastAutoReleaseSubject<?> rows) {
+        int high = env().streamingRowsHighWatermark();
+        if (high <= 0) {
+            return;
+        }
+
+        final Channel channel = ctx.channel();
+        rows.withWatermarks(high, env().streamingRowsLowWatermark(), new Action0() {
+            @Override
+            public void call() {
+                LOGGER.trace(logIdent(ctx, endpoint) + "Rows backlog reached the high watermark, pausing reads.");
+                channel.config().setAutoRead(false);
+            }
+        }, new Action0() {
+            @Override
+            public void call() {
+                LOGGER.trace(logIdent(ctx, endpoint) + "Rows backlog drained to the low watermark, resuming reads.");
+                channel.config().setAutoRead(true);
+            }
+        });
+    }
+
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
         LOGGER.debug(logIdent(ctx, endpoint) + "Channel Inactive.");
@@ -563,6 +714,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
             REQUEST req = sentRequestQueue.poll();
             try {
                 sideEffectRequestToCancel(req);
+                recordCircuitFailure(req);
                 failSafe(env().scheduler(), moveResponseOut, req.observable(),
                         new RequestCancelledException("Request cancelled in-flight."));
             } catch (Exception ex) {
@@ -688,6 +840,20 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         return remoteHostname;
     }
 
+    /**
+     * @return the response buffer this handler publishes into.
+     */
+    protected EventSink<ResponseEvent> responseBuffer() {
+        return responseBuffer;
+    }
+
+    /**
+     * @return the name of the bucket the parent endpoint is bound to.
+     */
+    protected String bucket() {
+        return endpoint.bucket();
+    }
+
     /**
      * Returns environment.
      *
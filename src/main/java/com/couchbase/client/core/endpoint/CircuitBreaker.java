@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import com.couchbase.client.core.event.EventBus;
+import com.couchbase.client.core.event.system.CircuitBreakerStateChangedEvent;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import rx.Scheduler;
+
+/**
+ * A circuit breaker which guards a single {@link Endpoint}.
+ *
+ * The outcomes of the requests are tracked in a rolling window which is split into {@link #BUCKETS} buckets.
+ * Once the window saw at least {@link CircuitBreakerConfig#volumeThreshold()} requests and the percentage of
+ * failed (or too slow) ones reaches {@link CircuitBreakerConfig#errorThresholdPercentage()}, the breaker opens
+ * and {@link #allowRequest(CouchbaseRequest)} rejects requests. After the sleep window one canary request is
+ * let through (half open): if it succeeds the breaker closes again, if it fails the breaker stays open for
+ * another sleep window. Only the outcome of the canary itself counts, responses to requests sent before the
+ * breaker opened are ignored. If the canary does not complete within the sleep window, another one is let
+ * through.
+ *
+ * Every state change is published as a {@link CircuitBreakerStateChangedEvent} on the event bus.
+ *
+ * @since 1.5.2
+ */
+public class CircuitBreaker {
+
+    /**
+     * The logger used.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(CircuitBreaker.class);
+
+    /**
+     * The number of buckets the rolling window is split into.
+     */
+    static final int BUCKETS = 10;
+
+    /**
+     * The states a circuit breaker can be in.
+     */
+    public enum State {
+        /**
+         * Requests are allowed and their outcomes are tracked.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected until the sleep window passed.
+         */
+        OPEN,
+
+        /**
+         * A single canary request is allowed to probe the endpoint.
+         */
+        HALF_OPEN
+    }
+
+    private final CircuitBreakerConfig config;
+    private final Scheduler clock;
+    private final EventBus eventBus;
+    private final String hostname;
+    private final String bucket;
+    private final String endpoint;
+    private final long bucketWidth;
+    private final long[] bucketEpochs = new long[BUCKETS];
+    private final int[] totals = new int[BUCKETS];
+    private final int[] failures = new int[BUCKETS];
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private CouchbaseRequest canary;
+    private long canarySentAt;
+
+    /**
+     * Creates a new {@link CircuitBreaker}.
+     *
+     * @param config the breaker configuration.
+     * @param clock the scheduler used as the time source.
+     * @param eventBus the event bus to publish state changes on, may be null.
+     * @param hostname the hostname of the guarded endpoint.
+     * @param bucket the bucket of the guarded endpoint.
+     * @param endpoint the type of the guarded endpoint.
+     */
+    public CircuitBreaker(final CircuitBreakerConfig config, final Scheduler clock, final EventBus eventBus,
+        final String hostname, final String bucket, final String endpoint) {
+        this.config = config;
+        this.clock = clock;
+        this.eventBus = eventBus;
+        this.hostname = hostname;
+        this.bucket = bucket;
+        this.endpoint = endpoint;
+        this.bucketWidth = config.rollingWindow() / BUCKETS;
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketEpochs[i] = -1;
+        }
+    }
+
+    /**
+     * The current state of the breaker.
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Checks if a request can be dispatched to the endpoint.
+     *
+     * If the breaker is half open and this method returns true, the request becomes the canary.
+     *
+     * @param request the request to dispatch.
+     * @return true if the request can be dispatched, false if it needs to be rejected.
+     */
+    public boolean allowRequest(final CouchbaseRequest request) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+
+        State from = null;
+        synchronized (this) {
+            long now = clock.now();
+            if (state == State.CLOSED) {
+                return true;
+            } else if (state == State.OPEN) {
+                if (now - openedAt < config.sleepWindow()) {
+                    return false;
+                }
+                from = state;
+                state = State.HALF_OPEN;
+            } else if (canary != null && now - canarySentAt < config.sleepWindow()) {
+                return false;
+            }
+            canary = request;
+            canarySentAt = now;
+        }
+        publishTransition(from, State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Records a successful response.
+     *
+     * @param request the request the response belongs to.
+     * @param latency the latency of the request in nanoseconds, responses slower than the configured
+     *                threshold count as failures.
+     */
+    public void onSuccess(final CouchbaseRequest request, final long latency) {
+        long slowCallThreshold = config.slowCallThreshold();
+        record(request, slowCallThreshold > 0 && latency > slowCallThreshold);
+    }
+
+    /**
+     * Records a failed request.
+     *
+     * @param request the request which failed.
+     */
+    public void onFailure(final CouchbaseRequest request) {
+        record(request, true);
+    }
+
+    private void record(final CouchbaseRequest request, final boolean failed) {
+        State from;
+        State to;
+        synchronized (this) {
+            long now = clock.now();
+            from = state;
+            if (from == State.HALF_OPEN) {
+                if (request != canary) {
+                    // only the canary decides, not a response to a request sent before the breaker opened.
+                    return;
+                }
+                canary = null;
+                if (failed) {
+                    openedAt = now;
+                    to = State.OPEN;
+                } else {
+                    reset();
+                    to = State.CLOSED;
+                }
+            } else if (from == State.OPEN) {
+                // a response to a request which was in-flight when the breaker opened.
+                return;
+            } else {
+                long epoch = now / bucketWidth;
+                int index = (int) (epoch % BUCKETS);
+                if (bucketEpochs[index] != epoch) {
+                    bucketEpochs[index] = epoch;
+                    totals[index] = 0;
+                    failures[index] = 0;
+                }
+                totals[index]++;
+                if (!failed) {
+                    return;
+                }
+                failures[index]++;
+
+                long total = 0;
+                long failedTotal = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    if (bucketEpochs[i] > epoch - BUCKETS) {
+                        total += totals[i];
+                        failedTotal += failures[i];
+                    }
+                }
+                if (total < config.volumeThreshold()
+                    || failedTotal * 100 < total * config.errorThresholdPercentage()) {
+                    return;
+                }
+                openedAt = now;
+                to = State.OPEN;
+            }
+            state = to;
+        }
+        publishTransition(from, to);
+    }
+
+    private void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketEpochs[i] = -1;
+            totals[i] = 0;
+            failures[i] = 0;
+        }
+    }
+
+    private void publishTransition(final State from, final State to) {
+        if (from == null || from == to) {
+            return;
+        }
+        LOGGER.info("Circuit breaker for {} {} ({}) changed from {} to {}", endpoint, hostname, bucket, from, to);
+        if (eventBus != null) {
+            eventBus.publish(new CircuitBreakerStateChangedEvent(hostname, bucket, endpoint, from, to));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{hostname=" + hostname + ", bucket=" + bucket + ", endpoint=" + endpoint
+            + ", state=" + state + '}';
+    }
+}
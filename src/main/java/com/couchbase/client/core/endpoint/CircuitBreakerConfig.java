@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The configuration for the per-endpoint {@link CircuitBreaker}.
+ *
+ * @since 1.5.2
+ */
+public class CircuitBreakerConfig {
+
+    public static final int VOLUME_THRESHOLD = 20;
+    public static final int ERROR_THRESHOLD_PERCENTAGE = 50;
+    public static final long SLOW_CALL_THRESHOLD = TimeUnit.SECONDS.toNanos(1);
+    public static final long SLEEP_WINDOW = TimeUnit.SECONDS.toMillis(5);
+    public static final long ROLLING_WINDOW = TimeUnit.SECONDS.toMillis(60);
+
+    private final boolean enabled;
+    private final int volumeThreshold;
+    private final int errorThresholdPercentage;
+    private final long slowCallThreshold;
+    private final long sleepWindow;
+    private final long rollingWindow;
+
+    public static CircuitBreakerConfig disabled() {
+        return builder().enabled(false).build();
+    }
+
+    public static CircuitBreakerConfig create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    protected CircuitBreakerConfig(Builder builder) {
+        enabled = builder.enabled;
+        volumeThreshold = builder.volumeThreshold;
+        errorThresholdPercentage = builder.errorThresholdPercentage;
+        slowCallThreshold = builder.slowCallThreshold;
+        sleepWindow = builder.sleepWindow;
+        rollingWindow = builder.rollingWindow;
+        if (volumeThreshold <= 0 || errorThresholdPercentage <= 0 || errorThresholdPercentage > 100) {
+            throw new IllegalArgumentException("The volume threshold needs to be > 0, the percentage in (0, 100].");
+        }
+        if (sleepWindow <= 0 || rollingWindow < CircuitBreaker.BUCKETS) {
+            throw new IllegalArgumentException("The sleep window needs to be > 0, the rolling window >= "
+                + CircuitBreaker.BUCKETS + "ms.");
+        }
+    }
+
+    /**
+     * Returns true if a circuit breaker is kept per endpoint.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * The number of requests in the rolling window before the breaker can open.
+     */
+    public int volumeThreshold() {
+        return volumeThreshold;
+    }
+
+    /**
+     * The percentage of failed requests in the rolling window which opens the breaker.
+     */
+    public int errorThresholdPercentage() {
+        return errorThresholdPercentage;
+    }
+
+    /**
+     * The latency in nanoseconds above which a response counts as failed, 0 if disabled.
+     */
+    public long slowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    /**
+     * The time in milliseconds an open breaker waits until it lets a canary request through.
+     */
+    public long sleepWindow() {
+        return sleepWindow;
+    }
+
+    /**
+     * The time in milliseconds covered by the rolling window of outcomes.
+     */
+    public long rollingWindow() {
+        return rollingWindow;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CircuitBreakerConfig{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", volumeThreshold=").append(volumeThreshold);
+        sb.append(", errorThresholdPercentage=").append(errorThresholdPercentage);
+        sb.append(", slowCallThreshold=").append(TimeUnit.NANOSECONDS.toMillis(slowCallThreshold)).append("ms");
+        sb.append(", sleepWindow=").append(sleepWindow).append("ms");
+        sb.append(", rollingWindow=").append(rollingWindow).append("ms");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class Builder {
+
+        private boolean enabled = true;
+        private int volumeThreshold = VOLUME_THRESHOLD;
+        private int errorThresholdPercentage = ERROR_THRESHOLD_PERCENTAGE;
+        private long slowCallThreshold = SLOW_CALL_THRESHOLD;
+        private long sleepWindow = SLEEP_WINDOW;
+        private long rollingWindow = ROLLING_WINDOW;
+
+        protected Builder() {
+        }
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests in the rolling window before the breaker can open.
+         */
+        public Builder volumeThreshold(int volumeThreshold) {
+            this.volumeThreshold = volumeThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the percentage of failed requests in the rolling window which opens the breaker.
+         */
+        public Builder errorThresholdPercentage(int errorThresholdPercentage) {
+            this.errorThresholdPercentage = errorThresholdPercentage;
+            return this;
+        }
+
+        /**
+         * Sets the latency above which a response counts as failed, 0 to ignore latency.
+         */
+        public Builder slowCallThreshold(long slowCallThreshold, TimeUnit unit) {
+            this.slowCallThreshold = unit.toNanos(slowCallThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the time an open breaker waits until it lets a canary request through.
+         */
+        public Builder sleepWindow(long sleepWindow, TimeUnit unit) {
+            this.sleepWindow = unit.toMillis(sleepWindow);
+            return this;
+        }
+
+        /**
+         * Sets the time covered by the rolling window of outcomes.
+         */
+        public Builder rollingWindow(long rollingWindow, TimeUnit unit) {
+            this.rollingWindow = unit.toMillis(rollingWindow);
+            return this;
+        }
+
+        public CircuitBreakerConfig build() {
+            return new CircuitBreakerConfig(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Limits the number of concurrent connect attempts against a single node, shared by all its endpoints.
+ *
+ * When a node comes back, every endpoint of every service and bucket tries to reconnect. Instead of hitting
+ * the node with all of them at once, only {@link #maxConcurrentConnects()} connects per hostname are in flight
+ * and the others are queued until one of them completes.
+ *
+ * @since 1.5.2
+ */
+public class ConnectLimiter {
+
+    private final int maxConcurrentConnects;
+    private final ConcurrentMap<String, NodePermits> nodes;
+
+    /**
+     * Creates a new {@link ConnectLimiter}.
+     *
+     * @param maxConcurrentConnects the maximum number of connects in flight per node, 0 for no limit.
+     */
+    public ConnectLimiter(final int maxConcurrentConnects) {
+        this.maxConcurrentConnects = maxConcurrentConnects;
+        this.nodes = new ConcurrentHashMap<String, NodePermits>();
+    }
+
+    /**
+     * The maximum number of connects in flight per node, 0 if not limited.
+     */
+    public int maxConcurrentConnects() {
+        return maxConcurrentConnects;
+    }
+
+    /**
+     * Runs the given connect attempt once a permit for the node is available.
+     *
+     * The attempt is run on the calling thread if a permit is available right away, otherwise on the thread
+     * which releases the next permit. Every attempt needs to call {@link #release(String)} once it completed.
+     *
+     * @param hostname the hostname of the node.
+     * @param connect the connect attempt.
+     */
+    public void acquire(final String hostname, final Runnable connect) {
+        if (maxConcurrentConnects <= 0) {
+            connect.run();
+            return;
+        }
+
+        NodePermits permits = permits(hostname);
+        synchronized (permits) {
+            if (permits.inFlight >= maxConcurrentConnects) {
+                permits.waiting.add(connect);
+                return;
+            }
+            permits.inFlight++;
+        }
+        connect.run();
+    }
+
+    /**
+     * Releases the permit of a completed connect attempt and runs the next waiting one, if any.
+     *
+     * @param hostname the hostname of the node.
+     */
+    public void release(final String hostname) {
+        if (maxConcurrentConnects <= 0) {
+            return;
+        }
+
+        NodePermits permits = permits(hostname);
+        Runnable next;
+        synchronized (permits) {
+            next = permits.waiting.poll();
+            if (next == null && permits.inFlight > 0) {
+                permits.inFlight--;
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    /**
+     * Returns the number of connect attempts in flight against the given node.
+     *
+     * @param hostname the hostname of the node.
+     * @return the number of connects in flight.
+     */
+    public int inFlight(final String hostname) {
+        NodePermits permits = nodes.get(hostname);
+        if (permits == null) {
+            return 0;
+        }
+        synchronized (permits) {
+            return permits.inFlight;
+        }
+    }
+
+    /**
+     * Returns the number of connect attempts waiting for a permit of the given node.
+     *
+     * @param hostname the hostname of the node.
+     * @return the number of waiting connects.
+     */
+    public int waiting(final String hostname) {
+        NodePermits permits = nodes.get(hostname);
+        if (permits == null) {
+            return 0;
+        }
+        synchronized (permits) {
+            return permits.waiting.size();
+        }
+    }
+
+    private NodePermits permits(final String hostname) {
+        NodePermits permits = nodes.get(hostname);
+        if (permits == null) {
+            NodePermits created = new NodePermits();
+            permits = nodes.putIfAbsent(hostname, created);
+            if (permits == null) {
+                permits = created;
+            }
+        }
+        return permits;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectLimiter{maxConcurrentConnects=" + maxConcurrentConnects + '}';
+    }
+
+    /**
+     * The permits and waiting connects of a single node.
+     */
+    private static final class NodePermits {
+        private final Queue<Runnable> waiting = new ArrayDeque<Runnable>();
+        private int inFlight;
+    }
+}
@@ -75,7 +75,28 @@ public enum ServerFeatures {
      *
      * @since  Couchbase Server Spock (5.0)
      */
-    SELECT_BUCKET((short) 0x08);
+    SELECT_BUCKET((short) 0x08),
+
+    /**
+     * Allow the server to send requests to the client on the same connection.
+     *
+     * @since Couchbase Server Mad-Hatter (6.5)
+     */
+    DUPLEX((short) 0x0c),
+
+    /**
+     * Let the server push cluster map change notifications over a duplex connection.
+     *
+     * @since Couchbase Server Mad-Hatter (6.5)
+     */
+    CLUSTERMAP_CHANGE_NOTIFICATION((short) 0x0d),
+
+    /**
+     * Let the server report how long it spent on each operation in the response framing extras.
+     *
+     * @since Couchbase Server Mad-Hatter (6.5)
+     */
+    TRACING((short) 0x0f);
 
     /**
      * The actual byte representation on the wire.
@@ -104,6 +125,9 @@ public enum ServerFeatures {
             case 0x06: return XATTR;
             case 0x07: return XERROR;
             case 0x08: return SELECT_BUCKET;
+            case 0x0c: return DUPLEX;
+            case 0x0d: return CLUSTERMAP_CHANGE_NOTIFICATION;
+            case 0x0f: return TRACING;
             default: throw new IllegalStateException("Unrequested server feature: " + input);
         }
     }
@@ -17,6 +17,7 @@ package com.couchbase.client.core.endpoint.analytics;
 
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.util.AcceptEncodingHandler;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
@@ -52,8 +53,17 @@ public class AnalyticsEndpoint extends AbstractEndpoint {
             );
         }
 
-        pipeline
-            .addLast(new HttpClientCodec())
-            .addLast(new AnalyticsHandler(this, responseBuffer(), false, false));
+        pipeline.addLast(new HttpClientCodec());
+        if (environment().analyticsHttpCompressionEnabled()) {
+            AcceptEncodingHandler.addTo(pipeline);
+        }
+        boolean enableV2 = Boolean.parseBoolean(
+            System.getProperty("com.couchbase.enableYasjlAnalyticsResponseParser", "false")
+        );
+        if (!enableV2) {
+            pipeline.addLast(new AnalyticsHandler(this, responseBuffer(), false, false));
+        } else {
+            pipeline.addLast(new AnalyticsHandlerV2(this, responseBuffer(), false, false));
+        }
     }
 }
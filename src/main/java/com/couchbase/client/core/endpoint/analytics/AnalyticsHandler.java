@@ -36,9 +36,11 @@ import com.couchbase.client.core.message.analytics.GenericAnalyticsResponse;
 import com.couchbase.client.core.message.analytics.RawAnalyticsRequest;
 import com.couchbase.client.core.message.analytics.RawAnalyticsResponse;
 import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.CompositeByteBufHelper;
 import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.ByteBufProcessor;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -107,7 +109,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
     /**
      * Contains the accumulating buffer for the response content.
      */
-    private ByteBuf responseContent;
+    private CompositeByteBuf responseContent;
 
     /**
      * Represents an observable that sends result chunks.
@@ -206,21 +208,20 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
         if (msg instanceof HttpResponse) {
             responseHeader = (HttpResponse) msg;
             if (responseContent != null) {
-                responseContent.clear();
+                CompositeByteBufHelper.reset(responseContent);
             } else {
-                responseContent = ctx.alloc().buffer();
+                responseContent = CompositeByteBufHelper.newAccumulator(ctx.alloc());
             }
         }
 
         if (currentRequest() instanceof KeepAliveRequest) {
             if (msg instanceof LastHttpContent) {
                 response = new KeepAliveResponse(ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), currentRequest());
-                responseContent.clear();
-                responseContent.discardReadBytes();
+                CompositeByteBufHelper.reset(responseContent);
                 finishedDecoding();
             }
         } else if (msg instanceof HttpContent) {
-            responseContent.writeBytes(((HttpContent) msg).content());
+            CompositeByteBufHelper.append(responseContent, ((HttpContent) msg).content());
             boolean lastChunk = msg instanceof LastHttpContent;
 
             //important to place the RawQueryRequest test before, as it extends GenericQueryRequest
@@ -229,7 +230,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
             } else if (currentRequest() instanceof GenericAnalyticsRequest) {
                 if (queryRowObservable == null) {
                     //still in initial parsing
-                    response = handleGenericAnalyticsResponse(lastChunk);
+                    response = handleGenericAnalyticsResponse(ctx, lastChunk);
                     //null response indicates need for more data before continuing parsing
                     if (response != null) {
                         parseQueryResponse(lastChunk);
@@ -277,9 +278,11 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
      * It waits for the first few bytes on the actual response to determine if an error is raised or if a successful
      * response can be expected. The actual error and/or chunk parsing is deferred to other parts of this handler.
      *
+     * @param ctx the channel handler context.
+     * @param lastChunk if the current emitted content body is the last one.
      * @return a {@link CouchbaseResponse} if eligible.
      */
-    private CouchbaseResponse handleGenericAnalyticsResponse(boolean lastChunk) {
+    private CouchbaseResponse handleGenericAnalyticsResponse(final ChannelHandlerContext ctx, boolean lastChunk) {
         String requestId;
         String clientId = "";
 
@@ -365,6 +368,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
         // (multiple subscribers or subscriber coming in too late) we can trace back to here
         String rid = clientId == null ? requestId : clientId + " / " + requestId;
         queryRowObservable.withTraceIdentifier("queryRow." + rid).onBackpressureBuffer();
+        applyRowsWatermarks(ctx, queryRowObservable);
         queryErrorObservable.withTraceIdentifier("queryError." + rid).onBackpressureBuffer();
         queryInfoObservable.withTraceIdentifier("queryInfo." + rid).onBackpressureBuffer();
         querySignatureObservable.withTraceIdentifier("querySignature." + rid).onBackpressureBuffer();
@@ -535,7 +539,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
 
     private void sectionDone() {
         this.sectionDone = true;
-        responseContent.discardReadBytes();
+        CompositeByteBufHelper.discardRead(responseContent);
     }
 
     /**
@@ -568,8 +572,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
         if (closePos > 0) {
             responseContent.skipBytes(openPos);
             int length = closePos - openPos + 1;
-            ByteBuf signature = responseContent.readSlice(length);
-            querySignatureObservable.onNext(signature.copy());
+            querySignatureObservable.onNext(CompositeByteBufHelper.readRetainedSlice(responseContent, length));
         } else {
             //wait for more data
             return;
@@ -599,9 +602,8 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
 
             int length = closeBracketPos - openBracketPos - responseContent.readerIndex() + 1;
             responseContent.skipBytes(openBracketPos);
-            ByteBuf resultSlice = responseContent.readSlice(length);
-            queryRowObservable.onNext(resultSlice.copy());
-            responseContent.discardSomeReadBytes();
+            queryRowObservable.onNext(CompositeByteBufHelper.readRetainedSlice(responseContent, length));
+            CompositeByteBufHelper.discardRead(responseContent);
         }
     }
 
@@ -624,10 +626,9 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
             }
 
             int length = splitPos - responseContent.readerIndex();
-            ByteBuf resultSlice = responseContent.readSlice(length);
-            queryRowObservable.onNext(resultSlice.copy());
+            queryRowObservable.onNext(CompositeByteBufHelper.readRetainedSlice(responseContent, length));
             responseContent.skipBytes(1);
-            responseContent.discardReadBytes();
+            CompositeByteBufHelper.discardRead(responseContent);
 
             if (doSectionDone) {
                 sectionDone();
@@ -656,8 +657,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
 
             int length = closeBracketPos - openBracketPos - responseContent.readerIndex() + 1;
             responseContent.skipBytes(openBracketPos);
-            ByteBuf resultSlice = responseContent.readSlice(length);
-            queryErrorObservable.onNext(resultSlice.copy());
+            queryErrorObservable.onNext(CompositeByteBufHelper.readRetainedSlice(responseContent, length));
         }
     }
 
@@ -707,7 +707,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
 
         int from = responseContent.readerIndex() + openBracketPos;
         int to = closeBracketPos - openBracketPos - responseContent.readerIndex() + 1;
-        queryInfoObservable.onNext(responseContent.slice(from, to).copy());
+        queryInfoObservable.onNext(CompositeByteBufHelper.retainedSlice(responseContent, from, to));
         responseContent.readerIndex(to + openBracketPos);
 
         //has to be here rather than in parseQueryResponse, as when there is a split
@@ -81,6 +81,13 @@ public class KeyValueFeatureHandler extends SimpleChannelInboundHandler<FullBina
         if (xerrorEnabled) {
             features.add(ServerFeatures.XERROR);
         }
+        if (environment.tracingEnabled()) {
+            features.add(ServerFeatures.TRACING);
+        }
+        if (environment.clustermapNotificationsEnabled()) {
+            features.add(ServerFeatures.DUPLEX);
+            features.add(ServerFeatures.CLUSTERMAP_CHANGE_NOTIFICATION);
+        }
     }
 
     @Override
@@ -16,6 +16,7 @@
 package com.couchbase.client.core.endpoint.kv;
 
 import com.couchbase.client.core.ResponseEvent;
+import com.couchbase.client.core.ResponseHandler;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.endpoint.AbstractGenericHandler;
 import com.couchbase.client.core.endpoint.ResponseStatusConverter;
@@ -26,8 +27,11 @@ import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.KeepAlive;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.ResponseStatusDetails;
+import com.couchbase.client.core.message.internal.ClustermapChangeNotification;
+import com.couchbase.client.core.message.internal.SignalClustermapNotifications;
 import com.couchbase.client.core.message.kv.AbstractKeyValueRequest;
 import com.couchbase.client.core.message.kv.AbstractKeyValueResponse;
 import com.couchbase.client.core.message.kv.AppendRequest;
@@ -45,6 +49,8 @@ import com.couchbase.client.core.message.kv.GetRequest;
 import com.couchbase.client.core.message.kv.GetResponse;
 import com.couchbase.client.core.message.kv.InsertRequest;
 import com.couchbase.client.core.message.kv.InsertResponse;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.MultiObserveResponse;
 import com.couchbase.client.core.message.kv.MutationToken;
 import com.couchbase.client.core.message.kv.NoFailoverObserveSeqnoResponse;
 import com.couchbase.client.core.message.kv.ObserveRequest;
@@ -80,8 +86,10 @@ import com.couchbase.client.core.message.kv.subdoc.simple.SimpleSubdocResponse;
 import com.couchbase.client.core.message.kv.subdoc.simple.SubExistRequest;
 import com.couchbase.client.core.message.kv.subdoc.simple.SubGetCountRequest;
 import com.couchbase.client.core.message.kv.subdoc.simple.SubGetRequest;
+import com.couchbase.client.core.metrics.NetworkLatencyMetricsIdentifier;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.time.Delay;
+import com.couchbase.client.core.utils.NetworkAddress;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheOpcodes;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultBinaryMemcacheRequest;
@@ -95,6 +103,8 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.IllegalReferenceCountException;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -195,8 +205,23 @@ public class KeyValueHandler
      */
     public static final byte SUBDOC_DOCFLAG_ACCESS_DELETED = (byte) 0x04;
 
+    /**
+     * The magic byte the server uses for requests it pushes to the client on a duplex connection.
+     */
+    public static final byte MAGIC_SERVER_REQUEST = (byte) 0x82;
+
+    /**
+     * Server pushed opcode which carries a new cluster map for the bucket.
+     */
+    public static final byte OP_CLUSTERMAP_CHANGE_NOTIFICATION = (byte) 0x01;
+
     boolean seqOnMutation = false;
 
+    /**
+     * If the server agreed to push cluster map change notifications on this connection.
+     */
+    boolean clustermapNotifications = false;
+
 
     /**
      * Creates a new {@link KeyValueHandler} with the default queue for requests.
@@ -223,10 +248,11 @@ public class KeyValueHandler
     @Override
     protected BinaryMemcacheRequest encodeRequest(final ChannelHandlerContext ctx, final BinaryRequest msg)
         throws Exception {
-        BinaryMemcacheRequest request = encodeCommonRequest(ctx, msg);
+        int kind = RequestKind.of(msg);
+        BinaryMemcacheRequest request = encodeCommonRequest(ctx, msg, kind);
 
         if (request == null) {
-            request = encodeOtherRequest(ctx, msg);
+            request = encodeOtherRequest(ctx, msg, kind);
         }
 
         if (msg.partition() >= 0) {
@@ -239,8 +265,9 @@ public class KeyValueHandler
             // Retain just the content, since a response could be "Not my Vbucket".
             // The response handler checks the status and then releases if needed.
             // Observe has content, but not external, so it should not be retained.
-            if (!(msg instanceof ObserveRequest)
-                    && !(msg instanceof ObserveSeqnoRequest)
+            if (kind != RequestKind.OBSERVE
+                    && kind != RequestKind.MULTI_OBSERVE
+                    && kind != RequestKind.OBSERVE_SEQNO
                     && (request instanceof FullBinaryMemcacheRequest)) {
                 ((FullBinaryMemcacheRequest) request).content().retain();
             }
@@ -259,50 +286,59 @@ public class KeyValueHandler
         return request;
     }
 
-    private BinaryMemcacheRequest encodeCommonRequest(final ChannelHandlerContext ctx, final BinaryRequest msg) {
-        if (msg instanceof GetRequest) {
-            return handleGetRequest(ctx, (GetRequest) msg);
-        } else if (msg instanceof BinaryStoreRequest) {
-            return handleStoreRequest(ctx, (BinaryStoreRequest) msg);
-        } else if (msg instanceof ReplicaGetRequest) {
-            return handleReplicaGetRequest((ReplicaGetRequest) msg);
-        } else if (msg instanceof RemoveRequest) {
-            return handleRemoveRequest((RemoveRequest) msg);
-        } else if (msg instanceof CounterRequest) {
-            return handleCounterRequest(ctx, (CounterRequest) msg);
-        } else if (msg instanceof TouchRequest) {
-            return handleTouchRequest(ctx, (TouchRequest) msg);
-        } else if (msg instanceof UnlockRequest) {
-            return handleUnlockRequest((UnlockRequest) msg);
+    private BinaryMemcacheRequest encodeCommonRequest(final ChannelHandlerContext ctx, final BinaryRequest msg,
+        final int kind) {
+        switch (kind) {
+            case RequestKind.GET:
+                return handleGetRequest(ctx, (GetRequest) msg);
+            case RequestKind.INSERT:
+            case RequestKind.UPSERT:
+            case RequestKind.REPLACE:
+                return handleStoreRequest(ctx, (BinaryStoreRequest) msg);
+            case RequestKind.REPLICA_GET:
+                return handleReplicaGetRequest((ReplicaGetRequest) msg);
+            case RequestKind.REMOVE:
+                return handleRemoveRequest((RemoveRequest) msg);
+            case RequestKind.COUNTER:
+                return handleCounterRequest(ctx, (CounterRequest) msg);
+            case RequestKind.TOUCH:
+                return handleTouchRequest(ctx, (TouchRequest) msg);
+            case RequestKind.UNLOCK:
+                return handleUnlockRequest((UnlockRequest) msg);
+            default:
+                return null;
         }
-        return null;
     }
 
-    private BinaryMemcacheRequest encodeOtherRequest(final ChannelHandlerContext ctx, final BinaryRequest msg) {
-        if (msg instanceof ObserveRequest) {
-            return handleObserveRequest(ctx, (ObserveRequest) msg);
-        } else if (msg instanceof ObserveSeqnoRequest) {
-            return handleObserveSeqnoRequest(ctx, (ObserveSeqnoRequest) msg);
-        } else if (msg instanceof GetBucketConfigRequest) {
-            return handleGetBucketConfigRequest();
-        } else if (msg instanceof AppendRequest) {
-            return handleAppendRequest((AppendRequest) msg);
-        } else if (msg instanceof PrependRequest) {
-            return handlePrependRequest((PrependRequest) msg);
-        } else if (msg instanceof KeepAliveRequest) {
-            return handleKeepAliveRequest((KeepAliveRequest) msg);
-        } else if (msg instanceof StatRequest) {
-            return handleStatRequest((StatRequest) msg);
-        } else if (msg instanceof GetAllMutationTokensRequest) {
-            return handleGetAllMutationTokensRequest(ctx, (GetAllMutationTokensRequest) msg);
-        } else if (msg instanceof BinarySubdocRequest) {
-            return handleSubdocumentRequest(ctx, (BinarySubdocRequest) msg);
-        } else if (msg instanceof BinarySubdocMultiLookupRequest) {
-            return handleSubdocumentMultiLookupRequest(ctx, (BinarySubdocMultiLookupRequest) msg);
-        } else if (msg instanceof BinarySubdocMultiMutationRequest) {
-            return handleSubdocumentMultiMutationRequest(ctx, (BinarySubdocMultiMutationRequest) msg);
-        } else {
-            throw new IllegalArgumentException("Unknown incoming BinaryRequest type " + msg.getClass());
+    private BinaryMemcacheRequest encodeOtherRequest(final ChannelHandlerContext ctx, final BinaryRequest msg,
+        final int kind) {
+        switch (kind) {
+            case RequestKind.OBSERVE:
+                return handleObserveRequest(ctx, (ObserveRequest) msg);
+            case RequestKind.MULTI_OBSERVE:
+                return handleMultiObserveRequest(ctx, (MultiObserveRequest) msg);
+            case RequestKind.OBSERVE_SEQNO:
+                return handleObserveSeqnoRequest(ctx, (ObserveSeqnoRequest) msg);
+            case RequestKind.GET_BUCKET_CONFIG:
+                return handleGetBucketConfigRequest();
+            case RequestKind.APPEND:
+                return handleAppendRequest((AppendRequest) msg);
+            case RequestKind.PREPEND:
+                return handlePrependRequest((PrependRequest) msg);
+            case RequestKind.KEEP_ALIVE:
+                return handleKeepAliveRequest((KeepAliveRequest) msg);
+            case RequestKind.STAT:
+                return handleStatRequest((StatRequest) msg);
+            case RequestKind.GET_ALL_MUTATION_TOKENS:
+                return handleGetAllMutationTokensRequest(ctx, (GetAllMutationTokensRequest) msg);
+            case RequestKind.SUBDOC:
+                return handleSubdocumentRequest(ctx, (BinarySubdocRequest) msg);
+            case RequestKind.SUBDOC_MULTI_LOOKUP:
+                return handleSubdocumentMultiLookupRequest(ctx, (BinarySubdocMultiLookupRequest) msg);
+            case RequestKind.SUBDOC_MULTI_MUTATION:
+                return handleSubdocumentMultiMutationRequest(ctx, (BinarySubdocMultiMutationRequest) msg);
+            default:
+                throw new IllegalArgumentException("Unknown incoming BinaryRequest type " + msg.getClass());
         }
     }
 
@@ -512,6 +548,24 @@ public class KeyValueHandler
         return request;
     }
 
+    private static BinaryMemcacheRequest handleMultiObserveRequest(final ChannelHandlerContext ctx,
+        final MultiObserveRequest msg) {
+        List<String> keys = msg.keys();
+        short[] partitions = msg.partitions();
+        ByteBuf content = ctx.alloc().buffer();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keys.get(i).getBytes(CHARSET);
+            content.writeShort(partitions[i]);
+            content.writeShort(key.length);
+            content.writeBytes(key);
+        }
+
+        BinaryMemcacheRequest request = new DefaultFullBinaryMemcacheRequest(EMPTY_BYTES, Unpooled.EMPTY_BUFFER, content);
+        request.setOpcode(OP_OBSERVE);
+        request.setTotalBodyLength(content.readableBytes());
+        return request;
+    }
+
     private static BinaryMemcacheRequest handleObserveSeqnoRequest(final ChannelHandlerContext ctx,
         final ObserveSeqnoRequest msg) {
         ByteBuf content = ctx.alloc().buffer();
@@ -870,9 +924,37 @@ public class KeyValueHandler
             response.statusDetails(statusDetails);
         }
 
+        long serverDuration = msg.getServerDuration();
+        if (serverDuration >= 0 && response instanceof AbstractKeyValueResponse) {
+            ((AbstractKeyValueResponse) response).serverDuration(serverDuration);
+            writeServerDuration(request, status, serverDuration);
+        }
+
         return response;
     }
 
+    /**
+     * Records the server duration of the current response, if the collector is enabled.
+     */
+    private void writeServerDuration(final BinaryRequest request, final ResponseStatus status,
+        final long serverDuration) {
+        if (env() == null || env().serverDurationMetricsCollector() == null
+            || !env().serverDurationMetricsCollector().isEnabled()) {
+            return;
+        }
+        try {
+            NetworkLatencyMetricsIdentifier identifier = new NetworkLatencyMetricsIdentifier(
+                remoteHostname(),
+                serviceType().toString(),
+                requestName(request),
+                status.toString()
+            );
+            env().serverDurationMetricsCollector().record(identifier, TimeUnit.MICROSECONDS.toNanos(serverDuration));
+        } catch (Throwable e) {
+            LOGGER.warn("Could not collect server duration for request " + request, e);
+        }
+    }
+
     /**
      * Helper method to decode all common response messages.
      *
@@ -1094,6 +1176,22 @@ public class KeyValueHandler
         return response;
     }
 
+    /**
+     * The cas field of an observe response carries the server's average time to persist in
+     * milliseconds in its upper 32 bits.
+     */
+    private static long persistStat(final long cas) {
+        return cas >>> 32;
+    }
+
+    /**
+     * The cas field of an observe response carries the server's average time to replicate in
+     * milliseconds in its lower 32 bits.
+     */
+    private static long replicateStat(final long cas) {
+        return cas & 0xffffffffL;
+    }
+
     private static MutationToken extractToken(String bucket, boolean seqOnMutation, boolean success, ByteBuf extras, long vbid) {
         if (success && seqOnMutation) {
             return new MutationToken(vbid, extras.readLong(), extras.readLong(), bucket);
@@ -1163,7 +1261,29 @@ public class KeyValueHandler
             }
             releaseContent(content);
             response = new ObserveResponse(status, statusCode, observed, ((ObserveRequest) request).master(),
-                    observedCas, bucket, request);
+                    observedCas, persistStat(cas), replicateStat(cas), remoteHostname, bucket, request);
+        } else if (request instanceof MultiObserveRequest) {
+            List<String> keys = new ArrayList<String>();
+            List<ObserveResponse.ObserveStatus> observed = new ArrayList<ObserveResponse.ObserveStatus>();
+            List<Long> observedCas = new ArrayList<Long>();
+            if (status.isSuccess()) {
+                while (content.isReadable()) {
+                    content.skipBytes(2);
+                    short keyLength = content.readShort();
+                    keys.add(content.toString(content.readerIndex(), keyLength, CHARSET));
+                    content.skipBytes(keyLength);
+                    observed.add(ObserveResponse.ObserveStatus.valueOf(content.readByte()));
+                    observedCas.add(content.readLong());
+                }
+            }
+            releaseContent(content);
+            long[] casValues = new long[observedCas.size()];
+            for (int i = 0; i < casValues.length; i++) {
+                casValues[i] = observedCas.get(i);
+            }
+            response = new MultiObserveResponse(status, statusCode, keys,
+                observed.toArray(new ObserveResponse.ObserveStatus[observed.size()]), casValues, persistStat(cas),
+                replicateStat(cas), bucket, request);
         } else if (request instanceof ObserveSeqnoRequest) {
             if (status.isSuccess()) {
                 byte format = content.readByte();
@@ -1291,13 +1411,102 @@ public class KeyValueHandler
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof ServerFeaturesEvent) {
-            seqOnMutation = env().mutationTokensEnabled() &&
-                ((ServerFeaturesEvent) evt).supportedFeatures().contains(ServerFeatures.MUTATION_SEQNO);
+            List<ServerFeatures> features = ((ServerFeaturesEvent) evt).supportedFeatures();
+            seqOnMutation = env().mutationTokensEnabled() && features.contains(ServerFeatures.MUTATION_SEQNO);
+            clustermapNotifications = env().clustermapNotificationsEnabled()
+                && features.contains(ServerFeatures.CLUSTERMAP_CHANGE_NOTIFICATION);
+            if (clustermapNotifications) {
+                signalClustermapNotifications(ctx, true);
+            }
         }
 
         super.userEventTriggered(ctx, evt);
     }
 
+    @Override
+    protected void decode(ChannelHandlerContext ctx, FullBinaryMemcacheResponse msg, List<Object> out)
+        throws Exception {
+        if (msg.getMagic() == MAGIC_SERVER_REQUEST) {
+            handleServerRequest(ctx, msg);
+        } else {
+            super.decode(ctx, msg, out);
+        }
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+        if (clustermapNotifications) {
+            clustermapNotifications = false;
+            signalClustermapNotifications(ctx, false);
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Handles a request pushed by the server, which is not correlated with any outstanding request.
+     *
+     * Cluster map change notifications are handed over to the response ring buffer with their content
+     * retained, all other unknown server requests are ignored.
+     *
+     * @param ctx the handler context.
+     * @param msg the pushed message.
+     */
+    private void handleServerRequest(final ChannelHandlerContext ctx, final FullBinaryMemcacheResponse msg) {
+        if (msg.getOpcode() != OP_CLUSTERMAP_CHANGE_NOTIFICATION) {
+            LOGGER.debug(logIdent(ctx, endpoint()) + "Ignoring unknown server request with opcode 0x{}.",
+                Integer.toHexString(msg.getOpcode() & 0xff));
+            return;
+        }
+
+        byte[] key = msg.getKey();
+        String bucket = key == null || key.length == 0 ? bucket() : new String(key, CHARSET);
+        long rev;
+        if (msg.getExtrasLength() >= 16) {
+            // epoch (8 bytes) followed by the revision (8 bytes)
+            rev = msg.getExtras().getLong(8);
+        } else if (msg.getExtrasLength() >= 4) {
+            rev = msg.getExtras().getInt(0) & 0xffffffffL;
+        } else {
+            rev = -1;
+        }
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace(logIdent(ctx, endpoint()) + "Received cluster map change notification for {} (rev {}).",
+                bucket, rev);
+        }
+
+        ClustermapChangeNotification notification = new ClustermapChangeNotification(bucket, rev,
+            msg.content().retain(), remoteNode(ctx));
+        responseBuffer().publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, notification, null);
+    }
+
+    /**
+     * Tells the configuration side that this node starts or stops pushing cluster map changes.
+     *
+     * @param ctx the handler context.
+     * @param enabled if notifications are now enabled or disabled.
+     */
+    private void signalClustermapNotifications(final ChannelHandlerContext ctx, final boolean enabled) {
+        NetworkAddress node = remoteNode(ctx);
+        if (node == null) {
+            return;
+        }
+        LOGGER.debug(logIdent(ctx, endpoint()) + "Cluster map change notifications enabled: {}", enabled);
+        responseBuffer().publishEvent(ResponseHandler.RESPONSE_TRANSLATOR,
+            new SignalClustermapNotifications(bucket(), node, enabled), null);
+    }
+
+    /**
+     * @param ctx the handler context.
+     * @return the remote node as a {@link NetworkAddress}, or null if not connected over IP.
+     */
+    private static NetworkAddress remoteNode(final ChannelHandlerContext ctx) {
+        SocketAddress addr = ctx.channel().remoteAddress();
+        if (addr instanceof InetSocketAddress) {
+            return NetworkAddress.create(((InetSocketAddress) addr).getAddress().getHostAddress());
+        }
+        return null;
+    }
+
     @Override
     protected CouchbaseRequest createKeepAliveRequest() {
         return new KeepAliveRequest();
@@ -1309,6 +1518,11 @@ public class KeyValueHandler
             super(null, null);
             partition((short) 0);
         }
+
+        @Override
+        public int kind() {
+            return RequestKind.KEEP_ALIVE;
+        }
     }
 
     protected static class KeepAliveResponse extends AbstractKeyValueResponse {
@@ -17,6 +17,7 @@ package com.couchbase.client.core.endpoint.query;
 
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.util.AcceptEncodingHandler;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
@@ -52,6 +53,9 @@ public class QueryEndpoint extends AbstractEndpoint {
         }
 
         pipeline.addLast(new HttpClientCodec());
+        if (environment().queryHttpCompressionEnabled()) {
+            AcceptEncodingHandler.addTo(pipeline);
+        }
         boolean enableV2 = Boolean.parseBoolean(System.getProperty("com.couchbase.enableYasjlQueryResponseParser", "true"));
         if (!enableV2) {
             pipeline.addLast(new QueryHandler(this, responseBuffer(), false, false));
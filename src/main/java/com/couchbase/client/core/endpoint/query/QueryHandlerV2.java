@@ -33,8 +33,10 @@ import com.couchbase.client.core.message.query.QueryRequest;
 import com.couchbase.client.core.message.query.RawQueryRequest;
 import com.couchbase.client.core.message.query.RawQueryResponse;
 import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.CompositeByteBufHelper;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -68,7 +70,7 @@ public class QueryHandlerV2 extends AbstractGenericHandler<HttpObject, HttpReque
     /**
      * Contains the accumulating buffer for the response content.
      */
-    private ByteBuf responseContent;
+    private CompositeByteBuf responseContent;
 
     final private YasjlQueryResponseParser parser;
 
@@ -136,26 +138,26 @@ public class QueryHandlerV2 extends AbstractGenericHandler<HttpObject, HttpReque
         if (msg instanceof HttpResponse) {
             responseHeader = (HttpResponse) msg;
             if (responseContent != null) {
-                responseContent.clear();
+                CompositeByteBufHelper.reset(responseContent);
             } else {
-                responseContent = ctx.alloc().buffer();
+                responseContent = CompositeByteBufHelper.newAccumulator(ctx.alloc());
             }
         }
 
         if (currentRequest() instanceof KeepAliveRequest) {
             if (msg instanceof LastHttpContent) {
                 response = new KeepAliveResponse(ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), currentRequest());
-                responseContent.clear();
-                responseContent.discardReadBytes();
+                CompositeByteBufHelper.reset(responseContent);
                 finishedDecoding();
             }
         } else if (msg instanceof HttpContent) {
-            responseContent.writeBytes(((HttpContent) msg).content());
+            CompositeByteBufHelper.append(responseContent, ((HttpContent) msg).content());
             boolean lastChunk = msg instanceof LastHttpContent;
 
             //initialize parser for current response
             if (!parser.isInitialized()) {
                 parser.initialize(responseContent, ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), currentRequest());
+                applyRowsWatermarks(ctx, parser.rowObservable());
             }
 
             //important to place the RawQueryRequest test before, as it extends GenericQueryRequest
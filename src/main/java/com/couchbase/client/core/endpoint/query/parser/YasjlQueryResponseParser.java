@@ -258,6 +258,15 @@ public class YasjlQueryResponseParser {
         this.parser = new ByteBufJsonParser(jsonPointers);
     }
 
+    /**
+     * Returns the subject the rows of the current response are emitted on.
+     *
+     * @return the rows subject, null if not initialized yet.
+     */
+    public UnicastAutoReleaseSubject<ByteBuf> rowObservable() {
+        return queryRowObservable;
+    }
+
     /**
      * True if this parser is currently initialized and ready to parse a response.
      *
@@ -17,6 +17,7 @@ package com.couchbase.client.core.endpoint.search;
 
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.util.AcceptEncodingHandler;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
@@ -50,7 +51,10 @@ public class SearchEndpoint extends AbstractEndpoint {
         if (environment().keepAliveInterval() > 0) {
             pipeline.addLast(new IdleStateHandler(environment().keepAliveInterval(), 0, 0, TimeUnit.MILLISECONDS));
         }
-        pipeline.addLast(new HttpClientCodec())
-                .addLast(new SearchHandler(this, responseBuffer(), false, false));
+        pipeline.addLast(new HttpClientCodec());
+        if (environment().searchHttpCompressionEnabled()) {
+            AcceptEncodingHandler.addTo(pipeline);
+        }
+        pipeline.addLast(new SearchHandler(this, responseBuffer(), false, false));
     }
 }
@@ -19,6 +19,7 @@ import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.endpoint.AbstractGenericHandler;
 import com.couchbase.client.core.endpoint.ResponseStatusConverter;
+import com.couchbase.client.core.endpoint.search.parser.YasjlSearchResponseParser;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
@@ -35,10 +36,14 @@ import com.couchbase.client.core.message.search.RemoveSearchIndexResponse;
 import com.couchbase.client.core.message.search.SearchQueryRequest;
 import com.couchbase.client.core.message.search.SearchQueryResponse;
 import com.couchbase.client.core.message.search.SearchRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryResponse;
 import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.CompositeByteBufHelper;
 import com.lmax.disruptor.EventSink;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -74,11 +79,17 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
     /**
      * Contains the accumulating buffer for the response content.
      */
-    private ByteBuf responseContent;
+    private CompositeByteBuf responseContent;
+
+    /**
+     * The parser used for streaming search query responses.
+     */
+    private final YasjlSearchResponseParser parser;
 
     public SearchHandler(AbstractEndpoint endpoint, EventSink<ResponseEvent> responseBuffer, boolean isTransient,
                          final boolean pipeline) {
         super(endpoint, responseBuffer, isTransient, pipeline);
+        parser = new YasjlSearchResponseParser(env().scheduler(), env().autoreleaseAfter());
     }
 
     /**
@@ -91,6 +102,7 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
     SearchHandler(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, Queue<SearchRequest> queue,
                   boolean isTransient, final boolean pipeline) {
         super(endpoint, responseBuffer, queue, isTransient, pipeline);
+        parser = new YasjlSearchResponseParser(env().scheduler(), env().autoreleaseAfter());
     }
 
     @Override
@@ -143,25 +155,26 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
             responseHeader = (HttpResponse) msg;
 
             if (responseContent != null) {
-                responseContent.clear();
+                CompositeByteBufHelper.reset(responseContent);
             } else {
-                responseContent = ctx.alloc().buffer();
+                responseContent = CompositeByteBufHelper.newAccumulator(ctx.alloc());
             }
         }
 
-
-
         if (msg instanceof HttpContent) {
-            responseContent.writeBytes(((HttpContent) msg).content());
+            CompositeByteBufHelper.append(responseContent, ((HttpContent) msg).content());
         }
 
         if (currentRequest() instanceof KeepAliveRequest) {
             if (msg instanceof LastHttpContent) {
                 response = new KeepAliveResponse(ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), currentRequest());
-                responseContent.clear();
-                responseContent.discardReadBytes();
+                CompositeByteBufHelper.reset(responseContent);
                 finishedDecoding();
             }
+        } else if (request instanceof StreamingSearchQueryRequest) {
+            if (msg instanceof HttpContent) {
+                response = handleStreamingSearchQueryResponse(ctx, msg instanceof LastHttpContent);
+            }
         } else if (msg instanceof LastHttpContent) {
             ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
             String body = responseContent.readableBytes() > 0
@@ -183,6 +196,47 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
         return response;
     }
 
+    /**
+     * Streams the current chunk of a search query response through the parser.
+     *
+     * Successful responses are parsed as they come in, while the body of a failed response is emitted as a
+     * single error once complete (since it is not guaranteed to be JSON).
+     *
+     * @param ctx the channel handler context.
+     * @param lastChunk if the current emitted content body is the last one.
+     * @return the {@link StreamingSearchQueryResponse} once ready, null otherwise.
+     */
+    private CouchbaseResponse handleStreamingSearchQueryResponse(final ChannelHandlerContext ctx,
+        final boolean lastChunk) throws Exception {
+        ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
+        if (!parser.isInitialized()) {
+            parser.initialize(responseContent, status, currentRequest());
+            applyRowsWatermarks(ctx, parser.hitObservable());
+        }
+
+        CouchbaseResponse response = null;
+        if (status.isSuccess()) {
+            response = parser.parse();
+        } else if (lastChunk) {
+            response = parser.parseError();
+        }
+
+        if (lastChunk) {
+            parser.finishParsingAndReset();
+            finishedDecoding();
+        }
+        return response;
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (responseContent != null && responseContent.refCnt() > 0) {
+            responseContent.release();
+        }
+        responseContent = null;
+        super.handlerRemoved(ctx);
+    }
+
     @Override
     protected ServiceType serviceType() {
         return ServiceType.SEARCH;
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.search.parser;
+
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.search.StreamingSearchQueryResponse;
+import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
+import com.couchbase.client.core.utils.yasjl.ByteBufJsonParser;
+import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
+import com.couchbase.client.core.utils.yasjl.JsonPointer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import rx.Scheduler;
+
+import java.io.EOFException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A streaming Full-Text Search response parser, based on yasjl.
+ *
+ * Hits are emitted one by one as soon as they are complete, so the full response body never needs to be
+ * held in memory (or converted into a single string) at once.
+ *
+ * @since 1.5.2
+ */
+public class YasjlSearchResponseParser {
+
+    /**
+     * The logger used for this parser.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(YasjlSearchResponseParser.class);
+
+    /**
+     * The default charset used when decoding.
+     */
+    private static final Charset CHARSET = CharsetUtil.UTF_8;
+
+    /**
+     * Scheduler for the search response.
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * TTL for response observables.
+     */
+    private final long ttl;
+
+    /**
+     * The actual yasjl parser handling the response.
+     */
+    private final ByteBufJsonParser parser;
+
+    /**
+     * Represents an observable that sends the hits.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> hitObservable;
+
+    /**
+     * Represents an observable that sends the facets object, if any.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> facetObservable;
+
+    /**
+     * Represents an observable that sends the status object of the search.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> statusObservable;
+
+    /**
+     * Represents an observable that sends errors reported outside of the status object.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> errorObservable;
+
+    /**
+     * Represents an observable that sends the metrics once the response is complete.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> metricsObservable;
+
+    /**
+     * The raw values of the metrics, collected until the response is complete.
+     */
+    private String totalHits;
+    private String maxScore;
+    private String took;
+
+    /**
+     * Flag to indicate if the parser is initialized.
+     */
+    private boolean initialized;
+
+    /**
+     * The response created on initialization.
+     */
+    private StreamingSearchQueryResponse response;
+
+    /**
+     * True if the current response has been sent already.
+     */
+    private boolean sentResponse;
+
+    /**
+     * A buffer for the current raw response content.
+     */
+    private ByteBuf responseContent;
+
+    /**
+     * Create a new {@link YasjlSearchResponseParser}.
+     *
+     * @param scheduler the scheduler which should be used when computations are moved out.
+     * @param ttl the ttl used for the subjects until their contents are garbage collected.
+     */
+    public YasjlSearchResponseParser(final Scheduler scheduler, final long ttl) {
+        this.scheduler = scheduler;
+        this.ttl = ttl;
+
+        JsonPointer[] jsonPointers = {
+            new JsonPointer("/status", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (statusObservable != null) {
+                        statusObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/error", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (errorObservable != null) {
+                        errorObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/hits/-", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (hitObservable != null) {
+                        hitObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/facets", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (facetObservable != null) {
+                        facetObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/total_hits", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    totalHits = buf.toString(CHARSET);
+                    buf.release();
+                }
+            }),
+            new JsonPointer("/max_score", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    maxScore = buf.toString(CHARSET);
+                    buf.release();
+                }
+            }),
+            new JsonPointer("/took", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    took = buf.toString(CHARSET);
+                    buf.release();
+                }
+            })
+        };
+        this.parser = new ByteBufJsonParser(jsonPointers);
+    }
+
+    /**
+     * Returns the subject the hits of the current response are emitted on.
+     *
+     * @return the hits subject, null if not initialized yet.
+     */
+    public UnicastAutoReleaseSubject<ByteBuf> hitObservable() {
+        return hitObservable;
+    }
+
+    /**
+     * True if this parser is currently initialized and ready to parse a response.
+     *
+     * @return true if initialized, false otherwise.
+     */
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+
+    /**
+     * Initialize this parser for a response parsing cycle.
+     *
+     * @param responseContent the raw content to parse from.
+     * @param responseStatus the status of the response.
+     * @param request the original request.
+     */
+    public void initialize(final ByteBuf responseContent, final ResponseStatus responseStatus,
+        final CouchbaseRequest request) {
+        this.sentResponse = false;
+        this.responseContent = responseContent;
+        this.totalHits = null;
+        this.maxScore = null;
+        this.took = null;
+
+        hitObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        facetObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        statusObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        errorObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        metricsObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+
+        hitObservable.withTraceIdentifier("searchHit");
+        facetObservable.withTraceIdentifier("searchFacet");
+        statusObservable.withTraceIdentifier("searchStatus");
+        errorObservable.withTraceIdentifier("searchError");
+        metricsObservable.withTraceIdentifier("searchMetrics");
+
+        response = new StreamingSearchQueryResponse(
+            hitObservable.onBackpressureBuffer(),
+            facetObservable.onBackpressureBuffer(),
+            statusObservable.onBackpressureBuffer(),
+            errorObservable.onBackpressureBuffer(),
+            metricsObservable.onBackpressureBuffer(),
+            responseStatus,
+            request
+        );
+
+        parser.initialize(responseContent);
+        initialized = true;
+    }
+
+    /**
+     * Instruct the parser to run a new parsing cycle on the current response content.
+     *
+     * @return the {@link StreamingSearchQueryResponse} on the first call, null otherwise.
+     * @throws Exception if the internal parsing can't complete.
+     */
+    public StreamingSearchQueryResponse parse() throws Exception {
+        try {
+            parser.parse();
+            //discard only if EOF is not thrown
+            responseContent.discardSomeReadBytes();
+            LOGGER.trace("Received last chunk and completed parsing of search response");
+        } catch (EOFException ex) {
+            //ignore as we expect chunked responses
+            LOGGER.trace("Still expecting more data for search response");
+        }
+        return responseOnce();
+    }
+
+    /**
+     * Instruct the parser to treat the complete current response content as a single error, which is
+     * the case for responses that failed as a whole (and might not even be JSON).
+     *
+     * @return the {@link StreamingSearchQueryResponse} if not returned before, null otherwise.
+     */
+    public StreamingSearchQueryResponse parseError() {
+        errorObservable.onNext(responseContent.copy());
+        responseContent.skipBytes(responseContent.readableBytes());
+        return responseOnce();
+    }
+
+    private StreamingSearchQueryResponse responseOnce() {
+        if (!sentResponse) {
+            sentResponse = true;
+            return response;
+        }
+        return null;
+    }
+
+    /**
+     * Instruct the parser to finish the parsing and reset its internal state, turning it
+     * back to uninitialized as well.
+     */
+    public void finishParsingAndReset() {
+        if (totalHits != null || maxScore != null || took != null) {
+            String metrics = "{\"total_hits\":" + (totalHits == null ? "0" : totalHits)
+                + ",\"max_score\":" + (maxScore == null ? "0" : maxScore)
+                + ",\"took\":" + (took == null ? "0" : took) + "}";
+            metricsObservable.onNext(Unpooled.copiedBuffer(metrics, CHARSET));
+        }
+        hitObservable.onCompleted();
+        facetObservable.onCompleted();
+        statusObservable.onCompleted();
+        errorObservable.onCompleted();
+        metricsObservable.onCompleted();
+
+        hitObservable = null;
+        facetObservable = null;
+        statusObservable = null;
+        errorObservable = null;
+        metricsObservable = null;
+        response = null;
+        responseContent = null;
+        this.initialized = false;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.util;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Advertises gzip and deflate support on every outgoing {@link HttpRequest} which does not set its own
+ * "Accept-Encoding" header.
+ *
+ * Use {@link #addTo(ChannelPipeline)} right after the http codec, so that the {@link HttpContentDecompressor}
+ * inflates compressed responses chunk by chunk before they reach the service handler.
+ *
+ * @since 1.5.2
+ */
+@ChannelHandler.Sharable
+public class AcceptEncodingHandler extends ChannelOutboundHandlerAdapter {
+
+    /**
+     * The handler is stateless, so one instance is shared across all pipelines.
+     */
+    public static final AcceptEncodingHandler INSTANCE = new AcceptEncodingHandler();
+
+    static final String ACCEPTED_ENCODINGS = HttpHeaders.Values.GZIP + ", " + HttpHeaders.Values.DEFLATE;
+
+    private AcceptEncodingHandler() {
+    }
+
+    /**
+     * Adds the decompressor and this handler to the end of the given pipeline.
+     *
+     * @param pipeline the pipeline, which needs to end with the http codec.
+     */
+    public static void addTo(final ChannelPipeline pipeline) {
+        pipeline
+            .addLast(new HttpContentDecompressor())
+            .addLast(INSTANCE);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise)
+        throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpHeaders headers = ((HttpRequest) msg).headers();
+            if (!headers.contains(HttpHeaders.Names.ACCEPT_ENCODING)) {
+                headers.set(HttpHeaders.Names.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+            }
+        }
+        ctx.write(msg, promise);
+    }
+}
@@ -17,6 +17,7 @@ package com.couchbase.client.core.endpoint.view;
 
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.util.AcceptEncodingHandler;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
@@ -47,9 +48,19 @@ public class ViewEndpoint extends AbstractEndpoint {
         if (environment().keepAliveInterval() > 0) {
             pipeline.addLast(new IdleStateHandler(environment().keepAliveInterval(), 0, 0, TimeUnit.MILLISECONDS));
         }
-        pipeline
-            .addLast(new HttpClientCodec())
-            .addLast(new ViewHandler(this, responseBuffer(), false, false));
+        pipeline.addLast(new HttpClientCodec());
+        if (environment().viewHttpCompressionEnabled()) {
+            AcceptEncodingHandler.addTo(pipeline);
+        }
+
+        boolean enableV2 = Boolean.parseBoolean(
+            System.getProperty("com.couchbase.enableYasjlViewResponseParser", "false")
+        );
+        if (!enableV2) {
+            pipeline.addLast(new ViewHandler(this, responseBuffer(), false, false));
+        } else {
+            pipeline.addLast(new ViewHandlerV2(this, responseBuffer(), false, false));
+        }
     }
 
 }
\ No newline at end of file
@@ -36,10 +36,12 @@ import com.couchbase.client.core.message.view.ViewQueryRequest;
 import com.couchbase.client.core.message.view.ViewQueryResponse;
 import com.couchbase.client.core.message.view.ViewRequest;
 import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.CompositeByteBufHelper;
 import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -86,7 +88,7 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
     /**
      * Contains the accumulating buffer for the response content.
      */
-    private ByteBuf responseContent;
+    private CompositeByteBuf responseContent;
 
     /**
      * Represents a observable that sends config chunks if instructed.
@@ -248,22 +250,21 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
             responseHeader = (HttpResponse) msg;
 
             if (responseContent != null) {
-                responseContent.clear();
+                CompositeByteBufHelper.reset(responseContent);
             } else {
-                responseContent = ctx.alloc().buffer();
+                responseContent = CompositeByteBufHelper.newAccumulator(ctx.alloc());
             }
         }
 
         if (request instanceof KeepAliveRequest) {
             response = new KeepAliveResponse(ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), request);
-            responseContent.clear();
-            responseContent.discardReadBytes();
+            CompositeByteBufHelper.reset(responseContent);
         } else if (msg instanceof HttpContent) {
-            responseContent.writeBytes(((HttpContent) msg).content());
+            CompositeByteBufHelper.append(responseContent, ((HttpContent) msg).content());
 
             if (currentRequest() instanceof ViewQueryRequest) {
                 if (viewRowObservable == null) {
-                    response = handleViewQueryResponse();
+                    response = handleViewQueryResponse(ctx);
                 }
 
                 parseQueryResponse(msg instanceof LastHttpContent);
@@ -315,9 +316,10 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
      *
      * Note that observables are attached to this response which are completed later in the response cycle.
      *
+     * @param ctx the channel handler context.
      * @return the initial response.
      */
-    private CouchbaseResponse handleViewQueryResponse() {
+    private CouchbaseResponse handleViewQueryResponse(final ChannelHandlerContext ctx) {
         int code = responseHeader.getStatus().code();
         String phrase = responseHeader.getStatus().reasonPhrase();
         ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
@@ -330,6 +332,7 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
         //set up trace ids on all these UnicastAutoReleaseSubjects, so that if they get in a bad state
         // (multiple subscribers or subscriber coming in too late) we can trace back to here
         viewRowObservable.withTraceIdentifier("viewRow");
+        applyRowsWatermarks(ctx, viewRowObservable);
         viewInfoObservable.withTraceIdentifier("viewInfo");
 
         return new ViewQueryResponse(
@@ -486,9 +489,9 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
 
             int from = responseContent.readerIndex() + openBracketPos;
             int to = closeBracketPos - openBracketPos - responseContent.readerIndex() + 1;
-            viewRowObservable.onNext(responseContent.slice(from, to).copy());
+            viewRowObservable.onNext(CompositeByteBufHelper.retainedSlice(responseContent, from, to));
             responseContent.readerIndex(closeBracketPos);
-            responseContent.discardReadBytes();
+            CompositeByteBufHelper.discardRead(responseContent);
         }
 
 
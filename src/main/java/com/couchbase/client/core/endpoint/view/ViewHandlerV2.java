@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.view;
+
+import com.couchbase.client.core.ResponseEvent;
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.ResponseStatusConverter;
+import com.couchbase.client.core.endpoint.view.parser.YasjlViewResponseParser;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.view.ViewQueryRequest;
+import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.utils.CompositeByteBufHelper;
+import com.lmax.disruptor.RingBuffer;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.Queue;
+
+/**
+ * A {@link ViewHandler} which decodes {@link ViewQueryRequest} responses through the
+ * {@link YasjlViewResponseParser} instead of scanning for rows by hand.
+ *
+ * All other view requests (design documents, keepalives) are handled by the {@link ViewHandler}.
+ *
+ * @since 1.5.2
+ */
+public class ViewHandlerV2 extends ViewHandler {
+
+    /**
+     * Contains the current pending response header if set.
+     */
+    private HttpResponse responseHeader;
+
+    /**
+     * Contains the accumulating buffer for the response content of view queries.
+     */
+    private CompositeByteBuf responseContent;
+
+    /**
+     * The parser for view query responses.
+     */
+    private YasjlViewResponseParser parser;
+
+    /**
+     * Creates a new {@link ViewHandlerV2} with the default queue for requests.
+     *
+     * @param endpoint the {@link AbstractEndpoint} to coordinate with.
+     * @param responseBuffer the {@link RingBuffer} to push responses into.
+     */
+    public ViewHandlerV2(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, boolean isTransient,
+                         final boolean pipeline) {
+        super(endpoint, responseBuffer, isTransient, pipeline);
+        this.parser = new YasjlViewResponseParser(endpoint.environment().scheduler(),
+            endpoint.environment().autoreleaseAfter());
+    }
+
+    /**
+     * Creates a new {@link ViewHandlerV2} with a custom queue for requests (suitable for tests).
+     *
+     * @param endpoint the {@link AbstractEndpoint} to coordinate with.
+     * @param responseBuffer the {@link RingBuffer} to push responses into.
+     * @param queue the queue which holds all outstanding open requests.
+     */
+    ViewHandlerV2(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, Queue<ViewRequest> queue,
+                  boolean isTransient, final boolean pipeline) {
+        super(endpoint, responseBuffer, queue, isTransient, pipeline);
+        this.parser = new YasjlViewResponseParser(endpoint.environment().scheduler(),
+            endpoint.environment().autoreleaseAfter());
+    }
+
+    @Override
+    protected CouchbaseResponse decodeResponse(final ChannelHandlerContext ctx, final HttpObject msg) throws Exception {
+        if (!(currentRequest() instanceof ViewQueryRequest)) {
+            return super.decodeResponse(ctx, msg);
+        }
+
+        CouchbaseResponse response = null;
+        if (msg instanceof HttpResponse) {
+            responseHeader = (HttpResponse) msg;
+            if (responseContent != null) {
+                CompositeByteBufHelper.reset(responseContent);
+            } else {
+                responseContent = CompositeByteBufHelper.newAccumulator(ctx.alloc());
+            }
+        }
+
+        if (msg instanceof HttpContent) {
+            CompositeByteBufHelper.append(responseContent, ((HttpContent) msg).content());
+            boolean lastChunk = msg instanceof LastHttpContent;
+            int code = responseHeader.getStatus().code();
+
+            if (!parser.isInitialized()) {
+                parser.initialize(responseContent, code, responseHeader.getStatus().reasonPhrase(),
+                    ResponseStatusConverter.fromHttp(code), currentRequest());
+                applyRowsWatermarks(ctx, parser.rowObservable());
+            }
+
+            if (code == 200) {
+                response = parser.parse();
+            } else if (lastChunk) {
+                response = parser.parseError();
+            }
+
+            if (lastChunk) {
+                parser.finishParsingAndReset(code == 200);
+                finishedDecoding();
+            }
+        }
+
+        return response;
+    }
+
+    @Override
+    protected void finishedDecoding() {
+        releaseResponseContent();
+        super.finishedDecoding();
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (parser.isInitialized()) {
+            parser.finishParsingAndReset(false);
+        }
+        releaseResponseContent();
+        super.handlerRemoved(ctx);
+    }
+
+    private void releaseResponseContent() {
+        if (responseContent != null && responseContent.refCnt() > 0) {
+            responseContent.release();
+        }
+        responseContent = null;
+    }
+
+}
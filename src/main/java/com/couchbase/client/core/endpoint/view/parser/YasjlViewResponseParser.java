@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.view.parser;
+
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.view.ViewQueryResponse;
+import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
+import com.couchbase.client.core.utils.yasjl.ByteBufJsonParser;
+import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
+import com.couchbase.client.core.utils.yasjl.JsonPointer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import rx.Scheduler;
+import rx.subjects.AsyncSubject;
+
+import java.io.EOFException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A View response parser, based on yasjl.
+ *
+ * @since 1.5.2
+ */
+public class YasjlViewResponseParser {
+
+    /**
+     * The logger used for this parser.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(YasjlViewResponseParser.class);
+
+    /**
+     * The default charset used when decoding.
+     */
+    private static final Charset CHARSET = CharsetUtil.UTF_8;
+
+    /**
+     * Scheduler for view response
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * TTL for response observables
+     */
+    private final long ttl;
+
+    /**
+     * The actual yasjl parser handling the response.
+     */
+    private final ByteBufJsonParser parser;
+
+    /**
+     * Represents an observable that sends the rows.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> viewRowObservable;
+
+    /**
+     * Contains info-level data about the view response.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> viewInfoObservable;
+
+    /**
+     * Contains optional errors that happened during execution.
+     */
+    private AsyncSubject<String> viewErrorObservable;
+
+    /**
+     * The raw "total_rows" value, if any.
+     */
+    private String totalRows;
+
+    /**
+     * The raw "debug_info" object, if any.
+     */
+    private String debugInfo;
+
+    /**
+     * True once the info has been emitted for the current response.
+     */
+    private boolean sentInfo;
+
+    /**
+     * Flag to indicate if the parser is initialized
+     */
+    private boolean initialized;
+
+    /**
+     * The response created on initialization.
+     */
+    private ViewQueryResponse response;
+
+    /**
+     * True if the current response has been sent already.
+     */
+    private boolean sentResponse;
+
+    /**
+     * A buffer for the current raw response content.
+     */
+    private ByteBuf responseContent;
+
+    /**
+     * Create a new {@link YasjlViewResponseParser}.
+     *
+     * @param scheduler the scheduler which should be used when computations are moved out.
+     * @param ttl the ttl used for the subjects until their contents are garbage collected.
+     */
+    public YasjlViewResponseParser(final Scheduler scheduler, final long ttl) {
+        this.scheduler = scheduler;
+        this.ttl = ttl;
+
+        JsonPointer[] jsonPointers = {
+            new JsonPointer("/total_rows", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    totalRows = buf.toString(CHARSET);
+                    buf.release();
+                }
+            }),
+            new JsonPointer("/debug_info", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    debugInfo = buf.toString(CHARSET);
+                    buf.release();
+                }
+            }),
+            new JsonPointer("/rows/-", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (viewRowObservable != null) {
+                        emitInfo();
+                        viewRowObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/errors", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    String errors = buf.toString(CHARSET);
+                    buf.release();
+                    if (viewErrorObservable != null) {
+                        viewErrorObservable.onNext("{\"errors\":" + errors + "}");
+                    }
+                }
+            })
+        };
+        this.parser = new ByteBufJsonParser(jsonPointers);
+    }
+
+    /**
+     * Returns the subject the rows of the current response are emitted on.
+     *
+     * @return the rows subject, null if not initialized yet.
+     */
+    public UnicastAutoReleaseSubject<ByteBuf> rowObservable() {
+        return viewRowObservable;
+    }
+
+    /**
+     * True if this parser is currently initialized and ready to parse a response.
+     *
+     * @return true if initialized, false otherwise.
+     */
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+
+    /**
+     * Initialize this parser for a response parsing cycle.
+     *
+     * @param responseContent the raw content to parse from.
+     * @param responseCode the HTTP status code of the response.
+     * @param responsePhrase the HTTP reason phrase of the response.
+     * @param responseStatus the status of the response.
+     * @param request the original request.
+     */
+    public void initialize(final ByteBuf responseContent, final int responseCode, final String responsePhrase,
+        final ResponseStatus responseStatus, final CouchbaseRequest request) {
+        this.sentResponse = false;
+        this.sentInfo = false;
+        this.totalRows = null;
+        this.debugInfo = null;
+        this.responseContent = responseContent;
+
+        viewRowObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        viewInfoObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        viewErrorObservable = AsyncSubject.create();
+
+        //set up trace ids on all these UnicastAutoReleaseSubjects, so that if they get in a bad state
+        // (multiple subscribers or subscriber coming in too late) we can trace back to here
+        viewRowObservable.withTraceIdentifier("viewRow");
+        viewInfoObservable.withTraceIdentifier("viewInfo");
+
+        response = new ViewQueryResponse(
+            viewRowObservable.onBackpressureBuffer().observeOn(scheduler),
+            viewInfoObservable.onBackpressureBuffer().observeOn(scheduler),
+            viewErrorObservable.observeOn(scheduler),
+            responseCode,
+            responsePhrase,
+            responseStatus,
+            request
+        );
+
+        parser.initialize(responseContent);
+        initialized = true;
+    }
+
+    /**
+     * Instruct the parser to run a new parsing cycle on the current response content.
+     *
+     * @return the {@link ViewQueryResponse} on the first call, null otherwise.
+     * @throws Exception if the internal parsing can't complete.
+     */
+    public ViewQueryResponse parse() throws Exception {
+        try {
+            parser.parse();
+            //discard only if EOF is not thrown
+            responseContent.discardSomeReadBytes();
+            LOGGER.trace("Received last chunk and completed parsing of view response");
+        } catch (EOFException ex) {
+            //ignore as we expect chunked responses
+            LOGGER.trace("Still expecting more data for view response");
+        }
+        return responseOnce();
+    }
+
+    /**
+     * Instruct the parser to treat the complete current response content as an error, which is the case
+     * for responses with a non-success HTTP status code.
+     *
+     * @return the {@link ViewQueryResponse} if not returned before, null otherwise.
+     */
+    public ViewQueryResponse parseError() {
+        viewErrorObservable.onNext("{\"errors\":[" + responseContent.toString(CHARSET) + "]}");
+        responseContent.skipBytes(responseContent.readableBytes());
+        return responseOnce();
+    }
+
+    private ViewQueryResponse responseOnce() {
+        if (!sentResponse) {
+            sentResponse = true;
+            return response;
+        }
+        return null;
+    }
+
+    /**
+     * Emits the info object built from the values received before the rows, if not done already.
+     */
+    private void emitInfo() {
+        if (sentInfo) {
+            return;
+        }
+        sentInfo = true;
+
+        if (totalRows == null && debugInfo == null) {
+            viewInfoObservable.onNext(Unpooled.EMPTY_BUFFER);
+        } else {
+            StringBuilder info = new StringBuilder("{");
+            if (totalRows != null) {
+                info.append("\"total_rows\":").append(totalRows);
+            }
+            if (debugInfo != null) {
+                if (totalRows != null) {
+                    info.append(',');
+                }
+                info.append("\"debug_info\":").append(debugInfo);
+            }
+            viewInfoObservable.onNext(Unpooled.copiedBuffer(info.append('}'), CHARSET));
+        }
+        viewInfoObservable.onCompleted();
+    }
+
+    /**
+     * Instruct the parser to finish the parsing and reset its internal state, turning it
+     * back to uninitialized as well.
+     *
+     * @param success true if the response had a successful HTTP status code, which means an info is expected.
+     */
+    public void finishParsingAndReset(final boolean success) {
+        if (success) {
+            emitInfo();
+        }
+        viewInfoObservable.onCompleted();
+        viewRowObservable.onCompleted();
+        viewErrorObservable.onCompleted();
+
+        viewRowObservable = null;
+        viewInfoObservable = null;
+        viewErrorObservable = null;
+        response = null;
+        responseContent = null;
+        this.initialized = false;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.env;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WaitStrategy;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link WaitStrategy} which spins, then yields and finally parks the consumer until it gets signalled.
+ *
+ * The number of spins is adapted to the observed arrival rate: if an event showed up only while yielding,
+ * the spin phase is doubled so the next wait is more likely to catch it early. If the consumer had to park,
+ * events are arriving slowly and the spin phase is halved so an idle ring does not burn CPU. Under sustained
+ * load this behaves close to a busy spin strategy, when idle close to the {@link com.lmax.disruptor.BlockingWaitStrategy}.
+ *
+ * Producers only take the lock to signal if a consumer is actually parked.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class AdaptiveWaitStrategy implements WaitStrategy {
+
+    public static final int MIN_SPIN_TRIES = 16;
+    public static final int MAX_SPIN_TRIES = 4096;
+    public static final int YIELD_TRIES = 64;
+
+    private final int minSpinTries;
+    private final int maxSpinTries;
+    private final int yieldTries;
+    private final Lock lock = new ReentrantLock();
+    private final Condition processorNotifyCondition = lock.newCondition();
+    private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+
+    /**
+     * Only adapted by the consumer thread, so a racy update with more than one consumer is harmless.
+     */
+    private volatile int spinTries;
+
+    public AdaptiveWaitStrategy() {
+        this(MIN_SPIN_TRIES, MAX_SPIN_TRIES, YIELD_TRIES);
+    }
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param minSpinTries the lower bound of spins before yielding.
+     * @param maxSpinTries the upper bound of spins before yielding.
+     * @param yieldTries the number of yields before parking.
+     */
+    public AdaptiveWaitStrategy(int minSpinTries, int maxSpinTries, int yieldTries) {
+        if (minSpinTries < 0 || maxSpinTries < minSpinTries || yieldTries < 0) {
+            throw new IllegalArgumentException("Spin tries must be 0 <= min <= max and yield tries >= 0.");
+        }
+        this.minSpinTries = minSpinTries;
+        this.maxSpinTries = maxSpinTries;
+        this.yieldTries = yieldTries;
+        this.spinTries = maxSpinTries;
+    }
+
+    /**
+     * Returns a {@link WaitStrategyFactory} creating strategies with the default settings.
+     */
+    public static WaitStrategyFactory factory() {
+        return factory(MIN_SPIN_TRIES, MAX_SPIN_TRIES, YIELD_TRIES);
+    }
+
+    /**
+     * Returns a {@link WaitStrategyFactory} creating strategies with the given settings.
+     */
+    public static WaitStrategyFactory factory(final int minSpinTries, final int maxSpinTries,
+        final int yieldTries) {
+        return new WaitStrategyFactory() {
+            @Override
+            public WaitStrategy newWaitStrategy() {
+                return new AdaptiveWaitStrategy(minSpinTries, maxSpinTries, yieldTries);
+            }
+
+            @Override
+            public String toString() {
+                return "AdaptiveWaitStrategy{minSpinTries=" + minSpinTries + ", maxSpinTries=" + maxSpinTries
+                    + ", yieldTries=" + yieldTries + "}";
+            }
+        };
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence dependentSequence,
+        final SequenceBarrier barrier) throws AlertException, InterruptedException {
+        int spins = spinTries;
+        int counter = 0;
+        long availableSequence;
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+            if (counter < spins) {
+                counter++;
+            } else if (counter < spins + yieldTries) {
+                counter++;
+                Thread.yield();
+            } else {
+                park(sequence, cursor, barrier);
+                spinTries = Math.max(minSpinTries, spins >> 1);
+                return waitForDependent(sequence, dependentSequence, barrier);
+            }
+        }
+
+        if (counter > spins) {
+            spinTries = Math.min(maxSpinTries, Math.max(1, spins << 1));
+        }
+        return availableSequence;
+    }
+
+    private void park(final long sequence, final Sequence cursor, final SequenceBarrier barrier)
+        throws AlertException, InterruptedException {
+        if (cursor.get() >= sequence) {
+            return;
+        }
+        lock.lock();
+        try {
+            do {
+                signalNeeded.getAndSet(true);
+                if (cursor.get() >= sequence) {
+                    break;
+                }
+                barrier.checkAlert();
+                processorNotifyCondition.await();
+            } while (cursor.get() < sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long waitForDependent(final long sequence, final Sequence dependentSequence,
+        final SequenceBarrier barrier) throws AlertException {
+        long availableSequence;
+        while ((availableSequence = dependentSequence.get()) < sequence) {
+            barrier.checkAlert();
+        }
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        if (signalNeeded.getAndSet(false)) {
+            lock.lock();
+            try {
+                processorNotifyCondition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of spins the next wait starts with.
+     */
+    int spinTries() {
+        return spinTries;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveWaitStrategy{minSpinTries=" + minSpinTries + ", maxSpinTries=" + maxSpinTries
+            + ", yieldTries=" + yieldTries + "}";
+    }
+}
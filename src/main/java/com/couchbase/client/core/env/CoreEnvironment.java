@@ -17,13 +17,22 @@ package com.couchbase.client.core.env;
 
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.endpoint.CircuitBreakerConfig;
+import com.couchbase.client.core.endpoint.ConnectLimiter;
 import com.couchbase.client.core.event.EventBus;
 import com.couchbase.client.core.hooks.CouchbaseCoreSendHook;
+import com.couchbase.client.core.message.kv.HedgedReadConfig;
 import com.couchbase.client.core.message.observe.Observe;
-import com.couchbase.client.core.metrics.MetricsCollector;
 import com.couchbase.client.core.metrics.NetworkLatencyMetricsCollector;
+import com.couchbase.client.core.metrics.RuntimeMetricsCollector;
+import com.couchbase.client.core.metrics.ServerDurationMetricsCollector;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.metrics.SlowOperationReporter;
+import com.couchbase.client.core.retry.RetryBudget;
+import com.couchbase.client.core.retry.RetryBudgetConfig;
 import com.couchbase.client.core.retry.RetryStrategy;
 import com.couchbase.client.core.time.Delay;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.EventLoopGroup;
 import rx.Observable;
 import rx.Scheduler;
@@ -333,6 +342,139 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
      */
     long autoreleaseAfter();
 
+    /**
+     * The number of streamed rows (of query, view and analytics responses) which can pile up unconsumed before
+     * the client stops reading from the socket of that connection.
+     *
+     * Reading is resumed once the subscriber consumed the backlog down to the {@link #streamingRowsLowWatermark()}.
+     * A value lower or equal to 0 disables this form of backpressure, which is the default since the other
+     * parts of a response only complete once all rows have been read.
+     *
+     * @return the high watermark for unconsumed streamed rows.
+     */
+    int streamingRowsHighWatermark();
+
+    /**
+     * The number of unconsumed streamed rows at which reading from the socket is resumed after it has been paused
+     * because of the {@link #streamingRowsHighWatermark()}.
+     *
+     * @return the low watermark for unconsumed streamed rows.
+     */
+    int streamingRowsLowWatermark();
+
+    /**
+     * If responses for views are requested with "Accept-Encoding: gzip, deflate" and decompressed as they
+     * stream in.
+     *
+     * @return true if http compression is negotiated for the view service.
+     */
+    boolean viewHttpCompressionEnabled();
+
+    /**
+     * If responses for N1QL queries are requested with "Accept-Encoding: gzip, deflate" and decompressed as they
+     * stream in.
+     *
+     * @return true if http compression is negotiated for the query service.
+     */
+    boolean queryHttpCompressionEnabled();
+
+    /**
+     * If responses for search queries are requested with "Accept-Encoding: gzip, deflate" and decompressed as they
+     * stream in.
+     *
+     * @return true if http compression is negotiated for the search service.
+     */
+    boolean searchHttpCompressionEnabled();
+
+    /**
+     * If responses for analytics queries are requested with "Accept-Encoding: gzip, deflate" and decompressed as they
+     * stream in.
+     *
+     * @return true if http compression is negotiated for the analytics service.
+     */
+    boolean analyticsHttpCompressionEnabled();
+
+    /**
+     * The number of N1QL statements tracked by the client side prepared statement cache.
+     *
+     * Statements which are executed repeatedly are transparently prepared and subsequently executed by
+     * name. A value lower or equal to 0 disables the cache.
+     *
+     * @return the size of the prepared statement cache.
+     */
+    int queryPreparedStatementCacheSize();
+
+    /**
+     * The configuration for hedged replica reads.
+     *
+     * If enabled, plain gets which did not complete within a latency percentile of their bucket are also sent
+     * to the fastest replica and the first successful response is returned.
+     *
+     * @return the hedged read configuration.
+     */
+    HedgedReadConfig hedgedReadConfig();
+
+    /**
+     * The configuration for the circuit breakers which guard every endpoint.
+     *
+     * If enabled, an endpoint whose recent requests failed or were too slow beyond a threshold stops
+     * dispatching requests until a canary request after the sleep window succeeds.
+     *
+     * @return the circuit breaker configuration.
+     */
+    CircuitBreakerConfig circuitBreakerConfig();
+
+    /**
+     * The configuration for the retry budget.
+     *
+     * @return the retry budget configuration.
+     */
+    RetryBudgetConfig retryBudgetConfig();
+
+    /**
+     * The retry budget which limits retries to a ratio of the first attempts per bucket and service.
+     *
+     * @return the retry budget of this environment.
+     */
+    RetryBudget retryBudget();
+
+    /**
+     * Returns true if the metrics collectors also write into the {@link #metricsRegistry()}.
+     *
+     * @return true if the registry is populated.
+     */
+    boolean metricsRegistryEnabled();
+
+    /**
+     * The port on which the metrics registry is served in the Prometheus text format, 0 if disabled.
+     *
+     * @return the port of the Prometheus endpoint.
+     */
+    int prometheusExporterPort();
+
+    /**
+     * The address the Prometheus endpoint binds to, the loopback address by default.
+     *
+     * @return the host of the Prometheus endpoint.
+     */
+    String prometheusExporterHost();
+
+    /**
+     * Returns true if the metrics registry is exposed as an MBean.
+     *
+     * @return true if exposed through JMX.
+     */
+    boolean jmxMetricsEnabled();
+
+    /**
+     * Returns the registry which holds the current metrics, readable at any time by exporters.
+     *
+     * It stays empty unless {@link #metricsRegistryEnabled()} is set.
+     *
+     * @return the metrics registry.
+     */
+    MetricsRegistry metricsRegistry();
+
     /**
      * The time in milliseconds after which some service will issue a form of keep-alive request.
      *
@@ -386,6 +528,27 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
      */
     boolean bufferPoolingEnabled();
 
+    /**
+     * Returns the number of heap and direct arenas of the buffer pool.
+     *
+     * @return the number of arenas.
+     */
+    int bufferPoolArenas();
+
+    /**
+     * Returns the size of the chunks the buffer pool allocates its memory in.
+     *
+     * @return the chunk size in bytes.
+     */
+    int bufferPoolChunkSize();
+
+    /**
+     * Returns the pooled allocator the endpoints use if buffer pooling is enabled.
+     *
+     * @return the pooled allocator.
+     */
+    PooledByteBufAllocator bufferPoolAllocator();
+
     /**
      * Returns true if TCP_NODELAY is enabled (therefore Nagle'ing is disabled).
      *
@@ -410,7 +573,7 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
      *
      * @return the collector.
      */
-    MetricsCollector runtimeMetricsCollector();
+    RuntimeMetricsCollector runtimeMetricsCollector();
 
     /**
      * Returns the collector responsible for aggregating and publishing network latency information.
@@ -419,6 +582,21 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
      */
     NetworkLatencyMetricsCollector networkLatencyMetricsCollector();
 
+    /**
+     * Returns the collector responsible for aggregating and publishing the operation durations reported
+     * by the server.
+     *
+     * @return the collector.
+     */
+    ServerDurationMetricsCollector serverDurationMetricsCollector();
+
+    /**
+     * Returns the reporter which periodically publishes the slowest operations and where they spent their time.
+     *
+     * @return the reporter.
+     */
+    SlowOperationReporter slowOperationReporter();
+
     /**
      * Returns the amount of time the SDK will wait on the socket connect until an error is raised and handled.
      *
@@ -426,6 +604,34 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
      */
     int socketConnectTimeout();
 
+    /**
+     * Returns the maximum number of connect attempts in flight against a single node, 0 if not limited.
+     *
+     * @return the maximum number of concurrent connects per node.
+     */
+    int maxConcurrentConnectsPerNode();
+
+    /**
+     * Returns the limiter which all endpoints of a node share for their connect attempts.
+     *
+     * @return the connect limiter.
+     */
+    ConnectLimiter connectLimiter();
+
+    /**
+     * Returns the window in which further config reload signals are dropped after one has been handled.
+     *
+     * @return the deduplication window in milliseconds.
+     */
+    long configReloadDedupWindow();
+
+    /**
+     * Returns the directory where the last applied config of every bucket is cached for a fast bootstrap.
+     *
+     * @return the directory path or null if the cache is disabled.
+     */
+    String configCacheDirectory();
+
     /**
      * Returns true if the {@link Observable} callbacks are completed on the IO event loops.
      *
@@ -447,6 +653,16 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
     @InterfaceAudience.Public
     WaitStrategyFactory requestBufferWaitStrategy();
 
+    /**
+     * Waiting strategy used by response {@link com.lmax.disruptor.EventProcessor}s to wait for data from
+     * {@link com.lmax.disruptor.RingBuffer}
+     *
+     * @return waiting strategy
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    WaitStrategyFactory responseBufferWaitStrategy();
+
     /**
      * Returns the proactive polling interval for cluster configurations.
      *
@@ -470,4 +686,33 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
     @InterfaceAudience.Public
     CouchbaseCoreSendHook couchbaseCoreSendHook();
 
+    /**
+     * Returns true if the client negotiates server-pushed cluster map change notifications on KV connections.
+     *
+     * @return true if enabled.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean clustermapNotificationsEnabled();
+
+    /**
+     * Returns the proactive polling interval for buckets which receive server-pushed cluster map change
+     * notifications.
+     *
+     * @return the safety net polling interval in milliseconds.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    long configSafetyNetPollInterval();
+
+    /**
+     * Returns true if the client negotiates tracing on KV connections, so that the server reports the duration
+     * of every operation.
+     *
+     * @return true if enabled.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean tracingEnabled();
+
 }
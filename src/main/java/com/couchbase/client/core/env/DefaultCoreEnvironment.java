@@ -18,6 +18,8 @@ package com.couchbase.client.core.env;
 import com.couchbase.client.core.ClusterFacade;
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.endpoint.CircuitBreakerConfig;
+import com.couchbase.client.core.endpoint.ConnectLimiter;
 import com.couchbase.client.core.env.resources.IoPoolShutdownHook;
 import com.couchbase.client.core.env.resources.NettyShutdownHook;
 import com.couchbase.client.core.env.resources.NoOpShutdownHook;
@@ -32,21 +34,30 @@ import com.couchbase.client.core.hooks.CouchbaseCoreSendHook;
 import com.couchbase.client.core.logging.CouchbaseLogLevel;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.kv.HedgedReadConfig;
 import com.couchbase.client.core.message.observe.Observe;
 import com.couchbase.client.core.metrics.DefaultLatencyMetricsCollectorConfig;
 import com.couchbase.client.core.metrics.DefaultMetricsCollectorConfig;
 import com.couchbase.client.core.metrics.LatencyMetricsCollectorConfig;
-import com.couchbase.client.core.metrics.MetricsCollector;
 import com.couchbase.client.core.metrics.MetricsCollectorConfig;
 import com.couchbase.client.core.metrics.NetworkLatencyMetricsCollector;
 import com.couchbase.client.core.metrics.RuntimeMetricsCollector;
+import com.couchbase.client.core.metrics.ServerDurationMetricsCollector;
+import com.couchbase.client.core.metrics.SlowOperationReporter;
+import com.couchbase.client.core.metrics.SlowOperationReporterConfig;
+import com.couchbase.client.core.metrics.registry.JmxExporter;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.metrics.registry.PrometheusExporter;
 import com.couchbase.client.core.node.DefaultMemcachedHashingStrategy;
 import com.couchbase.client.core.node.MemcachedHashingStrategy;
 import com.couchbase.client.core.retry.BestEffortRetryStrategy;
+import com.couchbase.client.core.retry.RetryBudget;
+import com.couchbase.client.core.retry.RetryBudgetConfig;
 import com.couchbase.client.core.retry.RetryStrategy;
 import com.couchbase.client.core.time.Delay;
 import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.WaitStrategy;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.concurrent.DefaultThreadFactory;
@@ -89,7 +100,7 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     public static final int QUERY_ENDPOINTS = 12;
     public static final int SEARCH_ENDPOINTS = 12;
     public static final Delay OBSERVE_INTERVAL_DELAY = Delay.exponential(TimeUnit.MICROSECONDS, 100000, 10);
-    public static final Delay RECONNECT_DELAY = Delay.exponential(TimeUnit.MILLISECONDS, 4096, 32);
+    public static final Delay RECONNECT_DELAY = Delay.decorrelatedJitter(TimeUnit.MILLISECONDS, 4096, 32);
     public static final Delay RETRY_DELAY = Delay.exponential(TimeUnit.MICROSECONDS, 100000, 100);
     public static final RetryStrategy RETRY_STRATEGY = BestEffortRetryStrategy.INSTANCE;
     public static final long MAX_REQUEST_LIFETIME = TimeUnit.SECONDS.toMillis(75);
@@ -98,16 +109,32 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     public static final long KEEPALIVE_ERROR_THRESHOLD = 4;
     public static final long KEEPALIVE_TIMEOUT = 2500;
     public static final long AUTORELEASE_AFTER = TimeUnit.SECONDS.toMillis(2);
+    public static final int STREAMING_ROWS_HIGH_WATERMARK = 0;
+    public static final int STREAMING_ROWS_LOW_WATERMARK = 256;
+    public static final boolean HTTP_COMPRESSION_ENABLED = false;
+    public static final int QUERY_PREPARED_STATEMENT_CACHE_SIZE = 0;
+    public static final boolean METRICS_REGISTRY_ENABLED = false;
+    public static final int PROMETHEUS_EXPORTER_PORT = 0;
+    public static final String PROMETHEUS_EXPORTER_HOST = "127.0.0.1";
+    public static final boolean JMX_METRICS_ENABLED = false;
     public static final boolean BUFFER_POOLING_ENABLED = true;
+    public static final int BUFFER_POOL_ARENAS = PooledByteBufAllocator.defaultNumDirectArena();
+    public static final int BUFFER_POOL_CHUNK_SIZE =
+        PooledByteBufAllocator.defaultPageSize() << PooledByteBufAllocator.defaultMaxOrder();
     public static final boolean TCP_NODELAY_ENALED = true;
     public static final boolean MUTATION_TOKENS_ENABLED = false;
     public static final int SOCKET_CONNECT_TIMEOUT = 1000;
+    public static final int MAX_CONCURRENT_CONNECTS_PER_NODE = 8;
+    public static final long CONFIG_RELOAD_DEDUP_WINDOW = 500;
     public static final boolean CALLBACKS_ON_IO_POOL = false;
     public static final long DISCONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(25);
     public static final MemcachedHashingStrategy MEMCACHED_HASHING_STRATEGY =
         DefaultMemcachedHashingStrategy.INSTANCE;
     public static final long CONFIG_POLL_INTERVAL = 2500;
     public static final boolean CERT_AUTH_ENABLED = false;
+    public static final boolean CLUSTERMAP_NOTIFICATIONS_ENABLED = false;
+    public static final long CONFIG_SAFETY_NET_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    public static final boolean TRACING_ENABLED = false;
 
     public static String CORE_VERSION;
     public static String CORE_GIT_VERSION;
@@ -208,18 +235,55 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     private final long keepAliveErrorThreshold;
     private final long keepAliveTimeout;
     private final long autoreleaseAfter;
+    private final int streamingRowsHighWatermark;
+    private final int streamingRowsLowWatermark;
+    private final boolean viewHttpCompressionEnabled;
+    private final boolean queryHttpCompressionEnabled;
+    private final boolean searchHttpCompressionEnabled;
+    private final boolean analyticsHttpCompressionEnabled;
+    private final int queryPreparedStatementCacheSize;
+    private final HedgedReadConfig hedgedReadConfig;
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final RetryBudgetConfig retryBudgetConfig;
+    private final boolean metricsRegistryEnabled;
+    private final int prometheusExporterPort;
+    private final String prometheusExporterHost;
+    private final boolean jmxMetricsEnabled;
     private final boolean bufferPoolingEnabled;
+    private final int bufferPoolArenas;
+    private final int bufferPoolChunkSize;
+    private final PooledByteBufAllocator bufferPoolAllocator;
     private final boolean tcpNodelayEnabled;
     private final boolean mutationTokensEnabled;
     private final int socketConnectTimeout;
+    private final int maxConcurrentConnectsPerNode;
+    private final long configReloadDedupWindow;
+    private final String configCacheDirectory;
+    private final ConnectLimiter connectLimiter;
     private final boolean callbacksOnIoPool;
     private final long disconnectTimeout;
     private final WaitStrategyFactory requestBufferWaitStrategy;
+    private final WaitStrategyFactory responseBufferWaitStrategy;
     private final MemcachedHashingStrategy memcachedHashingStrategy;
     private final long configPollInterval;
     private final boolean certAuthEnabled;
+    private final boolean clustermapNotificationsEnabled;
+    private final long configSafetyNetPollInterval;
+    private final boolean tracingEnabled;
 
     private static final int MAX_ALLOWED_INSTANCES = 1;
+
+    private static final WaitStrategyFactory BLOCKING_WAIT_STRATEGY = new WaitStrategyFactory() {
+        @Override
+        public WaitStrategy newWaitStrategy() {
+            return new BlockingWaitStrategy();
+        }
+
+        @Override
+        public String toString() {
+            return "BlockingWaitStrategy";
+        }
+    };
     private static volatile int instanceCounter = 0;
 
     private final EventLoopGroup ioPool;
@@ -244,8 +308,14 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     private final ShutdownHook nettyShutdownHook;
     private final ShutdownHook coreSchedulerShutdownHook;
 
-    private final MetricsCollector runtimeMetricsCollector;
+    private final MetricsRegistry metricsRegistry;
+    private final PrometheusExporter prometheusExporter;
+    private final JmxExporter jmxExporter;
+    private final RuntimeMetricsCollector runtimeMetricsCollector;
+    private final RetryBudget retryBudget;
     private final NetworkLatencyMetricsCollector networkLatencyMetricsCollector;
+    private final ServerDurationMetricsCollector serverDurationMetricsCollector;
+    private final SlowOperationReporter slowOperationReporter;
     private final Subscription metricsCollectorSubscription;
 
     private final CouchbaseCoreSendHook couchbaseCoreSendHook;
@@ -284,10 +354,44 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         maxRequestLifetime = longPropertyOr("maxRequestLifetime", builder.maxRequestLifetime);
         keepAliveInterval = longPropertyOr("keepAliveInterval", builder.keepAliveInterval);
         autoreleaseAfter = longPropertyOr("autoreleaseAfter", builder.autoreleaseAfter);
+        streamingRowsHighWatermark = intPropertyOr("streamingRowsHighWatermark", builder.streamingRowsHighWatermark);
+        streamingRowsLowWatermark = intPropertyOr("streamingRowsLowWatermark", builder.streamingRowsLowWatermark);
+        if (streamingRowsHighWatermark > 0
+            && (streamingRowsLowWatermark < 0 || streamingRowsLowWatermark >= streamingRowsHighWatermark)) {
+            throw new IllegalArgumentException("The streamingRowsLowWatermark needs to be between 0 and the "
+                + "streamingRowsHighWatermark (exclusive).");
+        }
+        viewHttpCompressionEnabled = booleanPropertyOr("viewHttpCompressionEnabled",
+            builder.viewHttpCompressionEnabled);
+        queryHttpCompressionEnabled = booleanPropertyOr("queryHttpCompressionEnabled",
+            builder.queryHttpCompressionEnabled);
+        searchHttpCompressionEnabled = booleanPropertyOr("searchHttpCompressionEnabled",
+            builder.searchHttpCompressionEnabled);
+        analyticsHttpCompressionEnabled = booleanPropertyOr("analyticsHttpCompressionEnabled",
+            builder.analyticsHttpCompressionEnabled);
+        queryPreparedStatementCacheSize = intPropertyOr("queryPreparedStatementCacheSize",
+            builder.queryPreparedStatementCacheSize);
+        hedgedReadConfig = builder.hedgedReadConfig == null ? HedgedReadConfig.disabled() : builder.hedgedReadConfig;
+        circuitBreakerConfig = builder.circuitBreakerConfig == null
+            ? CircuitBreakerConfig.disabled() : builder.circuitBreakerConfig;
+        retryBudgetConfig = builder.retryBudgetConfig == null
+            ? RetryBudgetConfig.disabled() : builder.retryBudgetConfig;
+        metricsRegistryEnabled = booleanPropertyOr("metricsRegistryEnabled", builder.metricsRegistryEnabled);
+        prometheusExporterPort = intPropertyOr("prometheusExporterPort", builder.prometheusExporterPort);
+        prometheusExporterHost = stringPropertyOr("prometheusExporterHost", builder.prometheusExporterHost);
+        jmxMetricsEnabled = booleanPropertyOr("jmxMetricsEnabled", builder.jmxMetricsEnabled);
         bufferPoolingEnabled = booleanPropertyOr("bufferPoolingEnabled", builder.bufferPoolingEnabled);
+        bufferPoolArenas = intPropertyOr("bufferPoolArenas", builder.bufferPoolArenas);
+        bufferPoolChunkSize = intPropertyOr("bufferPoolChunkSize", builder.bufferPoolChunkSize);
+        bufferPoolAllocator = createBufferPoolAllocator(bufferPoolArenas, bufferPoolChunkSize);
         tcpNodelayEnabled = booleanPropertyOr("tcpNodelayEnabled", builder.tcpNodelayEnabled);
         mutationTokensEnabled = booleanPropertyOr("mutationTokensEnabled", builder.mutationTokensEnabled);
         socketConnectTimeout = intPropertyOr("socketConnectTimeout", builder.socketConnectTimeout);
+        maxConcurrentConnectsPerNode = intPropertyOr("maxConcurrentConnectsPerNode",
+            builder.maxConcurrentConnectsPerNode);
+        configReloadDedupWindow = longPropertyOr("configReloadDedupWindow", builder.configReloadDedupWindow);
+        configCacheDirectory = stringPropertyOr("configCacheDirectory", builder.configCacheDirectory);
+        connectLimiter = new ConnectLimiter(maxConcurrentConnectsPerNode);
         callbacksOnIoPool = booleanPropertyOr("callbacksOnIoPool", builder.callbacksOnIoPool);
         disconnectTimeout = longPropertyOr("disconnectTimeout", builder.disconnectTimeout);
         sslKeystore = builder.sslKeystore;
@@ -300,6 +404,15 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         );
         keepAliveErrorThreshold = longPropertyOr("keepAliveErrorThreshold", builder.keepAliveErrorThreshold);
         keepAliveTimeout = longPropertyOr("keepAliveTimeout", builder.keepAliveTimeout);
+        clustermapNotificationsEnabled = booleanPropertyOr(
+            "clustermapNotificationsEnabled",
+            builder.clustermapNotificationsEnabled
+        );
+        configSafetyNetPollInterval = longPropertyOr(
+            "configSafetyNetPollInterval",
+            builder.configSafetyNetPollInterval
+        );
+        tracingEnabled = booleanPropertyOr("tracingEnabled", builder.tracingEnabled);
 
         if (ioPoolSize < MIN_POOL_SIZE) {
             LOGGER.info("ioPoolSize is less than {} ({}), setting to: {}", MIN_POOL_SIZE, ioPoolSize, MIN_POOL_SIZE);
@@ -385,19 +498,57 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
                     : builder.schedulerShutdownHook;
         }
         this.eventBus = builder.eventBus == null ? new DefaultEventBus(coreScheduler) : builder.eventBus;
+        this.metricsRegistry = new MetricsRegistry();
+        MetricsRegistry collectorRegistry = metricsRegistryEnabled ? metricsRegistry : null;
+        this.retryBudget = new RetryBudget(retryBudgetConfig, coreScheduler, collectorRegistry);
         this.runtimeMetricsCollector = new RuntimeMetricsCollector(
             eventBus,
             coreScheduler,
             builder.runtimeMetricsCollectorConfig == null
                 ? DefaultMetricsCollectorConfig.create()
-                : builder.runtimeMetricsCollectorConfig
+                : builder.runtimeMetricsCollectorConfig,
+            collectorRegistry
         );
+        runtimeMetricsCollector.registerAllocator(bufferPoolAllocator);
+        runtimeMetricsCollector.registerEventLoopGroup("io", ioPool);
+        if (kvIoPool != null) {
+            runtimeMetricsCollector.registerEventLoopGroup("kvIo", kvIoPool);
+        }
+        if (queryIoPool != null) {
+            runtimeMetricsCollector.registerEventLoopGroup("queryIo", queryIoPool);
+        }
+        if (viewIoPool != null) {
+            runtimeMetricsCollector.registerEventLoopGroup("viewIo", viewIoPool);
+        }
+        if (searchIoPool != null) {
+            runtimeMetricsCollector.registerEventLoopGroup("searchIo", searchIoPool);
+        }
         this.networkLatencyMetricsCollector = new NetworkLatencyMetricsCollector(
             eventBus,
             coreScheduler,
             builder.networkLatencyMetricsCollectorConfig == null
                 ? DefaultLatencyMetricsCollectorConfig.create()
-                : builder.networkLatencyMetricsCollectorConfig
+                : builder.networkLatencyMetricsCollectorConfig,
+            collectorRegistry
+        );
+        this.serverDurationMetricsCollector = new ServerDurationMetricsCollector(
+            eventBus,
+            coreScheduler,
+            builder.serverDurationMetricsCollectorConfig == null
+                ? DefaultLatencyMetricsCollectorConfig.create()
+                : builder.serverDurationMetricsCollectorConfig,
+            collectorRegistry
+        );
+        this.prometheusExporter = metricsRegistryEnabled && prometheusExporterPort > 0
+            ? new PrometheusExporter(metricsRegistry, ioPool, prometheusExporterHost, prometheusExporterPort)
+            : null;
+        this.jmxExporter = metricsRegistryEnabled && jmxMetricsEnabled ? new JmxExporter(metricsRegistry) : null;
+        this.slowOperationReporter = new SlowOperationReporter(
+            eventBus,
+            coreScheduler,
+            builder.slowOperationReporterConfig == null
+                ? SlowOperationReporterConfig.create()
+                : builder.slowOperationReporterConfig
         );
 
         if (builder.defaultMetricsLoggingConsumer != null) {
@@ -414,16 +565,10 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             metricsCollectorSubscription = null;
         }
 
-        if (builder.requestBufferWaitStrategy == null) {
-            requestBufferWaitStrategy = new WaitStrategyFactory() {
-                @Override
-                public WaitStrategy newWaitStrategy() {
-                    return new BlockingWaitStrategy();
-                }
-            };
-        } else {
-            requestBufferWaitStrategy = builder.requestBufferWaitStrategy;
-        }
+        requestBufferWaitStrategy = builder.requestBufferWaitStrategy == null
+            ? BLOCKING_WAIT_STRATEGY : builder.requestBufferWaitStrategy;
+        responseBufferWaitStrategy = builder.responseBufferWaitStrategy == null
+            ? BLOCKING_WAIT_STRATEGY : builder.responseBufferWaitStrategy;
 
         if (builder.keyValueServiceConfig != null) {
             this.keyValueServiceConfig = builder.keyValueServiceConfig;
@@ -534,8 +679,15 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
                 wrapShutdown(queryIoPoolShutdownHook.shutdown(), "queryIoPool"),
                 wrapShutdown(searchIoPoolShutdownHook.shutdown(), "searchIoPool"),
                 wrapShutdown(coreSchedulerShutdownHook.shutdown(), "Core Scheduler"),
-                wrapShutdown(Observable.just(runtimeMetricsCollector.shutdown()), "Runtime Metrics Collector"),
-                wrapShutdown(Observable.just(networkLatencyMetricsCollector.shutdown()), "Latency Metrics Collector"))
+                Observable.merge(
+                    wrapShutdown(Observable.just(runtimeMetricsCollector.shutdown()), "Runtime Metrics Collector"),
+                    wrapShutdown(Observable.just(networkLatencyMetricsCollector.shutdown()), "Latency Metrics Collector"),
+                    wrapShutdown(Observable.just(serverDurationMetricsCollector.shutdown()),
+                        "Server Duration Metrics Collector"),
+                    wrapShutdown(Observable.just(slowOperationReporter.shutdown()), "Slow Operation Reporter"),
+                    wrapShutdown(Observable.just(prometheusExporter == null || prometheusExporter.shutdown()),
+                        "Prometheus Exporter"),
+                    wrapShutdown(Observable.just(jmxExporter == null || jmxExporter.shutdown()), "JMX Exporter")))
                 .reduce(true,
                         new Func2<Boolean, ShutdownStatus, Boolean>() {
                             @Override
@@ -761,11 +913,124 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         return autoreleaseAfter;
     }
 
+    @Override
+    public int streamingRowsHighWatermark() {
+        return streamingRowsHighWatermark;
+    }
+
+    @Override
+    public int streamingRowsLowWatermark() {
+        return streamingRowsLowWatermark;
+    }
+
+    @Override
+    public boolean viewHttpCompressionEnabled() {
+        return viewHttpCompressionEnabled;
+    }
+
+    @Override
+    public boolean queryHttpCompressionEnabled() {
+        return queryHttpCompressionEnabled;
+    }
+
+    @Override
+    public boolean searchHttpCompressionEnabled() {
+        return searchHttpCompressionEnabled;
+    }
+
+    @Override
+    public boolean analyticsHttpCompressionEnabled() {
+        return analyticsHttpCompressionEnabled;
+    }
+
+    @Override
+    public int queryPreparedStatementCacheSize() {
+        return queryPreparedStatementCacheSize;
+    }
+
+    @Override
+    public HedgedReadConfig hedgedReadConfig() {
+        return hedgedReadConfig;
+    }
+
+    @Override
+    public CircuitBreakerConfig circuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    @Override
+    public RetryBudgetConfig retryBudgetConfig() {
+        return retryBudgetConfig;
+    }
+
+    @Override
+    public RetryBudget retryBudget() {
+        return retryBudget;
+    }
+
+    @Override
+    public boolean metricsRegistryEnabled() {
+        return metricsRegistryEnabled;
+    }
+
+    @Override
+    public int prometheusExporterPort() {
+        return prometheusExporterPort;
+    }
+
+    @Override
+    public String prometheusExporterHost() {
+        return prometheusExporterHost;
+    }
+
+    @Override
+    public boolean jmxMetricsEnabled() {
+        return jmxMetricsEnabled;
+    }
+
+    @Override
+    public MetricsRegistry metricsRegistry() {
+        return metricsRegistry;
+    }
+
     @Override
     public boolean bufferPoolingEnabled() {
         return bufferPoolingEnabled;
     }
 
+    @Override
+    public int bufferPoolArenas() {
+        return bufferPoolArenas;
+    }
+
+    @Override
+    public int bufferPoolChunkSize() {
+        return bufferPoolChunkSize;
+    }
+
+    @Override
+    public PooledByteBufAllocator bufferPoolAllocator() {
+        return bufferPoolAllocator;
+    }
+
+    /**
+     * Returns the shared netty allocator if the defaults are used, or creates a new one with the given
+     * number of arenas and chunk size.
+     */
+    private static PooledByteBufAllocator createBufferPoolAllocator(final int arenas, final int chunkSize) {
+        if (arenas == BUFFER_POOL_ARENAS && chunkSize == BUFFER_POOL_CHUNK_SIZE) {
+            return PooledByteBufAllocator.DEFAULT;
+        }
+
+        int pageSize = PooledByteBufAllocator.defaultPageSize();
+        int maxOrder = Integer.numberOfTrailingZeros(chunkSize) - Integer.numberOfTrailingZeros(pageSize);
+        if (arenas < 0 || chunkSize < pageSize || Integer.bitCount(chunkSize) != 1 || maxOrder > 14) {
+            throw new IllegalArgumentException("The bufferPoolArenas need to be >= 0 and the bufferPoolChunkSize a "
+                + "power of two between " + pageSize + " and " + (pageSize << 14) + ".");
+        }
+        return new PooledByteBufAllocator(true, arenas, arenas, pageSize, maxOrder);
+    }
+
     @Override
     public boolean tcpNodelayEnabled() {
         return tcpNodelayEnabled;
@@ -777,7 +1042,7 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     }
 
     @Override
-    public MetricsCollector runtimeMetricsCollector() {
+    public RuntimeMetricsCollector runtimeMetricsCollector() {
         return runtimeMetricsCollector;
     }
 
@@ -786,11 +1051,41 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         return networkLatencyMetricsCollector;
     }
 
+    @Override
+    public ServerDurationMetricsCollector serverDurationMetricsCollector() {
+        return serverDurationMetricsCollector;
+    }
+
+    @Override
+    public SlowOperationReporter slowOperationReporter() {
+        return slowOperationReporter;
+    }
+
     @Override
     public int socketConnectTimeout() {
         return socketConnectTimeout;
     }
 
+    @Override
+    public int maxConcurrentConnectsPerNode() {
+        return maxConcurrentConnectsPerNode;
+    }
+
+    @Override
+    public ConnectLimiter connectLimiter() {
+        return connectLimiter;
+    }
+
+    @Override
+    public long configReloadDedupWindow() {
+        return configReloadDedupWindow;
+    }
+
+    @Override
+    public String configCacheDirectory() {
+        return configCacheDirectory;
+    }
+
     @Override
     public boolean callbacksOnIoPool() {
         return callbacksOnIoPool;
@@ -806,6 +1101,11 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         return requestBufferWaitStrategy;
     }
 
+    @Override
+    public WaitStrategyFactory responseBufferWaitStrategy() {
+        return responseBufferWaitStrategy;
+    }
+
     @Override
     public MemcachedHashingStrategy memcachedHashingStrategy() {
         return memcachedHashingStrategy;
@@ -887,6 +1187,21 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         return couchbaseCoreSendHook;
     }
 
+    @Override
+    public boolean clustermapNotificationsEnabled() {
+        return clustermapNotificationsEnabled;
+    }
+
+    @Override
+    public long configSafetyNetPollInterval() {
+        return configSafetyNetPollInterval;
+    }
+
+    @Override
+    public boolean tracingEnabled() {
+        return tracingEnabled;
+    }
+
     public static class Builder {
 
         private boolean sslEnabled = SSL_ENABLED;
@@ -932,20 +1247,45 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         private long keepAliveErrorThreshold = KEEPALIVE_ERROR_THRESHOLD;
         private long keepAliveTimeout = KEEPALIVE_TIMEOUT;
         private long autoreleaseAfter = AUTORELEASE_AFTER;
+        private int streamingRowsHighWatermark = STREAMING_ROWS_HIGH_WATERMARK;
+        private int streamingRowsLowWatermark = STREAMING_ROWS_LOW_WATERMARK;
+        private boolean viewHttpCompressionEnabled = HTTP_COMPRESSION_ENABLED;
+        private boolean queryHttpCompressionEnabled = HTTP_COMPRESSION_ENABLED;
+        private boolean searchHttpCompressionEnabled = HTTP_COMPRESSION_ENABLED;
+        private boolean analyticsHttpCompressionEnabled = HTTP_COMPRESSION_ENABLED;
+        private int queryPreparedStatementCacheSize = QUERY_PREPARED_STATEMENT_CACHE_SIZE;
+        private HedgedReadConfig hedgedReadConfig;
+        private CircuitBreakerConfig circuitBreakerConfig;
+        private RetryBudgetConfig retryBudgetConfig;
+        private boolean metricsRegistryEnabled = METRICS_REGISTRY_ENABLED;
+        private int prometheusExporterPort = PROMETHEUS_EXPORTER_PORT;
+        private String prometheusExporterHost = PROMETHEUS_EXPORTER_HOST;
+        private boolean jmxMetricsEnabled = JMX_METRICS_ENABLED;
         private boolean bufferPoolingEnabled = BUFFER_POOLING_ENABLED;
+        private int bufferPoolArenas = BUFFER_POOL_ARENAS;
+        private int bufferPoolChunkSize = BUFFER_POOL_CHUNK_SIZE;
         private boolean tcpNodelayEnabled = TCP_NODELAY_ENALED;
         private boolean mutationTokensEnabled = MUTATION_TOKENS_ENABLED;
         private int socketConnectTimeout = SOCKET_CONNECT_TIMEOUT;
+        private int maxConcurrentConnectsPerNode = MAX_CONCURRENT_CONNECTS_PER_NODE;
+        private long configReloadDedupWindow = CONFIG_RELOAD_DEDUP_WINDOW;
+        private String configCacheDirectory;
         private boolean callbacksOnIoPool = CALLBACKS_ON_IO_POOL;
         private long disconnectTimeout = DISCONNECT_TIMEOUT;
         private WaitStrategyFactory requestBufferWaitStrategy;
+        private WaitStrategyFactory responseBufferWaitStrategy;
         private MemcachedHashingStrategy memcachedHashingStrategy = MEMCACHED_HASHING_STRATEGY;
         private long configPollInterval = CONFIG_POLL_INTERVAL;
         private boolean certAuthEnabled = CERT_AUTH_ENABLED;
         private CouchbaseCoreSendHook couchbaseCoreSendHook;
+        private boolean clustermapNotificationsEnabled = CLUSTERMAP_NOTIFICATIONS_ENABLED;
+        private long configSafetyNetPollInterval = CONFIG_SAFETY_NET_POLL_INTERVAL;
+        private boolean tracingEnabled = TRACING_ENABLED;
 
         private MetricsCollectorConfig runtimeMetricsCollectorConfig;
         private LatencyMetricsCollectorConfig networkLatencyMetricsCollectorConfig;
+        private LatencyMetricsCollectorConfig serverDurationMetricsCollectorConfig;
+        private SlowOperationReporterConfig slowOperationReporterConfig;
         private LoggingConsumer defaultMetricsLoggingConsumer = LoggingConsumer.create();
 
         private KeyValueServiceConfig keyValueServiceConfig;
@@ -1176,8 +1516,8 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         }
 
         /**
-         * Sets the {@link Delay} for node reconnects (default value is a delay growing exponentially
-         * between 32ms and 4096ms).
+         * Sets the {@link Delay} for node reconnects (default value is a jittered delay growing
+         * between 32ms and 4096ms, see {@link Delay#decorrelatedJitter(TimeUnit, long, long)}).
          */
         public Builder reconnectDelay(final Delay reconnectDelay) {
             this.reconnectDelay = reconnectDelay;
@@ -1324,6 +1664,139 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Sets the number of unconsumed streamed rows (of query, view and analytics responses) at which
+         * the client stops reading from the socket of the connection (default is 0, values <= 0 disable
+         * pausing).
+         *
+         * Note that the signature, errors, status and info of a query only complete after all rows have been
+         * read, so a caller which waits for them before subscribing to the rows stalls once this is enabled.
+         */
+        public Builder streamingRowsHighWatermark(int streamingRowsHighWatermark) {
+            this.streamingRowsHighWatermark = streamingRowsHighWatermark;
+            return this;
+        }
+
+        /**
+         * Sets the number of unconsumed streamed rows at which reading from the socket is resumed after it
+         * has been paused because of the high watermark (default is 256).
+         */
+        public Builder streamingRowsLowWatermark(int streamingRowsLowWatermark) {
+            this.streamingRowsLowWatermark = streamingRowsLowWatermark;
+            return this;
+        }
+
+        /**
+         * If set to true, responses for views are requested gzip or deflate compressed and decompressed
+         * while they are streamed in (default is false).
+         */
+        public Builder viewHttpCompressionEnabled(boolean viewHttpCompressionEnabled) {
+            this.viewHttpCompressionEnabled = viewHttpCompressionEnabled;
+            return this;
+        }
+
+        /**
+         * If set to true, responses for N1QL queries are requested gzip or deflate compressed and decompressed
+         * while they are streamed in (default is false).
+         */
+        public Builder queryHttpCompressionEnabled(boolean queryHttpCompressionEnabled) {
+            this.queryHttpCompressionEnabled = queryHttpCompressionEnabled;
+            return this;
+        }
+
+        /**
+         * If set to true, responses for search queries are requested gzip or deflate compressed and decompressed
+         * while they are streamed in (default is false).
+         */
+        public Builder searchHttpCompressionEnabled(boolean searchHttpCompressionEnabled) {
+            this.searchHttpCompressionEnabled = searchHttpCompressionEnabled;
+            return this;
+        }
+
+        /**
+         * If set to true, responses for analytics queries are requested gzip or deflate compressed and decompressed
+         * while they are streamed in (default is false).
+         */
+        public Builder analyticsHttpCompressionEnabled(boolean analyticsHttpCompressionEnabled) {
+            this.analyticsHttpCompressionEnabled = analyticsHttpCompressionEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the number of N1QL statements for which prepared statements are cached (default is 0, which
+         * disables the cache). Statements executed repeatedly are then prepared once and executed by name.
+         */
+        public Builder queryPreparedStatementCacheSize(int queryPreparedStatementCacheSize) {
+            this.queryPreparedStatementCacheSize = queryPreparedStatementCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the configuration for hedged replica reads (disabled by default). If enabled, gets which
+         * take longer than a latency percentile of their bucket are also sent to a replica and the first
+         * successful response is returned.
+         */
+        public Builder hedgedReadConfig(HedgedReadConfig hedgedReadConfig) {
+            this.hedgedReadConfig = hedgedReadConfig;
+            return this;
+        }
+
+        /**
+         * Sets the configuration for the per-endpoint circuit breakers (disabled by default). If enabled,
+         * an endpoint whose recent requests mostly failed or were too slow rejects requests until a canary
+         * request succeeds again.
+         */
+        public Builder circuitBreakerConfig(CircuitBreakerConfig circuitBreakerConfig) {
+            this.circuitBreakerConfig = circuitBreakerConfig;
+            return this;
+        }
+
+        /**
+         * Sets the configuration for the retry budget (disabled by default). If enabled, the retries per
+         * bucket and service are limited to a ratio of the first attempts and retries beyond the budget
+         * are cancelled right away.
+         */
+        public Builder retryBudgetConfig(RetryBudgetConfig retryBudgetConfig) {
+            this.retryBudgetConfig = retryBudgetConfig;
+            return this;
+        }
+
+        /**
+         * If set to true, the metrics collectors also write into the {@link MetricsRegistry}, which can be
+         * read on demand instead of waiting for the metric events (default is false).
+         */
+        public Builder metricsRegistryEnabled(boolean metricsRegistryEnabled) {
+            this.metricsRegistryEnabled = metricsRegistryEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the port on which the content of the {@link MetricsRegistry} is served in the Prometheus text
+         * format (default is 0, which disables the endpoint). Only used if the registry is enabled.
+         */
+        public Builder prometheusExporterPort(int prometheusExporterPort) {
+            this.prometheusExporterPort = prometheusExporterPort;
+            return this;
+        }
+
+        /**
+         * Sets the address the Prometheus endpoint binds to (default is 127.0.0.1, so it is only reachable
+         * locally). Use 0.0.0.0 to serve the metrics on all interfaces.
+         */
+        public Builder prometheusExporterHost(String prometheusExporterHost) {
+            this.prometheusExporterHost = prometheusExporterHost;
+            return this;
+        }
+
+        /**
+         * If set to true, the content of the {@link MetricsRegistry} is exposed as an MBean (default is false).
+         * Only used if the registry is enabled.
+         */
+        public Builder jmxMetricsEnabled(boolean jmxMetricsEnabled) {
+            this.jmxMetricsEnabled = jmxMetricsEnabled;
+            return this;
+        }
+
         /**
          * Sets the event bus to an alternative implementation.
          *
@@ -1348,6 +1821,28 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Sets the number of heap and direct arenas of the buffer pool used by the endpoints.
+         *
+         * Defaults to the netty default, which is derived from the number of cores and the available memory.
+         * More arenas reduce contention between event loops at the cost of memory.
+         */
+        public Builder bufferPoolArenas(int bufferPoolArenas) {
+            this.bufferPoolArenas = bufferPoolArenas;
+            return this;
+        }
+
+        /**
+         * Sets the size in bytes of the chunks the buffer pool allocates its memory in.
+         *
+         * It needs to be the netty page size multiplied by a power of two, defaults to the netty default
+         * (usually 16MiB). Smaller chunks reduce the memory held by idle arenas.
+         */
+        public Builder bufferPoolChunkSize(int bufferPoolChunkSize) {
+            this.bufferPoolChunkSize = bufferPoolChunkSize;
+            return this;
+        }
+
         /**
          * If TCP_NODELAY is manually disabled, Nagle'ing will take effect on both the client
          * and (if supported) the server side.
@@ -1390,6 +1885,26 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Sets a custom configuration for the {@link ServerDurationMetricsCollector}.
+         *
+         * @param metricsCollectorConfig the custom configuration for the collector.
+         */
+        public Builder serverDurationMetricsCollectorConfig(LatencyMetricsCollectorConfig metricsCollectorConfig) {
+            this.serverDurationMetricsCollectorConfig = metricsCollectorConfig;
+            return this;
+        }
+
+        /**
+         * Sets a custom configuration for the {@link SlowOperationReporter}.
+         *
+         * @param slowOperationReporterConfig the custom configuration for the reporter.
+         */
+        public Builder slowOperationReporterConfig(SlowOperationReporterConfig slowOperationReporterConfig) {
+            this.slowOperationReporterConfig = slowOperationReporterConfig;
+            return this;
+        }
+
         public Builder defaultMetricsLoggingConsumer(boolean enabled, CouchbaseLogLevel level, LoggingConsumer.OutputFormat format) {
             if (enabled) {
                 defaultMetricsLoggingConsumer = LoggingConsumer.create(level, format);
@@ -1413,6 +1928,43 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Sets the maximum number of connect attempts which are in flight against a single node at the same
+         * time, shared by all services and buckets (default is 8). Further attempts wait until one of them
+         * completes, 0 disables the limit.
+         *
+         * @param maxConcurrentConnectsPerNode the maximum number of concurrent connects per node.
+         */
+        public Builder maxConcurrentConnectsPerNode(int maxConcurrentConnectsPerNode) {
+            this.maxConcurrentConnectsPerNode = maxConcurrentConnectsPerNode;
+            return this;
+        }
+
+        /**
+         * Sets the window in milliseconds in which further config reload signals from the endpoints are
+         * dropped after one has been handled (default is 500ms), 0 handles every signal.
+         *
+         * @param configReloadDedupWindow the deduplication window in milliseconds.
+         */
+        public Builder configReloadDedupWindow(long configReloadDedupWindow) {
+            this.configReloadDedupWindow = configReloadDedupWindow;
+            return this;
+        }
+
+        /**
+         * Sets a directory where the last applied config of every bucket is kept (default is none). If set,
+         * opening a bucket starts with its cached config and connects to the nodes right away, while the
+         * config is loaded from the cluster in the background and replaces the cached one.
+         *
+         * Use one directory per cluster, since the configs are only keyed by bucket name.
+         *
+         * @param configCacheDirectory the directory path, null to disable the cache.
+         */
+        public Builder configCacheDirectory(String configCacheDirectory) {
+            this.configCacheDirectory = configCacheDirectory;
+            return this;
+        }
+
         /**
          * Set to true if the {@link Observable} callbacks should be completed on the IO event loops.
          *
@@ -1449,6 +2001,20 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Sets a custom waiting strategy for responses. Default is {@link BlockingWaitStrategy}.
+         *
+         * Use {@link AdaptiveWaitStrategy#factory()} to trade some CPU for lower dispatch latency under load.
+         *
+         * @param waitStrategy waiting strategy
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder responseBufferWaitStrategy(WaitStrategyFactory waitStrategy) {
+            this.responseBufferWaitStrategy = waitStrategy;
+            return this;
+        }
+
         /**
          * Sets a custom memcached node hashing strategy, mainly used for compatibility with other clients.
          *
@@ -1570,6 +2136,54 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Allows to negotiate server-pushed cluster map change notifications on KV connections.
+         *
+         * If the server supports it, configuration changes are pushed to the client as soon as they happen and
+         * proactive polling for such buckets is relaxed to {@link #configSafetyNetPollInterval(long)}.
+         *
+         * @param clustermapNotificationsEnabled true if notifications should be negotiated.
+         */
+        @InterfaceAudience.Public
+        @InterfaceStability.Experimental
+        public Builder clustermapNotificationsEnabled(final boolean clustermapNotificationsEnabled) {
+            this.clustermapNotificationsEnabled = clustermapNotificationsEnabled;
+            return this;
+        }
+
+        /**
+         * Allows to set the interval in which configurations for buckets with server-pushed cluster map
+         * change notifications are still polled, as a safety net in case a notification is lost.
+         *
+         * @param configSafetyNetPollInterval the interval in milliseconds.
+         */
+        @InterfaceAudience.Public
+        @InterfaceStability.Experimental
+        public Builder configSafetyNetPollInterval(final long configSafetyNetPollInterval) {
+            if (configSafetyNetPollInterval < 50) {
+                throw new IllegalArgumentException("The safety net poll interval cannot be lower than " +
+                    "50 milliseconds");
+            }
+            this.configSafetyNetPollInterval = configSafetyNetPollInterval;
+            return this;
+        }
+
+        /**
+         * Allows to negotiate tracing on KV connections, so that the server reports how long it took to
+         * process each operation (default is false).
+         *
+         * Enabling it changes the framing of every KV response, the reported durations are recorded by the
+         * {@link #serverDurationMetricsCollectorConfig(LatencyMetricsCollectorConfig) server duration collector}.
+         *
+         * @param tracingEnabled true if tracing should be negotiated.
+         */
+        @InterfaceAudience.Public
+        @InterfaceStability.Experimental
+        public Builder tracingEnabled(final boolean tracingEnabled) {
+            this.tracingEnabled = tracingEnabled;
+            return this;
+        }
+
         public DefaultCoreEnvironment build() {
             return new DefaultCoreEnvironment(this);
         }
@@ -1656,14 +2270,37 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         sb.append(", keepAliveErrorThreshold=").append(keepAliveErrorThreshold);
         sb.append(", keepAliveTimeout=").append(keepAliveTimeout);
         sb.append(", autoreleaseAfter=").append(autoreleaseAfter);
+        sb.append(", streamingRowsHighWatermark=").append(streamingRowsHighWatermark);
+        sb.append(", streamingRowsLowWatermark=").append(streamingRowsLowWatermark);
+        sb.append(", viewHttpCompressionEnabled=").append(viewHttpCompressionEnabled);
+        sb.append(", queryHttpCompressionEnabled=").append(queryHttpCompressionEnabled);
+        sb.append(", searchHttpCompressionEnabled=").append(searchHttpCompressionEnabled);
+        sb.append(", analyticsHttpCompressionEnabled=").append(analyticsHttpCompressionEnabled);
+        sb.append(", queryPreparedStatementCacheSize=").append(queryPreparedStatementCacheSize);
+        sb.append(", hedgedReadConfig=").append(hedgedReadConfig);
+        sb.append(", circuitBreakerConfig=").append(circuitBreakerConfig);
+        sb.append(", retryBudgetConfig=").append(retryBudgetConfig);
+        sb.append(", metricsRegistryEnabled=").append(metricsRegistryEnabled);
+        sb.append(", prometheusExporterPort=").append(prometheusExporterPort);
+        sb.append(", prometheusExporterHost=").append(prometheusExporterHost);
+        sb.append(", jmxMetricsEnabled=").append(jmxMetricsEnabled);
         sb.append(", bufferPoolingEnabled=").append(bufferPoolingEnabled);
+        sb.append(", bufferPoolArenas=").append(bufferPoolArenas);
+        sb.append(", bufferPoolChunkSize=").append(bufferPoolChunkSize);
         sb.append(", tcpNodelayEnabled=").append(tcpNodelayEnabled);
         sb.append(", mutationTokensEnabled=").append(mutationTokensEnabled);
         sb.append(", socketConnectTimeout=").append(socketConnectTimeout);
+        sb.append(", maxConcurrentConnectsPerNode=").append(maxConcurrentConnectsPerNode);
+        sb.append(", configReloadDedupWindow=").append(configReloadDedupWindow);
+        sb.append(", configCacheDirectory=").append(configCacheDirectory);
         sb.append(", callbacksOnIoPool=").append(callbacksOnIoPool);
         sb.append(", disconnectTimeout=").append(disconnectTimeout);
         sb.append(", requestBufferWaitStrategy=").append(requestBufferWaitStrategy);
+        sb.append(", responseBufferWaitStrategy=").append(responseBufferWaitStrategy);
         sb.append(", certAuthEnabled=").append(certAuthEnabled);
+        sb.append(", clustermapNotificationsEnabled=").append(clustermapNotificationsEnabled);
+        sb.append(", configSafetyNetPollInterval=").append(configSafetyNetPollInterval);
+        sb.append(", tracingEnabled=").append(tracingEnabled);
         sb.append(", coreSendHook=").append(couchbaseCoreSendHook == null ? "null" :
             couchbaseCoreSendHook.getClass().getSimpleName());
         return sb;
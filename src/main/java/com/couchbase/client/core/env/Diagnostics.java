@@ -17,8 +17,12 @@ package com.couchbase.client.core.env;
 
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import io.netty.util.internal.PlatformDependent;
 import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
@@ -47,6 +51,11 @@ public class Diagnostics {
     public static final RuntimeMXBean RUNTIME_BEAN = ManagementFactory.getRuntimeMXBean();
     public static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
 
+    /**
+     * The name of the MBean which reports direct buffer usage, read through JMX to stay on the Java 6 API.
+     */
+    private static final ObjectName DIRECT_BUFFER_POOL = objectName("java.nio:type=BufferPool,name=direct");
+
     /**
      * Collects system information as delivered from the {@link OperatingSystemMXBean}.
      *
@@ -101,6 +110,23 @@ public class Diagnostics {
         infos.put("heap.pendingFinalize", MEM_BEAN.getObjectPendingFinalizationCount());
     }
 
+    /**
+     * Collects the usage of direct (off-heap NIO) memory as reported by the direct buffer pool MBean, if the
+     * JVM exposes it.
+     *
+     * @param infos a map where the infos are passed in.
+     */
+    public static void directMemoryInfo(final Map<String, Object> infos) {
+        infos.put("directMemory.max", PlatformDependent.maxDirectMemory());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            infos.put("directMemory.used", server.getAttribute(DIRECT_BUFFER_POOL, "MemoryUsed"));
+            infos.put("directMemory.count", server.getAttribute(DIRECT_BUFFER_POOL, "Count"));
+        } catch (Exception ex) {
+            // not available on this JVM
+        }
+    }
+
     /**
      * Collects system information as delivered from the {@link RuntimeMXBean}.
      *
@@ -128,6 +154,14 @@ public class Diagnostics {
         infos.put("thread.startedCount", THREAD_BEAN.getTotalStartedThreadCount());
     }
 
+    private static ObjectName objectName(final String name) {
+        try {
+            return new ObjectName(name);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
     /**
      * Collects all available infos in one map.
      *
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.event.metrics;
+
+import com.couchbase.client.core.metrics.NetworkLatencyMetricsIdentifier;
+
+import java.util.Map;
+
+/**
+ * This event represents the operation durations reported by the server, without network and client time.
+ *
+ * @since 1.5.2
+ */
+public class ServerDurationMetricsEvent extends NetworkLatencyMetricsEvent {
+
+    public ServerDurationMetricsEvent(Map<NetworkLatencyMetricsIdentifier, LatencyMetric> latencies) {
+        super(latencies);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ServerDurationMetricsEvent");
+        sb.append(toMap().toString());
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.event.metrics;
+
+import com.couchbase.client.core.event.CouchbaseEvent;
+import com.couchbase.client.core.event.EventType;
+import com.couchbase.client.core.utils.Events;
+
+import java.util.Map;
+
+/**
+ * This event contains the slowest operations per service of the last interval, with the time they spent
+ * in each phase of their lifecycle.
+ *
+ * @since 1.5.2
+ */
+public class SlowOperationsEvent implements CouchbaseEvent {
+
+    private final Map<String, Object> services;
+
+    public SlowOperationsEvent(Map<String, Object> services) {
+        this.services = services;
+    }
+
+    /**
+     * Returns the slow operations, keyed by service with the "count" of slow operations and the "top" slowest.
+     */
+    public Map<String, Object> services() {
+        return services;
+    }
+
+    @Override
+    public EventType type() {
+        return EventType.METRIC;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SlowOperationsEvent");
+        sb.append(services);
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = Events.identityMap(this);
+        result.putAll(services);
+        return result;
+    }
+
+}
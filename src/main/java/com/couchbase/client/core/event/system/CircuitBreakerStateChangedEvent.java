@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.event.system;
+
+import com.couchbase.client.core.endpoint.CircuitBreaker;
+import com.couchbase.client.core.event.CouchbaseEvent;
+import com.couchbase.client.core.event.EventType;
+import com.couchbase.client.core.utils.Events;
+
+import java.util.Map;
+
+/**
+ * Event published when the circuit breaker of an endpoint changes its state.
+ *
+ * @since 1.5.2
+ */
+public class CircuitBreakerStateChangedEvent implements CouchbaseEvent {
+
+    private final String hostname;
+    private final String bucket;
+    private final String endpoint;
+    private final CircuitBreaker.State from;
+    private final CircuitBreaker.State to;
+
+    public CircuitBreakerStateChangedEvent(String hostname, String bucket, String endpoint,
+        CircuitBreaker.State from, CircuitBreaker.State to) {
+        this.hostname = hostname;
+        this.bucket = bucket;
+        this.endpoint = endpoint;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public EventType type() {
+        return EventType.SYSTEM;
+    }
+
+    /**
+     * The hostname of the endpoint.
+     */
+    public String hostname() {
+        return hostname;
+    }
+
+    /**
+     * The bucket of the endpoint.
+     */
+    public String bucket() {
+        return bucket;
+    }
+
+    /**
+     * The type of the endpoint, like "KeyValueEndpoint".
+     */
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * The state of the breaker before the change.
+     */
+    public CircuitBreaker.State from() {
+        return from;
+    }
+
+    /**
+     * The state of the breaker after the change.
+     */
+    public CircuitBreaker.State to() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CircuitBreakerStateChangedEvent{");
+        sb.append("hostname=").append(hostname);
+        sb.append(", bucket=").append(bucket);
+        sb.append(", endpoint=").append(endpoint);
+        sb.append(", from=").append(from);
+        sb.append(", to=").append(to);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = Events.identityMap(this);
+        result.put("hostname", hostname);
+        result.put("bucket", bucket);
+        result.put("endpoint", endpoint);
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        return result;
+    }
+}
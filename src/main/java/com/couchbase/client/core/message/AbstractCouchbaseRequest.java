@@ -15,11 +15,17 @@
  */
 package com.couchbase.client.core.message;
 
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.time.Delay;
+import rx.Observable;
 import rx.Subscriber;
 import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * Default implementation for a {@link CouchbaseRequest}, should be extended by child messages.
  *
@@ -28,10 +34,27 @@ import rx.subjects.Subject;
  */
 public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AbstractCouchbaseRequest, Subject> OBSERVABLE_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(AbstractCouchbaseRequest.class, Subject.class, "observable");
+
+    private static final AtomicIntegerFieldUpdater<AbstractCouchbaseRequest> COMPLETED_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(AbstractCouchbaseRequest.class, "completed");
+
+    /**
+     * The observable which eventually completes the response, created on first access if not provided.
+     */
+    private volatile Subject<CouchbaseResponse, CouchbaseResponse> observable;
+
     /**
-     * The observable which eventually completes the response.
+     * The callback which completes the response instead of the observable, if set.
      */
-    private final Subject<CouchbaseResponse, CouchbaseResponse> observable;
+    private volatile ResponseCallback callback;
+
+    /**
+     * Set to 1 once the callback has been notified.
+     */
+    private volatile int completed;
 
     /**
      * The name of the bucket for this request.
@@ -66,15 +89,30 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
 
     private volatile String dispatchHostname;
 
+    /**
+     * The kind of the request, classified on first access unless overridden by the child class.
+     */
+    private int kind;
+
     private Delay retryDelay;
 
+    /**
+     * Lifecycle timestamps, see {@link RequestPhase}.
+     */
+    private volatile long sendTime;
+    private volatile long dispatchTime;
+    private volatile long encodeTime;
+    private volatile long writeTime;
+    private volatile long decodeTime;
+    private volatile long completeTime;
+
     /**
      * Create a new {@link AbstractCouchbaseRequest}.
      *
      * Depending on the type of operation, bucket and password may be null, this needs to
      * be enforced properly by the child implementations.
      *
-     * This constructor will create a AsyncSubject, which implies that the response for this
+     * This constructor will lazily create a AsyncSubject, which implies that the response for this
      * request only emits one message. If you need to expose a streaming response, use the
      * other constructor and feed it a ReplaySubject or something similar.
      *
@@ -82,7 +120,7 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
      * @param password user password.
      */
     protected AbstractCouchbaseRequest(String bucket, String password) {
-        this(bucket, bucket, password, AsyncSubject.<CouchbaseResponse>create());
+        this(bucket, bucket, password, null);
     }
 
     /**
@@ -91,7 +129,7 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
      * Depending on the type of operation, bucket and password may be null, this needs to
      * be enforced properly by the child implementations.
      *
-     * This constructor will create a AsyncSubject, which implies that the response for this
+     * This constructor will lazily create a AsyncSubject, which implies that the response for this
      * request only emits one message. If you need to expose a streaming response, use the
      * other constructor and feed it a ReplaySubject or something similar.
      *
@@ -100,7 +138,7 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
      * @param password user password.
      */
     protected AbstractCouchbaseRequest(String bucket, String username, String password) {
-        this(bucket, username, password, AsyncSubject.<CouchbaseResponse>create());
+        this(bucket, username, password, null);
     }
 
     /**
@@ -112,6 +150,7 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
      * @param bucket the name of the bucket.
      * @param username user authorized to access the bucket.
      * @param password the password of the bucket.
+     * @param observable the observable to complete, or null to create a AsyncSubject on first access.
      */
     protected AbstractCouchbaseRequest(final String bucket, final String username, final String password,
         final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
@@ -124,8 +163,78 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Subject<CouchbaseResponse, CouchbaseResponse> observable() {
-        return observable;
+        Subject<CouchbaseResponse, CouchbaseResponse> current = observable;
+        if (current == null) {
+            Subject<CouchbaseResponse, CouchbaseResponse> created = callback == null
+                ? AsyncSubject.<CouchbaseResponse>create()
+                : new CallbackSubject(this);
+            current = OBSERVABLE_UPDATER.compareAndSet(this, null, created) ? created : observable;
+        }
+        return current;
+    }
+
+    /**
+     * Completes the request through the given callback instead of the {@link #observable()}.
+     *
+     * Needs to be set before the request is sent and cannot be combined with a custom observable. Once set,
+     * {@link #observable()} returns a subject which only forwards its signals to the callback.
+     *
+     * @param callback the callback to notify.
+     */
+    @InterfaceStability.Uncommitted
+    @InterfaceAudience.Public
+    public void callback(final ResponseCallback callback) {
+        if (observable != null && !(observable instanceof CallbackSubject)) {
+            throw new IllegalStateException("The request already completes through its observable.");
+        }
+        this.callback = callback;
+    }
+
+    /**
+     * Returns true if the request completes through a {@link ResponseCallback}.
+     *
+     * @return true if a callback has been set.
+     */
+    @InterfaceStability.Uncommitted
+    @InterfaceAudience.Private
+    public boolean hasCallback() {
+        return callback != null;
+    }
+
+    /**
+     * Completes the request with the given response, either through the callback or the observable.
+     *
+     * @param response the response to complete with.
+     */
+    @InterfaceStability.Uncommitted
+    @InterfaceAudience.Private
+    public void complete(final CouchbaseResponse response) {
+        ResponseCallback callback = this.callback;
+        if (callback == null) {
+            Subject<CouchbaseResponse, CouchbaseResponse> observable = observable();
+            observable.onNext(response);
+            observable.onCompleted();
+        } else if (COMPLETED_UPDATER.compareAndSet(this, 0, 1)) {
+            callback.onResponse(response);
+        }
+    }
+
+    /**
+     * Fails the request with the given error, either through the callback or the observable.
+     *
+     * @param throwable the cause of the failure.
+     */
+    @InterfaceStability.Uncommitted
+    @InterfaceAudience.Private
+    public void fail(final Throwable throwable) {
+        ResponseCallback callback = this.callback;
+        if (callback == null) {
+            observable().onError(throwable);
+        } else if (COMPLETED_UPDATER.compareAndSet(this, 0, 1)) {
+            callback.onError(throwable);
+        }
     }
 
     @Override
@@ -195,6 +304,26 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
         this.subscriber = subscriber;
     }
 
+    /**
+     * The kind of the request, one of the {@link RequestKind} tags, used to dispatch it without type checks.
+     *
+     * Child classes override this with their declared kind, otherwise it is classified on first access.
+     * Callers should go through {@link RequestKind#of(CouchbaseRequest)}, which also covers requests that
+     * do not extend this class.
+     *
+     * @return the kind of the request.
+     */
+    @InterfaceAudience.Private
+    @InterfaceStability.Uncommitted
+    public int kind() {
+        int kind = this.kind;
+        if (kind == RequestKind.UNKNOWN) {
+            kind = RequestKind.classify(this);
+            this.kind = kind;
+        }
+        return kind;
+    }
+
     @Override
     public String dispatchHostname() {
         return dispatchHostname;
@@ -205,6 +334,69 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
         this.dispatchHostname = hostname;
     }
 
+    /**
+     * Records the current time (in nanoseconds, see {@link System#nanoTime()}) for the given phase,
+     * overriding the time of an earlier pass through the same phase (like on retry).
+     *
+     * Callers which only hold a {@link CouchbaseRequest} go through {@link RequestPhase#mark(CouchbaseRequest)}.
+     *
+     * @param phase the phase which has been reached.
+     */
+    @InterfaceAudience.Private
+    @InterfaceStability.Uncommitted
+    public void markPhase(final RequestPhase phase) {
+        long now = System.nanoTime();
+        switch (phase) {
+            case SEND:
+                sendTime = now;
+                break;
+            case DISPATCH:
+                dispatchTime = now;
+                break;
+            case ENCODE:
+                encodeTime = now;
+                break;
+            case WRITE:
+                writeTime = now;
+                break;
+            case DECODE:
+                decodeTime = now;
+                break;
+            case COMPLETE:
+                completeTime = now;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+    }
+
+    /**
+     * Returns the time in nanoseconds when the given phase was reached last, or 0 if it has not been reached.
+     *
+     * @param phase the phase to look up.
+     * @return the timestamp of the phase.
+     */
+    @InterfaceAudience.Private
+    @InterfaceStability.Uncommitted
+    public long phaseTime(final RequestPhase phase) {
+        switch (phase) {
+            case SEND:
+                return sendTime;
+            case DISPATCH:
+                return dispatchTime;
+            case ENCODE:
+                return encodeTime;
+            case WRITE:
+                return writeTime;
+            case DECODE:
+                return decodeTime;
+            case COMPLETE:
+                return completeTime;
+            default:
+                throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder(this.getClass().getSimpleName() + "{");
@@ -213,4 +405,43 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
         sb.append('}');
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * A subject which forwards the signals of code paths still working on the {@link #observable()} to the
+     * callback of the request. It cannot be subscribed to.
+     */
+    private static final class CallbackSubject extends Subject<CouchbaseResponse, CouchbaseResponse> {
+
+        private final AbstractCouchbaseRequest request;
+
+        CallbackSubject(final AbstractCouchbaseRequest request) {
+            super(new Observable.OnSubscribe<CouchbaseResponse>() {
+                @Override
+                public void call(Subscriber<? super CouchbaseResponse> subscriber) {
+                    subscriber.onError(new IllegalStateException("The request completes through its callback."));
+                }
+            });
+            this.request = request;
+        }
+
+        @Override
+        public boolean hasObservers() {
+            return true;
+        }
+
+        @Override
+        public void onNext(CouchbaseResponse response) {
+            request.complete(response);
+        }
+
+        @Override
+        public void onCompleted() {
+            // completion is signalled together with the response.
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            request.fail(e);
+        }
+    }
+}
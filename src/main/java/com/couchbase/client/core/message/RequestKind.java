@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.analytics.AnalyticsRequest;
+import com.couchbase.client.core.message.config.ConfigRequest;
+import com.couchbase.client.core.message.kv.AppendRequest;
+import com.couchbase.client.core.message.kv.BinaryRequest;
+import com.couchbase.client.core.message.kv.CounterRequest;
+import com.couchbase.client.core.message.kv.GetAllMutationTokensRequest;
+import com.couchbase.client.core.message.kv.GetBucketConfigRequest;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.InsertRequest;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
+import com.couchbase.client.core.message.kv.PrependRequest;
+import com.couchbase.client.core.message.kv.RemoveRequest;
+import com.couchbase.client.core.message.kv.ReplaceRequest;
+import com.couchbase.client.core.message.kv.ReplicaGetRequest;
+import com.couchbase.client.core.message.kv.StatRequest;
+import com.couchbase.client.core.message.kv.TouchRequest;
+import com.couchbase.client.core.message.kv.UnlockRequest;
+import com.couchbase.client.core.message.kv.UpsertRequest;
+import com.couchbase.client.core.message.kv.subdoc.BinarySubdocMultiLookupRequest;
+import com.couchbase.client.core.message.kv.subdoc.BinarySubdocMultiMutationRequest;
+import com.couchbase.client.core.message.kv.subdoc.BinarySubdocRequest;
+import com.couchbase.client.core.message.query.QueryRequest;
+import com.couchbase.client.core.message.search.SearchRequest;
+import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.service.ServiceType;
+
+/**
+ * Numeric tags which identify the kind of a {@link CouchbaseRequest}, see {@link AbstractCouchbaseRequest#kind()}.
+ *
+ * The upper bits of a kind hold its family, which corresponds to the service the request is dispatched to,
+ * and the lower bits identify the operation inside of the family. A kind which only consists of a family
+ * (like {@link #BINARY}) is a request of that service without a more specific operation.
+ *
+ * Dispatching on the kind with a switch statement replaces the chains of instanceof checks on the
+ * request path, which are slow once many request types pass through the same call site.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Uncommitted
+@InterfaceAudience.Private
+public final class RequestKind {
+
+    /**
+     * The kind has not been declared by the request, use {@link #of(CouchbaseRequest)} to classify it.
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * Masks the family of a kind.
+     */
+    public static final int FAMILY_MASK = 0xFF00;
+
+    public static final int BINARY = 0x0100;
+    public static final int CONFIG = 0x0200;
+    public static final int VIEW = 0x0300;
+    public static final int QUERY = 0x0400;
+    public static final int SEARCH = 0x0500;
+    public static final int ANALYTICS = 0x0600;
+
+    /**
+     * Requests which are not dispatched to a service, like internal cluster messages.
+     */
+    public static final int INTERNAL = 0x7F00;
+
+    public static final int GET = BINARY | 1;
+    public static final int REPLICA_GET = BINARY | 2;
+    public static final int INSERT = BINARY | 3;
+    public static final int UPSERT = BINARY | 4;
+    public static final int REPLACE = BINARY | 5;
+    public static final int REMOVE = BINARY | 6;
+    public static final int COUNTER = BINARY | 7;
+    public static final int TOUCH = BINARY | 8;
+    public static final int UNLOCK = BINARY | 9;
+    public static final int OBSERVE = BINARY | 10;
+    public static final int MULTI_OBSERVE = BINARY | 11;
+    public static final int OBSERVE_SEQNO = BINARY | 12;
+    public static final int GET_BUCKET_CONFIG = BINARY | 13;
+    public static final int APPEND = BINARY | 14;
+    public static final int PREPEND = BINARY | 15;
+    public static final int KEEP_ALIVE = BINARY | 16;
+    public static final int STAT = BINARY | 17;
+    public static final int GET_ALL_MUTATION_TOKENS = BINARY | 18;
+    public static final int SUBDOC = BINARY | 19;
+    public static final int SUBDOC_MULTI_LOOKUP = BINARY | 20;
+    public static final int SUBDOC_MULTI_MUTATION = BINARY | 21;
+
+    private RequestKind() {
+        // no instantiation
+    }
+
+    /**
+     * Returns the kind of the given request, classifying it if it does not declare one.
+     *
+     * @param request the request.
+     * @return the kind of the request.
+     */
+    public static int of(final CouchbaseRequest request) {
+        int kind = request instanceof AbstractCouchbaseRequest
+            ? ((AbstractCouchbaseRequest) request).kind()
+            : UNKNOWN;
+        return kind == UNKNOWN ? classify(request) : kind;
+    }
+
+    /**
+     * Returns the family of the given kind.
+     *
+     * @param kind the kind.
+     * @return its family, like {@link #BINARY}.
+     */
+    public static int family(final int kind) {
+        return kind & FAMILY_MASK;
+    }
+
+    /**
+     * Returns the service type a request of the given kind is dispatched to.
+     *
+     * @param kind the kind.
+     * @return the service type or null if the kind does not belong to a service.
+     */
+    public static ServiceType serviceType(final int kind) {
+        switch (family(kind)) {
+            case BINARY:
+                return ServiceType.BINARY;
+            case CONFIG:
+                return ServiceType.CONFIG;
+            case VIEW:
+                return ServiceType.VIEW;
+            case QUERY:
+                return ServiceType.QUERY;
+            case SEARCH:
+                return ServiceType.SEARCH;
+            case ANALYTICS:
+                return ServiceType.ANALYTICS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Classifies a request through its type.
+     *
+     * Only used for requests which do not declare their kind, and at most once for every
+     * {@link AbstractCouchbaseRequest}.
+     *
+     * @param request the request.
+     * @return the kind of the request, {@link #INTERNAL} if it does not belong to a service.
+     */
+    public static int classify(final CouchbaseRequest request) {
+        if (request instanceof BinaryRequest) {
+            return classifyBinary(request);
+        } else if (request instanceof ConfigRequest) {
+            return CONFIG;
+        } else if (request instanceof ViewRequest) {
+            return VIEW;
+        } else if (request instanceof QueryRequest) {
+            return QUERY;
+        } else if (request instanceof SearchRequest) {
+            return SEARCH;
+        } else if (request instanceof AnalyticsRequest) {
+            return ANALYTICS;
+        } else {
+            return INTERNAL;
+        }
+    }
+
+    private static int classifyBinary(final CouchbaseRequest request) {
+        if (request instanceof GetRequest) {
+            return GET;
+        } else if (request instanceof InsertRequest) {
+            return INSERT;
+        } else if (request instanceof UpsertRequest) {
+            return UPSERT;
+        } else if (request instanceof ReplaceRequest) {
+            return REPLACE;
+        } else if (request instanceof ReplicaGetRequest) {
+            return REPLICA_GET;
+        } else if (request instanceof RemoveRequest) {
+            return REMOVE;
+        } else if (request instanceof CounterRequest) {
+            return COUNTER;
+        } else if (request instanceof TouchRequest) {
+            return TOUCH;
+        } else if (request instanceof UnlockRequest) {
+            return UNLOCK;
+        } else if (request instanceof ObserveRequest) {
+            return OBSERVE;
+        } else if (request instanceof MultiObserveRequest) {
+            return MULTI_OBSERVE;
+        } else if (request instanceof ObserveSeqnoRequest) {
+            return OBSERVE_SEQNO;
+        } else if (request instanceof GetBucketConfigRequest) {
+            return GET_BUCKET_CONFIG;
+        } else if (request instanceof AppendRequest) {
+            return APPEND;
+        } else if (request instanceof PrependRequest) {
+            return PREPEND;
+        } else if (request instanceof KeepAlive) {
+            return KEEP_ALIVE;
+        } else if (request instanceof StatRequest) {
+            return STAT;
+        } else if (request instanceof GetAllMutationTokensRequest) {
+            return GET_ALL_MUTATION_TOKENS;
+        } else if (request instanceof BinarySubdocRequest) {
+            return SUBDOC;
+        } else if (request instanceof BinarySubdocMultiLookupRequest) {
+            return SUBDOC_MULTI_LOOKUP;
+        } else if (request instanceof BinarySubdocMultiMutationRequest) {
+            return SUBDOC_MULTI_MUTATION;
+        } else {
+            return BINARY;
+        }
+    }
+}
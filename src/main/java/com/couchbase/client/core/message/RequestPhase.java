@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message;
+
+/**
+ * The phases in the lifecycle of a {@link CouchbaseRequest} which are timestamped, see
+ * {@link #mark(CouchbaseRequest)}.
+ *
+ * @since 1.5.2
+ */
+public enum RequestPhase {
+
+    /**
+     * Handed to the core, before it is put into the request ring buffer.
+     */
+    SEND,
+
+    /**
+     * Taken out of the request ring buffer and dispatched to a node.
+     */
+    DISPATCH,
+
+    /**
+     * Encoding started, which means it left the endpoint and the channel accepted it.
+     */
+    ENCODE,
+
+    /**
+     * Encoded and handed over to the transport for writing.
+     */
+    WRITE,
+
+    /**
+     * Decoding of its response started.
+     */
+    DECODE,
+
+    /**
+     * Its response is about to be emitted to the subscriber, after the hop onto the scheduler.
+     */
+    COMPLETE;
+
+    /**
+     * Records the current time for this phase on the given request, if it keeps track of its phases.
+     *
+     * @param request the request which reached this phase.
+     */
+    public void mark(final CouchbaseRequest request) {
+        if (request instanceof AbstractCouchbaseRequest) {
+            ((AbstractCouchbaseRequest) request).markPhase(this);
+        }
+    }
+
+    /**
+     * Returns the time in nanoseconds when the given request reached this phase last, or 0 if it has not
+     * been reached or the request doesn't keep track of its phases.
+     *
+     * @param request the request to look up.
+     * @return the timestamp of this phase.
+     */
+    public long timeOf(final CouchbaseRequest request) {
+        if (request instanceof AbstractCouchbaseRequest) {
+            return ((AbstractCouchbaseRequest) request).phaseTime(this);
+        }
+        return 0;
+    }
+
+}
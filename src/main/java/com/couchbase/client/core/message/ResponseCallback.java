@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * A callback which gets notified once a {@link CouchbaseRequest} with a single response completes.
+ *
+ * Exactly one of the two methods is called, and only once. Depending on
+ * {@link com.couchbase.client.core.env.CoreEnvironment#callbacksOnIoPool()} it is either called on the IO event
+ * loops or on the computation scheduler, so it must not block.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public interface ResponseCallback {
+
+    /**
+     * Called with the response of the request.
+     *
+     * @param response the response.
+     */
+    void onResponse(CouchbaseResponse response);
+
+    /**
+     * Called if the request failed.
+     *
+     * @param throwable the cause of the failure.
+     */
+    void onError(Throwable throwable);
+}
@@ -19,6 +19,7 @@ import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.PrelocatedRequest;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.query.QueryRequest;
 
 import java.net.InetAddress;
@@ -118,4 +119,9 @@ public class GenericAnalyticsRequest extends AbstractCouchbaseRequest implements
     public static GenericAnalyticsRequest jsonQuery(String jsonQuery, String bucket, String username, String password, InetAddress targetNode) {
         return new GenericAnalyticsRequest(jsonQuery, true, bucket, username, password, targetNode);
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.ANALYTICS;
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.internal;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A cluster map change notification which has been pushed by the server over a KV connection.
+ *
+ * It is not a response to any request, but delivered out-of-band through the response ring buffer so
+ * that the contained config can be proposed to the configuration provider. Whoever consumes it is
+ * responsible for releasing the content.
+ *
+ * @since 1.5.2
+ */
+public class ClustermapChangeNotification extends AbstractCouchbaseRequest {
+
+    private final long rev;
+    private final ByteBuf content;
+    private final NetworkAddress origin;
+
+    public ClustermapChangeNotification(final String bucket, final long rev, final ByteBuf content,
+        final NetworkAddress origin) {
+        super(bucket, null);
+        this.rev = rev;
+        this.content = content;
+        this.origin = origin;
+    }
+
+    /**
+     * The revision of the pushed config as reported in the packet extras.
+     */
+    public long rev() {
+        return rev;
+    }
+
+    /**
+     * The raw, still encoded config.
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    /**
+     * The node which pushed the notification.
+     */
+    public NetworkAddress origin() {
+        return origin;
+    }
+
+    @Override
+    public String toString() {
+        return "ClustermapChangeNotification{bucket=" + bucket() + ", rev=" + rev + ", origin=" + origin + "}";
+    }
+}
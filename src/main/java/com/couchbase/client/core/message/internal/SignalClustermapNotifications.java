@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.internal;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.utils.NetworkAddress;
+
+/**
+ * Signals that a KV connection to the given node started (or stopped) to receive server-pushed cluster
+ * map change notifications for the bucket.
+ *
+ * @since 1.5.2
+ */
+public class SignalClustermapNotifications extends AbstractCouchbaseRequest {
+
+    private final NetworkAddress node;
+    private final boolean enabled;
+
+    public SignalClustermapNotifications(final String bucket, final NetworkAddress node, final boolean enabled) {
+        super(bucket, null);
+        this.node = node;
+        this.enabled = enabled;
+    }
+
+    public NetworkAddress node() {
+        return node;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+}
@@ -18,7 +18,6 @@ package com.couchbase.client.core.message.kv;
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import io.netty.util.CharsetUtil;
-import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
 /**
@@ -58,7 +57,7 @@ public abstract class AbstractKeyValueRequest extends AbstractCouchbaseRequest i
      * @param bucket   the bucket of the document.
      */
     protected AbstractKeyValueRequest(String key, String bucket) {
-        this(key, bucket, null, null, AsyncSubject.<CouchbaseResponse>create());
+        this(key, bucket, null, null, null);
     }
 
     /**
@@ -69,7 +68,7 @@ public abstract class AbstractKeyValueRequest extends AbstractCouchbaseRequest i
      * @param password the password for the bucket.
      */
     protected AbstractKeyValueRequest(String key, String bucket, String password) {
-        this(key, bucket, bucket, password, AsyncSubject.<CouchbaseResponse>create());
+        this(key, bucket, bucket, password, null);
     }
 
     /**
@@ -81,7 +80,7 @@ public abstract class AbstractKeyValueRequest extends AbstractCouchbaseRequest i
      * @param password the password for the user.
      */
     protected AbstractKeyValueRequest(String key, String bucket, String username, String password) {
-        this(key, bucket, username, password, AsyncSubject.<CouchbaseResponse>create());
+        this(key, bucket, username, password, null);
     }
 
     /**
@@ -26,6 +26,7 @@ public abstract class AbstractKeyValueResponse extends AbstractCouchbaseResponse
     private final ByteBuf content;
     private final String bucket;
     private final short serverStatusCode;
+    private volatile long serverDuration = -1;
 
     protected AbstractKeyValueResponse(ResponseStatus status, short serverStatusCode, String bucket, ByteBuf content,
                                        CouchbaseRequest request) {
@@ -50,6 +51,24 @@ public abstract class AbstractKeyValueResponse extends AbstractCouchbaseResponse
         return serverStatusCode;
     }
 
+    /**
+     * Returns the time the server spent on the operation in microseconds.
+     *
+     * @return the server duration or -1 if it has not been reported by the server.
+     */
+    public long serverDuration() {
+        return serverDuration;
+    }
+
+    /**
+     * Sets the time the server spent on the operation as reported in the response.
+     *
+     * @param serverDuration the server duration in microseconds.
+     */
+    public void serverDuration(long serverDuration) {
+        this.serverDuration = serverDuration;
+    }
+
     @Override
     public int refCnt() {
         return content.refCnt();
@@ -82,6 +101,9 @@ public abstract class AbstractKeyValueResponse extends AbstractCouchbaseResponse
         final StringBuilder sb = new StringBuilder("BinaryResponse{");
         sb.append("bucket='").append(bucket).append('\'');
         sb.append(", status=").append(status()).append(" (").append(serverStatusCode()).append(')');
+        if (serverDuration >= 0) {
+            sb.append(", serverDuration=").append(serverDuration).append("us");
+        }
         sb.append(", request=").append(request());
         sb.append(", content=").append(content);
         sb.append('}');
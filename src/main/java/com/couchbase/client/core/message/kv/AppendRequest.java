@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
 import io.netty.buffer.ByteBuf;
 
 public class AppendRequest extends AbstractKeyValueRequest {
@@ -36,4 +37,8 @@ public class AppendRequest extends AbstractKeyValueRequest {
         return content;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.APPEND;
+    }
 }
@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 /**
  * Request to handle increment/decrement of a counter.
  *
@@ -49,4 +51,8 @@ public class CounterRequest extends AbstractKeyValueRequest {
         return expiry;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.COUNTER;
+    }
 }
@@ -17,6 +17,7 @@
 package com.couchbase.client.core.message.kv;
 
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.observe.ObserveViaMutationToken;
 import com.couchbase.client.core.utils.NetworkAddress;
 
@@ -80,4 +81,9 @@ public class GetAllMutationTokensRequest extends AbstractKeyValueRequest {
             return value;
         }
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.GET_ALL_MUTATION_TOKENS;
+    }
 }
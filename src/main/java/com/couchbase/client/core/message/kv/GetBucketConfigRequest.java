@@ -16,6 +16,7 @@
 package com.couchbase.client.core.message.kv;
 
 import com.couchbase.client.core.message.BootstrapMessage;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.utils.NetworkAddress;
 
 /**
@@ -59,4 +60,8 @@ public class GetBucketConfigRequest extends AbstractKeyValueRequest implements B
         return DEFAULT_PARTITION;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.GET_BUCKET_CONFIG;
+    }
 }
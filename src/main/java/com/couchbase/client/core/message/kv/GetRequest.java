@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 /**
  * Fetch a document from the cluster and return it if found.
  *
@@ -55,4 +57,9 @@ public class GetRequest extends AbstractKeyValueRequest {
     public int expiry() {
         return expiry;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.GET;
+    }
 }
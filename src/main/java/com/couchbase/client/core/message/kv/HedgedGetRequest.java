@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.kv;
+
+/**
+ * A {@link GetRequest} sent on behalf of the {@link HedgedReadExecutor}, which must not be hedged again.
+ *
+ * @since 1.5.2
+ */
+class HedgedGetRequest extends GetRequest {
+
+    /**
+     * Creates a copy of the given request.
+     *
+     * @param original the request sent by the caller.
+     */
+    HedgedGetRequest(final GetRequest original) {
+        super(original.key(), original.bucket(), original.lock(), original.touch(), original.expiry());
+        retryDelay(original.retryDelay());
+        maxRetryDuration(original.maxRetryDuration());
+    }
+}
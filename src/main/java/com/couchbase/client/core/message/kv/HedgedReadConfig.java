@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.kv;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The configuration for hedged replica reads, see {@link HedgedReadExecutor}.
+ *
+ * @since 1.5.2
+ */
+public class HedgedReadConfig {
+
+    public static final double PERCENTILE = 95.0;
+    public static final long MIN_DELAY = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final int MIN_SAMPLES = 100;
+    public static final double MAX_HEDGE_RATIO = 0.05;
+    public static final int MAX_HEDGE_BURST = 10;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelay;
+    private final int minSamples;
+    private final double maxHedgeRatio;
+    private final int maxHedgeBurst;
+
+    public static HedgedReadConfig disabled() {
+        return builder().enabled(false).build();
+    }
+
+    public static HedgedReadConfig create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    protected HedgedReadConfig(Builder builder) {
+        enabled = builder.enabled;
+        percentile = builder.percentile;
+        minDelay = builder.minDelay;
+        minSamples = builder.minSamples;
+        maxHedgeRatio = builder.maxHedgeRatio;
+        maxHedgeBurst = builder.maxHedgeBurst;
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("The percentile needs to be > 0 and < 100.");
+        }
+        if (minSamples <= 0 || maxHedgeBurst <= 0 || maxHedgeRatio < 0 || maxHedgeRatio > 1) {
+            throw new IllegalArgumentException("The sample size and burst need to be > 0, the ratio in [0, 1].");
+        }
+    }
+
+    /**
+     * Returns true if gets are hedged against replicas.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * The latency percentile of a bucket after which a get is hedged.
+     */
+    public double percentile() {
+        return percentile;
+    }
+
+    /**
+     * The minimum time in nanoseconds to wait for the active node before hedging.
+     */
+    public long minDelay() {
+        return minDelay;
+    }
+
+    /**
+     * The number of gets observed per bucket before hedging starts.
+     */
+    public int minSamples() {
+        return minSamples;
+    }
+
+    /**
+     * The maximum ratio of gets which are hedged over time.
+     */
+    public double maxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    /**
+     * The maximum number of hedges which can be issued in a burst.
+     */
+    public int maxHedgeBurst() {
+        return maxHedgeBurst;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("HedgedReadConfig{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", percentile=").append(percentile);
+        sb.append(", minDelay=").append(TimeUnit.NANOSECONDS.toMicros(minDelay)).append("us");
+        sb.append(", minSamples=").append(minSamples);
+        sb.append(", maxHedgeRatio=").append(maxHedgeRatio);
+        sb.append(", maxHedgeBurst=").append(maxHedgeBurst);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class Builder {
+
+        private boolean enabled = true;
+        private double percentile = PERCENTILE;
+        private long minDelay = MIN_DELAY;
+        private int minSamples = MIN_SAMPLES;
+        private double maxHedgeRatio = MAX_HEDGE_RATIO;
+        private int maxHedgeBurst = MAX_HEDGE_BURST;
+
+        protected Builder() {
+        }
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * Sets the latency percentile of a bucket after which a get is hedged.
+         */
+        public Builder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the minimum time to wait for the active node before hedging.
+         */
+        public Builder minDelay(long minDelay, TimeUnit unit) {
+            this.minDelay = unit.toNanos(minDelay);
+            return this;
+        }
+
+        /**
+         * Sets the number of gets observed per bucket before hedging starts.
+         */
+        public Builder minSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Sets the maximum ratio of gets which are hedged over time, like 0.05 for 5%.
+         */
+        public Builder maxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of hedges which can be issued in a burst.
+         */
+        public Builder maxHedgeBurst(int maxHedgeBurst) {
+            this.maxHedgeBurst = maxHedgeBurst;
+            return this;
+        }
+
+        public HedgedReadConfig build() {
+            return new HedgedReadConfig(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.kv;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.metrics.registry.Gauge;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.node.locate.KeyValueLocator;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.ByteBuf;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subjects.AsyncSubject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends plain {@link GetRequest}s to the active node and, if no response arrived after the configured latency
+ * percentile of the bucket, also as a {@link ReplicaGetRequest} to the fastest replica node.
+ *
+ * The first successful response wins and the content of the other one is released once it arrives. Responses
+ * from the active node are authoritative, so a non successful one (like a document which does not exist) is
+ * returned right away while an unsuccessful replica response is only used if the active node failed as well.
+ *
+ * The latency percentile is computed per bucket over a sliding window of recent gets and the replica is picked
+ * by the smoothed latency of its node. The number of hedges is limited to a ratio of all gets through a token
+ * bucket, so a slow cluster does not receive twice the load.
+ *
+ * @since 1.5.2
+ */
+public class HedgedReadExecutor {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(HedgedReadExecutor.class);
+
+    /**
+     * The number of latencies kept per bucket to compute the percentile.
+     */
+    static final int WINDOW_SIZE = 1024;
+
+    /**
+     * The number of recorded latencies after which the percentile is computed again.
+     */
+    static final int RECOMPUTE_INTERVAL = 64;
+
+    /**
+     * The weight of a new latency sample for the smoothed node latency.
+     */
+    private static final double NODE_LATENCY_WEIGHT = 0.2;
+
+    /**
+     * One hedge expressed in permits, so fractional ratios can be tracked in a long.
+     */
+    private static final long PERMITS_PER_HEDGE = 1000;
+
+    private final HedgedReadConfig config;
+    private final ConfigurationProvider configProvider;
+    private final Scheduler scheduler;
+    private final ConcurrentMap<String, LatencyWindow> bucketLatencies;
+    private final ConcurrentMap<String, NodeLatency> nodeLatencies;
+    private final AtomicLong permits;
+    private final long permitsPerGet;
+    private final long maxPermits;
+    private final AtomicLong hedgedCount = new AtomicLong();
+    private final AtomicLong wonCount = new AtomicLong();
+    private final AtomicLong limitedCount = new AtomicLong();
+
+    /**
+     * Creates a new {@link HedgedReadExecutor}.
+     *
+     * @param config the hedging configuration.
+     * @param configProvider the provider to look up the replica nodes of a document.
+     * @param scheduler the scheduler to run the hedge timers on.
+     * @param registry the registry to expose the hedge counters in, may be null.
+     */
+    public HedgedReadExecutor(final HedgedReadConfig config, final ConfigurationProvider configProvider,
+        final Scheduler scheduler, final MetricsRegistry registry) {
+        this.config = config;
+        this.configProvider = configProvider;
+        this.scheduler = scheduler;
+        this.bucketLatencies = new ConcurrentHashMap<String, LatencyWindow>();
+        this.nodeLatencies = new ConcurrentHashMap<String, NodeLatency>();
+        this.permitsPerGet = Math.round(config.maxHedgeRatio() * PERMITS_PER_HEDGE);
+        this.maxPermits = config.maxHedgeBurst() * PERMITS_PER_HEDGE;
+        this.permits = new AtomicLong(maxPermits);
+
+        if (registry != null) {
+            registerCounter(registry, "issued", hedgedCount);
+            registerCounter(registry, "won", wonCount);
+            registerCounter(registry, "limited", limitedCount);
+        }
+    }
+
+    private static void registerCounter(final MetricsRegistry registry, final String result,
+        final AtomicLong counter) {
+        registry.register(new Gauge("couchbase_hedged_reads", "Replica reads issued for slow gets.",
+            Collections.singletonMap("result", result)) {
+            @Override
+            public double value() {
+                return counter.get();
+            }
+        });
+    }
+
+    /**
+     * Checks if the given request is hedged by this executor.
+     *
+     * @param request the request to check.
+     * @return true if it is a plain {@link GetRequest} which neither locks nor touches.
+     */
+    public static boolean handles(final Object request) {
+        if (!(request instanceof GetRequest) || request instanceof HedgedGetRequest) {
+            return false;
+        }
+        GetRequest get = (GetRequest) request;
+        return !get.lock() && !get.touch();
+    }
+
+    /**
+     * Sends the get, hedging it against a replica if it is slow.
+     *
+     * @param core the core to send the requests through.
+     * @param request the original request.
+     * @return the response to the original request.
+     */
+    public Observable<CouchbaseResponse> send(final ClusterFacade core, final GetRequest request) {
+        final HedgedGet hedgedGet = new HedgedGet();
+        final HedgedGetRequest primary = new HedgedGetRequest(request);
+        final LatencyWindow window = bucketLatencies(request.bucket());
+        final long threshold = window.threshold();
+        addPermits();
+
+        final Scheduler.Worker worker = threshold > 0 ? scheduler.createWorker() : null;
+        if (worker != null) {
+            worker.schedule(new Action0() {
+                @Override
+                public void call() {
+                    try {
+                        hedge(core, request, primary, hedgedGet);
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                }
+            }, threshold, TimeUnit.NANOSECONDS);
+        }
+
+        final long start = System.nanoTime();
+        core.<CouchbaseResponse>send(primary).subscribe(new Subscriber<CouchbaseResponse>() {
+            @Override
+            public void onNext(CouchbaseResponse response) {
+                cancelHedge(worker);
+                long latency = System.nanoTime() - start;
+                window.record(latency, config);
+                recordNodeLatency(primary.dispatchHostname(), latency);
+                hedgedGet.onPrimary(response);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                cancelHedge(worker);
+                hedgedGet.onPrimaryError(e);
+            }
+
+            @Override
+            public void onCompleted() {
+                // the response has been handled in onNext already.
+            }
+        });
+        return hedgedGet.result;
+    }
+
+    /**
+     * Cancels the pending hedge timer once the primary is done, so it doesn't linger until the threshold.
+     *
+     * @param worker the worker the hedge is scheduled on, null if none is scheduled.
+     */
+    private static void cancelHedge(final Scheduler.Worker worker) {
+        if (worker != null) {
+            worker.unsubscribe();
+        }
+    }
+
+    private void hedge(final ClusterFacade core, final GetRequest request, final HedgedGetRequest primary,
+        final HedgedGet hedgedGet) {
+        if (!hedgedGet.isPending()) {
+            return;
+        }
+        short replica = fastestReplica(request, primary.dispatchHostname());
+        if (replica < 1) {
+            return;
+        }
+        if (!acquirePermit()) {
+            limitedCount.incrementAndGet();
+            return;
+        }
+        if (!hedgedGet.startHedge()) {
+            return;
+        }
+
+        hedgedCount.incrementAndGet();
+        final ReplicaGetRequest replicaGet = new ReplicaGetRequest(request.key(), request.bucket(), replica);
+        final long start = System.nanoTime();
+        core.<CouchbaseResponse>send(replicaGet).subscribe(new Subscriber<CouchbaseResponse>() {
+            @Override
+            public void onNext(CouchbaseResponse response) {
+                recordNodeLatency(replicaGet.dispatchHostname(), System.nanoTime() - start);
+                if (hedgedGet.onReplica(response)) {
+                    wonCount.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                hedgedGet.onReplicaError(e);
+            }
+
+            @Override
+            public void onCompleted() {
+                // the response has been handled in onNext already.
+            }
+        });
+    }
+
+    /**
+     * Picks the replica on the node with the lowest smoothed latency, skipping the node of the active partition.
+     *
+     * @return the replica number or -1 if no replica is available.
+     */
+    private short fastestReplica(final GetRequest request, final String primaryHostname) {
+        ClusterConfig cluster = configProvider.config();
+        BucketConfig bucket = cluster == null ? null : cluster.bucketConfig(request.bucket());
+        if (!(bucket instanceof CouchbaseBucketConfig)) {
+            return -1;
+        }
+
+        CouchbaseBucketConfig bucketConfig = (CouchbaseBucketConfig) bucket;
+        short fastest = -1;
+        double fastestLatency = Double.MAX_VALUE;
+        for (short replica = 1; replica <= bucketConfig.numberOfReplicas(); replica++) {
+            NetworkAddress hostname = KeyValueLocator.replicaHostname(request.keyBytes(), bucketConfig, replica);
+            if (hostname == null || hostname.nameOrAddress().equals(primaryHostname)) {
+                continue;
+            }
+            NodeLatency nodeLatency = nodeLatencies.get(hostname.nameOrAddress());
+            double latency = nodeLatency == null ? Double.MAX_VALUE / 2 : nodeLatency.value();
+            if (fastest < 0 || latency < fastestLatency) {
+                fastest = replica;
+                fastestLatency = latency;
+            }
+        }
+        return fastest;
+    }
+
+    private LatencyWindow bucketLatencies(final String bucket) {
+        LatencyWindow window = bucketLatencies.get(bucket);
+        if (window == null) {
+            window = new LatencyWindow();
+            LatencyWindow existing = bucketLatencies.putIfAbsent(bucket, window);
+            if (existing != null) {
+                window = existing;
+            }
+        }
+        return window;
+    }
+
+    private void recordNodeLatency(final String hostname, final long latency) {
+        if (hostname == null) {
+            return;
+        }
+        NodeLatency nodeLatency = nodeLatencies.get(hostname);
+        if (nodeLatency == null) {
+            nodeLatency = new NodeLatency();
+            NodeLatency existing = nodeLatencies.putIfAbsent(hostname, nodeLatency);
+            if (existing != null) {
+                nodeLatency = existing;
+            }
+        }
+        nodeLatency.record(latency);
+    }
+
+    private void addPermits() {
+        while (true) {
+            long current = permits.get();
+            long next = Math.min(maxPermits, current + permitsPerGet);
+            if (current == next || permits.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean acquirePermit() {
+        while (true) {
+            long current = permits.get();
+            if (current < PERMITS_PER_HEDGE) {
+                return false;
+            }
+            if (permits.compareAndSet(current, current - PERMITS_PER_HEDGE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the current hedging threshold in nanoseconds for the bucket, or -1 if not enough gets
+     * have been observed yet.
+     */
+    public long threshold(final String bucket) {
+        LatencyWindow window = bucketLatencies.get(bucket);
+        return window == null ? -1 : window.threshold();
+    }
+
+    /**
+     * The number of replica reads issued.
+     */
+    public long hedgedCount() {
+        return hedgedCount.get();
+    }
+
+    /**
+     * The number of replica reads which answered before the active node.
+     */
+    public long wonCount() {
+        return wonCount.get();
+    }
+
+    /**
+     * The number of replica reads not issued because of the rate limit.
+     */
+    public long limitedCount() {
+        return limitedCount.get();
+    }
+
+    private static void release(final CouchbaseResponse response) {
+        if (response instanceof BinaryResponse) {
+            ByteBuf content = ((BinaryResponse) response).content();
+            if (content != null && content.refCnt() > 0) {
+                content.release();
+            }
+        }
+    }
+
+    /**
+     * The latencies of the most recent gets against a bucket.
+     */
+    static class LatencyWindow {
+
+        private final long[] samples = new long[WINDOW_SIZE];
+        private long count;
+        private volatile long threshold = -1;
+
+        synchronized void record(final long latency, final HedgedReadConfig config) {
+            samples[(int) (count % WINDOW_SIZE)] = latency;
+            count++;
+            if (count == config.minSamples() || (count > config.minSamples() && count % RECOMPUTE_INTERVAL == 0)) {
+                int size = (int) Math.min(count, WINDOW_SIZE);
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                int index = Math.max(0, (int) Math.ceil(config.percentile() / 100.0 * size) - 1);
+                threshold = Math.max(config.minDelay(), sorted[index]);
+            }
+        }
+
+        long threshold() {
+            return threshold;
+        }
+    }
+
+    /**
+     * The exponentially smoothed latency of a node.
+     */
+    static class NodeLatency {
+
+        private double value = -1;
+
+        synchronized void record(final long latency) {
+            value = value < 0 ? latency : value + NODE_LATENCY_WEIGHT * (latency - value);
+        }
+
+        synchronized double value() {
+            return value;
+        }
+    }
+
+    /**
+     * The state of a single hedged get, deciding which response completes the original request.
+     */
+    static class HedgedGet {
+
+        final AsyncSubject<CouchbaseResponse> result = AsyncSubject.create();
+
+        private boolean done;
+        private boolean primaryPending = true;
+        private boolean hedgePending;
+        private Throwable primaryError;
+        private CouchbaseResponse replicaFallback;
+
+        synchronized boolean isPending() {
+            return !done && primaryPending;
+        }
+
+        synchronized boolean startHedge() {
+            if (done || !primaryPending) {
+                return false;
+            }
+            hedgePending = true;
+            return true;
+        }
+
+        void onPrimary(final CouchbaseResponse response) {
+            CouchbaseResponse fallback;
+            synchronized (this) {
+                primaryPending = false;
+                if (done) {
+                    release(response);
+                    return;
+                }
+                done = true;
+                fallback = replicaFallback;
+                replicaFallback = null;
+            }
+            if (fallback != null) {
+                release(fallback);
+            }
+            complete(response);
+        }
+
+        void onPrimaryError(final Throwable error) {
+            CouchbaseResponse fallback;
+            synchronized (this) {
+                primaryPending = false;
+                if (done) {
+                    return;
+                }
+                if (hedgePending) {
+                    primaryError = error;
+                    return;
+                }
+                done = true;
+                fallback = replicaFallback;
+                replicaFallback = null;
+            }
+            if (fallback != null) {
+                LOGGER.debug("Active node failed, completing with the replica response.", error);
+                complete(fallback);
+            } else {
+                result.onError(error);
+            }
+        }
+
+        /**
+         * @return true if the replica response completed the request.
+         */
+        boolean onReplica(final CouchbaseResponse response) {
+            Throwable error;
+            synchronized (this) {
+                hedgePending = false;
+                if (done) {
+                    release(response);
+                    return false;
+                }
+                if (response.status().isSuccess()) {
+                    done = true;
+                    error = null;
+                } else if (primaryPending) {
+                    replicaFallback = response;
+                    return false;
+                } else {
+                    done = true;
+                    error = primaryError;
+                }
+            }
+            if (error == null) {
+                complete(response);
+                return true;
+            }
+            release(response);
+            result.onError(error);
+            return false;
+        }
+
+        void onReplicaError(final Throwable error) {
+            Throwable failure;
+            synchronized (this) {
+                hedgePending = false;
+                if (done || primaryPending) {
+                    return;
+                }
+                done = true;
+                failure = primaryError;
+            }
+            LOGGER.debug("Hedged replica read failed after the active node failed as well.", error);
+            result.onError(failure);
+        }
+
+        private void complete(final CouchbaseResponse response) {
+            result.onNext(response);
+            result.onCompleted();
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -109,4 +110,9 @@ public class InsertRequest extends AbstractKeyValueRequest implements BinaryStor
     public boolean isJson() {
         return json;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.INSERT;
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.kv;
+
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.RequestKind;
+import com.couchbase.client.core.utils.NetworkAddress;
+
+import java.util.List;
+
+/**
+ * Observes the state of multiple keys on a single node with one OBSERVE command.
+ *
+ * Every key is accompanied by the partition it belongs to, the node is targeted directly and all
+ * keys need to be either active or replica on that node.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+public class MultiObserveRequest extends AbstractKeyValueRequest {
+
+    private final NetworkAddress hostname;
+    private final List<String> keys;
+    private final short[] partitions;
+
+    public MultiObserveRequest(final NetworkAddress hostname, final String bucket, final List<String> keys,
+        final short[] partitions) {
+        super("", bucket);
+        if (keys.size() != partitions.length) {
+            throw new IllegalArgumentException("Every key needs its partition");
+        }
+        this.hostname = hostname;
+        this.keys = keys;
+        this.partitions = partitions;
+    }
+
+    public NetworkAddress hostname() {
+        return hostname;
+    }
+
+    /**
+     * @return the observed keys, in the order they are sent.
+     */
+    public List<String> keys() {
+        return keys;
+    }
+
+    /**
+     * @return the partitions of the observed keys, at the same positions as {@link #keys()}.
+     */
+    public short[] partitions() {
+        return partitions;
+    }
+
+    @Override
+    public short partition() {
+        return DEFAULT_PARTITION;
+    }
+
+    @Override
+    public int kind() {
+        return RequestKind.MULTI_OBSERVE;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.kv;
+
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the response to a {@link MultiObserveRequest}.
+ *
+ * The observed states are stored in the order the server returned them, which matches the order of
+ * the keys in the request.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+public class MultiObserveResponse extends AbstractKeyValueResponse {
+
+    private final List<String> keys;
+    private final ObserveResponse.ObserveStatus[] observeStatuses;
+    private final long[] cas;
+    private final long persistStat;
+    private final long replicateStat;
+
+    public MultiObserveResponse(final ResponseStatus status, final short serverStatusCode, final List<String> keys,
+        final ObserveResponse.ObserveStatus[] observeStatuses, final long[] cas, final String bucket,
+        final CouchbaseRequest request) {
+        this(status, serverStatusCode, keys, observeStatuses, cas, 0, 0, bucket, request);
+    }
+
+    public MultiObserveResponse(final ResponseStatus status, final short serverStatusCode, final List<String> keys,
+        final ObserveResponse.ObserveStatus[] observeStatuses, final long[] cas, final long persistStat,
+        final long replicateStat, final String bucket, final CouchbaseRequest request) {
+        super(status, serverStatusCode, bucket, null, request);
+        this.keys = keys;
+        this.observeStatuses = observeStatuses;
+        this.cas = cas;
+        this.persistStat = persistStat;
+        this.replicateStat = replicateStat;
+    }
+
+    /**
+     * @return the keys as returned by the server.
+     */
+    public List<String> keys() {
+        return keys;
+    }
+
+    /**
+     * @return the observed states, at the same positions as {@link #keys()}.
+     */
+    public ObserveResponse.ObserveStatus[] observeStatuses() {
+        return observeStatuses;
+    }
+
+    /**
+     * @return the observed cas values, at the same positions as {@link #keys()}.
+     */
+    public long[] cas() {
+        return cas;
+    }
+
+    /**
+     * @return the average time to persist in milliseconds as reported by the server, 0 if not known.
+     */
+    public long persistStat() {
+        return persistStat;
+    }
+
+    /**
+     * @return the average time to replicate in milliseconds as reported by the server, 0 if not known.
+     */
+    public long replicateStat() {
+        return replicateStat;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder()
+            .append("MultiObserveResponse{")
+            .append("bucket='").append(bucket()).append('\'')
+            .append(", status=").append(status()).append(" (").append(serverStatusCode()).append(')')
+            .append(", keys=").append(keys)
+            .append(", observeStatuses=").append(Arrays.toString(observeStatuses))
+            .append(", cas=").append(Arrays.toString(cas))
+            .append('}').toString();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 public class ObserveRequest extends AbstractKeyValueRequest {
 
     private final long cas;
@@ -42,4 +44,9 @@ public class ObserveRequest extends AbstractKeyValueRequest {
     public boolean master() {
         return master;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.OBSERVE;
+    }
 }
@@ -29,13 +29,25 @@ public class ObserveResponse extends AbstractKeyValueResponse {
     private final ObserveStatus observeStatus;
     private final boolean master;
     private final long cas;
+    private final long persistStat;
+    private final long replicateStat;
+    private final String hostname;
 
     public ObserveResponse(ResponseStatus status, short serverStatusCode, byte obs, boolean master, long cas,
                            String bucket, CouchbaseRequest request) {
+        this(status, serverStatusCode, obs, master, cas, 0, 0, null, bucket, request);
+    }
+
+    public ObserveResponse(ResponseStatus status, short serverStatusCode, byte obs, boolean master, long cas,
+                           long persistStat, long replicateStat, String hostname, String bucket,
+                           CouchbaseRequest request) {
         super(status, serverStatusCode, bucket, null, request);
         observeStatus = ObserveStatus.valueOf(obs);
         this.master = master;
         this.cas = cas;
+        this.persistStat = persistStat;
+        this.replicateStat = replicateStat;
+        this.hostname = hostname;
     }
 
     public ObserveStatus observeStatus() {
@@ -50,6 +62,27 @@ public class ObserveResponse extends AbstractKeyValueResponse {
         return cas;
     }
 
+    /**
+     * @return the average time to persist in milliseconds as reported by the server, 0 if not known.
+     */
+    public long persistStat() {
+        return persistStat;
+    }
+
+    /**
+     * @return the average time to replicate in milliseconds as reported by the server, 0 if not known.
+     */
+    public long replicateStat() {
+        return replicateStat;
+    }
+
+    /**
+     * @return the node which answered, null if not known.
+     */
+    public String hostname() {
+        return hostname;
+    }
+
     public static enum ObserveStatus {
         /**
          * Observe status not known.
@@ -118,6 +151,9 @@ public class ObserveResponse extends AbstractKeyValueResponse {
         sb.append("observeStatus=").append(observeStatus);
         sb.append(", master=").append(master);
         sb.append(", cas=").append(cas);
+        sb.append(", persistStat=").append(persistStat);
+        sb.append(", replicateStat=").append(replicateStat);
+        sb.append(", hostname=").append(hostname);
         sb.append('}');
         return sb.toString();
     }
@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 /**
  * Observe through sequence numbers instead of cas.
  *
@@ -50,4 +52,8 @@ public class ObserveSeqnoRequest extends AbstractKeyValueRequest {
         return master;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.OBSERVE_SEQNO;
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
 import io.netty.buffer.ByteBuf;
 
 public class PrependRequest extends AbstractKeyValueRequest {
@@ -36,4 +37,9 @@ public class PrependRequest extends AbstractKeyValueRequest {
         return content;
     }
     
+
+    @Override
+    public int kind() {
+        return RequestKind.PREPEND;
+    }
 }
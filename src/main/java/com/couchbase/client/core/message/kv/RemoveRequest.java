@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 public class RemoveRequest extends AbstractKeyValueRequest {
 
     private final long cas;
@@ -37,4 +39,8 @@ public class RemoveRequest extends AbstractKeyValueRequest {
         return cas;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.REMOVE;
+    }
 }
@@ -16,6 +16,7 @@
 package com.couchbase.client.core.message.kv;
 
 
+import com.couchbase.client.core.message.RequestKind;
 import io.netty.buffer.ByteBuf;
 
 public class ReplaceRequest extends AbstractKeyValueRequest implements BinaryStoreRequest {
@@ -138,4 +139,9 @@ public class ReplaceRequest extends AbstractKeyValueRequest implements BinarySto
     public boolean isJson() {
         return json;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.REPLACE;
+    }
 }
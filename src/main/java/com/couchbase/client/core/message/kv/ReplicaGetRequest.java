@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 /**
  * Fetch a document from one or more and/or active nodes replicas.
  *
@@ -33,4 +35,9 @@ public class ReplicaGetRequest extends AbstractKeyValueRequest {
     public short replica() {
         return replica;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.REPLICA_GET;
+    }
 }
@@ -16,6 +16,7 @@
 package com.couchbase.client.core.message.kv;
 
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.utils.NetworkAddress;
 import rx.subjects.ReplaySubject;
 
@@ -51,4 +52,9 @@ public class StatRequest extends AbstractKeyValueRequest {
     public short partition() {
         return DEFAULT_PARTITION;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.STAT;
+    }
 }
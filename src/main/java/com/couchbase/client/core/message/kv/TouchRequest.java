@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 public class TouchRequest extends AbstractKeyValueRequest {
 
     private final int expiry;
@@ -28,4 +30,8 @@ public class TouchRequest extends AbstractKeyValueRequest {
         return expiry;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.TOUCH;
+    }
 }
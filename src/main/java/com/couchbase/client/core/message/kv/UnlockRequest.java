@@ -15,6 +15,8 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
+
 public class UnlockRequest extends AbstractKeyValueRequest {
 
     private final long cas;
@@ -28,4 +30,8 @@ public class UnlockRequest extends AbstractKeyValueRequest {
         return cas;
     }
 
+    @Override
+    public int kind() {
+        return RequestKind.UNLOCK;
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.message.kv;
 
+import com.couchbase.client.core.message.RequestKind;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -108,4 +109,9 @@ public class UpsertRequest extends AbstractKeyValueRequest implements BinaryStor
     public boolean isJson() {
         return json;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.UPSERT;
+    }
 }
@@ -18,6 +18,7 @@ package com.couchbase.client.core.message.kv.subdoc.multi;
 
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.kv.AbstractKeyValueRequest;
 import com.couchbase.client.core.message.kv.subdoc.BinarySubdocMultiLookupRequest;
 import io.netty.buffer.ByteBuf;
@@ -114,4 +115,9 @@ public class SubMultiLookupRequest extends AbstractKeyValueRequest implements Bi
 
     @Override
     public byte docFlags() { return this.docFlags; }
+
+    @Override
+    public int kind() {
+        return RequestKind.SUBDOC_MULTI_LOOKUP;
+    }
 }
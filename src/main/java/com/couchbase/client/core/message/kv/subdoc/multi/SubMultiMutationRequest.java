@@ -21,6 +21,7 @@ import static com.couchbase.client.core.endpoint.kv.KeyValueHandler.*;
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.endpoint.kv.KeyValueHandler;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.kv.AbstractKeyValueRequest;
 import com.couchbase.client.core.message.kv.subdoc.BinarySubdocMultiMutationRequest;
 import io.netty.buffer.ByteBuf;
@@ -199,4 +200,9 @@ public class SubMultiMutationRequest extends AbstractKeyValueRequest implements
 
     @Override
     public byte docFlags() { return this.docFlags; }
+
+    @Override
+    public int kind() {
+        return RequestKind.SUBDOC_MULTI_MUTATION;
+    }
 }
@@ -21,7 +21,6 @@ import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.kv.subdoc.BinarySubdocMutationRequest;
 import io.netty.buffer.ByteBuf;
-import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
 /**
@@ -61,7 +60,7 @@ public abstract class AbstractSubdocMutationRequest extends AbstractSubdocReques
      */
     protected AbstractSubdocMutationRequest(String key, String path, ByteBuf fragment, String bucket,
                                          int expiration, long cas) {
-        this(key, path, fragment, bucket, expiration, cas, AsyncSubject.<CouchbaseResponse>create());
+        this(key, path, fragment, bucket, expiration, cas, null);
     }
 
     /**
@@ -19,13 +19,13 @@ package com.couchbase.client.core.message.kv.subdoc.simple;
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.kv.AbstractKeyValueRequest;
 import com.couchbase.client.core.message.kv.subdoc.BinarySubdocRequest;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.util.CharsetUtil;
-import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
 /**
@@ -63,7 +63,7 @@ public abstract class AbstractSubdocRequest extends AbstractKeyValueRequest impl
      * @throws NullPointerException if the path is null (see {@link #EXCEPTION_NULL_PATH})
      */
     public AbstractSubdocRequest(String key, String path, String bucket, ByteBuf... restOfContent) {
-        this(key, path, bucket, AsyncSubject.<CouchbaseResponse>create(), restOfContent);
+        this(key, path, bucket, (Subject<CouchbaseResponse, CouchbaseResponse>) null, restOfContent);
     }
 
     /**
@@ -139,4 +139,9 @@ public abstract class AbstractSubdocRequest extends AbstractKeyValueRequest impl
     public ByteBuf content() {
         return this.content;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.SUBDOC;
+    }
 }
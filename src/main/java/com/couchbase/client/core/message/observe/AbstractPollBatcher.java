@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Base class for batchers which coalesce concurrent durability polls.
+ *
+ * Polls are queued and flushed on the next scheduler tick, so no artificial delay is added: everything
+ * which arrives while a flush is pending ends up in the same batch.
+ *
+ * @since 1.5.2
+ */
+abstract class AbstractPollBatcher<P> {
+
+    private final Scheduler scheduler;
+    private final Queue<P> pending;
+    private final AtomicBoolean flushScheduled;
+    private volatile boolean shutdown;
+
+    protected AbstractPollBatcher(final Scheduler scheduler) {
+        this.scheduler = scheduler;
+        this.pending = new ConcurrentLinkedQueue<P>();
+        this.flushScheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Queues the poll and makes sure a flush is scheduled.
+     *
+     * @param poll the poll to queue.
+     */
+    protected void enqueue(final P poll) {
+        pending.offer(poll);
+        if (shutdown) {
+            flush();
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            final Scheduler.Worker worker = scheduler.createWorker();
+            worker.schedule(new Action0() {
+                @Override
+                public void call() {
+                    try {
+                        flush();
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops batching and sends out whatever is still pending, since the scheduler might not run the
+     * outstanding flush anymore. Polls queued afterwards are sent right away.
+     */
+    public void shutdown() {
+        shutdown = true;
+        flush();
+    }
+
+    /**
+     * Drains all pending polls and hands them over for sending.
+     */
+    void flush() {
+        flushScheduled.set(false);
+
+        List<P> polls = new ArrayList<P>();
+        P poll;
+        while ((poll = pending.poll()) != null) {
+            polls.add(poll);
+        }
+        if (!polls.isEmpty()) {
+            flush(polls);
+        }
+    }
+
+    /**
+     * Sends out the drained polls.
+     *
+     * @param polls the polls drained in this tick, never empty.
+     */
+    protected abstract void flush(List<P> polls);
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.CouchbaseCore;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.MultiObserveResponse;
+import com.couchbase.client.core.message.kv.ObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.core.node.locate.KeyValueLocator;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.util.CharsetUtil;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.AsyncSubject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces concurrent CAS based observe polls which are bound for the same node into a single
+ * multi-key OBSERVE command.
+ *
+ * Polls bound for the same bucket and node within one tick are sent together. The results are
+ * demultiplexed back into one {@link ObserveResponse} per poll, so callers don't see a difference. Whenever a poll can't
+ * be attributed to a node or a batch fails as a whole, the affected polls fall back to regular
+ * {@link ObserveRequest}s, which keeps the error semantics of the single-key path.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Private
+public class ObserveBatcher extends AbstractPollBatcher<ObserveBatcher.Poll> {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(ObserveBatcher.class);
+
+    /**
+     * Used for cores which don't own a batcher: every poll is sent right away on its own.
+     */
+    private static final ObserveBatcher UNBATCHED = new ObserveBatcher(Schedulers.immediate());
+
+    public ObserveBatcher(final Scheduler scheduler) {
+        super(scheduler);
+    }
+
+    /**
+     * Returns the batcher owned by the given core, or one which doesn't batch at all if the core
+     * doesn't own one.
+     *
+     * @param core the core to send through.
+     * @return the batcher for this core.
+     */
+    static ObserveBatcher forCore(final ClusterFacade core) {
+        if (core instanceof CouchbaseCore) {
+            return ((CouchbaseCore) core).observeBatcher();
+        }
+        return UNBATCHED;
+    }
+
+    /**
+     * Observes the given key on its active or a replica node as part of the next batch.
+     *
+     * @param core the core to send through.
+     * @param config the bucket config used to find the target node.
+     * @param bucket the name of the bucket.
+     * @param id the document id.
+     * @param cas the expected cas.
+     * @param master true if the active node should be observed.
+     * @param replica the replica index if not the active node.
+     * @return the observe response for this key.
+     */
+    Observable<ObserveResponse> observe(final ClusterFacade core, final CouchbaseBucketConfig config,
+        final String bucket, final String id, final long cas, final boolean master, final short replica) {
+        Poll poll = new Poll(core, config, bucket, id, cas, master, replica);
+        enqueue(poll);
+        return poll.result;
+    }
+
+    /**
+     * Groups the polls by target node and sends them out.
+     */
+    @Override
+    protected void flush(final List<Poll> polls) {
+        Map<String, List<Poll>> batches = new HashMap<String, List<Poll>>();
+        Map<String, NetworkAddress> targets = new HashMap<String, NetworkAddress>();
+        for (Poll poll : polls) {
+            NetworkAddress target = poll.locate();
+            if (target == null) {
+                sendSingle(poll);
+                continue;
+            }
+
+            String batchKey = poll.bucket + "/" + target;
+            List<Poll> batch = batches.get(batchKey);
+            if (batch == null) {
+                batch = new ArrayList<Poll>();
+                batches.put(batchKey, batch);
+                targets.put(batchKey, target);
+            }
+            batch.add(poll);
+        }
+
+        for (Map.Entry<String, List<Poll>> entry : batches.entrySet()) {
+            List<Poll> batch = entry.getValue();
+            if (batch.size() == 1) {
+                sendSingle(batch.get(0));
+            } else {
+                sendBatch(targets.get(entry.getKey()), batch);
+            }
+        }
+    }
+
+    private void sendSingle(final Poll poll) {
+        poll.core
+            .<ObserveResponse>send(new ObserveRequest(poll.id, poll.cas, poll.master, poll.replica, poll.bucket))
+            .subscribe(poll.result);
+    }
+
+    private void sendBatch(final NetworkAddress target, final List<Poll> batch) {
+        final ClusterFacade core = batch.get(0).core;
+        final String bucket = batch.get(0).bucket;
+        List<String> keys = new ArrayList<String>(batch.size());
+        short[] partitions = new short[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            keys.add(batch.get(i).id);
+            partitions[i] = batch.get(i).partition;
+        }
+
+        final MultiObserveRequest request = new MultiObserveRequest(target, bucket, keys, partitions);
+        core.<MultiObserveResponse>send(request).subscribe(new Subscriber<MultiObserveResponse>() {
+            @Override
+            public void onCompleted() {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                LOGGER.debug("Multi-key observe against {} failed, falling back to single observes.", target, e);
+                for (Poll poll : batch) {
+                    sendSingle(poll);
+                }
+            }
+
+            @Override
+            public void onNext(MultiObserveResponse response) {
+                if (!response.status().isSuccess() || response.keys().size() != batch.size()) {
+                    LOGGER.debug("Multi-key observe against {} failed ({}), falling back to single observes.",
+                        target, response.status());
+                    for (Poll poll : batch) {
+                        sendSingle(poll);
+                    }
+                    return;
+                }
+
+                for (int i = 0; i < batch.size(); i++) {
+                    Poll poll = batch.get(i);
+                    if (!poll.id.equals(response.keys().get(i))) {
+                        sendSingle(poll);
+                        continue;
+                    }
+                    poll.result.onNext(new ObserveResponse(response.status(), response.serverStatusCode(),
+                        response.observeStatuses()[i].value(), poll.master, response.cas()[i],
+                        response.persistStat(), response.replicateStat(), target.address(), bucket, request));
+                    poll.result.onCompleted();
+                }
+            }
+        });
+    }
+
+    /**
+     * A single pending observe poll.
+     */
+    static class Poll {
+
+        final ClusterFacade core;
+        final CouchbaseBucketConfig config;
+        final String bucket;
+        final String id;
+        final long cas;
+        final boolean master;
+        final short replica;
+        final AsyncSubject<ObserveResponse> result;
+        short partition;
+
+        Poll(ClusterFacade core, CouchbaseBucketConfig config, String bucket, String id, long cas, boolean master,
+            short replica) {
+            this.core = core;
+            this.config = config;
+            this.bucket = bucket;
+            this.id = id;
+            this.cas = cas;
+            this.master = master;
+            this.replica = replica;
+            this.result = AsyncSubject.create();
+        }
+
+        /**
+         * Finds the node this poll is bound for, or null if it can't be determined.
+         */
+        NetworkAddress locate() {
+            partition = (short) KeyValueLocator.partitionForKey(id.getBytes(CharsetUtil.UTF_8),
+                config.numberOfPartitions());
+            int nodeId = master
+                ? config.nodeIndexForMaster(partition, false)
+                : config.nodeIndexForReplica(partition, replica - 1, false);
+            if (nodeId < 0) {
+                return null;
+            }
+            NodeInfo node = config.nodeAtIndex(nodeId);
+            return node == null ? null : node.hostname();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.CouchbaseCore;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.AsyncSubject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces concurrent sequence number based observe polls which target the same vbucket copy.
+ *
+ * An OBSERVE_SEQ response describes the state of a whole vbucket, so polls for the same bucket,
+ * vbucket (id and uuid) and copy (active or replica index) within one tick share a single
+ * {@link ObserveSeqnoRequest}. Every waiter receives the same response and checks its own
+ * sequence number against the persisted and current sequence numbers in it.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Private
+public class ObserveSeqnoBatcher extends AbstractPollBatcher<ObserveSeqnoBatcher.Poll> {
+
+    /**
+     * Used for cores which don't own a batcher: every poll is sent right away on its own.
+     */
+    private static final ObserveSeqnoBatcher UNBATCHED = new ObserveSeqnoBatcher(Schedulers.immediate());
+
+    public ObserveSeqnoBatcher(final Scheduler scheduler) {
+        super(scheduler);
+    }
+
+    /**
+     * Returns the batcher owned by the given core, or one which doesn't batch at all if the core
+     * doesn't own one.
+     *
+     * @param core the core to send through.
+     * @return the batcher for this core.
+     */
+    static ObserveSeqnoBatcher forCore(final ClusterFacade core) {
+        if (core instanceof CouchbaseCore) {
+            return ((CouchbaseCore) core).observeSeqnoBatcher();
+        }
+        return UNBATCHED;
+    }
+
+    /**
+     * Observes the vbucket of the given token on its active or a replica node as part of the next tick.
+     *
+     * @param core the core to send through.
+     * @param bucket the name of the bucket.
+     * @param id the document id, used to route the request.
+     * @param token the mutation token to observe.
+     * @param master true if the active node should be observed.
+     * @param replica the replica index if not the active node.
+     * @return the observe seqno response for the vbucket.
+     */
+    Observable<CouchbaseResponse> observe(final ClusterFacade core, final String bucket, final String id,
+        final MutationToken token, final boolean master, final short replica) {
+        Poll poll = new Poll(core, bucket, id, token, master, replica);
+        enqueue(poll);
+        return poll.result;
+    }
+
+    /**
+     * Merges the polls per vbucket copy and sends one request for each.
+     */
+    @Override
+    protected void flush(final List<Poll> polls) {
+        Map<String, List<Poll>> groups = new LinkedHashMap<String, List<Poll>>();
+        for (Poll poll : polls) {
+            String groupKey = poll.bucket + "/" + poll.token.vbucketID() + "/" + poll.token.vbucketUUID()
+                + "/" + poll.replica;
+            List<Poll> group = groups.get(groupKey);
+            if (group == null) {
+                group = new ArrayList<Poll>();
+                groups.put(groupKey, group);
+            }
+            group.add(poll);
+        }
+
+        for (List<Poll> group : groups.values()) {
+            send(group);
+        }
+    }
+
+    private static void send(final List<Poll> group) {
+        Poll first = group.get(0);
+        first.core
+            .<CouchbaseResponse>send(new ObserveSeqnoRequest(first.token.vbucketUUID(), first.master,
+                first.replica, first.id, first.bucket))
+            .subscribe(new Subscriber<CouchbaseResponse>() {
+                @Override
+                public void onCompleted() {
+                    for (Poll poll : group) {
+                        poll.result.onCompleted();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    for (Poll poll : group) {
+                        poll.result.onError(e);
+                    }
+                }
+
+                @Override
+                public void onNext(CouchbaseResponse response) {
+                    for (Poll poll : group) {
+                        poll.result.onNext(response);
+                    }
+                }
+            });
+    }
+
+    /**
+     * A single pending observe seqno poll.
+     */
+    static class Poll {
+
+        final ClusterFacade core;
+        final String bucket;
+        final String id;
+        final MutationToken token;
+        final boolean master;
+        final short replica;
+        final AsyncSubject<CouchbaseResponse> result;
+
+        Poll(ClusterFacade core, String bucket, String id, MutationToken token, boolean master, short replica) {
+            this.core = core;
+            this.bucket = bucket;
+            this.id = id;
+            this.token = token;
+            this.master = master;
+            this.replica = replica;
+            this.result = AsyncSubject.create();
+        }
+    }
+}
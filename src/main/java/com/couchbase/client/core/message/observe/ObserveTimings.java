@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.CouchbaseCore;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.core.metrics.registry.Gauge;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.time.Delay;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Learns how long persistence and replication take per node and uses the estimates to schedule observe
+ * polls adaptively.
+ *
+ * The estimates are exponentially weighted moving averages, fed both by the persist and replicate time
+ * statistics the server reports in every OBSERVE response and by the completion times the client itself
+ * measures for durability requirements. A poll is scheduled for when the requirement is expected to be met;
+ * once that point has passed, the configured observe delay takes over again, restarting from its first
+ * attempt so that late completions are still picked up quickly.
+ *
+ * Every core learns on its own, since the timings of one cluster say nothing about another. The learned
+ * estimates can be inspected through {@link #estimates()} and, if a {@link MetricsRegistry} is given, are
+ * exported as gauges per node.
+ *
+ * @since 1.5.2
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public class ObserveTimings {
+
+    /**
+     * Timings of facades which are not a {@link CouchbaseCore}, weakly referenced so they go away together
+     * with the facade.
+     */
+    private static final Map<ClusterFacade, ObserveTimings> TIMINGS =
+        Collections.synchronizedMap(new WeakHashMap<ClusterFacade, ObserveTimings>());
+
+    /**
+     * Weight of a new sample in the moving averages.
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * Upper bound for a single adaptive delay, so a stale estimate never stalls a poll for long.
+     */
+    private static final long MAX_ADAPTIVE_DELAY_NS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentMap<String, NodeTimings> nodes;
+    private final MetricsRegistry registry;
+    private final String core;
+    private final List<Gauge> gauges;
+
+    ObserveTimings() {
+        this(null, null);
+    }
+
+    /**
+     * Creates new {@link ObserveTimings}.
+     *
+     * @param registry the registry to export the estimates in, may be null.
+     * @param core the identifier of the owning core, used as a label of the exported estimates.
+     */
+    public ObserveTimings(final MetricsRegistry registry, final String core) {
+        this.nodes = new ConcurrentHashMap<String, NodeTimings>();
+        this.registry = registry;
+        this.core = core;
+        this.gauges = new CopyOnWriteArrayList<Gauge>();
+    }
+
+    /**
+     * Returns the timings learned for the given core.
+     *
+     * @param core the core the observe polls are sent through.
+     * @return the timings of that core.
+     */
+    static ObserveTimings forCore(final ClusterFacade core) {
+        if (core instanceof CouchbaseCore) {
+            return ((CouchbaseCore) core).observeTimings();
+        }
+        synchronized (TIMINGS) {
+            ObserveTimings timings = TIMINGS.get(core);
+            if (timings == null) {
+                timings = new ObserveTimings();
+                TIMINGS.put(core, timings);
+            }
+            return timings;
+        }
+    }
+
+    /**
+     * Removes the exported estimates from the registry.
+     */
+    public void close() {
+        if (registry != null) {
+            for (Gauge gauge : gauges) {
+                registry.remove(gauge);
+            }
+        }
+        gauges.clear();
+    }
+
+    /**
+     * Returns a snapshot of the learned estimates, by node.
+     *
+     * @return the estimates per node.
+     */
+    public Map<String, Estimate> estimates() {
+        Map<String, Estimate> snapshot = new HashMap<String, Estimate>();
+        for (Map.Entry<String, NodeTimings> entry : nodes.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().estimate());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Starts tracking a single durability requirement.
+     *
+     * @param persist true if persistence is awaited.
+     * @param replicate true if replication is awaited.
+     * @return a new tracker.
+     */
+    Tracker track(final boolean persist, final boolean replicate) {
+        return new Tracker(persist, replicate);
+    }
+
+    private NodeTimings timings(final String node) {
+        NodeTimings timings = nodes.get(node);
+        if (timings == null) {
+            timings = new NodeTimings();
+            NodeTimings existing = nodes.putIfAbsent(node, timings);
+            if (existing != null) {
+                timings = existing;
+            } else {
+                registerGauges(node, timings);
+            }
+        }
+        return timings;
+    }
+
+    private void registerGauges(final String node, final NodeTimings timings) {
+        if (registry == null) {
+            return;
+        }
+        registerGauge(node, "persist", timings.persist);
+        registerGauge(node, "replicate", timings.replicate);
+    }
+
+    private void registerGauge(final String node, final String operation, final Ewma ewma) {
+        Map<String, String> labels = new HashMap<String, String>();
+        if (core != null) {
+            labels.put("core", core);
+        }
+        labels.put("node", node);
+        labels.put("operation", operation);
+        Gauge gauge = new Gauge("couchbase_observe_estimate_seconds",
+            "Learned time until a mutation is persisted or replicated.", labels) {
+            @Override
+            public double value() {
+                return ewma.value() / 1e9;
+            }
+        };
+        gauges.add(gauge);
+        registry.register(gauge);
+    }
+
+    /**
+     * Keeps the adaptive polling state of a single durability requirement.
+     */
+    class Tracker {
+
+        private final boolean persist;
+        private final boolean replicate;
+        private final long start;
+        private volatile String node;
+        private volatile boolean waitedForEstimate;
+        private volatile int attemptsPastEstimate;
+
+        Tracker(final boolean persist, final boolean replicate) {
+            this.persist = persist;
+            this.replicate = replicate;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Feeds the server statistics of a response and remembers the active node.
+         *
+         * @param response the observe response.
+         */
+        void onResponse(final ObserveResponse response) {
+            if (response.hostname() == null) {
+                return;
+            }
+            if (response.master()) {
+                node = response.hostname();
+            }
+            NodeTimings timings = timings(response.hostname());
+            if (response.persistStat() > 0) {
+                timings.persist.add(TimeUnit.MILLISECONDS.toNanos(response.persistStat()));
+            }
+            if (response.replicateStat() > 0) {
+                timings.replicate.add(TimeUnit.MILLISECONDS.toNanos(response.replicateStat()));
+            }
+        }
+
+        /**
+         * Records the completion time of the requirement against the active node.
+         *
+         * If the requirement was met on the poll scheduled from the estimate, the measured time says
+         * nothing beyond the estimate itself and is not recorded, so it can't hold the estimate up.
+         */
+        void onComplete() {
+            String current = node;
+            if (current == null || (waitedForEstimate && attemptsPastEstimate == 0)) {
+                return;
+            }
+            long took = System.nanoTime() - start;
+            NodeTimings timings = timings(current);
+            if (persist) {
+                timings.persist.add(took);
+            }
+            if (replicate) {
+                timings.replicate.add(took);
+            }
+        }
+
+        /**
+         * Calculates the delay until the next poll.
+         *
+         * @param delay the configured observe delay, used when nothing better is known.
+         * @param attempt the poll attempt.
+         * @return the delay in nanoseconds.
+         */
+        long nextDelay(final Delay delay, final int attempt) {
+            String current = node;
+            long expected = 0;
+            if (current != null) {
+                NodeTimings timings = nodes.get(current);
+                if (timings != null) {
+                    expected = Math.max(persist ? timings.persist.value() : 0,
+                        replicate ? timings.replicate.value() : 0);
+                }
+            }
+
+            if (expected <= 0) {
+                return delay.unit().toNanos(delay.calculate(attempt));
+            }
+
+            long remaining = expected - (System.nanoTime() - start);
+            if (remaining > 0) {
+                waitedForEstimate = true;
+                return Math.min(remaining, MAX_ADAPTIVE_DELAY_NS);
+            }
+            attemptsPastEstimate++;
+            return delay.unit().toNanos(delay.calculate(attemptsPastEstimate));
+        }
+    }
+
+    /**
+     * The moving averages for a single node.
+     */
+    private static class NodeTimings {
+
+        final Ewma persist = new Ewma();
+        final Ewma replicate = new Ewma();
+
+        Estimate estimate() {
+            return new Estimate(persist.value(), persist.samples(), replicate.value(), replicate.samples());
+        }
+    }
+
+    /**
+     * An exponentially weighted moving average over nanosecond samples.
+     */
+    private static class Ewma {
+
+        private double value;
+        private long samples;
+
+        synchronized void add(final long sample) {
+            value = samples == 0 ? sample : value + ALPHA * (sample - value);
+            samples++;
+        }
+
+        synchronized long value() {
+            return (long) value;
+        }
+
+        synchronized long samples() {
+            return samples;
+        }
+    }
+
+    /**
+     * The learned persistence and replication time estimates for a single node.
+     */
+    public static class Estimate {
+
+        private final long persistNanos;
+        private final long persistSamples;
+        private final long replicateNanos;
+        private final long replicateSamples;
+
+        Estimate(long persistNanos, long persistSamples, long replicateNanos, long replicateSamples) {
+            this.persistNanos = persistNanos;
+            this.persistSamples = persistSamples;
+            this.replicateNanos = replicateNanos;
+            this.replicateSamples = replicateSamples;
+        }
+
+        /**
+         * @return the estimated time to persist in nanoseconds, 0 if not known.
+         */
+        public long persistNanos() {
+            return persistNanos;
+        }
+
+        /**
+         * @return the number of samples the persistence estimate is based on.
+         */
+        public long persistSamples() {
+            return persistSamples;
+        }
+
+        /**
+         * @return the estimated time to replicate in nanoseconds, 0 if not known.
+         */
+        public long replicateNanos() {
+            return replicateNanos;
+        }
+
+        /**
+         * @return the number of samples the replication estimate is based on.
+         */
+        public long replicateSamples() {
+            return replicateSamples;
+        }
+
+        @Override
+        public String toString() {
+            return "Estimate{"
+                + "persist=" + TimeUnit.NANOSECONDS.toMicros(persistNanos) + "us (" + persistSamples + ")"
+                + ", replicate=" + TimeUnit.NANOSECONDS.toMicros(replicateNanos) + "us (" + replicateSamples + ")"
+                + '}';
+        }
+    }
+}
@@ -28,7 +28,6 @@ import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.ResponseStatusDetails;
 import com.couchbase.client.core.message.cluster.GetClusterConfigRequest;
 import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
-import com.couchbase.client.core.message.kv.ObserveRequest;
 import com.couchbase.client.core.message.kv.ObserveResponse;
 import com.couchbase.client.core.retry.RetryStrategy;
 import com.couchbase.client.core.time.Delay;
@@ -39,6 +38,7 @@ import rx.functions.Func2;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class to handle observe calls and polling logic.
@@ -66,12 +66,15 @@ public class ObserveViaCAS {
 
         Observable<ObserveResponse> observeResponses = sendObserveRequests(core, bucket, id, cas, persistTo,
             replicateTo, retryStrategy);
+        final ObserveTimings.Tracker timings = ObserveTimings.forCore(core).track(persistTo != Observe.PersistTo.NONE,
+            replicateTo != Observe.ReplicateTo.NONE);
 
         return observeResponses
                 //each response is converted into an ObserveItem state
                 .map(new Func1<ObserveResponse, ObserveItem>() {
                     @Override
                     public ObserveItem call(ObserveResponse observeResponse) {
+                        timings.onResponse(observeResponse);
                         return new ObserveItem(id, observeResponse, cas, remove, persistIdentifier, replicaIdentifier);
                     }
                 })
@@ -100,7 +103,7 @@ public class ObserveViaCAS {
                         .flatMap(new Func1<Integer, Observable<?>>() {
                             @Override
                             public Observable<?> call(Integer attempt) {
-                                return Observable.timer(delay.calculate(attempt), delay.unit());
+                                return Observable.timer(timings.nextDelay(delay, attempt), TimeUnit.NANOSECONDS);
                             }
                         });
                     }
@@ -117,6 +120,7 @@ public class ObserveViaCAS {
                 .map(new Func1<ObserveItem, Boolean>() {
                     @Override
                     public Boolean call(ObserveItem observeResponses) {
+                        timings.onComplete();
                         return true;
                     }
                 });
@@ -126,14 +130,15 @@ public class ObserveViaCAS {
         final String id, final long cas, final Observe.PersistTo persistTo, final Observe.ReplicateTo replicateTo,
         final RetryStrategy retryStrategy) {
         final boolean swallowErrors = retryStrategy.shouldRetryObserve();
+        final ObserveBatcher batcher = ObserveBatcher.forCore(core);
         return Observable.defer(new Func0<Observable<ObserveResponse>>() {
             @Override
             public Observable<ObserveResponse> call() {
                 return core
                         .<GetClusterConfigResponse>send(new GetClusterConfigRequest())
-                        .map(new Func1<GetClusterConfigResponse, Integer>() {
+                        .map(new Func1<GetClusterConfigResponse, CouchbaseBucketConfig>() {
                             @Override
-                            public Integer call(GetClusterConfigResponse response) {
+                            public CouchbaseBucketConfig call(GetClusterConfigResponse response) {
                                 CouchbaseBucketConfig conf =
                                         (CouchbaseBucketConfig) response.config().bucketConfig(bucket);
                                 int numReplicas = conf.numberOfReplicas();
@@ -150,14 +155,16 @@ public class ObserveViaCAS {
                                     throw new ReplicaNotConfiguredException("Not enough replicas configured on " +
                                             "the bucket.");
                                 }
-                                return numReplicas;
+                                return conf;
                             }
                         })
-                        .flatMap(new Func1<Integer, Observable<ObserveResponse>>() {
+                        .flatMap(new Func1<CouchbaseBucketConfig, Observable<ObserveResponse>>() {
                             @Override
-                            public Observable<ObserveResponse> call(Integer replicas) {
+                            public Observable<ObserveResponse> call(CouchbaseBucketConfig conf) {
+                                int replicas = conf.numberOfReplicas();
                                 List<Observable<ObserveResponse>> obs = new ArrayList<Observable<ObserveResponse>>();
-                                Observable<ObserveResponse> masterRes = core.send(new ObserveRequest(id, cas, true, (short) 0, bucket));
+                                Observable<ObserveResponse> masterRes = batcher.observe(core, conf, bucket, id, cas,
+                                    true, (short) 0);
                                 if (swallowErrors) {
                                     obs.add(masterRes.onErrorResumeNext(Observable.<ObserveResponse>empty()));
                                 } else {
@@ -166,7 +173,8 @@ public class ObserveViaCAS {
 
                                 if (persistTo.touchesReplica() || replicateTo.touchesReplica()) {
                                     for (short i = 1; i <= replicas; i++) {
-                                        Observable<ObserveResponse> res = core.send(new ObserveRequest(id, cas, false, i, bucket));
+                                        Observable<ObserveResponse> res = batcher.observe(core, conf, bucket, id,
+                                            cas, false, i);
                                         if (swallowErrors) {
                                             obs.add(res.onErrorResumeNext(Observable.<ObserveResponse>empty()));
                                         } else {
@@ -31,7 +31,6 @@ import com.couchbase.client.core.message.cluster.GetClusterConfigResponse;
 import com.couchbase.client.core.message.kv.FailoverObserveSeqnoResponse;
 import com.couchbase.client.core.message.kv.MutationToken;
 import com.couchbase.client.core.message.kv.NoFailoverObserveSeqnoResponse;
-import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
 import com.couchbase.client.core.retry.RetryStrategy;
 import com.couchbase.client.core.time.Delay;
 import rx.Observable;
@@ -130,6 +129,7 @@ public class ObserveViaMutationToken {
         final MutationToken token, final Observe.PersistTo persistTo, final Observe.ReplicateTo replicateTo,
         RetryStrategy retryStrategy) {
         final boolean swallowErrors = retryStrategy.shouldRetryObserve();
+        final ObserveSeqnoBatcher batcher = ObserveSeqnoBatcher.forCore(core);
         return Observable.defer(new Func0<Observable<CouchbaseResponse>>() {
             @Override
             public Observable<CouchbaseResponse> call() {
@@ -161,7 +161,8 @@ public class ObserveViaMutationToken {
                             @Override
                             public Observable<CouchbaseResponse> call(Integer replicas) {
                                 List<Observable<CouchbaseResponse>> obs = new ArrayList<Observable<CouchbaseResponse>>();
-                                Observable<CouchbaseResponse> masterRes = core.send(new ObserveSeqnoRequest(token.vbucketUUID(), true, (short) 0, id, bucket));
+                                Observable<CouchbaseResponse> masterRes = batcher.observe(core, bucket, id, token,
+                                    true, (short) 0);
                                 if (swallowErrors) {
                                     obs.add(masterRes.onErrorResumeNext(Observable.<CouchbaseResponse>empty()));
                                 } else {
@@ -170,7 +171,8 @@ public class ObserveViaMutationToken {
 
                                 if (persistTo.touchesReplica() || replicateTo.touchesReplica()) {
                                     for (short i = 1; i <= replicas; i++) {
-                                        Observable<CouchbaseResponse> res = core.send(new ObserveSeqnoRequest(token.vbucketUUID(), false, i, id, bucket));
+                                        Observable<CouchbaseResponse> res = batcher.observe(core, bucket, id, token,
+                                            false, i);
                                         if (swallowErrors) {
                                             obs.add(res.onErrorResumeNext(Observable.<CouchbaseResponse>empty()));
                                         } else {
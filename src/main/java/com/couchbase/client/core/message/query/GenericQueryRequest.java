@@ -17,6 +17,7 @@ package com.couchbase.client.core.message.query;
 
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.PrelocatedRequest;
+import com.couchbase.client.core.message.RequestKind;
 
 import java.net.InetAddress;
 
@@ -147,4 +148,9 @@ public class GenericQueryRequest extends AbstractCouchbaseRequest implements Que
     public static GenericQueryRequest jsonQuery(String jsonQuery, String bucket, String username, String password, InetAddress targetNode) {
         return new GenericQueryRequest(jsonQuery, true, bucket, username, password, targetNode);
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.QUERY;
+    }
 }
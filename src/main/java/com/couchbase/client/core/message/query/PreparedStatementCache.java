@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.query;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.utils.Buffers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func1;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of N1QL prepared statements.
+ *
+ * Statements which are executed at least {@link #EXECUTIONS_BEFORE_PREPARE} times are transparently
+ * PREPAREd, and every following execution of the same statement text is rewritten to run the stored
+ * prepared statement (name and encoded plan) instead. If the query service reports the prepared statement
+ * as unknown or stale, it is prepared again and the request is retried once.
+ *
+ * Only {@link GenericQueryRequest}s are handled, {@link RawQueryRequest}s and statements which already
+ * PREPARE or EXECUTE are passed through unchanged.
+ *
+ * @since 1.5.2
+ */
+public class PreparedStatementCache {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(PreparedStatementCache.class);
+
+    private static final ObjectMapper JACKSON = new ObjectMapper();
+
+    /**
+     * The number of executions of a statement after which it gets prepared.
+     */
+    static final int EXECUTIONS_BEFORE_PREPARE = 2;
+
+    /**
+     * Query service error codes which signal that the prepared statement needs to be prepared again.
+     */
+    private static final int[] STALE_PLAN_CODES = { 4040, 4050, 4070 };
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates a new {@link PreparedStatementCache}.
+     *
+     * @param maxSize the maximum number of statements tracked, the least recently used one is evicted first.
+     */
+    public PreparedStatementCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The size of the prepared statement cache needs to be > 0.");
+        }
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Checks if the given request is handled by this cache.
+     *
+     * @param request the request to check.
+     * @return true if it is a plain {@link GenericQueryRequest}.
+     */
+    public static boolean handles(final Object request) {
+        return request instanceof GenericQueryRequest
+            && !(request instanceof RawQueryRequest)
+            && !(request instanceof CacheQueryRequest);
+    }
+
+    /**
+     * Sends the query, either as given or as the execution of a prepared statement.
+     *
+     * @param core the core to send the requests through.
+     * @param request the original request.
+     * @return the response to the original request.
+     */
+    public Observable<GenericQueryResponse> send(final ClusterFacade core, final GenericQueryRequest request) {
+        final ObjectNode query = parse(request);
+        final String statement = statement(query);
+        if (statement == null) {
+            return passThrough(core, request);
+        }
+
+        Entry entry = touch(statement);
+        if (entry.name != null) {
+            return executePrepared(core, request, query, statement, entry, true);
+        } else if (entry.executions >= EXECUTIONS_BEFORE_PREPARE) {
+            return prepareAndExecute(core, request, query, statement, true);
+        }
+        return passThrough(core, request);
+    }
+
+    /**
+     * Returns the number of statements currently tracked.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks if a prepared statement is stored for the given statement text.
+     */
+    public synchronized boolean isPrepared(final String statement) {
+        Entry entry = entries.get(statement);
+        return entry != null && entry.name != null;
+    }
+
+    private synchronized Entry touch(final String statement) {
+        Entry entry = entries.get(statement);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(statement, entry);
+        }
+        entry.executions++;
+        return entry.copy();
+    }
+
+    private synchronized void store(final String statement, final String name, final String encodedPlan) {
+        Entry entry = entries.get(statement);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(statement, entry);
+        }
+        entry.name = name;
+        entry.encodedPlan = encodedPlan;
+    }
+
+    private synchronized void invalidate(final String statement) {
+        Entry entry = entries.get(statement);
+        if (entry != null) {
+            entry.name = null;
+            entry.encodedPlan = null;
+        }
+    }
+
+    private Observable<GenericQueryResponse> prepareAndExecute(final ClusterFacade core,
+        final GenericQueryRequest request, final ObjectNode query, final String statement, final boolean retry) {
+        ObjectNode prepare = JACKSON.createObjectNode();
+        prepare.put("statement", "PREPARE " + statement);
+
+        return core.<GenericQueryResponse>send(copy(request, prepare.toString(), true))
+            .flatMap(new Func1<GenericQueryResponse, Observable<Entry>>() {
+                @Override
+                public Observable<Entry> call(final GenericQueryResponse response) {
+                    discard(response.errors(), response.signature(), response.info(), response.profileInfo());
+                    return response.rows().map(new Func1<ByteBuf, Entry>() {
+                        @Override
+                        public Entry call(final ByteBuf row) {
+                            try {
+                                JsonNode plan = JACKSON.readTree(row.toString(CharsetUtil.UTF_8));
+                                Entry entry = new Entry();
+                                entry.name = plan.path("name").asText(null);
+                                entry.encodedPlan = plan.path("encoded_plan").asText(null);
+                                return entry;
+                            } catch (Exception ex) {
+                                LOGGER.debug("Could not decode the prepared statement, ignoring.", ex);
+                                return new Entry();
+                            } finally {
+                                row.release();
+                            }
+                        }
+                    }).lastOrDefault(new Entry());
+                }
+            })
+            .flatMap(new Func1<Entry, Observable<GenericQueryResponse>>() {
+                @Override
+                public Observable<GenericQueryResponse> call(final Entry entry) {
+                    if (entry.name == null) {
+                        LOGGER.debug("Preparing the statement failed, executing it unprepared.");
+                        return passThrough(core, request);
+                    }
+                    store(statement, entry.name, entry.encodedPlan);
+                    return executePrepared(core, request, query, statement, entry, retry);
+                }
+            });
+    }
+
+    private Observable<GenericQueryResponse> executePrepared(final ClusterFacade core,
+        final GenericQueryRequest request, final ObjectNode query, final String statement, final Entry entry,
+        final boolean retry) {
+        ObjectNode execute = query.deepCopy();
+        execute.remove("statement");
+        execute.put("prepared", entry.name);
+        if (entry.encodedPlan != null) {
+            execute.put("encoded_plan", entry.encodedPlan);
+        }
+
+        return core.<GenericQueryResponse>send(copy(request, execute.toString(), true))
+            .flatMap(new Func1<GenericQueryResponse, Observable<GenericQueryResponse>>() {
+                @Override
+                public Observable<GenericQueryResponse> call(final GenericQueryResponse response) {
+                    final Observable<ByteBuf> signature = response.signature().cache();
+                    final Observable<ByteBuf> errors = response.errors().cache();
+                    final GenericQueryResponse wrapped = wrap(response, request, errors, signature);
+                    if (!retry) {
+                        return Observable.just(wrapped);
+                    }
+
+                    // a stale plan fails before anything is executed, so a signature means success
+                    return signature.isEmpty().flatMap(new Func1<Boolean, Observable<GenericQueryResponse>>() {
+                        @Override
+                        public Observable<GenericQueryResponse> call(final Boolean noSignature) {
+                            if (!noSignature) {
+                                return Observable.just(wrapped);
+                            }
+                            return errors.toList().flatMap(new Func1<List<ByteBuf>, Observable<GenericQueryResponse>>() {
+                                @Override
+                                public Observable<GenericQueryResponse> call(final List<ByteBuf> errorList) {
+                                    if (!isStalePlan(errorList)) {
+                                        return Observable.just(wrapped);
+                                    }
+                                    for (ByteBuf error : errorList) {
+                                        Buffers.BYTE_BUF_RELEASER.call(error);
+                                    }
+                                    discard(response.rows(), response.info(), response.profileInfo());
+                                    LOGGER.debug("Prepared statement {} is stale, preparing it again.", entry.name);
+                                    invalidate(statement);
+                                    return prepareAndExecute(core, request, query, statement, false);
+                                }
+                            });
+                        }
+                    });
+                }
+            });
+    }
+
+    private static Observable<GenericQueryResponse> passThrough(final ClusterFacade core,
+        final GenericQueryRequest request) {
+        return core.<GenericQueryResponse>send(copy(request, request.query(), request.isJsonFormat()))
+            .map(new Func1<GenericQueryResponse, GenericQueryResponse>() {
+                @Override
+                public GenericQueryResponse call(final GenericQueryResponse response) {
+                    return wrap(response, request, response.errors(), response.signature());
+                }
+            });
+    }
+
+    /**
+     * Creates a response to the original request out of the response to a request sent by the cache.
+     */
+    private static GenericQueryResponse wrap(final GenericQueryResponse response, final GenericQueryRequest request,
+        final Observable<ByteBuf> errors, final Observable<ByteBuf> signature) {
+        return new GenericQueryResponse(errors, response.rows(), signature, response.queryStatus(), response.info(),
+            response.profileInfo(), request, response.status(), response.requestId(), response.clientRequestId());
+    }
+
+    /**
+     * Checks if the errors of a response signal a prepared statement the query service does not know (anymore).
+     */
+    static boolean isStalePlan(final List<ByteBuf> errors) {
+        for (ByteBuf error : errors) {
+            try {
+                JsonNode node = JACKSON.readTree(error.toString(CharsetUtil.UTF_8));
+                int code = node.path("code").asInt();
+                for (int stale : STALE_PLAN_CODES) {
+                    if (code == stale) {
+                        return true;
+                    }
+                }
+                if (code == 5000 && node.path("msg").asText("").contains("queryport.indexNotFound")) {
+                    return true;
+                }
+            } catch (Exception ex) {
+                LOGGER.debug("Could not decode query error, ignoring.", ex);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the request into a json query object, or returns null if the request can't be prepared.
+     */
+    private static ObjectNode parse(final GenericQueryRequest request) {
+        if (!request.isJsonFormat()) {
+            ObjectNode query = JACKSON.createObjectNode();
+            query.put("statement", request.query());
+            return query;
+        }
+        try {
+            JsonNode node = JACKSON.readTree(request.query());
+            return node instanceof ObjectNode ? (ObjectNode) node : null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the statement of the query if it can be prepared, null otherwise.
+     */
+    private static String statement(final ObjectNode query) {
+        if (query == null || query.has("prepared")) {
+            return null;
+        }
+        JsonNode statement = query.get("statement");
+        if (statement == null || !statement.isTextual()) {
+            return null;
+        }
+        String trimmed = statement.asText().trim();
+        String upper = trimmed.toUpperCase();
+        if (trimmed.isEmpty() || upper.startsWith("PREPARE") || upper.startsWith("EXECUTE")) {
+            return null;
+        }
+        return trimmed;
+    }
+
+    private static CacheQueryRequest copy(final GenericQueryRequest request, final String query,
+        final boolean jsonFormat) {
+        return new CacheQueryRequest(query, jsonFormat, request.bucket(), request.username(), request.password(),
+            request.sendTo());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void discard(final Observable<ByteBuf>... observables) {
+        for (Observable<ByteBuf> observable : observables) {
+            observable.subscribe(Buffers.BYTE_BUF_RELEASER, new Action1<Throwable>() {
+                @Override
+                public void call(final Throwable throwable) {
+                    // nothing to release
+                }
+            });
+        }
+    }
+
+    /**
+     * A statement tracked in the cache, with its prepared statement once prepared.
+     */
+    private static class Entry {
+        int executions;
+        String name;
+        String encodedPlan;
+
+        Entry copy() {
+            Entry copy = new Entry();
+            copy.executions = executions;
+            copy.name = name;
+            copy.encodedPlan = encodedPlan;
+            return copy;
+        }
+    }
+
+    /**
+     * The requests sent on behalf of the cache, which must not pass through the cache again.
+     */
+    static class CacheQueryRequest extends GenericQueryRequest {
+        CacheQueryRequest(String query, boolean jsonFormat, String bucket, String username, String password,
+            InetAddress targetNode) {
+            super(query, jsonFormat, bucket, username, password, targetNode);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.couchbase.client.core.message.search;
 
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.BootstrapMessage;
+import com.couchbase.client.core.message.RequestKind;
 
 /**
  * Runs query against search index.
@@ -45,4 +46,9 @@ public class SearchQueryRequest extends AbstractCouchbaseRequest implements Sear
     public String payload() {
         return payload;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.SEARCH;
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.search;
+
+import com.couchbase.client.core.message.AbstractCouchbaseResponse;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.utils.Buffers;
+import io.netty.buffer.ByteBuf;
+import rx.Observable;
+
+/**
+ * The response for a {@link StreamingSearchQueryRequest}. The response is divided into sections which are
+ * fed asynchronously while the body is streamed in, each represented as an {@link Observable} of
+ * {@link ByteBuf}. Note that it is important that these streams are consumed and their ByteBuf released.
+ *
+ * If one isn't interested in a particular section, it should still be released by subscribing a
+ * {@link Buffers#BYTE_BUF_RELEASER} to its stream.
+ *
+ * @since 1.5.2
+ */
+public class StreamingSearchQueryResponse extends AbstractCouchbaseResponse {
+
+    private final Observable<ByteBuf> hits;
+    private final Observable<ByteBuf> facets;
+    private final Observable<ByteBuf> searchStatus;
+    private final Observable<ByteBuf> errors;
+    private final Observable<ByteBuf> metrics;
+
+    public StreamingSearchQueryResponse(Observable<ByteBuf> hits, Observable<ByteBuf> facets,
+        Observable<ByteBuf> searchStatus, Observable<ByteBuf> errors, Observable<ByteBuf> metrics,
+        ResponseStatus status, CouchbaseRequest request) {
+        super(status, request);
+        this.hits = hits;
+        this.facets = facets;
+        this.searchStatus = searchStatus;
+        this.errors = errors;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Contains one {@link ByteBuf} for each hit returned by the server. Each hit is a JSON object.
+     */
+    public Observable<ByteBuf> hits() {
+        return hits;
+    }
+
+    /**
+     * Contains a single {@link ByteBuf} representing the JSON object of all facets, if any have been
+     * requested.
+     */
+    public Observable<ByteBuf> facets() {
+        return facets;
+    }
+
+    /**
+     * Contains a single {@link ByteBuf} representing the JSON status object of the search, which holds the
+     * number of total, failed and successful index partitions as well as their errors, if any.
+     */
+    public Observable<ByteBuf> searchStatus() {
+        return searchStatus;
+    }
+
+    /**
+     * Contains a {@link ByteBuf} for each error reported by the server outside of the search status, like the
+     * body of a response that failed as a whole.
+     */
+    public Observable<ByteBuf> errors() {
+        return errors;
+    }
+
+    /**
+     * Contains a single {@link ByteBuf} representing a JSON object with the "total_hits", "max_score" and "took"
+     * values of the response, once all hits have been emitted.
+     */
+    public Observable<ByteBuf> metrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingSearchQueryResponse{"
+            + "status=" + status()
+            + ", request=" + request()
+            + '}';
+    }
+}
@@ -16,6 +16,7 @@
 package com.couchbase.client.core.message.view;
 
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.message.RequestKind;
 
 public class ViewQueryRequest extends AbstractCouchbaseRequest implements ViewRequest {
 
@@ -119,4 +120,9 @@ public class ViewQueryRequest extends AbstractCouchbaseRequest implements ViewRe
     public boolean spatial() {
         return spatial;
     }
+
+    @Override
+    public int kind() {
+        return RequestKind.VIEW;
+    }
 }
@@ -20,12 +20,14 @@ import com.couchbase.client.core.event.EventBus;
 import com.couchbase.client.core.event.metrics.LatencyMetricsEvent;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.metrics.registry.LatencyHistogram;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
 import org.LatencyUtils.LatencyStats;
 import org.LatencyUtils.PauseDetector;
 import org.LatencyUtils.SimplePauseDetector;
 import rx.Scheduler;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -76,9 +78,22 @@ public abstract class AbstractLatencyMetricsCollector<I extends LatencyMetricsId
     private final Map<I, LatencyStats> latencyMetrics;
     private final LatencyMetricsCollectorConfig config;
 
+    /**
+     * The registry the latencies are also written into, null if not used.
+     */
+    private final MetricsRegistry registry;
+    private final Map<I, LatencyHistogram> histograms;
+
     protected AbstractLatencyMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config) {
+        this(eventBus, scheduler, config, null);
+    }
+
+    protected AbstractLatencyMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config,
+        MetricsRegistry registry) {
         super(eventBus, scheduler, config);
         this.config = config;
+        this.registry = registry != null && metricName() != null ? registry : null;
+        this.histograms = this.registry == null ? null : new ConcurrentHashMap<I, LatencyHistogram>();
         latencyMetrics = new ConcurrentHashMap<I, LatencyStats>();
         pauseDetector = acquirePauseDetector();
         pauseDetectorHeld = new AtomicBoolean(true);
@@ -86,13 +101,45 @@ public abstract class AbstractLatencyMetricsCollector<I extends LatencyMetricsId
 
     protected abstract E generateLatencyMetricsEvent(Map<I, LatencyStats> latencyMetrics);
 
+    /**
+     * The name of the histograms this collector writes into the {@link MetricsRegistry}.
+     *
+     * @return the metric name or null if this collector does not support the registry.
+     */
+    protected String metricName() {
+        return null;
+    }
+
+    /**
+     * A short description of the histograms written into the {@link MetricsRegistry}.
+     */
+    protected String metricHelp() {
+        return null;
+    }
+
+    /**
+     * Converts the identifier into the labels of its histogram in the {@link MetricsRegistry}.
+     */
+    protected Map<String, String> metricLabels(I identifier) {
+        return null;
+    }
+
     @Override
     protected CouchbaseEvent generateCouchbaseEvent() {
-        return generateLatencyMetricsEvent(new HashMap<I, LatencyStats>(latencyMetrics));
+        return generateLatencyMetricsEvent(Collections.unmodifiableMap(latencyMetrics));
     }
 
     @Override
     public void record(I identifier, long latency) {
+        if (registry != null) {
+            LatencyHistogram histogram = histograms.get(identifier);
+            if (histogram == null) {
+                histogram = registry.histogram(metricName(), metricHelp(), metricLabels(identifier));
+                histograms.put(identifier, histogram);
+            }
+            histogram.record(latency);
+        }
+
         if (config.emitFrequency() <= 0) {
             return;
         }
@@ -54,6 +54,9 @@ public abstract class AbstractMetricsCollector implements MetricsCollector {
                         @Override
                         public void call(Long ignored) {
                             CouchbaseEvent event = generateCouchbaseEvent();
+                            if (event == null) {
+                                return;
+                            }
                             if (LOGGER.isTraceEnabled()) {
                                 LOGGER.trace("Emitting Metric to EventBus: {}", event);
                             }
@@ -99,8 +102,12 @@ public abstract class AbstractMetricsCollector implements MetricsCollector {
             return;
         }
 
+        CouchbaseEvent event = generateCouchbaseEvent();
+        if (event == null) {
+            return;
+        }
         Observable
-            .just(generateCouchbaseEvent())
+            .just(event)
             .subscribeOn(scheduler)
             .subscribe(new Action1<CouchbaseEvent>() {
                 @Override
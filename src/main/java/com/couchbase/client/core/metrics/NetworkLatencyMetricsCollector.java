@@ -18,10 +18,12 @@ package com.couchbase.client.core.metrics;
 import com.couchbase.client.core.event.EventBus;
 import com.couchbase.client.core.event.metrics.LatencyMetric;
 import com.couchbase.client.core.event.metrics.NetworkLatencyMetricsEvent;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
 import org.HdrHistogram.Histogram;
 import org.LatencyUtils.LatencyStats;
 import rx.Scheduler;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
@@ -39,12 +41,37 @@ public class NetworkLatencyMetricsCollector
     private final Double[] targetPercentiles;
 
     public NetworkLatencyMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config) {
-        super(eventBus, scheduler, config);
+        this(eventBus, scheduler, config, null);
+    }
+
+    public NetworkLatencyMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config,
+        MetricsRegistry registry) {
+        super(eventBus, scheduler, config, registry);
 
         targetUnit = config.targetUnit();
         targetPercentiles = config.targetPercentiles();
     }
 
+    @Override
+    protected String metricName() {
+        return "couchbase_network_latency_seconds";
+    }
+
+    @Override
+    protected String metricHelp() {
+        return "Latency from writing a request to the network until its response is decoded.";
+    }
+
+    @Override
+    protected Map<String, String> metricLabels(NetworkLatencyMetricsIdentifier identifier) {
+        Map<String, String> labels = new HashMap<String, String>();
+        labels.put("host", identifier.host());
+        labels.put("service", identifier.service());
+        labels.put("request", identifier.request());
+        labels.put("status", identifier.status());
+        return labels;
+    }
+
     @Override
     protected NetworkLatencyMetricsEvent generateLatencyMetricsEvent(
         final Map<NetworkLatencyMetricsIdentifier, LatencyStats> latencyMetrics) {
@@ -79,6 +106,16 @@ public class NetworkLatencyMetricsCollector
             ));
         }
 
-        return new NetworkLatencyMetricsEvent(sortedMetrics);
+        return createEvent(sortedMetrics);
+    }
+
+    /**
+     * Creates the event which is emitted with the aggregated latencies of the last interval.
+     *
+     * @param metrics the latencies, sorted by their identifier.
+     * @return the event to publish.
+     */
+    protected NetworkLatencyMetricsEvent createEvent(Map<NetworkLatencyMetricsIdentifier, LatencyMetric> metrics) {
+        return new NetworkLatencyMetricsEvent(metrics);
     }
 }
@@ -19,21 +19,189 @@ import com.couchbase.client.core.env.Diagnostics;
 import com.couchbase.client.core.event.CouchbaseEvent;
 import com.couchbase.client.core.event.EventBus;
 import com.couchbase.client.core.event.metrics.RuntimeMetricsEvent;
+import com.couchbase.client.core.metrics.registry.Gauge;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.lmax.disruptor.Sequenced;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
 import rx.Scheduler;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link MetricsCollector} which collects and emits system information like gc, memory or thread usage.
  *
+ * Next to the JVM information it reports the state of the core itself: the remaining capacity of the
+ * registered ring buffers, how often backpressure has been raised, the usage of the pooled buffer allocator,
+ * direct memory and the number of tasks waiting on the registered event loops.
+ *
  * @author Michael Nitschinger
  * @since 1.2.0
  */
 public class RuntimeMetricsCollector extends AbstractMetricsCollector {
 
+    /**
+     * Counts how often a request has been rejected with a backpressure exception.
+     */
+    private final AtomicLong backpressureCount = new AtomicLong();
+
+    private final MetricsRegistry registry;
+    private final Map<String, Sequenced> ringBuffers = new ConcurrentHashMap<String, Sequenced>();
+    private final Map<String, Gauge> ringBufferGauges = new ConcurrentHashMap<String, Gauge>();
+    private final Map<String, EventLoopGroup> eventLoopGroups = new ConcurrentHashMap<String, EventLoopGroup>();
+    private volatile PooledByteBufAllocator allocator;
+
     public RuntimeMetricsCollector(final EventBus eventBus, Scheduler scheduler, MetricsCollectorConfig config) {
+        this(eventBus, scheduler, config, null);
+    }
+
+    /**
+     * Creates the collector and registers gauges for memory, thread and gc information with the registry.
+     */
+    public RuntimeMetricsCollector(final EventBus eventBus, Scheduler scheduler, MetricsCollectorConfig config,
+        MetricsRegistry registry) {
         super(eventBus, scheduler, config);
+        this.registry = registry;
+        if (registry != null) {
+            registerGauges(registry);
+        }
+    }
+
+    /**
+     * Counts a request which has been rejected because a ring buffer was full.
+     */
+    public void recordBackpressure() {
+        backpressureCount.incrementAndGet();
+    }
+
+    /**
+     * Reports the capacity of the given ring buffer under the given name.
+     *
+     * @param name the name of the ring buffer, like "request".
+     * @param ringBuffer the ring buffer.
+     */
+    public void registerRingBuffer(final String name, final Sequenced ringBuffer) {
+        ringBuffers.put(name, ringBuffer);
+        if (registry != null) {
+            Gauge gauge = new Gauge("couchbase_ring_remaining_capacity", "Free slots in the ring buffer.",
+                Collections.singletonMap("ring", name)) {
+                @Override
+                public double value() {
+                    return ringBuffer.remainingCapacity();
+                }
+            };
+            ringBufferGauges.put(name, gauge);
+            registry.register(gauge);
+        }
+    }
+
+    /**
+     * Stops reporting the ring buffer with the given name.
+     */
+    public void unregisterRingBuffer(final String name) {
+        ringBuffers.remove(name);
+        Gauge gauge = ringBufferGauges.remove(name);
+        if (gauge != null && registry != null) {
+            registry.remove(gauge);
+        }
+    }
+
+    /**
+     * Reports the pending tasks of the given event loop group under the given name.
+     *
+     * @param name the name of the group, like "io".
+     * @param group the event loop group.
+     */
+    public void registerEventLoopGroup(final String name, final EventLoopGroup group) {
+        eventLoopGroups.put(name, group);
+        if (registry != null) {
+            registry.register(new Gauge("couchbase_event_loop_pending_tasks", "Tasks waiting on the event loops.",
+                Collections.singletonMap("group", name)) {
+                @Override
+                public double value() {
+                    return pendingTasks(group)[0];
+                }
+            });
+        }
+    }
+
+    /**
+     * Reports the arena usage of the given pooled allocator.
+     *
+     * @param allocator the allocator used by the endpoints.
+     */
+    public void registerAllocator(final PooledByteBufAllocator allocator) {
+        this.allocator = allocator;
+        if (registry != null) {
+            registry.register(new AllocatorGauge(allocator, false));
+            registry.register(new AllocatorGauge(allocator, true));
+        }
+    }
+
+    private void registerGauges(final MetricsRegistry registry) {
+        registry.register(new MemoryGauge(true, true));
+        registry.register(new MemoryGauge(false, true));
+        registry.register(new MemoryGauge(true, false));
+        registry.register(new MemoryGauge(false, false));
+
+        registry.register(new Gauge("couchbase_backpressure", "Requests rejected because a ring buffer was full.",
+            null) {
+            @Override
+            public double value() {
+                return backpressureCount.get();
+            }
+        });
+        registry.register(new Gauge("couchbase_jvm_direct_memory_used_bytes", "Used direct buffer memory.", null) {
+            @Override
+            public double value() {
+                Map<String, Object> infos = new TreeMap<String, Object>();
+                Diagnostics.directMemoryInfo(infos);
+                Object used = infos.get("directMemory.used");
+                return used instanceof Number ? ((Number) used).doubleValue() : Double.NaN;
+            }
+        });
+
+        registry.register(new Gauge("couchbase_jvm_threads_current", "Current number of live threads.", null) {
+            @Override
+            public double value() {
+                return Diagnostics.THREAD_BEAN.getThreadCount();
+            }
+        });
+        registry.register(new Gauge("couchbase_jvm_threads_peak", "Peak number of live threads.", null) {
+            @Override
+            public double value() {
+                return Diagnostics.THREAD_BEAN.getPeakThreadCount();
+            }
+        });
+
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Map<String, String> labels = Collections.singletonMap("gc", gc.getName());
+            registry.register(new Gauge("couchbase_jvm_gc_collections", "Number of collections.", labels) {
+                @Override
+                public double value() {
+                    return gc.getCollectionCount();
+                }
+            });
+            registry.register(new Gauge("couchbase_jvm_gc_collection_seconds", "Time spent in collections.",
+                labels) {
+                @Override
+                public double value() {
+                    return gc.getCollectionTime() / 1000.0;
+                }
+            });
+        }
     }
 
     @Override
@@ -43,8 +211,121 @@ public class RuntimeMetricsCollector extends AbstractMetricsCollector {
         Diagnostics.gcInfo(metrics);
         Diagnostics.memInfo(metrics);
         Diagnostics.threadInfo(metrics);
+        Diagnostics.directMemoryInfo(metrics);
+
+        metrics.put("backpressure.count", backpressureCount.get());
+        for (Map.Entry<String, Sequenced> ringBuffer : ringBuffers.entrySet()) {
+            metrics.put("ring." + ringBuffer.getKey() + ".bufferSize", ringBuffer.getValue().getBufferSize());
+            metrics.put("ring." + ringBuffer.getKey() + ".remainingCapacity",
+                ringBuffer.getValue().remainingCapacity());
+        }
+        for (Map.Entry<String, EventLoopGroup> group : eventLoopGroups.entrySet()) {
+            int[] pending = pendingTasks(group.getValue());
+            metrics.put("eventLoop." + group.getKey() + ".pendingTasks", pending[0]);
+            metrics.put("eventLoop." + group.getKey() + ".maxPendingTasks", pending[1]);
+        }
+        PooledByteBufAllocator allocator = this.allocator;
+        if (allocator != null) {
+            allocatorInfo(allocator, metrics);
+        }
 
         return new RuntimeMetricsEvent(metrics);
     }
 
+    /**
+     * Returns the sum and the maximum of the pending tasks over all event loops of the group.
+     */
+    private static int[] pendingTasks(final EventLoopGroup group) {
+        int total = 0;
+        int max = 0;
+        Iterator<EventExecutor> executors = group.iterator();
+        while (executors.hasNext()) {
+            EventExecutor executor = executors.next();
+            if (executor instanceof SingleThreadEventExecutor) {
+                int pending = ((SingleThreadEventExecutor) executor).pendingTasks();
+                total += pending;
+                max = Math.max(max, pending);
+            }
+        }
+        return new int[] { total, max };
+    }
+
+    private static void allocatorInfo(final PooledByteBufAllocator allocator, final Map<String, Object> metrics) {
+        metrics.put("allocator.chunkSize", allocator.chunkSize());
+        metrics.put("allocator.threadLocalCaches", allocator.numThreadLocalCaches());
+        arenaInfo("allocator.heap", allocator.heapArenas(), metrics);
+        arenaInfo("allocator.direct", allocator.directArenas(), metrics);
+    }
+
+    private static void arenaInfo(final String prefix, final List<PoolArenaMetric> arenas,
+        final Map<String, Object> metrics) {
+        long activeBytes = 0;
+        long activeAllocations = 0;
+        long allocations = 0;
+        long hugeAllocations = 0;
+        for (PoolArenaMetric arena : arenas) {
+            activeBytes += arena.numActiveBytes();
+            activeAllocations += arena.numActiveAllocations();
+            allocations += arena.numAllocations();
+            hugeAllocations += arena.numHugeAllocations();
+        }
+        metrics.put(prefix + ".arenas", arenas.size());
+        metrics.put(prefix + ".activeBytes", activeBytes);
+        metrics.put(prefix + ".activeAllocations", activeAllocations);
+        metrics.put(prefix + ".allocations", allocations);
+        metrics.put(prefix + ".hugeAllocations", hugeAllocations);
+    }
+
+    /**
+     * Reads the active bytes of the heap or direct arenas of the allocator on demand.
+     */
+    private static class AllocatorGauge extends Gauge {
+
+        private final PooledByteBufAllocator allocator;
+        private final boolean direct;
+
+        AllocatorGauge(PooledByteBufAllocator allocator, boolean direct) {
+            super("couchbase_allocator_active_bytes", "Bytes allocated from the buffer pool arenas.",
+                Collections.singletonMap("type", direct ? "direct" : "heap"));
+            this.allocator = allocator;
+            this.direct = direct;
+        }
+
+        @Override
+        public double value() {
+            long activeBytes = 0;
+            for (PoolArenaMetric arena : direct ? allocator.directArenas() : allocator.heapArenas()) {
+                activeBytes += arena.numActiveBytes();
+            }
+            return activeBytes;
+        }
+    }
+
+    /**
+     * Reads the heap or non-heap usage on demand.
+     */
+    private static class MemoryGauge extends Gauge {
+
+        private final boolean heap;
+        private final boolean used;
+
+        MemoryGauge(boolean heap, boolean used) {
+            super(
+                used ? "couchbase_jvm_memory_used_bytes" : "couchbase_jvm_memory_committed_bytes",
+                used ? "Used memory." : "Committed memory.",
+                Collections.singletonMap("area", heap ? "heap" : "nonheap")
+            );
+            this.heap = heap;
+            this.used = used;
+        }
+
+        @Override
+        public double value() {
+            MemoryUsage usage = heap
+                ? Diagnostics.MEM_BEAN.getHeapMemoryUsage()
+                : Diagnostics.MEM_BEAN.getNonHeapMemoryUsage();
+            return used ? usage.getUsed() : usage.getCommitted();
+        }
+    }
+
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.event.EventBus;
+import com.couchbase.client.core.event.metrics.LatencyMetric;
+import com.couchbase.client.core.event.metrics.NetworkLatencyMetricsEvent;
+import com.couchbase.client.core.event.metrics.ServerDurationMetricsEvent;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import rx.Scheduler;
+
+import java.util.Map;
+
+/**
+ * The collector for the operation durations reported by the server.
+ *
+ * Compared to the {@link NetworkLatencyMetricsCollector}, these latencies do not include the time spent
+ * on the network or in the client, so the difference between both points to where an operation stalled.
+ *
+ * @since 1.5.2
+ */
+public class ServerDurationMetricsCollector extends NetworkLatencyMetricsCollector {
+
+    public ServerDurationMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config) {
+        this(eventBus, scheduler, config, null);
+    }
+
+    public ServerDurationMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config,
+        MetricsRegistry registry) {
+        super(eventBus, scheduler, config, registry);
+    }
+
+    @Override
+    protected String metricName() {
+        return "couchbase_server_duration_seconds";
+    }
+
+    @Override
+    protected String metricHelp() {
+        return "Time the server reported to have spent on an operation.";
+    }
+
+    @Override
+    protected NetworkLatencyMetricsEvent createEvent(Map<NetworkLatencyMetricsIdentifier, LatencyMetric> metrics) {
+        return new ServerDurationMetricsEvent(metrics);
+    }
+}
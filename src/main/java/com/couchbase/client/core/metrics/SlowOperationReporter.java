@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.event.CouchbaseEvent;
+import com.couchbase.client.core.event.EventBus;
+import com.couchbase.client.core.event.metrics.SlowOperationsEvent;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.RequestPhase;
+import com.couchbase.client.core.service.ServiceType;
+import rx.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the slowest operations per service which took longer than the configured threshold and periodically
+ * emits them, with the time spent in each {@link RequestPhase}, as a {@link SlowOperationsEvent}.
+ *
+ * Operations faster than the threshold only cost a comparison, and per interval only the configured number of
+ * slowest operations is kept for each service.
+ *
+ * @since 1.5.2
+ */
+public class SlowOperationReporter extends AbstractMetricsCollector {
+
+    private static final Comparator<SlowOperation> FASTEST_FIRST = new Comparator<SlowOperation>() {
+        @Override
+        public int compare(SlowOperation o1, SlowOperation o2) {
+            return o1.total < o2.total ? -1 : (o1.total == o2.total ? 0 : 1);
+        }
+    };
+
+    private final SlowOperationReporterConfig config;
+    private final Sample[] samples;
+
+    public SlowOperationReporter(final EventBus eventBus, Scheduler scheduler,
+        SlowOperationReporterConfig config) {
+        super(eventBus, scheduler, config);
+        this.config = config;
+        this.samples = new Sample[ServiceType.values().length];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = new Sample();
+        }
+    }
+
+    @Override
+    public SlowOperationReporterConfig config() {
+        return config;
+    }
+
+    /**
+     * Records a completed request, which is only kept if it took longer than the threshold of its service.
+     *
+     * @param request the completed request.
+     * @param serviceType the service which completed the request.
+     */
+    public void record(final CouchbaseRequest request, final ServiceType serviceType) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long start = RequestPhase.SEND.timeOf(request);
+        if (start == 0) {
+            start = request.creationTime();
+        }
+        long end = RequestPhase.COMPLETE.timeOf(request);
+        long total = end - start;
+        if (end == 0 || total < config.threshold(serviceType)) {
+            return;
+        }
+
+        samples[serviceType.ordinal()].offer(new SlowOperation(request, start, total), config.sampleSize());
+    }
+
+    @Override
+    protected CouchbaseEvent generateCouchbaseEvent() {
+        Map<String, Object> services = new TreeMap<String, Object>();
+        for (ServiceType serviceType : ServiceType.values()) {
+            Sample sample = samples[serviceType.ordinal()];
+            List<SlowOperation> slowest = new ArrayList<SlowOperation>();
+            long count = sample.drainTo(slowest);
+            if (count == 0) {
+                continue;
+            }
+            Collections.sort(slowest, Collections.reverseOrder(FASTEST_FIRST));
+
+            List<Map<String, Object>> top = new ArrayList<Map<String, Object>>(slowest.size());
+            for (SlowOperation operation : slowest) {
+                top.add(operation.export());
+            }
+            Map<String, Object> service = new LinkedHashMap<String, Object>();
+            service.put("count", count);
+            service.put("top", top);
+            services.put(serviceType.toString().toLowerCase(), service);
+        }
+        return services.isEmpty() ? null : new SlowOperationsEvent(services);
+    }
+
+    /**
+     * The bounded set of slowest operations for one service, the fastest one is evicted first.
+     */
+    private static class Sample {
+
+        private PriorityQueue<SlowOperation> operations = new PriorityQueue<SlowOperation>(11, FASTEST_FIRST);
+        private long count;
+
+        synchronized void offer(SlowOperation operation, int sampleSize) {
+            count++;
+            if (operations.size() < sampleSize) {
+                operations.add(operation);
+            } else if (operations.peek().total < operation.total) {
+                operations.poll();
+                operations.add(operation);
+            }
+        }
+
+        synchronized long drainTo(List<SlowOperation> target) {
+            target.addAll(operations);
+            operations.clear();
+            long drained = count;
+            count = 0;
+            return drained;
+        }
+    }
+
+    /**
+     * The primitives captured from a slow request.
+     */
+    private static class SlowOperation {
+
+        private final String operation;
+        private final String remote;
+        private final long total;
+        private final long[] phases;
+
+        SlowOperation(CouchbaseRequest request, long start, long total) {
+            this.operation = request.getClass().getSimpleName();
+            this.remote = request.dispatchHostname();
+            this.total = total;
+            RequestPhase[] values = RequestPhase.values();
+            this.phases = new long[values.length];
+            phases[0] = start;
+            for (int i = 1; i < values.length; i++) {
+                phases[i] = values[i].timeOf(request);
+            }
+        }
+
+        /**
+         * Exports the operation, with the time between each reached phase and the next reached one.
+         */
+        Map<String, Object> export() {
+            Map<String, Object> result = new LinkedHashMap<String, Object>();
+            result.put("operation", operation);
+            if (remote != null) {
+                result.put("remote", remote);
+            }
+            result.put("total_us", TimeUnit.NANOSECONDS.toMicros(total));
+
+            Map<String, Object> breakdown = new LinkedHashMap<String, Object>();
+            RequestPhase[] values = RequestPhase.values();
+            int previous = 0;
+            for (int i = 1; i < values.length; i++) {
+                if (phases[i] == 0) {
+                    continue;
+                }
+                String name = values[previous].toString().toLowerCase() + "_to_" + values[i].toString().toLowerCase();
+                breakdown.put(name + "_us", TimeUnit.NANOSECONDS.toMicros(phases[i] - phases[previous]));
+                previous = i;
+            }
+            result.put("phases", breakdown);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.service.ServiceType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The configuration for the {@link SlowOperationReporter}.
+ *
+ * @since 1.5.2
+ */
+public class SlowOperationReporterConfig implements MetricsCollectorConfig {
+
+    public static final long EMIT_FREQUENCY = 10;
+    public static final TimeUnit EMIT_FREQUENCY_UNIT = TimeUnit.SECONDS;
+    public static final int SAMPLE_SIZE = 10;
+    public static final long KV_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(500);
+    public static final long HTTP_THRESHOLD = TimeUnit.SECONDS.toNanos(1);
+
+    private final long emitFrequency;
+    private final TimeUnit emitFrequencyUnit;
+    private final int sampleSize;
+    private final long[] thresholds;
+
+    public static SlowOperationReporterConfig disabled() {
+        return builder().emitFrequency(0).build();
+    }
+
+    public static SlowOperationReporterConfig create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    protected SlowOperationReporterConfig(Builder builder) {
+        emitFrequency = builder.emitFrequency;
+        emitFrequencyUnit = builder.emitFrequencyUnit;
+        sampleSize = builder.sampleSize;
+        thresholds = builder.thresholds.clone();
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("The sample size needs to be > 0.");
+        }
+    }
+
+    @Override
+    public long emitFrequency() {
+        return emitFrequency;
+    }
+
+    @Override
+    public TimeUnit emitFrequencyUnit() {
+        return emitFrequencyUnit;
+    }
+
+    /**
+     * The number of slowest operations reported per service and interval.
+     */
+    public int sampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * The duration in nanoseconds above which an operation against the given service is considered slow.
+     */
+    public long threshold(ServiceType serviceType) {
+        return thresholds[serviceType.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SlowOperationReporterConfig{");
+        sb.append("emitFrequency=").append(emitFrequency);
+        sb.append(", emitFrequencyUnit=").append(emitFrequencyUnit);
+        sb.append(", sampleSize=").append(sampleSize);
+        for (ServiceType serviceType : ServiceType.values()) {
+            sb.append(", ").append(serviceType.toString().toLowerCase()).append("Threshold=")
+                .append(TimeUnit.NANOSECONDS.toMicros(thresholds[serviceType.ordinal()])).append("us");
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class Builder {
+
+        private long emitFrequency = EMIT_FREQUENCY;
+        private TimeUnit emitFrequencyUnit = EMIT_FREQUENCY_UNIT;
+        private int sampleSize = SAMPLE_SIZE;
+        private final long[] thresholds = new long[ServiceType.values().length];
+
+        protected Builder() {
+            for (ServiceType serviceType : ServiceType.values()) {
+                thresholds[serviceType.ordinal()] = serviceType == ServiceType.BINARY ? KV_THRESHOLD : HTTP_THRESHOLD;
+            }
+        }
+
+        /**
+         * Sets how often the slowest operations are emitted, 0 disables the reporter.
+         */
+        public Builder emitFrequency(long emitFrequency) {
+            this.emitFrequency = emitFrequency;
+            return this;
+        }
+
+        public Builder emitFrequencyUnit(TimeUnit emitFrequencyUnit) {
+            this.emitFrequencyUnit = emitFrequencyUnit;
+            return this;
+        }
+
+        /**
+         * Sets how many of the slowest operations are reported per service and interval.
+         */
+        public Builder sampleSize(int sampleSize) {
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        /**
+         * Sets the duration above which an operation against the given service is reported as slow.
+         */
+        public Builder threshold(ServiceType serviceType, long threshold, TimeUnit unit) {
+            this.thresholds[serviceType.ordinal()] = unit.toNanos(threshold);
+            return this;
+        }
+
+        public SlowOperationReporterConfig build() {
+            return new SlowOperationReporterConfig(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import java.util.Map;
+
+/**
+ * A {@link Metric} whose value is computed when it is read, so that keeping it current costs nothing.
+ *
+ * @since 1.5.2
+ */
+public abstract class Gauge extends Metric {
+
+    protected Gauge(final String name, final String help, final Map<String, String> labels) {
+        super(name, help, labels);
+    }
+
+    /**
+     * Computes the current value of the gauge.
+     */
+    public abstract double value();
+
+    @Override
+    public String type() {
+        return "gauge";
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes the content of a {@link MetricsRegistry} as a read-only dynamic MBean.
+ *
+ * Every gauge becomes one attribute, every histogram contributes a {@code .count} and a {@code .sum} (in seconds)
+ * attribute. Attributes are read from the registry when JMX asks for them, so newly created metrics show up
+ * without any registration.
+ *
+ * @since 1.5.2
+ */
+public class JmxExporter implements DynamicMBean {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(JmxExporter.class);
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private static final String COUNT_SUFFIX = ".count";
+    private static final String SUM_SUFFIX = ".sum";
+
+    private final MetricsRegistry registry;
+    private final ObjectName objectName;
+
+    /**
+     * Creates the exporter and registers it with the platform MBean server.
+     *
+     * @param registry the registry to expose.
+     */
+    public JmxExporter(final MetricsRegistry registry) {
+        this.registry = registry;
+        try {
+            this.objectName = new ObjectName("com.couchbase.client.core:type=Metrics,id="
+                + INSTANCES.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not register the metrics MBean.", ex);
+        }
+        LOGGER.debug("Registered metrics MBean {}", objectName);
+    }
+
+    /**
+     * Returns the name under which the MBean is registered.
+     */
+    public ObjectName objectName() {
+        return objectName;
+    }
+
+    /**
+     * Unregisters the MBean.
+     *
+     * @return true if unregistered successfully.
+     */
+    public boolean shutdown() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            return true;
+        } catch (Exception ex) {
+            LOGGER.warn("Could not unregister the metrics MBean.", ex);
+            return false;
+        }
+    }
+
+    @Override
+    public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+        Metric metric = registry.get(attribute);
+        if (metric instanceof Gauge) {
+            return ((Gauge) metric).value();
+        }
+
+        if (attribute.endsWith(COUNT_SUFFIX)) {
+            metric = registry.get(attribute.substring(0, attribute.length() - COUNT_SUFFIX.length()));
+            if (metric instanceof LatencyHistogram) {
+                return ((LatencyHistogram) metric).count();
+            }
+        } else if (attribute.endsWith(SUM_SUFFIX)) {
+            metric = registry.get(attribute.substring(0, attribute.length() - SUM_SUFFIX.length()));
+            if (metric instanceof LatencyHistogram) {
+                return ((LatencyHistogram) metric).sum(TimeUnit.SECONDS);
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(final String[] attributes) {
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                result.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException ex) {
+                // skip metrics which have been removed in the meantime
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(final AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(final String actionName, final Object[] params, final String[] signature)
+        throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "No operations are exposed.");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for (Metric metric : registry.metrics().values()) {
+            if (metric instanceof Gauge) {
+                attributes.add(attribute(metric.id(), Double.class, metric.help()));
+            } else if (metric instanceof LatencyHistogram) {
+                attributes.add(attribute(metric.id() + COUNT_SUFFIX, Long.class, metric.help()));
+                attributes.add(attribute(metric.id() + SUM_SUFFIX, Double.class, metric.help()));
+            }
+        }
+        return new MBeanInfo(
+            JmxExporter.class.getName(),
+            "Couchbase core metrics",
+            attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+            null,
+            new MBeanOperationInfo[0],
+            null
+        );
+    }
+
+    private static MBeanAttributeInfo attribute(final String name, final Class<?> type, final String description) {
+        return new MBeanAttributeInfo(name, type.getName(), description, true, false, false);
+    }
+}
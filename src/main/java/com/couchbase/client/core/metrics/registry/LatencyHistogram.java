@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cumulative latency histogram with fixed buckets.
+ *
+ * Recording only increments two atomics, and readers never reset or copy anything, so exporters can read it
+ * at any time without interfering with the recording threads. The buckets are not synchronized with each other,
+ * so a concurrent read can be off by the values recorded in the meantime.
+ *
+ * @since 1.5.2
+ */
+public class LatencyHistogram extends Metric {
+
+    /**
+     * The inclusive upper bounds of the buckets in nanoseconds, from 100 microseconds up to 10 seconds.
+     */
+    static final long[] BOUNDS = new long[] {
+        TimeUnit.MICROSECONDS.toNanos(100),
+        TimeUnit.MICROSECONDS.toNanos(250),
+        TimeUnit.MICROSECONDS.toNanos(500),
+        TimeUnit.MILLISECONDS.toNanos(1),
+        TimeUnit.MICROSECONDS.toNanos(2500),
+        TimeUnit.MILLISECONDS.toNanos(5),
+        TimeUnit.MILLISECONDS.toNanos(10),
+        TimeUnit.MILLISECONDS.toNanos(25),
+        TimeUnit.MILLISECONDS.toNanos(50),
+        TimeUnit.MILLISECONDS.toNanos(100),
+        TimeUnit.MILLISECONDS.toNanos(250),
+        TimeUnit.MILLISECONDS.toNanos(500),
+        TimeUnit.SECONDS.toNanos(1),
+        TimeUnit.MILLISECONDS.toNanos(2500),
+        TimeUnit.SECONDS.toNanos(5),
+        TimeUnit.SECONDS.toNanos(10)
+    };
+
+    /**
+     * The per-bucket counts, the last slot counts everything above the largest bound.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final AtomicLong sum = new AtomicLong();
+
+    public LatencyHistogram(final String name, final String help, final Map<String, String> labels) {
+        super(name, help, labels);
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latency the latency in nanoseconds.
+     */
+    public void record(final long latency) {
+        int bucket = 0;
+        while (bucket < BOUNDS.length && latency > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        sum.addAndGet(latency);
+    }
+
+    /**
+     * Returns the number of upper bounds, excluding the implicit infinite one.
+     */
+    public int bucketCount() {
+        return BOUNDS.length;
+    }
+
+    /**
+     * Returns the upper bound of the given bucket.
+     *
+     * @param bucket the bucket index.
+     * @param unit the unit to convert the bound into.
+     */
+    public double upperBound(final int bucket, final TimeUnit unit) {
+        return BOUNDS[bucket] / (double) unit.toNanos(1);
+    }
+
+    /**
+     * Returns how many latencies were smaller or equal to the upper bound of the given bucket.
+     */
+    public long cumulativeCount(final int bucket) {
+        long count = 0;
+        for (int i = 0; i <= bucket; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     */
+    public long count() {
+        return cumulativeCount(BOUNDS.length);
+    }
+
+    /**
+     * Returns the sum of all recorded latencies.
+     *
+     * @param unit the unit to convert the sum into.
+     */
+    public double sum(final TimeUnit unit) {
+        return sum.get() / (double) unit.toNanos(1);
+    }
+
+    @Override
+    public String type() {
+        return "histogram";
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A named, labeled value which lives in the {@link MetricsRegistry} and is read by exporters on demand.
+ *
+ * @since 1.5.2
+ */
+public abstract class Metric {
+
+    private final String name;
+    private final String help;
+    private final Map<String, String> labels;
+    private final String id;
+
+    protected Metric(final String name, final String help, final Map<String, String> labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels == null
+            ? Collections.<String, String>emptyMap()
+            : Collections.unmodifiableMap(new TreeMap<String, String>(labels));
+        this.id = id(name, this.labels);
+    }
+
+    /**
+     * Creates the identifier of a metric, which is its name followed by its labels in text format.
+     */
+    static String id(final String name, final Map<String, String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name).append('{');
+        appendLabels(sb, new TreeMap<String, String>(labels));
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Appends the labels as comma separated {@code key="value"} pairs, escaped for the Prometheus text format.
+     */
+    static void appendLabels(final StringBuilder sb, final Map<String, String> labels) {
+        boolean first = true;
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append(label.getKey()).append("=\"");
+            String value = label.getValue() == null ? "" : label.getValue();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+    }
+
+    /**
+     * The name of the metric family.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * A short description of the metric family.
+     */
+    public String help() {
+        return help;
+    }
+
+    /**
+     * The labels which distinguish this metric inside its family, sorted by key.
+     */
+    public Map<String, String> labels() {
+        return labels;
+    }
+
+    /**
+     * The unique identifier of this metric in the registry.
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * The metric type as used by the Prometheus text format.
+     */
+    public abstract String type();
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-process registry which metrics collectors write into and exporters read from on demand.
+ *
+ * Metrics are created once and then updated in place, reads go straight to the live metrics without any
+ * locking or copying on the recording side.
+ *
+ * @since 1.5.2
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+
+    /**
+     * Returns the latency histogram with the given name and labels, creating it if needed.
+     *
+     * Since this involves building the identifier, callers on the hot path should hold on to the returned
+     * histogram instead of looking it up on every recording.
+     *
+     * @param name the metric name.
+     * @param help the description of the metric family.
+     * @param labels the labels of the histogram, may be null.
+     * @return the histogram.
+     */
+    public LatencyHistogram histogram(final String name, final String help, final Map<String, String> labels) {
+        String id = Metric.id(name, labels);
+        Metric found = metrics.get(id);
+        if (found == null) {
+            LatencyHistogram created = new LatencyHistogram(name, help, labels);
+            found = metrics.putIfAbsent(id, created);
+            if (found == null) {
+                return created;
+            }
+        }
+        if (!(found instanceof LatencyHistogram)) {
+            throw new IllegalArgumentException("Metric " + id + " is already registered as a " + found.type());
+        }
+        return (LatencyHistogram) found;
+    }
+
+    /**
+     * Registers a gauge, replacing a previously registered one with the same identifier.
+     *
+     * @param gauge the gauge to register.
+     */
+    public void register(final Gauge gauge) {
+        metrics.put(gauge.id(), gauge);
+    }
+
+    /**
+     * Removes a metric from the registry.
+     *
+     * @param metric the metric to remove.
+     */
+    public void remove(final Metric metric) {
+        metrics.remove(metric.id(), metric);
+    }
+
+    /**
+     * Returns the metric with the given identifier, or null if not registered.
+     *
+     * @param id the identifier as returned by {@link Metric#id()}.
+     */
+    public Metric get(final String id) {
+        return metrics.get(id);
+    }
+
+    /**
+     * Returns a sorted view of all currently registered metrics, which groups metrics of the same family together.
+     */
+    public SortedMap<String, Metric> metrics() {
+        return new TreeMap<String, Metric>(metrics);
+    }
+
+    /**
+     * Returns the number of registered metrics.
+     */
+    public int size() {
+        return metrics.size();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.oio.OioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.oio.OioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.CharsetUtil;
+
+import java.net.InetSocketAddress;
+
+/**
+ * A minimal HTTP endpoint which serves the content of a {@link MetricsRegistry} in the Prometheus text format
+ * under {@code /metrics}.
+ *
+ * The registry is only rendered when a scrape comes in, nothing is computed in between.
+ *
+ * @since 1.5.2
+ */
+public class PrometheusExporter {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(PrometheusExporter.class);
+
+    /**
+     * The path under which the metrics are served.
+     */
+    public static final String PATH = "/metrics";
+
+    private final Channel channel;
+
+    /**
+     * Creates the exporter and binds it to the given port on the loopback address.
+     *
+     * @param registry the registry to serve.
+     * @param group the event loop group to run the server on.
+     * @param port the port to bind to, 0 picks a free one.
+     */
+    public PrometheusExporter(final MetricsRegistry registry, final EventLoopGroup group, final int port) {
+        this(registry, group, DefaultCoreEnvironment.PROMETHEUS_EXPORTER_HOST, port);
+    }
+
+    /**
+     * Creates the exporter and binds it to the given host and port.
+     *
+     * @param registry the registry to serve.
+     * @param group the event loop group to run the server on.
+     * @param host the address to bind to, like 127.0.0.1 or 0.0.0.0 for all interfaces.
+     * @param port the port to bind to, 0 picks a free one.
+     */
+    public PrometheusExporter(final MetricsRegistry registry, final EventLoopGroup group, final String host,
+        final int port) {
+        Class<? extends ServerChannel> channelClass = NioServerSocketChannel.class;
+        if (group instanceof EpollEventLoopGroup) {
+            channelClass = EpollServerSocketChannel.class;
+        } else if (group instanceof OioEventLoopGroup) {
+            channelClass = OioServerSocketChannel.class;
+        }
+
+        final ChannelHandler handler = new MetricsHandler(registry);
+        this.channel = new ServerBootstrap()
+            .group(group)
+            .channel(channelClass)
+            .childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) throws Exception {
+                    ch.pipeline()
+                        .addLast(new HttpServerCodec())
+                        .addLast(new HttpObjectAggregator(4096))
+                        .addLast(handler);
+                }
+            })
+            .bind(host, port)
+            .syncUninterruptibly()
+            .channel();
+        LOGGER.info("Serving metrics on {}{}", channel.localAddress(), PATH);
+    }
+
+    /**
+     * Returns the address the exporter is bound to.
+     */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    /**
+     * Returns the port the exporter is bound to.
+     */
+    public int port() {
+        return address().getPort();
+    }
+
+    /**
+     * Stops serving metrics.
+     *
+     * @return true once the server channel is closed.
+     */
+    public boolean shutdown() {
+        channel.close().awaitUninterruptibly();
+        return true;
+    }
+
+    @ChannelHandler.Sharable
+    private static class MetricsHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        private final MetricsRegistry registry;
+
+        MetricsHandler(final MetricsRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+            FullHttpResponse response;
+            String path = new QueryStringDecoder(request.getUri()).path();
+            if (!PATH.equals(path)) {
+                response = response(HttpResponseStatus.NOT_FOUND, Unpooled.EMPTY_BUFFER);
+            } else if (!HttpMethod.GET.equals(request.getMethod()) && !HttpMethod.HEAD.equals(request.getMethod())) {
+                response = response(HttpResponseStatus.METHOD_NOT_ALLOWED, Unpooled.EMPTY_BUFFER);
+            } else {
+                ByteBuf content = Unpooled.copiedBuffer(PrometheusTextFormat.render(registry), CharsetUtil.UTF_8);
+                response = response(HttpResponseStatus.OK, content);
+                response.headers().set(HttpHeaders.Names.CONTENT_TYPE, PrometheusTextFormat.CONTENT_TYPE);
+                if (HttpMethod.HEAD.equals(request.getMethod())) {
+                    response.content().clear();
+                }
+            }
+
+            if (HttpHeaders.isKeepAlive(request)) {
+                HttpHeaders.setKeepAlive(response, true);
+                ctx.writeAndFlush(response);
+            } else {
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        private static FullHttpResponse response(final HttpResponseStatus status, final ByteBuf content) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+            HttpHeaders.setContentLength(response, content.readableBytes());
+            return response;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            LOGGER.debug("Error while serving metrics, closing connection.", cause);
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the content of a {@link MetricsRegistry} in the Prometheus text exposition format (version 0.0.4).
+ *
+ * Latencies are exported in seconds, as recommended by the format.
+ *
+ * @since 1.5.2
+ */
+public final class PrometheusTextFormat {
+
+    /**
+     * The content type of the rendered output.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private PrometheusTextFormat() {
+        throw new AssertionError("This is a helper class and must not be instantiated.");
+    }
+
+    /**
+     * Renders all metrics of the registry.
+     *
+     * @param registry the registry to render.
+     * @return the rendered metrics.
+     */
+    public static String render(final MetricsRegistry registry) {
+        Map<String, List<Metric>> families = new TreeMap<String, List<Metric>>();
+        for (Metric metric : registry.metrics().values()) {
+            List<Metric> family = families.get(metric.name());
+            if (family == null) {
+                family = new ArrayList<Metric>();
+                families.put(metric.name(), family);
+            }
+            family.add(metric);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Metric>> family : families.entrySet()) {
+            Metric first = family.getValue().get(0);
+            if (first.help() != null) {
+                sb.append("# HELP ").append(first.name()).append(' ')
+                    .append(first.help().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            }
+            sb.append("# TYPE ").append(first.name()).append(' ').append(first.type()).append('\n');
+            for (Metric metric : family.getValue()) {
+                if (metric instanceof LatencyHistogram) {
+                    renderHistogram(sb, (LatencyHistogram) metric);
+                } else if (metric instanceof Gauge) {
+                    sample(sb, metric.name(), metric.labels(), null, ((Gauge) metric).value());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void renderHistogram(final StringBuilder sb, final LatencyHistogram histogram) {
+        String bucketName = histogram.name() + "_bucket";
+        for (int i = 0; i < histogram.bucketCount(); i++) {
+            sample(sb, bucketName, histogram.labels(), format(histogram.upperBound(i, TimeUnit.SECONDS)),
+                histogram.cumulativeCount(i));
+        }
+        long count = histogram.count();
+        sample(sb, bucketName, histogram.labels(), "+Inf", count);
+        sample(sb, histogram.name() + "_sum", histogram.labels(), null, histogram.sum(TimeUnit.SECONDS));
+        sample(sb, histogram.name() + "_count", histogram.labels(), null, count);
+    }
+
+    private static void sample(final StringBuilder sb, final String name, final Map<String, String> labels,
+        final String le, final double value) {
+        sb.append(name);
+        if (!labels.isEmpty() || le != null) {
+            sb.append('{');
+            Metric.appendLabels(sb, labels);
+            if (le != null) {
+                if (!labels.isEmpty()) {
+                    sb.append(',');
+                }
+                sb.append("le=\"").append(le).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(final double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
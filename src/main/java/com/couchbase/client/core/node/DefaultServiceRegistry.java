@@ -16,12 +16,7 @@
 package com.couchbase.client.core.node;
 
 import com.couchbase.client.core.message.CouchbaseRequest;
-import com.couchbase.client.core.message.analytics.AnalyticsRequest;
-import com.couchbase.client.core.message.config.ConfigRequest;
-import com.couchbase.client.core.message.kv.BinaryRequest;
-import com.couchbase.client.core.message.query.QueryRequest;
-import com.couchbase.client.core.message.search.SearchRequest;
-import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.service.BucketServiceMapping;
 import com.couchbase.client.core.service.Service;
 import com.couchbase.client.core.service.ServiceType;
@@ -157,21 +152,11 @@ public class DefaultServiceRegistry implements ServiceRegistry {
      * @return the mapping for the request.
      */
     private static ServiceType serviceTypeFor(final CouchbaseRequest request) {
-        if (request instanceof BinaryRequest) {
-            return ServiceType.BINARY;
-        } else if (request instanceof ConfigRequest) {
-            return ServiceType.CONFIG;
-        } else if (request instanceof ViewRequest) {
-            return ServiceType.VIEW;
-        } else if (request instanceof QueryRequest) {
-            return ServiceType.QUERY;
-        } else if (request instanceof SearchRequest) {
-            return ServiceType.SEARCH;
-        } else if (request instanceof AnalyticsRequest) {
-            return ServiceType.ANALYTICS;
-        } else {
+        ServiceType type = RequestKind.serviceType(RequestKind.of(request));
+        if (type == null) {
             throw new IllegalStateException("Unknown Request: " + request);
         }
+        return type;
     }
 
     @Override
@@ -28,9 +28,11 @@ import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.RequestKind;
 import com.couchbase.client.core.message.kv.BinaryRequest;
 import com.couchbase.client.core.message.kv.GetAllMutationTokensRequest;
 import com.couchbase.client.core.message.kv.GetBucketConfigRequest;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
 import com.couchbase.client.core.message.kv.ObserveRequest;
 import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
 import com.couchbase.client.core.message.kv.ReplicaGetRequest;
@@ -67,17 +69,22 @@ public class KeyValueLocator implements Locator {
     @Override
     public void locateAndDispatch(final CouchbaseRequest request, final List<Node> nodes, final ClusterConfig cluster,
         CoreEnvironment env, RingBuffer<ResponseEvent> responseBuffer) {
-        if (request instanceof GetBucketConfigRequest) {
-            locateByHostname(request, ((GetBucketConfigRequest) request).hostname(), nodes, env, responseBuffer);
-            return;
-        }
-        if (request instanceof StatRequest) {
-            locateByHostname(request, ((StatRequest) request).hostname(), nodes, env, responseBuffer);
-            return;
-        }
-        if (request instanceof GetAllMutationTokensRequest) {
-            locateByHostname(request, ((GetAllMutationTokensRequest) request).hostname(), nodes, env, responseBuffer);
-            return;
+        switch (RequestKind.of(request)) {
+            case RequestKind.GET_BUCKET_CONFIG:
+                locateByHostname(request, ((GetBucketConfigRequest) request).hostname(), nodes, env, responseBuffer);
+                return;
+            case RequestKind.STAT:
+                locateByHostname(request, ((StatRequest) request).hostname(), nodes, env, responseBuffer);
+                return;
+            case RequestKind.GET_ALL_MUTATION_TOKENS:
+                locateByHostname(request, ((GetAllMutationTokensRequest) request).hostname(), nodes, env,
+                    responseBuffer);
+                return;
+            case RequestKind.MULTI_OBSERVE:
+                locateByHostname(request, ((MultiObserveRequest) request).hostname(), nodes, env, responseBuffer);
+                return;
+            default:
+                break;
         }
 
         BucketConfig bucket = cluster.bucketConfig(request.bucket());
@@ -156,15 +163,26 @@ public class KeyValueLocator implements Locator {
     private static int calculateNodeId(int partitionId, BinaryRequest request, CouchbaseBucketConfig config) {
         boolean useFastForward = request.retryCount() > 0 && config.hasFastForwardMap();
 
-        if (request instanceof ReplicaGetRequest) {
-            return config.nodeIndexForReplica(partitionId, ((ReplicaGetRequest) request).replica() - 1, useFastForward);
-        } else if (request instanceof ObserveRequest && ((ObserveRequest) request).replica() > 0) {
-            return config.nodeIndexForReplica(partitionId, ((ObserveRequest) request).replica() - 1, useFastForward);
-        } else if (request instanceof ObserveSeqnoRequest && ((ObserveSeqnoRequest) request).replica() > 0) {
-            return config.nodeIndexForReplica(partitionId, ((ObserveSeqnoRequest) request).replica() - 1, useFastForward);
-        } else {
-            return config.nodeIndexForMaster(partitionId, useFastForward);
+        int replica;
+        switch (RequestKind.of(request)) {
+            case RequestKind.REPLICA_GET:
+                return config.nodeIndexForReplica(partitionId, ((ReplicaGetRequest) request).replica() - 1,
+                    useFastForward);
+            case RequestKind.OBSERVE:
+                replica = ((ObserveRequest) request).replica();
+                break;
+            case RequestKind.OBSERVE_SEQNO:
+                replica = ((ObserveSeqnoRequest) request).replica();
+                break;
+            default:
+                replica = 0;
+                break;
+        }
+
+        if (replica > 0) {
+            return config.nodeIndexForReplica(partitionId, replica - 1, useFastForward);
         }
+        return config.nodeIndexForMaster(partitionId, useFastForward);
     }
 
     /**
@@ -230,13 +248,28 @@ public class KeyValueLocator implements Locator {
      * @param numPartitions the number of partitions in the bucket.
      * @return the calculated partition.
      */
-    private static int partitionForKey(byte[] key, int numPartitions) {
+    public static int partitionForKey(byte[] key, int numPartitions) {
         CRC32 crc32 = new CRC32();
         crc32.update(key);
         long rv = (crc32.getValue() >> 16) & 0x7fff;
         return (int) rv &numPartitions - 1;
     }
 
+    /**
+     * Returns the hostname of the node which currently holds the given replica of the key.
+     *
+     * @param key the key of the document.
+     * @param config the bucket configuration.
+     * @param replica the replica number, starting at 1.
+     * @return the hostname or null if the replica is not configured or not available.
+     */
+    public static NetworkAddress replicaHostname(final byte[] key, final CouchbaseBucketConfig config,
+        final int replica) {
+        int partitionId = partitionForKey(key, config.numberOfPartitions());
+        int nodeId = config.nodeIndexForReplica(partitionId, replica - 1, false);
+        return nodeId < 0 ? null : config.nodeAtIndex(nodeId).hostname();
+    }
+
     /**
      * Locates the proper {@link Node}s for a Memcache bucket.
      *
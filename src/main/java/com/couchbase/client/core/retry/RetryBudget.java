@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.retry;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.RequestKind;
+import com.couchbase.client.core.metrics.registry.Gauge;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.service.ServiceType;
+import rx.Scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of retries to a ratio of the first attempts, per bucket and service.
+ *
+ * Every first attempt adds {@link RetryBudgetConfig#retryRatio()} tokens to the budget of its bucket and
+ * service, and every retry takes one token out. On top of that the budget is refilled with
+ * {@link RetryBudgetConfig#minRetriesPerSecond()} tokens per second so that retries are also possible with
+ * little traffic. The balance is capped at {@link RetryBudgetConfig#maxRetryBurst()} tokens. When a partial
+ * outage makes most requests retry, the budget runs dry and the surplus retries fail fast instead of
+ * circling through the response ring until their lifetime is over.
+ *
+ * Exhausted and permitted retries are exposed as the {@code couchbase_retries} gauges in the metrics registry.
+ *
+ * @since 1.5.2
+ */
+public class RetryBudget {
+
+    /**
+     * The budget is kept in thousandths of a token to account for fractional deposits.
+     */
+    private static final long TOKEN = 1000;
+
+    private static final ServiceType[] SERVICE_TYPES = ServiceType.values();
+
+    private final RetryBudgetConfig config;
+    private final Scheduler clock;
+    private final MetricsRegistry registry;
+    private final long deposit;
+    private final long maxBalance;
+    private final ConcurrentMap<String, Budget[]> budgets;
+
+    /**
+     * Creates a new {@link RetryBudget}.
+     *
+     * @param config the budget configuration.
+     * @param clock the scheduler used as the time source.
+     * @param registry the registry to expose the retry counters in, may be null.
+     */
+    public RetryBudget(final RetryBudgetConfig config, final Scheduler clock, final MetricsRegistry registry) {
+        this.config = config;
+        this.clock = clock;
+        this.registry = registry;
+        this.deposit = Math.round(config.retryRatio() * TOKEN);
+        this.maxBalance = config.maxRetryBurst() * TOKEN;
+        this.budgets = new ConcurrentHashMap<String, Budget[]>();
+    }
+
+    /**
+     * Returns the service a request is dispatched to.
+     *
+     * @param request the request to check.
+     * @return the service type or null if the request is not dispatched to a service.
+     */
+    public static ServiceType serviceType(final CouchbaseRequest request) {
+        return RequestKind.serviceType(RequestKind.of(request));
+    }
+
+    /**
+     * Returns true if retries are limited by this budget.
+     */
+    public boolean enabled() {
+        return config.enabled();
+    }
+
+    /**
+     * Records a request which is sent into the core, adding to the budget if it is a first attempt.
+     *
+     * @param request the request which is sent.
+     */
+    public void recordAttempt(final CouchbaseRequest request) {
+        if (!config.enabled() || request.retryCount() > 0) {
+            return;
+        }
+        Budget budget = budget(request);
+        if (budget != null) {
+            budget.deposit();
+        }
+    }
+
+    /**
+     * Checks if the given request can be retried and takes a token out of its budget if so.
+     *
+     * @param request the request to retry.
+     * @return true if it can be retried, false if the budget is exhausted.
+     */
+    public boolean tryRetry(final CouchbaseRequest request) {
+        if (!config.enabled()) {
+            return true;
+        }
+        Budget budget = budget(request);
+        return budget == null || budget.withdraw(clock.now());
+    }
+
+    /**
+     * Returns the number of retries which have been rejected for the given bucket and service.
+     *
+     * @param bucket the name of the bucket.
+     * @param serviceType the service.
+     * @return the number of rejected retries.
+     */
+    public long exhausted(final String bucket, final ServiceType serviceType) {
+        Budget[] perService = budgets.get(bucket);
+        return perService == null ? 0 : perService[serviceType.ordinal()].exhausted.get();
+    }
+
+    private Budget budget(final CouchbaseRequest request) {
+        ServiceType serviceType = serviceType(request);
+        if (serviceType == null) {
+            return null;
+        }
+        String bucket = request.bucket() == null ? "" : request.bucket();
+        Budget[] perService = budgets.get(bucket);
+        if (perService == null) {
+            Budget[] created = new Budget[SERVICE_TYPES.length];
+            long now = clock.now();
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new Budget(now);
+            }
+            perService = budgets.putIfAbsent(bucket, created);
+            if (perService == null) {
+                perService = created;
+                registerGauges(bucket, created);
+            }
+        }
+        return perService[serviceType.ordinal()];
+    }
+
+    private void registerGauges(final String bucket, final Budget[] perService) {
+        if (registry == null) {
+            return;
+        }
+        for (int i = 0; i < perService.length; i++) {
+            String service = SERVICE_TYPES[i].toString().toLowerCase();
+            registerCounter(bucket, service, "permitted", perService[i].permitted);
+            registerCounter(bucket, service, "exhausted", perService[i].exhausted);
+        }
+    }
+
+    private void registerCounter(final String bucket, final String service, final String result,
+        final AtomicLong counter) {
+        Map<String, String> labels = new HashMap<String, String>();
+        labels.put("bucket", bucket);
+        labels.put("service", service);
+        labels.put("result", result);
+        registry.register(new Gauge("couchbase_retries", "Retries permitted or rejected by the retry budget.",
+            labels) {
+            @Override
+            public double value() {
+                return counter.get();
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{config=" + config + ", buckets=" + budgets.keySet() + '}';
+    }
+
+    /**
+     * The token bucket of a single bucket and service.
+     */
+    private final class Budget {
+
+        private final AtomicLong balance;
+        private final AtomicLong permitted = new AtomicLong();
+        private final AtomicLong exhausted = new AtomicLong();
+        private long lastRefill;
+
+        Budget(final long now) {
+            this.balance = new AtomicLong(Math.min(maxBalance, config.minRetriesPerSecond() * TOKEN));
+            this.lastRefill = now;
+        }
+
+        void deposit() {
+            long current;
+            do {
+                current = balance.get();
+                if (current >= maxBalance) {
+                    return;
+                }
+            } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+        }
+
+        synchronized boolean withdraw(final long now) {
+            long refill = (now - lastRefill) * config.minRetriesPerSecond();
+            if (refill > 0) {
+                lastRefill = now;
+                long current;
+                do {
+                    current = balance.get();
+                } while (!balance.compareAndSet(current, Math.min(maxBalance, current + refill)));
+            }
+
+            if (balance.addAndGet(-TOKEN) < 0) {
+                balance.addAndGet(TOKEN);
+                exhausted.incrementAndGet();
+                return false;
+            }
+            permitted.incrementAndGet();
+            return true;
+        }
+    }
+}
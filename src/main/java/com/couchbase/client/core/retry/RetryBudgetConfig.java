@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.retry;
+
+/**
+ * The configuration for the {@link RetryBudget}.
+ *
+ * @since 1.5.2
+ */
+public class RetryBudgetConfig {
+
+    public static final double RETRY_RATIO = 0.1;
+    public static final int MIN_RETRIES_PER_SECOND = 10;
+    public static final int MAX_RETRY_BURST = 100;
+
+    private final boolean enabled;
+    private final double retryRatio;
+    private final int minRetriesPerSecond;
+    private final int maxRetryBurst;
+
+    public static RetryBudgetConfig disabled() {
+        return builder().enabled(false).build();
+    }
+
+    public static RetryBudgetConfig create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    protected RetryBudgetConfig(Builder builder) {
+        enabled = builder.enabled;
+        retryRatio = builder.retryRatio;
+        minRetriesPerSecond = builder.minRetriesPerSecond;
+        maxRetryBurst = builder.maxRetryBurst;
+        if (retryRatio < 0 || minRetriesPerSecond < 0 || maxRetryBurst <= 0) {
+            throw new IllegalArgumentException("The ratio and retries per second need to be >= 0, the burst > 0.");
+        }
+    }
+
+    /**
+     * Returns true if retries are limited by the budget.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * The number of retries each first attempt adds to the budget, like 0.1 for 10%.
+     */
+    public double retryRatio() {
+        return retryRatio;
+    }
+
+    /**
+     * The number of retries per second which are always allowed, independent of the traffic.
+     */
+    public int minRetriesPerSecond() {
+        return minRetriesPerSecond;
+    }
+
+    /**
+     * The maximum number of retries which can be saved up in the budget.
+     */
+    public int maxRetryBurst() {
+        return maxRetryBurst;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("RetryBudgetConfig{");
+        sb.append("enabled=").append(enabled);
+        sb.append(", retryRatio=").append(retryRatio);
+        sb.append(", minRetriesPerSecond=").append(minRetriesPerSecond);
+        sb.append(", maxRetryBurst=").append(maxRetryBurst);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class Builder {
+
+        private boolean enabled = true;
+        private double retryRatio = RETRY_RATIO;
+        private int minRetriesPerSecond = MIN_RETRIES_PER_SECOND;
+        private int maxRetryBurst = MAX_RETRY_BURST;
+
+        protected Builder() {
+        }
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * Sets the number of retries each first attempt adds to the budget, like 0.1 for 10%.
+         */
+        public Builder retryRatio(double retryRatio) {
+            this.retryRatio = retryRatio;
+            return this;
+        }
+
+        /**
+         * Sets the number of retries per second which are always allowed, independent of the traffic.
+         */
+        public Builder minRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of retries which can be saved up in the budget.
+         */
+        public Builder maxRetryBurst(int maxRetryBurst) {
+            this.maxRetryBurst = maxRetryBurst;
+            return this;
+        }
+
+        public RetryBudgetConfig build() {
+            return new RetryBudgetConfig(this);
+        }
+
+    }
+
+}
@@ -21,6 +21,7 @@ import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.ResponseHandler;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.metrics.RuntimeMetricsCollector;
 import com.lmax.disruptor.EventSink;
 import com.lmax.disruptor.RingBuffer;
 
@@ -35,6 +36,9 @@ public class RetryHelper {
     /**
      * Either retry or cancel a request, based on the strategy used.
      *
+     * Retried requests are subject to the {@link RetryBudget} of the environment, which is consulted once
+     * the retry is scheduled from the response buffer.
+     *
      * @param environment the core environment for context.
      * @param request the request to either retry or cancel.
      * @param responseBuffer the response buffer where to maybe retry on.
@@ -46,7 +50,7 @@ public class RetryHelper {
         }
 
         if (environment.retryStrategy().shouldRetry(request, environment)) {
-            retry(request, responseBuffer);
+            retry(environment, request, responseBuffer);
         } else {
             request.observable().onError(new RequestCancelledException("Could not dispatch request, cancelling "
                 + "instead of retrying."));
@@ -60,7 +64,24 @@ public class RetryHelper {
      * @param responseBuffer the response buffer to send it into.
      */
     public static void retry(final CouchbaseRequest request, final EventSink<ResponseEvent> responseBuffer) {
+        retry(null, request, responseBuffer);
+    }
+
+    /**
+     * Always retry the request and send it into the response buffer, counting a full buffer with the
+     * {@link RuntimeMetricsCollector} of the environment.
+     *
+     * @param environment the core environment for context, may be null.
+     * @param request the request to retry
+     * @param responseBuffer the response buffer to send it into.
+     */
+    public static void retry(final CoreEnvironment environment, final CouchbaseRequest request,
+        final EventSink<ResponseEvent> responseBuffer) {
         if(!responseBuffer.tryPublishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request.observable())) {
+            RuntimeMetricsCollector runtimeMetrics = environment == null ? null : environment.runtimeMetricsCollector();
+            if (runtimeMetrics != null) {
+                runtimeMetrics.recordBackpressure();
+            }
             request.observable().onError(CouchbaseCore.BACKPRESSURE_EXCEPTION);
         }
     }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.time;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delay which grows with every attempt like an exponential delay, but picks a random value below it.
+ *
+ * The decorrelated jitter described by "sleep = min(upper, random(base, previous * 3))" needs the previous delay,
+ * but a {@link Delay} is shared by all its users (like every endpoint reconnecting). So instead of carrying state,
+ * the ceiling for an attempt is derived from the attempt number as <code>min(upper, base * 3 ^ attempt)</code>,
+ * which is the largest value the stateful form can reach, and the delay is picked uniformly between the base
+ * and that ceiling.
+ *
+ * For example <code>Delay.decorrelatedJitter(TimeUnit.MILLISECONDS, 4096, 32)</code> yields a value in
+ * [32, 96] for the first attempt, [32, 288] for the second and [32, 4096] from the fifth attempt on. Clients which
+ * started to retry at the same time spread out instead of hitting the server in lockstep.
+ *
+ * @since 1.5.2
+ */
+public class DecorrelatedJitterDelay extends Delay {
+
+    private final long upper;
+    private final long base;
+    private final Random random;
+
+    DecorrelatedJitterDelay(TimeUnit unit, long upper, long base) {
+        super(unit);
+        if (base <= 0 || base > upper) {
+            throw new IllegalArgumentException("The base value must be greater than 0 and smaller or equal to the "
+                + "upper value!");
+        }
+        this.upper = upper;
+        this.base = base;
+        this.random = new Random();
+    }
+
+    @Override
+    public long calculate(long attempt) {
+        if (attempt <= 0) {
+            return base;
+        }
+
+        long ceiling = base;
+        for (long i = 0; i < attempt && ceiling < upper; i++) {
+            ceiling = ceiling > upper / 3 ? upper : ceiling * 3;
+        }
+        return base + Math.round(random.nextDouble() * (ceiling - base));
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DecorrelatedJitterDelay{");
+        sb.append("base=").append(base);
+        sb.append(" " + unit());
+        sb.append(", upper=").append(upper);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -184,4 +184,17 @@ public abstract class Delay {
         return new ExponentialDelay(unit, upper, lower, growBy, powersOf);
     }
 
+    /**
+     * Creates a new {@link DecorrelatedJitterDelay} which picks a random delay between the base and a ceiling
+     * that triples on every attempt (eg. with upper 4096, base 32: [32, 96], [32, 288], ..., [32, 4096]).
+     *
+     * @param unit the unit of the delay.
+     * @param upper the upper boundary.
+     * @param base the smallest delay, also the starting point of the growth.
+     * @return a created {@link DecorrelatedJitterDelay}.
+     */
+    public static Delay decorrelatedJitter(TimeUnit unit, long upper, long base) {
+        return new DecorrelatedJitterDelay(unit, upper, base);
+    }
+
 }
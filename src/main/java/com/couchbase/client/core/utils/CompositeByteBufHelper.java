@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * Helper methods to accumulate streamed HTTP chunks into a {@link CompositeByteBuf} without copying
+ * them, and to hand out parsed sections (like rows) as slices of the received chunks.
+ *
+ * Slices handed out through {@link #retainedSlice(ByteBuf, int, int)} hold a reference on the
+ * underlying chunk only, so the accumulated buffer can drop fully consumed components through
+ * {@link CompositeByteBuf#discardReadComponents()} right after a section has been emitted.
+ *
+ * @since 1.5.2
+ */
+public class CompositeByteBufHelper {
+
+    private CompositeByteBufHelper() {
+    }
+
+    /**
+     * Creates a composite buffer suitable for accumulating a streamed response.
+     *
+     * The number of components is not capped, so chunks are never consolidated (and thus copied)
+     * behind the scenes.
+     *
+     * @param alloc the allocator to use.
+     * @return the new, empty composite buffer.
+     */
+    public static CompositeByteBuf newAccumulator(final ByteBufAllocator alloc) {
+        return alloc.compositeBuffer(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Appends the readable bytes of the chunk to the accumulator without copying them.
+     *
+     * The chunk is retained, so the caller keeps its own reference and is still responsible for
+     * releasing it.
+     *
+     * @param accumulator the accumulating buffer.
+     * @param chunk the chunk to append.
+     */
+    public static void append(final CompositeByteBuf accumulator, final ByteBuf chunk) {
+        if (chunk.isReadable()) {
+            accumulator.addComponent(true, chunk.retain());
+        }
+    }
+
+    /**
+     * Releases all the components of the accumulator and resets its indexes, making it ready to
+     * accumulate the next response.
+     *
+     * @param accumulator the accumulating buffer.
+     */
+    public static void reset(final CompositeByteBuf accumulator) {
+        accumulator.clear();
+        int components = accumulator.numComponents();
+        if (components > 0) {
+            accumulator.removeComponents(0, components);
+        }
+    }
+
+    /**
+     * Returns a retained slice of the given range which is independent of the indexes of the
+     * buffer, so it stays valid even after the buffer discards read bytes.
+     *
+     * If the buffer is a {@link CompositeByteBuf} and the range lies within a single component, the
+     * slice is taken from that component and no bytes are copied. Otherwise (the range spans more
+     * than one component or the buffer is not a composite) the range is copied.
+     *
+     * The returned buffer has to be released by the caller.
+     *
+     * @param buf the buffer to take the slice from.
+     * @param index the absolute start index of the range.
+     * @param length the length of the range.
+     * @return a retained slice or a copy of the range.
+     */
+    public static ByteBuf retainedSlice(final ByteBuf buf, final int index, final int length) {
+        if (length > 0 && buf instanceof CompositeByteBuf) {
+            CompositeByteBuf composite = (CompositeByteBuf) buf;
+            int componentIndex = composite.toComponentIndex(index);
+            int offset = index - composite.toByteIndex(componentIndex);
+            ByteBuf component = composite.internalComponent(componentIndex);
+            if (offset + length <= component.readableBytes()) {
+                return component.slice(component.readerIndex() + offset, length).retain();
+            }
+        }
+        return buf.copy(index, length);
+    }
+
+    /**
+     * Reads a retained slice of the given length starting at the current reader index, see
+     * {@link #retainedSlice(ByteBuf, int, int)}.
+     *
+     * @param buf the buffer to read from.
+     * @param length the number of bytes to read.
+     * @return a retained slice or a copy of the read bytes.
+     */
+    public static ByteBuf readRetainedSlice(final ByteBuf buf, final int length) {
+        ByteBuf slice = retainedSlice(buf, buf.readerIndex(), length);
+        buf.skipBytes(length);
+        return slice;
+    }
+
+    /**
+     * Discards the read bytes of the buffer, dropping (and releasing) fully read components if it
+     * is a {@link CompositeByteBuf}.
+     *
+     * @param buf the buffer to discard the read bytes from.
+     */
+    public static void discardRead(final ByteBuf buf) {
+        if (buf instanceof CompositeByteBuf) {
+            ((CompositeByteBuf) buf).discardReadComponents();
+        } else {
+            buf.discardReadBytes();
+        }
+    }
+}
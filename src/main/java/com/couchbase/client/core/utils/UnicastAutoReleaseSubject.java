@@ -131,6 +131,37 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
         return this;
     }
 
+    /**
+     * Enables watermarks on the number of items emitted into this subject but not yet requested and consumed
+     * by its subscriber.
+     *
+     * Once the backlog reaches the high watermark, the onHighWatermark action is called so that the producer
+     * can stop emitting (for example by turning off auto read on a channel). When the subscriber drained the
+     * backlog down to the low watermark (or unsubscribed, or the content got disposed), onLowWatermark is
+     * called so that it can resume. Both actions are called alternately, starting with onHighWatermark.
+     *
+     * Items are only handed to the subscriber as requested, so an asynchronous subscriber applying reactive
+     * pull backpressure is honored as well.
+     *
+     * @param highWatermark the backlog size at which the producer should be paused, needs to be positive.
+     * @param lowWatermark the backlog size at which the producer should be resumed.
+     * @param onHighWatermark the action invoked when the high watermark is reached.
+     * @param onLowWatermark the action invoked when the backlog went down to the low watermark.
+     * @return this subject for chaining purposes.
+     */
+    public UnicastAutoReleaseSubject<T> withWatermarks(int highWatermark, int lowWatermark,
+        Action0 onHighWatermark, Action0 onLowWatermark) {
+        if (highWatermark <= 0 || lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Watermarks need to satisfy 0 <= low < high, got low="
+                + lowWatermark + " and high=" + highWatermark);
+        }
+        state.highWatermark = highWatermark;
+        state.lowWatermark = lowWatermark;
+        state.onHighWatermark = onHighWatermark;
+        state.onLowWatermark = onLowWatermark;
+        return this;
+    }
+
     /**
      * This will eagerly dispose this {@link Subject} without waiting for the no subscription timeout period,
      * if configured.
@@ -143,6 +174,7 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
     public boolean disposeIfNotSubscribed() {
         if (state.casState(State.STATES.UNSUBSCRIBED, State.STATES.DISPOSED)) {
             state.bufferedSubject.lift(new AutoReleaseByteBufOperator<T>()).subscribe(Subscribers.empty()); // Drain all items so that ByteBuf gets released.
+            state.drained();
             return true;
         }
         return false;
@@ -172,6 +204,12 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
         /** Field updater for timeoutScheduled. */
         private static final AtomicIntegerFieldUpdater<State> TIMEOUT_SCHEDULED_UPDATER
                 = AtomicIntegerFieldUpdater.newUpdater(State.class, "timeoutScheduled");
+        /** Field updater for backlog. */
+        private static final AtomicIntegerFieldUpdater<State> BACKLOG_UPDATER
+                = AtomicIntegerFieldUpdater.newUpdater(State.class, "backlog");
+        /** Field updater for paused. */
+        private static final AtomicIntegerFieldUpdater<State> PAUSED_UPDATER
+                = AtomicIntegerFieldUpdater.newUpdater(State.class, "paused");
 
         private final Action0 onUnsubscribe;
         private final Subject<T, T> bufferedSubject;
@@ -180,6 +218,13 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
         @SuppressWarnings("unused") private volatile int timeoutScheduled; // Boolean
         private volatile int state = STATES.UNSUBSCRIBED.ordinal(); /*Values are the ordinals of STATES enum*/
 
+        private volatile int highWatermark;
+        private volatile int lowWatermark;
+        private volatile Action0 onHighWatermark;
+        private volatile Action0 onLowWatermark;
+        @SuppressWarnings("unused") private volatile int backlog; // Emitted but not yet consumed items
+        @SuppressWarnings("unused") private volatile int paused; // Boolean
+
         public State(Action0 onUnsubscribe) {
             this.onUnsubscribe = onUnsubscribe;
             bufferedSubject = BufferUntilSubscriber.create();
@@ -202,6 +247,54 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
                 timeoutSubscription.unsubscribe();
             }
         }
+
+        /**
+         * Accounts for an item emitted into the subject, pausing the producer if needed.
+         */
+        public void produced() {
+            int high = highWatermark;
+            if (high <= 0) {
+                return;
+            }
+            if (BACKLOG_UPDATER.incrementAndGet(this) >= high && PAUSED_UPDATER.compareAndSet(this, 0, 1)) {
+                onHighWatermark.call();
+                // the subscriber might have caught up (or gone away) while pausing, make sure not to stay
+                // paused forever.
+                if (highWatermark <= 0 || backlog <= lowWatermark) {
+                    resume();
+                }
+            }
+        }
+
+        /**
+         * Accounts for an item handed to the subscriber, resuming the producer if needed.
+         */
+        public void consumed() {
+            if (highWatermark <= 0) {
+                return;
+            }
+            if (BACKLOG_UPDATER.decrementAndGet(this) <= lowWatermark) {
+                resume();
+            }
+        }
+
+        /**
+         * Stops tracking the backlog once nobody is going to consume it anymore, resuming the producer if needed.
+         */
+        public void drained() {
+            if (highWatermark <= 0) {
+                return;
+            }
+            highWatermark = 0;
+            BACKLOG_UPDATER.set(this, 0);
+            resume();
+        }
+
+        private void resume() {
+            if (PAUSED_UPDATER.compareAndSet(this, 1, 0)) {
+                onLowWatermark.call();
+            }
+        }
     }
 
     private static final class OnSubscribeAction<T> implements OnSubscribe<T> {
@@ -219,13 +312,20 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
                 subscriber.add(Subscriptions.create(new Action0() {
                     @Override
                     public void call() {
+                        state.drained();
                         if (null != state.onUnsubscribe) {
                             state.onUnsubscribe.call();
                         }
                     }
                 }));
 
-                state.bufferedSubject.subscribe(subscriber);
+                if (state.highWatermark > 0) {
+                    state.bufferedSubject
+                        .onBackpressureBuffer()
+                        .subscribe(new ConsumptionTrackingSubscriber<T>(state, subscriber));
+                } else {
+                    state.bufferedSubject.subscribe(subscriber);
+                }
                 state.unsubscribeTimeoutSubscription();
 
             } else if(State.STATES.SUBSCRIBED.ordinal() == state.state) {
@@ -246,6 +346,38 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
         }
     }
 
+    /**
+     * Forwards to the actual subscriber (sharing its subscriptions and backpressure requests) and
+     * accounts for every item it receives.
+     */
+    private static final class ConsumptionTrackingSubscriber<T> extends Subscriber<T> {
+
+        private final State<T> state;
+        private final Subscriber<? super T> actual;
+
+        ConsumptionTrackingSubscriber(State<T> state, Subscriber<? super T> actual) {
+            super(actual);
+            this.state = state;
+            this.actual = actual;
+        }
+
+        @Override
+        public void onCompleted() {
+            actual.onCompleted();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            actual.onError(e);
+        }
+
+        @Override
+        public void onNext(T t) {
+            state.consumed();
+            actual.onNext(t);
+        }
+    }
+
     private static class AutoReleaseByteBufOperator<I> implements Operator<I, I> {
         @Override
         public Subscriber<? super I> call(final Subscriber<? super I> subscriber) {
@@ -284,6 +416,7 @@ public final class UnicastAutoReleaseSubject<T> extends Subject<T, T> {
 
     @Override
     public void onNext(T t) {
+        state.produced();
         state.bufferedSubject.onNext(t);
 
         // Schedule timeout once and when not subscribed yet.
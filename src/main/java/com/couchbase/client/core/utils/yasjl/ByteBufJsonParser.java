@@ -15,14 +15,13 @@
  */
 package com.couchbase.client.core.utils.yasjl;
 
-import java.nio.charset.Charset;
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.Stack;
 
 import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.*;
 import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.Mode.JSON_NUMBER_VALUE;
 
+import com.couchbase.client.core.utils.CompositeByteBufHelper;
 import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB;
 import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
 import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB2;
@@ -34,6 +33,10 @@ import java.io.EOFException;
 /**
  * The {@link ByteBufJsonParser} allows to query for values identified by {@link JsonPointer} in Netty {@link ByteBuf}.
  *
+ * Strings, whitespace and nested values are skipped through the {@link JsonStructuralScanner}, which looks at
+ * eight bytes at a time, and object keys are matched against the UTF-8 encoded pointer segments without being
+ * decoded.
+ *
  * A couple of notes:
  *  - it strictly works on UTF-8
  *  - it is not a json validator
@@ -45,16 +48,13 @@ import java.io.EOFException;
 public class ByteBufJsonParser {
 
     private static final EOFException NEED_MORE_DATA = new EOFException();
+    private static final String UNMATCHED_TOKEN = "";
     static {
         NEED_MORE_DATA.setStackTrace(new StackTraceElement[0]);
     }
 
     private final JsonPointerTree tree;
     private final Deque<JsonLevel> levelStack;
-    private final JsonWhiteSpaceByteBufProcessor wsProcessor;
-    private final JsonStringByteBufProcessor stProcessor;
-    private final JsonArrayByteBufProcessor arProcessor;
-    private final JsonObjectByteBufProcessor obProcessor;
     private final JsonNullByteBufProcessor nullProcessor;
     private final JsonBOMByteBufProcessor bomProcessor;
     private final JsonNumberByteBufProcessor numProcessor;
@@ -71,10 +71,6 @@ public class ByteBufJsonParser {
      * @param jsonPointers the pointers which should be set.
      */
     public ByteBufJsonParser(final JsonPointer[] jsonPointers) {
-        wsProcessor = new JsonWhiteSpaceByteBufProcessor();
-        stProcessor = new JsonStringByteBufProcessor();
-        arProcessor = new JsonArrayByteBufProcessor(stProcessor);
-        obProcessor = new JsonObjectByteBufProcessor(stProcessor);
         nullProcessor = new JsonNullByteBufProcessor();
         bomProcessor = new JsonBOMByteBufProcessor();
         numProcessor = new JsonNumberByteBufProcessor();
@@ -164,20 +160,22 @@ public class ByteBufJsonParser {
         JsonLevel newJsonLevel = null;
 
         if (mode == Mode.BOM) {
-            newJsonLevel = new JsonLevel(mode, new JsonPointer()); //not a valid nesting level
+            newJsonLevel = new JsonLevel(mode, new JsonPointer(), null); //not a valid nesting level
         } else if (mode == Mode.JSON_OBJECT) {
             if (levelStack.size() > 0) {
                 JsonLevel current = levelStack.peek();
-                newJsonLevel = new JsonLevel(mode, new JsonPointer(current.jsonPointer().tokens()));
+                newJsonLevel = new JsonLevel(mode, new JsonPointer(current.jsonPointer().tokens()),
+                    current.matchedNode());
             } else {
-                newJsonLevel = new JsonLevel(mode, new JsonPointer());
+                newJsonLevel = new JsonLevel(mode, new JsonPointer(), tree.root());
             }
         } else if (mode == Mode.JSON_ARRAY) {
             if (levelStack.size() > 0) {
                 JsonLevel current = levelStack.peek();
-                newJsonLevel = new JsonLevel(mode, new JsonPointer(current.jsonPointer().tokens()));
+                newJsonLevel = new JsonLevel(mode, new JsonPointer(current.jsonPointer().tokens()),
+                    current.matchedNode());
             } else {
-                newJsonLevel = new JsonLevel(mode, new JsonPointer());
+                newJsonLevel = new JsonLevel(mode, new JsonPointer(), tree.root());
             }
             newJsonLevel.isArray(true);
             newJsonLevel.setArrayIndexOnJsonPointer();
@@ -223,9 +221,8 @@ public class ByteBufJsonParser {
                 if (!level.isHashValue()) {
                     throw new IllegalStateException("Invalid json, json object can only be a hash value not key");
                 }
-                if (this.tree.isIntermediaryPath(level.jsonPointer())) {
+                if (level.isIntermediary()) {
                     this.pushLevel(Mode.JSON_OBJECT);
-                    level.removeLastTokenFromJsonPointer();
                     return;
                 }
                 level.pushMode(Mode.JSON_OBJECT_VALUE);
@@ -234,9 +231,8 @@ public class ByteBufJsonParser {
                 if (!level.isHashValue()) {
                     throw new IllegalStateException("Invalid json, json array can only be a hash value not key");
                 }
-                if (this.tree.isIntermediaryPath(level.jsonPointer())) {
+                if (level.isIntermediary()) {
                     this.pushLevel(Mode.JSON_ARRAY);
-                    level.removeLastTokenFromJsonPointer();
                     return;
                 }
                 level.pushMode(Mode.JSON_ARRAY_VALUE);
@@ -287,14 +283,14 @@ public class ByteBufJsonParser {
                 level.pushMode(Mode.JSON_STRING_VALUE);
                 readValue(level);
             } else if (this.currentChar == O_CURLY) {
-                if (this.tree.isIntermediaryPath(level.jsonPointer())) {
+                if (level.isIntermediary()) {
                     this.pushLevel(Mode.JSON_OBJECT);
                     return;
                 }
                 level.pushMode(Mode.JSON_OBJECT_VALUE);
                 readValue(level);
             } else if (this.currentChar == O_SQUARE) {
-                if (this.tree.isIntermediaryPath(level.jsonPointer())) {
+                if (level.isIntermediary()) {
                     this.pushLevel(Mode.JSON_ARRAY);
                     return;
                 } else {
@@ -331,20 +327,22 @@ public class ByteBufJsonParser {
      */
     private void readValue(final JsonLevel level) throws EOFException {
         int readerIndex = content.readerIndex();
+        int writerIndex = content.writerIndex();
         ByteBufProcessor processor = null;
         Mode mode = level.peekMode();
+        int lastValidIndex = -1;
         switch (mode) {
             case JSON_ARRAY_VALUE:
-                arProcessor.reset();
-                processor = arProcessor;
+                lastValidIndex = JsonStructuralScanner.findContainerEnd(content, readerIndex, writerIndex,
+                    O_SQUARE, C_SQUARE);
                 break;
             case JSON_OBJECT_VALUE:
-                obProcessor.reset();
-                processor = obProcessor;
+                lastValidIndex = JsonStructuralScanner.findContainerEnd(content, readerIndex, writerIndex,
+                    O_CURLY, C_CURLY);
                 break;
             case JSON_STRING_VALUE:
             case JSON_STRING_HASH_KEY:
-                processor = stProcessor;
+                lastValidIndex = JsonStructuralScanner.findStringEnd(content, readerIndex, writerIndex);
                 break;
             case JSON_NULL_VALUE:
                 nullProcessor.reset();
@@ -361,13 +359,15 @@ public class ByteBufJsonParser {
                 break;
         }
         int length;
-        boolean shouldSaveValue = tree.isTerminalPath(level.jsonPointer()) || mode == Mode.JSON_STRING_HASH_KEY;
+        boolean shouldSaveValue = mode != Mode.JSON_STRING_HASH_KEY && level.isTerminal();
 
-        int lastValidIndex = content.forEachByte(processor);
+        if (processor != null) {
+            lastValidIndex = content.forEachByte(processor);
+        }
         if (lastValidIndex == -1) {
             if (mode == Mode.JSON_NUMBER_VALUE && content.readableBytes() > 2) {
                 length = 1;
-                level.setCurrentValue(content.copy(readerIndex - 1, length), length);
+                level.setCurrentValue(CompositeByteBufHelper.retainedSlice(content, readerIndex - 1, length), length);
                 //no need to skip here
                 level.emitJsonPointerValue();
             } else {
@@ -383,8 +383,10 @@ public class ByteBufJsonParser {
                     mode == Mode.JSON_BOOLEAN_FALSE_VALUE) {
 
                 length = lastValidIndex - readerIndex + 1;
-                if (shouldSaveValue) {
-                    level.setCurrentValue(content.copy(readerIndex - 1, length + 1), length);
+                if (mode == Mode.JSON_STRING_HASH_KEY) {
+                    level.matchKey(content, readerIndex, length - 1);
+                } else if (shouldSaveValue) {
+                    level.setCurrentValue(CompositeByteBufHelper.retainedSlice(content, readerIndex - 1, length + 1), length);
                     level.emitJsonPointerValue();
                 }
                 content.skipBytes(length);
@@ -394,14 +396,14 @@ public class ByteBufJsonParser {
                 length = lastValidIndex - readerIndex;
                 if (length > 0) {
                     if (shouldSaveValue) {
-                        level.setCurrentValue(content.copy(readerIndex - 1, length + 1), length);
+                        level.setCurrentValue(CompositeByteBufHelper.retainedSlice(content, readerIndex - 1, length + 1), length);
                         level.emitJsonPointerValue();
                     }
                     this.content.skipBytes(length);
                 } else {
                     length = 1;
                     if (shouldSaveValue) {
-                        level.setCurrentValue(content.copy(readerIndex - 1, length), length);
+                        level.setCurrentValue(CompositeByteBufHelper.retainedSlice(content, readerIndex - 1, length), length);
                         level.emitJsonPointerValue();
                     }
                 }
@@ -441,7 +443,7 @@ public class ByteBufJsonParser {
      */
     private void readNextChar(final JsonLevel level) throws EOFException {
         int readerIndex = content.readerIndex();
-        int lastWsIndex = content.forEachByte(wsProcessor);
+        int lastWsIndex = JsonStructuralScanner.skipWhitespace(content, readerIndex, content.writerIndex());
 
         if (lastWsIndex == -1 && level != null) {
             throw NEED_MORE_DATA;
@@ -460,16 +462,26 @@ public class ByteBufJsonParser {
 
         private final Deque<Mode> modes;
         private final JsonPointer jsonPointer;
+        private final JsonPointerTree.Node node;
+        private JsonPointerTree.Node matchedNode;
 
         private ByteBuf currentValue;
         private boolean isHashValue;
         private boolean isArray;
         private int arrayIndex;
 
-        JsonLevel(final Mode mode, final JsonPointer jsonPointer) {
+        /**
+         * Creates a new level.
+         *
+         * @param mode the mode of the level.
+         * @param jsonPointer the pointer to the level itself.
+         * @param node the pointer tree node of the level, null if it is not part of the tree.
+         */
+        JsonLevel(final Mode mode, final JsonPointer jsonPointer, final JsonPointerTree.Node node) {
             this.modes = new ArrayDeque<Mode>();
             this.pushMode(mode);
             this.jsonPointer = jsonPointer;
+            this.node = node;
         }
 
         void isHashValue(boolean isHashValue) {
@@ -506,19 +518,48 @@ public class ByteBufJsonParser {
 
         void setCurrentValue(ByteBuf value, int length) {
             this.currentValue = value;
-            if (peekMode() == Mode.JSON_STRING_HASH_KEY) {
-                //strip the quotes
-                this.jsonPointer.addToken(this.currentValue.toString(
-                        this.currentValue.readerIndex() + 1, length - 1, Charset.defaultCharset()));
-            }
+        }
+
+        /**
+         * Matches the raw object key against the pointer tree and adds it to the pointer.
+         *
+         * Keys which are not part of the tree are never looked at again, so they only get a placeholder token.
+         */
+        void matchKey(ByteBuf buf, int index, int length) {
+            this.matchedNode = this.node == null ? null : this.node.match(buf, index, length);
+            this.jsonPointer.addToken(this.matchedNode == null ? UNMATCHED_TOKEN : this.matchedNode.value());
         }
 
         void setArrayIndexOnJsonPointer() {
-            this.jsonPointer.addToken(Integer.toString(this.arrayIndex));
+            this.matchedNode = this.node == null ? null : this.node.match(this.arrayIndex);
+            this.jsonPointer.addToken(this.matchedNode == null ? UNMATCHED_TOKEN : Integer.toString(this.arrayIndex));
         }
 
         void removeLastTokenFromJsonPointer() {
             this.jsonPointer.removeLastToken();
+            this.matchedNode = null;
+        }
+
+        JsonPointerTree.Node matchedNode() {
+            return this.matchedNode;
+        }
+
+        /**
+         * True if the current key or index leads to further pointers down the tree.
+         */
+        boolean isIntermediary() {
+            return this.matchedNode != null && !this.matchedNode.isTerminal();
+        }
+
+        /**
+         * True if the current key or index is pointed at, also arms the callback on the pointer if so.
+         */
+        boolean isTerminal() {
+            if (this.matchedNode != null && this.matchedNode.isTerminal()) {
+                this.jsonPointer.jsonPointerCB(this.matchedNode.jsonPointerCB());
+                return true;
+            }
+            return false;
         }
 
         void emitJsonPointerValue() {
@@ -19,6 +19,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
 
 /**
  * Represents a tree structure of stored {@link JsonPointer}.
@@ -130,6 +132,13 @@ public class JsonPointerTree {
         }
     }
 
+    /**
+     * Returns the root node of this tree, which is where matching of a document starts.
+     */
+    Node root() {
+        return root;
+    }
+
     @Override
     public String toString() {
         return "JsonPointerTree{" +
@@ -145,12 +154,27 @@ public class JsonPointerTree {
 
         private final String value;
         private final JsonPointerCB jsonPointerCB;
+        private final byte[] encodedValue;
+        private final boolean wildcard;
+        private final int arrayIndex;
         private List<Node> children;
 
         Node(final String value, final JsonPointerCB jsonPointerCB) {
             this.value = value;
             this.children = null;
             this.jsonPointerCB = jsonPointerCB;
+            this.encodedValue = value.getBytes(CharsetUtil.UTF_8);
+            this.wildcard = "-".equals(value);
+            this.arrayIndex = parseArrayIndex(value);
+        }
+
+        private int parseArrayIndex(final String value) {
+            try {
+                int index = Integer.parseInt(value);
+                return index >= 0 && Integer.toString(index).equals(value) ? index : -1;
+            } catch (NumberFormatException ex) {
+                return -1;
+            }
         }
 
         /**
@@ -199,6 +223,83 @@ public class JsonPointerTree {
             return null;
         }
 
+        /**
+         * Returns the node which matches the raw, still UTF-8 encoded object key in the buffer.
+         *
+         * Same rules as {@link #match(String)}, but without decoding the key.
+         *
+         * @param buf the buffer holding the key.
+         * @param index the index of the first byte of the key (after the quote).
+         * @param length the length of the key in bytes (without quotes).
+         * @return the node if found, null otherwise.
+         */
+        Node match(final ByteBuf buf, final int index, final int length) {
+            if (this.children == null) {
+                return null;
+            }
+
+            for (Node child : children) {
+                if (child.equalsEncoded(buf, index, length)) {
+                    return child;
+                } else if (child.wildcard && isIndex(buf, index, length)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the node which matches the given array element index.
+         *
+         * @param index the index of the element in the array.
+         * @return the node if found, null otherwise.
+         */
+        Node match(final int index) {
+            if (this.children == null) {
+                return null;
+            }
+
+            for (Node child : children) {
+                if (child.wildcard || child.arrayIndex == index) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private boolean equalsEncoded(final ByteBuf buf, final int index, final int length) {
+            if (encodedValue.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (encodedValue[i] != buf.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isIndex(final ByteBuf buf, final int index, final int length) {
+            for (int i = 0; i < length; i++) {
+                byte b = buf.getByte(index + i);
+                if (i == 0 && b == '-') continue;
+                if (b < '0' || b > '9') return false;
+            }
+            return true;
+        }
+
+        String value() {
+            return value;
+        }
+
+        JsonPointerCB jsonPointerCB() {
+            return jsonPointerCB;
+        }
+
+        boolean isTerminal() {
+            return children == null;
+        }
+
         @Override
         public String toString() {
             return "Node{" +
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils.yasjl;
+
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.*;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Locates JSON structural characters by scanning eight bytes at a time ("SIMD within a register").
+ *
+ * Every word is loaded through {@link ByteBuf#getLong(int)}, which is big endian, so the first byte in
+ * the buffer is the most significant one of the word. The per-byte equality masks are computed without
+ * carries crossing byte boundaries, so they are exact and the first match is the leading set bit.
+ *
+ * All methods are stateless: they return -1 if the end could not be found in the readable range, and the
+ * caller is expected to retry from the same start index once more data arrived.
+ *
+ * @since 1.5.2
+ */
+final class JsonStructuralScanner {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final long QUOTES = pattern(JSON_ST);
+    private static final long ESCAPES = pattern(JSON_ES);
+    private static final long SPACES = pattern(WS_SPACE);
+    private static final long TABS = pattern(WS_TAB);
+    private static final long LINE_FEEDS = pattern(WS_LF);
+    private static final long CARRIAGE_RETURNS = pattern(WS_CR);
+
+    private JsonStructuralScanner() {
+    }
+
+    /**
+     * Finds the first byte which is not JSON whitespace.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index to start at (inclusive).
+     * @param to the index to stop at (exclusive).
+     * @return the index of the first non whitespace byte, or -1 if there is none.
+     */
+    static int skipWhitespace(final ByteBuf buf, final int from, final int to) {
+        int i = from;
+        if (i < to && !isWhitespace(buf.getByte(i))) {
+            return i; // compact json, no need to go wide
+        }
+        while (i + 8 <= to) {
+            long word = buf.getLong(i);
+            long ws = matches(word, SPACES) | matches(word, TABS) | matches(word, LINE_FEEDS)
+                | matches(word, CARRIAGE_RETURNS);
+            long other = ~ws & HIGH_BITS;
+            if (other != 0) {
+                return i + firstMatch(other);
+            }
+            i += 8;
+        }
+        for (; i < to; i++) {
+            if (!isWhitespace(buf.getByte(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the closing quote of a JSON string, skipping escaped characters.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index right after the opening quote.
+     * @param to the index to stop at (exclusive).
+     * @return the index of the closing quote, or -1 if it is not in the range yet.
+     */
+    static int findStringEnd(final ByteBuf buf, final int from, final int to) {
+        int i = from;
+        while (i < to) {
+            int hit = indexOfQuoteOrEscape(buf, i, to);
+            if (hit < 0) {
+                return -1;
+            }
+            if (buf.getByte(hit) == JSON_ST) {
+                return hit;
+            }
+            i = hit + 2; // skip the escaped character, \\u only needs its 'u' skipped
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the closing character of a JSON object or array, skipping nested containers and strings.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index right after the opening character.
+     * @param to the index to stop at (exclusive).
+     * @param open the opening character, like '{'.
+     * @param close the closing character, like '}'.
+     * @return the index of the matching closing character, or -1 if it is not in the range yet.
+     */
+    static int findContainerEnd(final ByteBuf buf, final int from, final int to, final byte open,
+        final byte close) {
+        long opens = pattern(open);
+        long closes = pattern(close);
+        int depth = 1;
+        int i = from;
+        while (i < to) {
+            int hit = indexOfAny(buf, i, to, opens, closes, QUOTES);
+            if (hit < 0) {
+                return -1;
+            }
+            byte value = buf.getByte(hit);
+            if (value == JSON_ST) {
+                int end = findStringEnd(buf, hit + 1, to);
+                if (end < 0) {
+                    return -1;
+                }
+                i = end + 1;
+            } else if (value == open) {
+                depth++;
+                i = hit + 1;
+            } else {
+                if (--depth == 0) {
+                    return hit;
+                }
+                i = hit + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfQuoteOrEscape(final ByteBuf buf, final int from, final int to) {
+        int i = from;
+        while (i + 8 <= to) {
+            long word = buf.getLong(i);
+            long found = matches(word, QUOTES) | matches(word, ESCAPES);
+            if (found != 0) {
+                return i + firstMatch(found);
+            }
+            i += 8;
+        }
+        for (; i < to; i++) {
+            byte value = buf.getByte(i);
+            if (value == JSON_ST || value == JSON_ES) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfAny(final ByteBuf buf, final int from, final int to, final long first,
+        final long second, final long third) {
+        int i = from;
+        while (i + 8 <= to) {
+            long word = buf.getLong(i);
+            long found = matches(word, first) | matches(word, second) | matches(word, third);
+            if (found != 0) {
+                return i + firstMatch(found);
+            }
+            i += 8;
+        }
+        byte a = (byte) first;
+        byte b = (byte) second;
+        byte c = (byte) third;
+        for (; i < to; i++) {
+            byte value = buf.getByte(i);
+            if (value == a || value == b || value == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a word with the high bit set in every byte of the word which equals the pattern byte.
+     */
+    static long matches(final long word, final long pattern) {
+        long x = word ^ pattern;
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    /**
+     * Returns the offset of the first (most significant) matching byte in a non zero mask.
+     */
+    static int firstMatch(final long mask) {
+        return Long.numberOfLeadingZeros(mask) >>> 3;
+    }
+
+    static long pattern(final byte value) {
+        return ONES * (value & 0xFF);
+    }
+
+    private static boolean isWhitespace(final byte value) {
+        return value == WS_SPACE || value == WS_TAB || value == WS_LF || value == WS_CR;
+    }
+}
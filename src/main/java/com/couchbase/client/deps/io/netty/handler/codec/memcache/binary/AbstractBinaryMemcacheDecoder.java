@@ -39,6 +39,11 @@ public abstract class AbstractBinaryMemcacheDecoder<M extends BinaryMemcacheMess
 
     public static final int DEFAULT_MAX_CHUNK_SIZE = 8192;
 
+    /**
+     * The framing extras id of the server duration, negotiated through the tracing feature.
+     */
+    public static final int FRAMING_EXTRAS_SERVER_DURATION = 0x00;
+
     private final int chunkSize;
 
     private M currentMessage;
@@ -77,6 +82,24 @@ public abstract class AbstractBinaryMemcacheDecoder<M extends BinaryMemcacheMess
                     resetDecoder();
 
                     currentMessage = decodeHeader(in);
+                    state = State.READ_FRAMING_EXTRAS;
+                } catch (Exception e) {
+                    out.add(invalidMessage(e));
+                    return;
+                }
+                // falls through
+            case READ_FRAMING_EXTRAS:
+                try {
+                    int framingExtrasLength = currentMessage.getFramingExtrasLength() & 0xFF;
+                    if (framingExtrasLength > 0) {
+                        if (in.readableBytes() < framingExtrasLength) {
+                            return;
+                        }
+
+                        currentMessage.setServerDuration(serverDuration(in, in.readerIndex(), framingExtrasLength));
+                        in.skipBytes(framingExtrasLength);
+                    }
+
                     state = State.READ_EXTRAS;
                 } catch (Exception e) {
                     out.add(invalidMessage(e));
@@ -124,7 +147,8 @@ public abstract class AbstractBinaryMemcacheDecoder<M extends BinaryMemcacheMess
                 try {
                     int valueLength = currentMessage.getTotalBodyLength()
                         - currentMessage.getKeyLength()
-                        - currentMessage.getExtrasLength();
+                        - currentMessage.getExtrasLength()
+                        - (currentMessage.getFramingExtrasLength() & 0xFF);
                     int toRead = in.readableBytes();
                     if (valueLength > 0) {
                         if (toRead == 0) {
@@ -171,6 +195,32 @@ public abstract class AbstractBinaryMemcacheDecoder<M extends BinaryMemcacheMess
         }
     }
 
+    /**
+     * Extracts the server duration from the framing extras, without copying them out of the buffer.
+     *
+     * Every frame starts with a byte carrying the frame id in the upper and its length in the lower nibble. The
+     * server duration frame (id 0) holds a two byte encoded value which decodes to microseconds.
+     *
+     * @param buf the buffer holding the framing extras.
+     * @param index the index at which the framing extras start.
+     * @param length the length of the framing extras.
+     * @return the server duration in microseconds or -1 if not present.
+     */
+    public static long serverDuration(final ByteBuf buf, final int index, final int length) {
+        int offset = 0;
+        while (offset < length) {
+            byte header = buf.getByte(index + offset);
+            int id = (header & 0xF0) >>> 4;
+            int frameLength = header & 0x0F;
+            if (id == FRAMING_EXTRAS_SERVER_DURATION && frameLength == 2 && offset + 2 < length) {
+                int encoded = buf.getUnsignedShort(index + offset + 1);
+                return Math.round(Math.pow(encoded, 1.74) / 2);
+            }
+            offset += 1 + frameLength;
+        }
+        return -1;
+    }
+
     /**
      * Helper method to create a message indicating a invalid decoding result.
      *
@@ -252,6 +302,11 @@ public abstract class AbstractBinaryMemcacheDecoder<M extends BinaryMemcacheMess
          */
         READ_HEADER,
 
+        /**
+         * Currently reading the framing extras portion (optional).
+         */
+        READ_FRAMING_EXTRAS,
+
         /**
          * Currently reading the extras portion (optional).
          */
@@ -35,10 +35,16 @@ public abstract class AbstractBinaryMemcacheMessage
      */
     private ByteBuf extras;
 
+    /**
+     * Contains the server duration decoded from the optional framing extras.
+     */
+    private long serverDuration = -1;
+
     private byte magic;
     private byte opcode;
     private short keyLength;
     private byte extrasLength;
+    private byte framingExtrasLength;
     private byte dataType;
     private int totalBodyLength;
     private int opaque;
@@ -143,6 +149,28 @@ public abstract class AbstractBinaryMemcacheMessage
         return this;
     }
 
+    @Override
+    public byte getFramingExtrasLength() {
+        return framingExtrasLength;
+    }
+
+    @Override
+    public BinaryMemcacheMessage setFramingExtrasLength(byte framingExtrasLength) {
+        this.framingExtrasLength = framingExtrasLength;
+        return this;
+    }
+
+    @Override
+    public long getServerDuration() {
+        return serverDuration;
+    }
+
+    @Override
+    public BinaryMemcacheMessage setServerDuration(long serverDuration) {
+        this.serverDuration = serverDuration;
+        return this;
+    }
+
     @Override
     public short getKeyLength() {
         return keyLength;
@@ -183,4 +183,34 @@ public interface BinaryMemcacheMessage extends MemcacheMessage {
      */
     BinaryMemcacheMessage setExtras(ByteBuf extras);
 
+    /**
+     * Return the framing extras length of the message.
+     * <p/>
+     * This is only non-zero for messages using the alternative (flexible framing) magic.
+     *
+     * @return the framing extras length.
+     */
+    byte getFramingExtrasLength();
+
+    /**
+     * Set the framing extras length of the message.
+     *
+     * @param framingExtrasLength the framing extras length.
+     */
+    BinaryMemcacheMessage setFramingExtrasLength(byte framingExtrasLength);
+
+    /**
+     * Returns the server duration carried in the framing extras, in microseconds.
+     *
+     * @return the server duration or -1 if the message carries none.
+     */
+    long getServerDuration();
+
+    /**
+     * Sets the server duration carried in the framing extras.
+     *
+     * @param serverDuration the server duration in microseconds.
+     */
+    BinaryMemcacheMessage setServerDuration(long serverDuration);
+
 }
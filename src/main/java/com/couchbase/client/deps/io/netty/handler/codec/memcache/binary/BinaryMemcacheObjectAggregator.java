@@ -171,6 +171,8 @@ public class BinaryMemcacheObjectAggregator extends AbstractMemcacheObjectAggreg
         fullResponse.setOpcode(response.getOpcode());
         fullResponse.setKeyLength(response.getKeyLength());
         fullResponse.setExtrasLength(response.getExtrasLength());
+        fullResponse.setFramingExtrasLength(response.getFramingExtrasLength());
+        fullResponse.setServerDuration(response.getServerDuration());
         fullResponse.setDataType(response.getDataType());
         fullResponse.setTotalBodyLength(response.getTotalBodyLength());
         fullResponse.setOpaque(response.getOpaque());
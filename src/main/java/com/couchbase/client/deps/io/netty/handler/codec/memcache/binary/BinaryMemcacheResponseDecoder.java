@@ -35,9 +35,15 @@ public class BinaryMemcacheResponseDecoder
     @Override
     protected BinaryMemcacheResponse decodeHeader(ByteBuf in) {
         BinaryMemcacheResponse header = new DefaultBinaryMemcacheResponse();
-        header.setMagic(in.readByte());
+        byte magic = in.readByte();
+        header.setMagic(magic);
         header.setOpcode(in.readByte());
-        header.setKeyLength(in.readShort());
+        if (magic == DefaultBinaryMemcacheResponse.ALT_RESPONSE_MAGIC_BYTE) {
+            header.setFramingExtrasLength(in.readByte());
+            header.setKeyLength((short) (in.readByte() & 0xFF));
+        } else {
+            header.setKeyLength(in.readShort());
+        }
         header.setExtrasLength(in.readByte());
         header.setDataType(in.readByte());
         header.setStatus(in.readShort());
@@ -27,6 +27,11 @@ public class DefaultBinaryMemcacheResponse extends AbstractBinaryMemcacheMessage
      */
     public static final byte RESPONSE_MAGIC_BYTE = (byte) 0x81;
 
+    /**
+     * Magic byte for a response which carries framing extras.
+     */
+    public static final byte ALT_RESPONSE_MAGIC_BYTE = (byte) 0x18;
+
     private short status;
 
     /**
@@ -19,24 +19,33 @@ package com.couchbase.client.core;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.DefaultConfigurationProvider;
 import com.couchbase.client.core.endpoint.ResponseStatusConverter;
 import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.internal.SignalConfigReload;
 import com.couchbase.client.core.message.kv.GetRequest;
 import com.couchbase.client.core.message.kv.GetResponse;
 import com.couchbase.client.core.message.kv.InsertRequest;
 import com.couchbase.client.core.message.kv.InsertResponse;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.MultiObserveResponse;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.core.utils.NetworkAddress;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -45,6 +54,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -64,7 +75,7 @@ public class ResponseHandlerTest {
     @Test
     public void shouldSendProposedConfigToProvider() throws Exception {
         ClusterFacade clusterMock = mock(ClusterFacade.class);
-        ConfigurationProvider providerMock = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider providerMock = mock(DefaultConfigurationProvider.class);
         ResponseHandler handler = new ResponseHandler(ENVIRONMENT, clusterMock, providerMock);
         ByteBuf config = Unpooled.copiedBuffer("{\"json\": true}", CharsetUtil.UTF_8);
 
@@ -74,17 +85,55 @@ public class ResponseHandlerTest {
         retryEvent.setObservable(mock(Subject.class));
         handler.onEvent(retryEvent, 1, true);
 
-        verify(providerMock, times(1)).proposeBucketConfig("bucket", "{\"json\": true}");
+        verify(providerMock, times(1))
+            .proposeBucketConfig(eq("bucket"), any(ByteBuf.class), isNull(NetworkAddress.class));
         assertEquals(0, config.refCnt());
         assertNull(retryEvent.getMessage());
         assertNull(retryEvent.getObservable());
     }
 
     @Test
-    public void shouldIgnoreInvalidConfig() throws Exception {
+    public void shouldDeduplicateConfigReloadSignals() throws Exception {
+        ClusterFacade clusterMock = mock(ClusterFacade.class);
+        ConfigurationProvider providerMock = mock(ConfigurationProvider.class);
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.configReloadDedupWindow()).thenReturn(TimeUnit.MINUTES.toMillis(1));
+        ResponseHandler handler = new ResponseHandler(environment, clusterMock, providerMock);
+
+        for (int i = 0; i < 10; i++) {
+            ResponseEvent event = new ResponseEvent();
+            event.setMessage(SignalConfigReload.INSTANCE);
+            handler.onEvent(event, i, true);
+        }
+
+        verify(providerMock, times(1)).signalOutdated();
+    }
+
+    @Test
+    public void shouldCompleteMultiObserveOnNotMyVbucket() throws Exception {
         ClusterFacade clusterMock = mock(ClusterFacade.class);
         ConfigurationProvider providerMock = mock(ConfigurationProvider.class);
         ResponseHandler handler = new ResponseHandler(ENVIRONMENT, clusterMock, providerMock);
+
+        MultiObserveResponse response = new MultiObserveResponse(ResponseStatus.RETRY,
+            KeyValueStatus.ERR_NOT_MY_VBUCKET.code(), Arrays.<String>asList(), new ObserveResponse.ObserveStatus[0],
+            new long[0], "bucket", mock(MultiObserveRequest.class));
+        AsyncSubject<CouchbaseResponse> subject = AsyncSubject.create();
+        ResponseEvent event = new ResponseEvent();
+        event.setMessage(response);
+        event.setObservable(subject);
+        handler.onEvent(event, 1, true);
+
+        assertEquals(response, subject.timeout(5, TimeUnit.SECONDS).toBlocking().single());
+        verify(clusterMock, never()).send(any(CouchbaseRequest.class));
+        verify(providerMock, times(1)).signalOutdated();
+    }
+
+    @Test
+    public void shouldIgnoreInvalidConfig() throws Exception {
+        ClusterFacade clusterMock = mock(ClusterFacade.class);
+        DefaultConfigurationProvider providerMock = mock(DefaultConfigurationProvider.class);
+        ResponseHandler handler = new ResponseHandler(ENVIRONMENT, clusterMock, providerMock);
         ByteBuf config = Unpooled.copiedBuffer("Not my Vbucket", CharsetUtil.UTF_8);
 
         ResponseEvent retryEvent = new ResponseEvent();
@@ -93,7 +142,7 @@ public class ResponseHandlerTest {
         retryEvent.setObservable(mock(Subject.class));
         handler.onEvent(retryEvent, 1, true);
 
-        verify(providerMock, never()).proposeBucketConfig("bucket", "Not my Vbucket");
+        verify(providerMock, never()).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, config.refCnt());
         assertNull(retryEvent.getMessage());
         assertNull(retryEvent.getObservable());
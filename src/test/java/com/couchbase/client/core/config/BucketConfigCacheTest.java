@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.config;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link BucketConfigCache}.
+ *
+ * @since 1.5.2
+ */
+public class BucketConfigCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReturnNullIfNothingStored() throws Exception {
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        assertNull(cache.load("default"));
+    }
+
+    @Test
+    public void shouldStoreAndLoadConfig() throws Exception {
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        assertTrue(cache.store("default", "{\"rev\":1}"));
+        assertEquals("{\"rev\":1}", cache.load("default"));
+        assertNull(cache.load("other"));
+    }
+
+    @Test
+    public void shouldReplaceStoredConfig() throws Exception {
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        assertTrue(cache.store("default", "{\"rev\":1}"));
+        assertTrue(cache.store("default", "{\"rev\":2}"));
+        assertEquals("{\"rev\":2}", cache.load("default"));
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void shouldCreateDirectoryAndEncodeBucketNames() throws Exception {
+        File directory = new File(folder.getRoot(), "cluster");
+        BucketConfigCache cache = new BucketConfigCache(directory);
+        assertFalse(directory.exists());
+
+        assertTrue(cache.store("my/bucket", "{}"));
+        assertEquals("{}", cache.load("my/bucket"));
+        assertTrue(new File(directory, "my%2Fbucket.json").isFile());
+    }
+
+    @Test
+    public void shouldStoreInBackgroundAndKeepHighestRevision() throws Exception {
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        cache.storeAsync("default", 2, "{\"rev\":2}");
+        cache.storeAsync("default", 3, "{\"rev\":3}");
+        cache.storeAsync("default", 1, "{\"rev\":1}");
+        cache.storeAsync("marker", 1, "{}");
+
+        // the writer works in order, so once the marker is written the default bucket is done as well.
+        for (int i = 0; i < 100 && cache.load("marker") == null; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("{}", cache.load("marker"));
+        assertEquals("{\"rev\":3}", cache.load("default"));
+        cache.shutdown();
+    }
+
+    @Test
+    public void shouldNotStoreAfterShutdown() throws Exception {
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        cache.shutdown();
+        cache.storeAsync("default", 1, "{}");
+        assertNull(cache.load("default"));
+    }
+}
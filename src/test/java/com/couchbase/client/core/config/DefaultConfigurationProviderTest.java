@@ -16,15 +16,24 @@
 package com.couchbase.client.core.config;
 
 import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.core.config.loader.Loader;
+import com.couchbase.client.core.config.parser.BucketConfigParser;
+import com.couchbase.client.core.config.refresher.CarrierRefresher;
 import com.couchbase.client.core.config.refresher.Refresher;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.lang.Tuple;
 import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.util.Resources;
 import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.internal.util.collections.Sets;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -37,14 +46,18 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -57,6 +70,9 @@ public class DefaultConfigurationProviderTest {
 
     private static final CoreEnvironment environment = DefaultCoreEnvironment.create();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldOpenBucket() throws Exception {
@@ -408,9 +424,278 @@ public class DefaultConfigurationProviderTest {
 
     }
 
+    @Test
+    public void shouldSkipParsingProposedConfigWithSeenRev() throws Exception {
+        ClusterFacade cluster = mock(ClusterFacade.class);
+        Loader loader = mock(Loader.class);
+        final Refresher refresher = mock(Refresher.class);
+        when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(
+            cluster,
+            environment,
+            Arrays.asList(loader),
+            new HashMap<LoaderType, Refresher>() {{
+                put(LoaderType.Carrier, refresher);
+            }}
+        );
+
+        final AtomicInteger configsPushed = new AtomicInteger();
+        provider.configs().subscribe(new Action1<ClusterConfig>() {
+            @Override
+            public void call(ClusterConfig clusterConfig) {
+                configsPushed.incrementAndGet();
+            }
+        });
+
+        String raw = Resources.read("config_with_mixed_partitions.json", getClass());
+        ByteBuf rawWithRev = Unpooled.copiedBuffer(raw.replaceFirst("\\{", "{\"rev\":1234,"), CharsetUtil.UTF_8);
+
+        provider.proposeBucketConfig("default", rawWithRev, null);
+        assertEquals(1, configsPushed.get());
+        assertEquals(1234, provider.config().bucketConfig("default").rev());
+
+        provider.proposeBucketConfig("default", rawWithRev, null);
+        provider.proposeBucketConfig("default", Unpooled.copiedBuffer("{\"rev\":1000,garbage", CharsetUtil.UTF_8),
+            null);
+        assertEquals(1, configsPushed.get());
+        assertEquals(1, rawWithRev.refCnt());
+        rawWithRev.release();
+    }
+
+    @Test
+    public void shouldProposeDecodedConfigToOtherProviders() {
+        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        ByteBuf raw = Unpooled.copiedBuffer("{\"rev\":1234,\"host\":\"$HOST\"}", CharsetUtil.UTF_8);
+
+        DefaultConfigurationProvider.proposeBucketConfig(provider, "default", raw, null);
+        verify(provider).proposeBucketConfig("default", "{\"rev\":1234,\"host\":\"$HOST\"}");
+
+        DefaultConfigurationProvider.proposeBucketConfig(provider, "default", raw,
+            NetworkAddress.create("1.2.3.4"));
+        verify(provider).proposeBucketConfig("default", "{\"rev\":1234,\"host\":\"1.2.3.4\"}");
+        assertEquals(1, raw.refCnt());
+        raw.release();
+    }
+
+    @Test
+    public void shouldSignalClustermapNotificationsToCarrierRefresher() {
+        ClusterFacade cluster = mock(ClusterFacade.class);
+        Loader loader = mock(Loader.class);
+        final CarrierRefresher carrierRefresher = mock(CarrierRefresher.class);
+        when(carrierRefresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+        final Refresher httpRefresher = mock(Refresher.class);
+        when(httpRefresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(
+            cluster,
+            environment,
+            Arrays.asList(loader),
+            new HashMap<LoaderType, Refresher>() {{
+                put(LoaderType.Carrier, carrierRefresher);
+                put(LoaderType.HTTP, httpRefresher);
+            }}
+        );
+
+        NetworkAddress node = NetworkAddress.create("1.2.3.4");
+        provider.signalClustermapNotifications("default", node, true);
+        verify(carrierRefresher).markClustermapNotifications("default", node, true);
+    }
+
+    @Test
+    public void shouldParseSeenRevAgainIfParsingFailed() throws Exception {
+        ClusterFacade cluster = mock(ClusterFacade.class);
+        Loader loader = mock(Loader.class);
+        final Refresher refresher = mock(Refresher.class);
+        when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(
+            cluster,
+            environment,
+            Arrays.asList(loader),
+            new HashMap<LoaderType, Refresher>() {{
+                put(LoaderType.Carrier, refresher);
+            }}
+        );
+
+        ByteBuf garbage = Unpooled.copiedBuffer("{\"rev\":1234,garbage", CharsetUtil.UTF_8);
+        try {
+            provider.proposeBucketConfig("default", garbage, null);
+            assertTrue(false);
+        } catch (CouchbaseException ex) {
+            // expected, the config could not be parsed.
+        } finally {
+            garbage.release();
+        }
+
+        String raw = Resources.read("config_with_mixed_partitions.json", getClass());
+        ByteBuf rawWithRev = Unpooled.copiedBuffer(raw.replaceFirst("\\{", "{\"rev\":1234,"), CharsetUtil.UTF_8);
+        provider.proposeBucketConfig("default", rawWithRev, null);
+        rawWithRev.release();
+        assertEquals(1234, provider.config().bucketConfig("default").rev());
+    }
+
+    @Test
+    public void shouldOpenBucketWithCachedConfig() throws Exception {
+        String raw = Resources.read("config_with_mixed_partitions.json", getClass());
+        new BucketConfigCache(folder.getRoot()).store("default", raw);
+        CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .configCacheDirectory(folder.getRoot().getAbsolutePath())
+            .build();
+
+        try {
+            ClusterFacade cluster = mock(ClusterFacade.class);
+            Loader loader = mock(Loader.class);
+            when(loader.loadConfig(any(NetworkAddress.class), anyString(), anyString(), anyString()))
+                .thenReturn(Observable.<Tuple2<LoaderType, BucketConfig>>never());
+
+            final Refresher refresher = mock(Refresher.class);
+            when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+            when(refresher.registerBucket(anyString(), anyString(), anyString())).thenReturn(Observable.just(true));
+
+            ConfigurationProvider provider = new DefaultConfigurationProvider(
+                cluster,
+                env,
+                Arrays.asList(loader),
+                new HashMap<LoaderType, Refresher>() {{
+                    put(LoaderType.Carrier, refresher);
+                }}
+            );
+
+            provider.seedHosts(Sets.newSet(NetworkAddress.localhost()), true);
+            ClusterConfig config = provider.openBucket("default", "password").toBlocking().first();
+            assertTrue(config.hasBucket("default"));
+            assertEquals("password", config.bucketConfig("default").password());
+        } finally {
+            env.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFailOpenIfCachedConfigIsRejected() throws Exception {
+        String raw = Resources.read("config_with_mixed_partitions.json", getClass());
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        cache.store("default", raw);
+        CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .configCacheDirectory(folder.getRoot().getAbsolutePath())
+            .build();
+
+        try {
+            ClusterFacade cluster = mock(ClusterFacade.class);
+            Loader loader = mock(Loader.class);
+            when(loader.loadConfig(any(NetworkAddress.class), anyString(), anyString(), anyString()))
+                .thenReturn(Observable.<Tuple2<LoaderType, BucketConfig>>error(
+                    new IllegalStateException("Could not load bucket configuration: ACCESS_ERROR")));
+
+            final Refresher refresher = mock(Refresher.class);
+            when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+            when(refresher.registerBucket(anyString(), anyString(), anyString())).thenReturn(Observable.just(true));
+
+            ConfigurationProvider provider = new DefaultConfigurationProvider(
+                cluster,
+                env,
+                Arrays.asList(loader),
+                new HashMap<LoaderType, Refresher>() {{
+                    put(LoaderType.Carrier, refresher);
+                }}
+            );
+
+            provider.seedHosts(Sets.newSet(NetworkAddress.localhost()), true);
+            try {
+                provider.openBucket("default", "wrong").toBlocking().first();
+                assertTrue(false);
+            } catch (ConfigurationException ex) {
+                assertEquals("Could not open bucket.", ex.getMessage());
+            }
+            assertFalse(provider.config().hasBucket("default"));
+            assertNull(cache.load("default"));
+        } finally {
+            env.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldCloseCachedBucketIfLoadFailsAfterOpen() throws Exception {
+        String raw = Resources.read("config_with_mixed_partitions.json", getClass());
+        BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+        cache.store("default", raw);
+        CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .configCacheDirectory(folder.getRoot().getAbsolutePath())
+            .build();
+
+        try {
+            ClusterFacade cluster = mock(ClusterFacade.class);
+            Loader loader = mock(Loader.class);
+            AsyncSubject<Tuple2<LoaderType, BucketConfig>> live = AsyncSubject.create();
+            when(loader.loadConfig(any(NetworkAddress.class), anyString(), anyString(), anyString()))
+                .thenReturn(live);
+
+            final Refresher refresher = mock(Refresher.class);
+            when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+            when(refresher.registerBucket(anyString(), anyString(), anyString())).thenReturn(Observable.just(true));
+
+            ConfigurationProvider provider = new DefaultConfigurationProvider(
+                cluster,
+                env,
+                Arrays.asList(loader),
+                new HashMap<LoaderType, Refresher>() {{
+                    put(LoaderType.Carrier, refresher);
+                }}
+            );
+
+            provider.seedHosts(Sets.newSet(NetworkAddress.localhost()), true);
+            ClusterConfig config = provider.openBucket("default", "password").toBlocking().first();
+            assertTrue(config.hasBucket("default"));
+
+            live.onError(new IllegalStateException("Could not load bucket configuration: NOT_EXISTS"));
+            assertFalse(provider.config().hasBucket("default"));
+            assertNull(cache.load("default"));
+        } finally {
+            env.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldPersistAppliedConfig() throws Exception {
+        CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .configCacheDirectory(folder.getRoot().getAbsolutePath())
+            .build();
+
+        try {
+            ClusterFacade cluster = mock(ClusterFacade.class);
+            final Refresher refresher = mock(Refresher.class);
+            when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+
+            DefaultConfigurationProvider provider = new DefaultConfigurationProvider(
+                cluster,
+                env,
+                Arrays.asList(mock(Loader.class)),
+                new HashMap<LoaderType, Refresher>() {{
+                    put(LoaderType.Carrier, refresher);
+                }}
+            );
+
+            String raw = Resources.read("config_with_mixed_partitions.json", getClass());
+            ByteBuf rawWithRev = Unpooled.copiedBuffer(raw.replaceFirst("\\{", "{\"rev\":1234,"), CharsetUtil.UTF_8);
+            provider.proposeBucketConfig("default", rawWithRev, null);
+            rawWithRev.release();
+
+            BucketConfigCache cache = new BucketConfigCache(folder.getRoot());
+            String stored = null;
+            for (int i = 0; i < 100 && stored == null; i++) {
+                stored = cache.load("default");
+                Thread.sleep(20);
+            }
+            assertNotNull(stored);
+            assertEquals(1234, BucketConfigParser.parse(stored, env).rev());
+        } finally {
+            env.shutdown();
+        }
+    }
+
     @Test
     @Ignore
     public void shouldAcceptProposedConfig() {
 
     }
-}
\ No newline at end of file
+}
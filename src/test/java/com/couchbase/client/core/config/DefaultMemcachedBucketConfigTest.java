@@ -19,11 +19,14 @@ import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.util.Resources;
+import com.couchbase.client.core.utils.NetworkAddress;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
+import java.security.MessageDigest;
 import java.util.Map;
+import java.util.SortedMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -53,4 +56,32 @@ public class DefaultMemcachedBucketConfigTest {
         }
     }
 
+    /**
+     * Makes sure that the flattened ketama ring routes every key exactly like a lookup into the
+     * sorted ketama node map, including the wrap around at the end of the ring.
+     */
+    @Test
+    public void shouldRouteLikeSortedKetamaNodes() throws Exception {
+        String raw = Resources.read("memcached_mixed_sherlock.json", getClass());
+        InjectableValues inject = new InjectableValues.Std()
+            .addValue("env", environment);
+        MemcachedBucketConfig config = JSON_MAPPER.readerFor(MemcachedBucketConfig.class).with(inject).readValue(raw);
+
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        for (int i = 0; i < 10000; i++) {
+            byte[] key = ("key-" + i).getBytes("UTF-8");
+            byte[] digest = md5.digest(key);
+            long hash = (((long) (digest[3] & 0xFF) << 24)
+                | ((long) (digest[2] & 0xFF) << 16)
+                | ((long) (digest[1] & 0xFF) << 8)
+                | (digest[0] & 0xFF)) & 0xffffffffL;
+
+            SortedMap<Long, NodeInfo> tail = config.ketamaNodes().tailMap(hash);
+            NetworkAddress expected = tail.isEmpty()
+                ? config.ketamaNodes().get(config.ketamaNodes().firstKey()).hostname()
+                : tail.get(tail.firstKey()).hostname();
+            assertEquals(expected, config.nodeForId(key));
+        }
+    }
+
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.couchbase.client.core.config.parser;
+
+import com.couchbase.client.core.config.AbstractBucketConfig;
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.util.Resources;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link BucketConfigParser}.
+ *
+ * @since 1.5.2
+ */
+public class BucketConfigParserTest {
+
+    private static final CoreEnvironment ENVIRONMENT = DefaultCoreEnvironment.create();
+
+    @Test
+    public void shouldParseRevFromBuffer() {
+        ByteBuf raw = Unpooled.copiedBuffer(Resources.read("config_with_host_placeholder.json", getClass()),
+            CharsetUtil.UTF_8);
+        assertEquals(1073, BucketConfigParser.parseRev(raw));
+        assertEquals(0, raw.readerIndex());
+        raw.release();
+    }
+
+    @Test
+    public void shouldParseRevWithoutWhitespace() {
+        ByteBuf raw = Unpooled.copiedBuffer("{\"rev\":42,\"name\":\"default\"}", CharsetUtil.UTF_8);
+        assertEquals(42, BucketConfigParser.parseRev(raw));
+        raw.release();
+    }
+
+    @Test
+    public void shouldReturnNoRevIfMissing() {
+        ByteBuf raw = Unpooled.copiedBuffer("{\"name\":\"default\",\"revision\":5}", CharsetUtil.UTF_8);
+        assertEquals(BucketConfigParser.NO_REV, BucketConfigParser.parseRev(raw));
+        raw.release();
+
+        raw = Unpooled.copiedBuffer("{\"rev\":\"abc\"}", CharsetUtil.UTF_8);
+        assertEquals(BucketConfigParser.NO_REV, BucketConfigParser.parseRev(raw));
+        raw.release();
+    }
+
+    @Test
+    public void shouldDetectConfigContent() {
+        ByteBuf raw = Unpooled.copiedBuffer("  \n{\"rev\":42}", CharsetUtil.UTF_8);
+        assertTrue(BucketConfigParser.isConfig(raw));
+        raw.release();
+
+        raw = Unpooled.copiedBuffer("Not my Vbucket", CharsetUtil.UTF_8);
+        assertFalse(BucketConfigParser.isConfig(raw));
+        raw.release();
+
+        assertFalse(BucketConfigParser.isConfig(Unpooled.EMPTY_BUFFER));
+    }
+
+    @Test
+    public void shouldParseFromBufferAndReplaceHost() {
+        ByteBuf raw = Unpooled.copiedBuffer(Resources.read("config_with_host_placeholder.json", getClass()),
+            CharsetUtil.UTF_8);
+        BucketConfig config = BucketConfigParser.parse(raw, ENVIRONMENT, NetworkAddress.create("1.2.3.4"));
+
+        assertTrue(config instanceof CouchbaseBucketConfig);
+        assertEquals(1073, config.rev());
+        assertEquals("default", config.name());
+        assertEquals(NetworkAddress.create("1.2.3.4"), config.nodes().get(0).hostname());
+        assertEquals(NetworkAddress.create("1.2.3.4"), ((CouchbaseBucketConfig) config).nodeAtIndex(0).hostname());
+        assertEquals(0, raw.readerIndex());
+        raw.release();
+    }
+
+    @Test
+    public void shouldParseSameAsStringVariant() {
+        String input = Resources.read("config_with_host_placeholder.json", getClass())
+            .replace("$HOST", "1.2.3.4");
+        ByteBuf raw = Unpooled.copiedBuffer(input, CharsetUtil.UTF_8);
+
+        BucketConfig fromBuffer = BucketConfigParser.parse(raw, ENVIRONMENT, null);
+        BucketConfig fromString = BucketConfigParser.parse(input, ENVIRONMENT);
+        assertEquals(fromString.toString(), fromBuffer.toString());
+        raw.release();
+    }
+
+    @Test
+    public void shouldOnlyKeepRawConfigWithConfigCache() {
+        String input = Resources.read("config_with_host_placeholder.json", getClass())
+            .replace("$HOST", "1.2.3.4");
+        assertNull(((AbstractBucketConfig) BucketConfigParser.parse(input, ENVIRONMENT)).rawConfig());
+
+        CoreEnvironment env = DefaultCoreEnvironment.builder().configCacheDirectory("configs").build();
+        try {
+            assertEquals(input, ((AbstractBucketConfig) BucketConfigParser.parse(input, env)).rawConfig());
+        } finally {
+            env.shutdown();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.DefaultConfigurationProvider;
 import com.couchbase.client.core.config.DefaultNodeInfo;
 import com.couchbase.client.core.config.NodeInfo;
 import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
@@ -52,6 +53,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -71,7 +73,7 @@ public class CarrierRefresherTest {
     @Test
     public void shouldProposeConfigFromTaintedPoller() throws Exception {
         ClusterFacade cluster = mock(ClusterFacade.class);
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         BucketConfig config = mock(BucketConfig.class);
 
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
@@ -107,14 +109,14 @@ public class CarrierRefresherTest {
 
         Thread.sleep(1500);
 
-        verify(provider, times(1)).proposeBucketConfig("bucket", "{\"config\": true}");
+        verify(provider, times(1)).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, bufRef.get().refCnt());
     }
 
     @Test
     public void shouldNotProposeInvalidConfigFromTaintedPoller() throws Exception {
         ClusterFacade cluster = mock(ClusterFacade.class);
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         BucketConfig config = mock(BucketConfig.class);
 
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
@@ -141,7 +143,7 @@ public class CarrierRefresherTest {
 
         Thread.sleep(1500);
 
-        verify(provider, never()).proposeBucketConfig("bucket", "");
+        verify(provider, never()).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, content.refCnt());
     }
 
@@ -150,7 +152,7 @@ public class CarrierRefresherTest {
         ClusterFacade cluster = mock(ClusterFacade.class);
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
         refresher.registerBucket("bucket", "");
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         refresher.provider(provider);
 
         ClusterConfig clusterConfig = mock(ClusterConfig.class);
@@ -180,7 +182,7 @@ public class CarrierRefresherTest {
 
         Thread.sleep(200);
 
-        verify(provider, times(1)).proposeBucketConfig("bucket", "{\"config\": true}");
+        verify(provider, times(1)).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, content.refCnt());
     }
 
@@ -189,7 +191,7 @@ public class CarrierRefresherTest {
         ClusterFacade cluster = mock(ClusterFacade.class);
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
         refresher.registerBucket("bucket", "");
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         refresher.provider(provider);
 
         ClusterConfig clusterConfig = mock(ClusterConfig.class);
@@ -220,7 +222,7 @@ public class CarrierRefresherTest {
 
         Thread.sleep(200);
 
-        verify(provider, never()).proposeBucketConfig("bucket", "");
+        verify(provider, never()).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, content.refCnt());
     }
 
@@ -229,7 +231,7 @@ public class CarrierRefresherTest {
         ClusterFacade cluster = mock(ClusterFacade.class);
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
         refresher.registerBucket("bucket", "");
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         refresher.provider(provider);
 
         ClusterConfig clusterConfig = mock(ClusterConfig.class);
@@ -263,14 +265,14 @@ public class CarrierRefresherTest {
 
         Thread.sleep(1500);
 
-        verify(provider, times(1)).proposeBucketConfig("bucket", "{\"config\": true}");
+        verify(provider, times(1)).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, content.refCnt());
     }
 
     @Test
     public void shouldFallbackToNextOnPollWhenFirstFails() throws Exception {
         ClusterFacade cluster = mock(ClusterFacade.class);
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         BucketConfig config = mock(BucketConfig.class);
 
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
@@ -298,14 +300,14 @@ public class CarrierRefresherTest {
 
         Thread.sleep(1500);
 
-        verify(provider, times(1)).proposeBucketConfig("bucket", "{\"config\": true}");
+        verify(provider, times(1)).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, content.refCnt());
     }
 
     @Test
     public void shouldIgnoreNodeWithoutKVServiceEnabled() throws Exception {
         ClusterFacade cluster = mock(ClusterFacade.class);
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         BucketConfig config = mock(BucketConfig.class);
 
         CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
@@ -334,7 +336,7 @@ public class CarrierRefresherTest {
 
         Thread.sleep(1500);
 
-        verify(provider, times(1)).proposeBucketConfig("bucket", "{\"config\": true}");
+        verify(provider, times(1)).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals(0, content.refCnt());
     }
 
@@ -501,7 +503,7 @@ public class CarrierRefresherTest {
         ClusterFacade cluster = mock(ClusterFacade.class);
         final CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
         refresher.registerBucket("bucket", "");
-        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        DefaultConfigurationProvider provider = mock(DefaultConfigurationProvider.class);
         refresher.provider(provider);
 
         ClusterConfig clusterConfig = mock(ClusterConfig.class);
@@ -545,7 +547,7 @@ public class CarrierRefresherTest {
         refresher.refresh(clusterConfig);
         Thread.sleep(500);
 
-        verify(provider, times(4)).proposeBucketConfig("bucket", "{\"config\": true}");
+        verify(provider, times(4)).proposeBucketConfig(eq("bucket"), any(ByteBuf.class), any(NetworkAddress.class));
         assertEquals("1.2.3.4", nodesRequested.get(0));
         assertEquals("2.3.4.5", nodesRequested.get(1));
         assertEquals("1.2.3.4", nodesRequested.get(2));
@@ -588,4 +590,45 @@ public class CarrierRefresherTest {
 
         verify(clusterFacade, times(2)).send(any(CouchbaseRequest.class));
     }
+
+    @Test
+    public void shouldRelaxPollingUntilAllEndpointsOfNodeStopNotifying() throws Exception {
+        CoreEnvironment env = mock(CoreEnvironment.class);
+        when(env.sslEnabled()).thenReturn(false);
+        when(env.scheduler()).thenReturn(new CoreScheduler(4));
+        when(env.configSafetyNetPollInterval()).thenReturn(60000L);
+        ClusterFacade clusterFacade = mock(ClusterFacade.class);
+        when(clusterFacade.send(any(CouchbaseRequest.class))).thenReturn(Observable.<CouchbaseResponse>never());
+        CarrierRefresher refresher = new CarrierRefresher(env, clusterFacade);
+        refresher.registerBucket("bucket", "password");
+
+        List<NodeInfo> nodeInfos = new ArrayList<NodeInfo>();
+        Map<String, Integer> ports = new HashMap<String, Integer>();
+        ports.put("direct", 11210);
+        nodeInfos.add(new DefaultNodeInfo(null, "1.2.3.4:8091", ports));
+        ClusterConfig cc = mock(ClusterConfig.class);
+        BucketConfig bc = mock(BucketConfig.class);
+        when(bc.name()).thenReturn("bucket");
+        when(bc.nodes()).thenReturn(nodeInfos);
+        when(cc.bucketConfigs()).thenReturn(Collections.singletonMap("bucket", bc));
+
+        NetworkAddress node = NetworkAddress.create("1.2.3.4");
+        refresher.markClustermapNotifications("bucket", node, true);
+        refresher.markClustermapNotifications("bucket", node, true);
+
+        refresher.refresh(cc);
+        Thread.sleep(100);
+        verify(clusterFacade, times(1)).send(any(CouchbaseRequest.class));
+
+        // one of the two endpoints went away, the node still pushes.
+        refresher.markClustermapNotifications("bucket", node, false);
+        refresher.refresh(cc);
+        Thread.sleep(100);
+        verify(clusterFacade, times(1)).send(any(CouchbaseRequest.class));
+
+        refresher.markClustermapNotifications("bucket", node, false);
+        refresher.refresh(cc);
+        Thread.sleep(100);
+        verify(clusterFacade, times(2)).send(any(CouchbaseRequest.class));
+    }
 }
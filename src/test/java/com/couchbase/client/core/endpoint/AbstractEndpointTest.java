@@ -15,10 +15,13 @@
  */
 package com.couchbase.client.core.endpoint;
 
+import com.couchbase.client.core.CircuitBreakerOpenException;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.KeepAlive;
+import com.couchbase.client.core.message.kv.BinaryRequest;
 import com.couchbase.client.core.state.LifecycleState;
 import com.couchbase.client.core.state.NotConnectedException;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -45,6 +48,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Verifies the functionality of {@link AbstractEndpoint}s.
@@ -249,6 +253,56 @@ public class AbstractEndpointTest {
         }
     }
 
+    @Test(expected = CircuitBreakerOpenException.class)
+    public void shouldFailFastIfCircuitBreakerIsOpen() {
+        CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .circuitBreakerConfig(CircuitBreakerConfig.builder().volumeThreshold(1).build())
+            .build();
+        try {
+            BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+            when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+            AbstractEndpoint endpoint = new DummyEndpoint(bootstrap, env);
+            assertEquals(LifecycleState.CONNECTED, endpoint.connect().toBlocking().single());
+
+            endpoint.circuitBreaker().onFailure(mock(BinaryRequest.class));
+
+            BinaryRequest mockRequest = mock(BinaryRequest.class);
+            Subject<CouchbaseResponse, CouchbaseResponse> subject = AsyncSubject.create();
+            when(mockRequest.observable()).thenReturn(subject);
+            endpoint.send(mockRequest);
+            channel.flush();
+
+            assertEquals(0, channel.outboundMessages().size());
+            mockRequest.observable().toBlocking().single();
+        } finally {
+            env.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldSendKeepAliveIfCircuitBreakerIsOpen() {
+        CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .circuitBreakerConfig(CircuitBreakerConfig.builder().volumeThreshold(1).build())
+            .build();
+        try {
+            BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+            when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+            AbstractEndpoint endpoint = new DummyEndpoint(bootstrap, env);
+            assertEquals(LifecycleState.CONNECTED, endpoint.connect().toBlocking().single());
+
+            endpoint.circuitBreaker().onFailure(mock(BinaryRequest.class));
+
+            BinaryRequest keepAlive = mock(BinaryRequest.class, withSettings().extraInterfaces(KeepAlive.class));
+            endpoint.send(keepAlive);
+            channel.flush();
+
+            assertEquals(1, channel.outboundMessages().size());
+            assertEquals(CircuitBreaker.State.OPEN, endpoint.circuitBreaker().state());
+        } finally {
+            env.shutdown();
+        }
+    }
+
     @Test
     public void shouldSetDispatchedHostnameAfterSend() {
         BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import com.couchbase.client.core.event.CouchbaseEvent;
+import com.couchbase.client.core.event.EventBus;
+import com.couchbase.client.core.event.system.CircuitBreakerStateChangedEvent;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import rx.schedulers.TestScheduler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Verifies the functionality of the {@link CircuitBreaker}.
+ *
+ * @since 1.5.2
+ */
+public class CircuitBreakerTest {
+
+    private TestScheduler scheduler;
+    private EventBus eventBus;
+    private CircuitBreaker breaker;
+    private CouchbaseRequest request;
+
+    @Before
+    public void setup() {
+        scheduler = new TestScheduler();
+        eventBus = mock(EventBus.class);
+        request = mock(CouchbaseRequest.class);
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+            .volumeThreshold(10)
+            .errorThresholdPercentage(50)
+            .slowCallThreshold(100, TimeUnit.MILLISECONDS)
+            .sleepWindow(1, TimeUnit.SECONDS)
+            .rollingWindow(10, TimeUnit.SECONDS)
+            .build();
+        breaker = new CircuitBreaker(config, scheduler, eventBus, "127.0.0.1", "default", "KeyValueEndpoint");
+    }
+
+    @Test
+    public void shouldStayClosedBelowVolumeThreshold() {
+        for (int i = 0; i < 9; i++) {
+            breaker.onFailure(request);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.allowRequest(request));
+        verify(eventBus, never()).publish(any(CouchbaseEvent.class));
+    }
+
+    @Test
+    public void shouldStayClosedBelowErrorThreshold() {
+        for (int i = 0; i < 20; i++) {
+            breaker.onSuccess(request, 0);
+        }
+        for (int i = 0; i < 19; i++) {
+            breaker.onFailure(request);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void shouldOpenAtErrorThreshold() {
+        for (int i = 0; i < 5; i++) {
+            breaker.onSuccess(request, 0);
+            breaker.onFailure(request);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.allowRequest(request));
+
+        ArgumentCaptor<CouchbaseEvent> captor = ArgumentCaptor.forClass(CouchbaseEvent.class);
+        verify(eventBus, times(1)).publish(captor.capture());
+        CircuitBreakerStateChangedEvent event = (CircuitBreakerStateChangedEvent) captor.getValue();
+        assertEquals(CircuitBreaker.State.CLOSED, event.from());
+        assertEquals(CircuitBreaker.State.OPEN, event.to());
+        assertEquals("127.0.0.1", event.hostname());
+        assertEquals("KeyValueEndpoint", event.endpoint());
+    }
+
+    @Test
+    public void shouldCountSlowCallsAsFailures() {
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess(request, TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    public void shouldForgetOutcomesOutsideRollingWindow() {
+        for (int i = 0; i < 9; i++) {
+            breaker.onFailure(request);
+        }
+        scheduler.advanceTimeBy(11, TimeUnit.SECONDS);
+        breaker.onFailure(request);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void shouldCloseAfterSuccessfulCanary() {
+        open();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        CouchbaseRequest canary = mock(CouchbaseRequest.class);
+        assertTrue(breaker.allowRequest(canary));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.allowRequest(request));
+
+        breaker.onSuccess(canary, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.allowRequest(request));
+
+        ArgumentCaptor<CouchbaseEvent> captor = ArgumentCaptor.forClass(CouchbaseEvent.class);
+        verify(eventBus, times(3)).publish(captor.capture());
+        List<CouchbaseEvent> events = captor.getAllValues();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, ((CircuitBreakerStateChangedEvent) events.get(1)).to());
+        assertEquals(CircuitBreaker.State.CLOSED, ((CircuitBreakerStateChangedEvent) events.get(2)).to());
+    }
+
+    @Test
+    public void shouldReopenAfterFailedCanary() {
+        open();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        CouchbaseRequest canary = mock(CouchbaseRequest.class);
+        assertTrue(breaker.allowRequest(canary));
+        breaker.onFailure(canary);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.allowRequest(request));
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertTrue(breaker.allowRequest(request));
+    }
+
+    @Test
+    public void shouldSendAnotherCanaryIfFirstDoesNotComplete() {
+        open();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertTrue(breaker.allowRequest(request));
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        assertFalse(breaker.allowRequest(request));
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        assertTrue(breaker.allowRequest(request));
+    }
+
+    @Test
+    public void shouldOnlyCountCanaryOutcomeWhenHalfOpen() {
+        open();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        CouchbaseRequest canary = mock(CouchbaseRequest.class);
+        assertTrue(breaker.allowRequest(canary));
+        breaker.onSuccess(request, 0);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        breaker.onFailure(request);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        breaker.onSuccess(canary, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void shouldIgnoreOutcomeOfReplacedCanary() {
+        open();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        CouchbaseRequest first = mock(CouchbaseRequest.class);
+        CouchbaseRequest second = mock(CouchbaseRequest.class);
+        assertTrue(breaker.allowRequest(first));
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertTrue(breaker.allowRequest(second));
+
+        breaker.onSuccess(first, 0);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        breaker.onFailure(second);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void open() {
+        for (int i = 0; i < 10; i++) {
+            breaker.onFailure(request);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies the functionality of the {@link ConnectLimiter}.
+ *
+ * @since 1.5.2
+ */
+public class ConnectLimiterTest {
+
+    @Test
+    public void shouldQueueConnectsBeyondLimit() {
+        ConnectLimiter limiter = new ConnectLimiter(2);
+        List<Integer> connected = new ArrayList<Integer>();
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire("node1", record(connected, i));
+        }
+        assertEquals(2, connected.size());
+        assertEquals(2, limiter.inFlight("node1"));
+        assertEquals(2, limiter.waiting("node1"));
+
+        limiter.release("node1");
+        assertEquals(3, connected.size());
+        assertEquals(2, limiter.inFlight("node1"));
+        assertEquals(1, limiter.waiting("node1"));
+
+        limiter.release("node1");
+        limiter.release("node1");
+        limiter.release("node1");
+        assertEquals(4, connected.size());
+        assertEquals(0, limiter.inFlight("node1"));
+        assertEquals(0, limiter.waiting("node1"));
+        assertEquals(Integer.valueOf(3), connected.get(3));
+    }
+
+    @Test
+    public void shouldLimitPerNode() {
+        ConnectLimiter limiter = new ConnectLimiter(1);
+        List<Integer> connected = new ArrayList<Integer>();
+
+        limiter.acquire("node1", record(connected, 1));
+        limiter.acquire("node1", record(connected, 2));
+        limiter.acquire("node2", record(connected, 3));
+
+        assertEquals(2, connected.size());
+        assertEquals(1, limiter.waiting("node1"));
+        assertEquals(0, limiter.waiting("node2"));
+    }
+
+    @Test
+    public void shouldNotLimitIfDisabled() {
+        ConnectLimiter limiter = new ConnectLimiter(0);
+        List<Integer> connected = new ArrayList<Integer>();
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("node1", record(connected, i));
+        }
+        assertEquals(100, connected.size());
+        assertEquals(0, limiter.inFlight("node1"));
+    }
+
+    private static Runnable record(final List<Integer> connected, final int id) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                connected.add(id);
+            }
+        };
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.analytics;
+
+import com.couchbase.client.core.ResponseEvent;
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.message.CouchbaseMessage;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.analytics.AnalyticsRequest;
+import com.couchbase.client.core.message.analytics.GenericAnalyticsRequest;
+import com.couchbase.client.core.message.analytics.GenericAnalyticsResponse;
+import com.couchbase.client.core.message.analytics.RawAnalyticsRequest;
+import com.couchbase.client.core.message.analytics.RawAnalyticsResponse;
+import com.couchbase.client.core.retry.FailFastRetryStrategy;
+import com.couchbase.client.core.util.Resources;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the correct functionality of the {@link AnalyticsHandlerV2} with the streaming parser.
+ *
+ * @since 1.5.2
+ */
+public class AnalyticsHandlerV2Test {
+
+    private Queue<AnalyticsRequest> queue;
+    private EmbeddedChannel channel;
+    private Disruptor<ResponseEvent> responseBuffer;
+    private List<CouchbaseMessage> firedEvents;
+    private CountDownLatch latch;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        responseBuffer = new Disruptor<ResponseEvent>(new EventFactory<ResponseEvent>() {
+            @Override
+            public ResponseEvent newInstance() {
+                return new ResponseEvent();
+            }
+        }, 1024, Executors.newCachedThreadPool());
+
+        firedEvents = Collections.synchronizedList(new ArrayList<CouchbaseMessage>());
+        latch = new CountDownLatch(1);
+        responseBuffer.handleEventsWith(new EventHandler<ResponseEvent>() {
+            @Override
+            public void onEvent(ResponseEvent event, long sequence, boolean endOfBatch) throws Exception {
+                firedEvents.add(event.getMessage());
+                latch.countDown();
+            }
+        });
+        RingBuffer<ResponseEvent> responseRingBuffer = responseBuffer.start();
+
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.maxRequestLifetime()).thenReturn(10000L);
+        when(environment.autoreleaseAfter()).thenReturn(2000L);
+        when(environment.retryStrategy()).thenReturn(FailFastRetryStrategy.INSTANCE);
+        when(environment.userAgent()).thenReturn("Couchbase Client Mock");
+        AbstractEndpoint endpoint = mock(AbstractEndpoint.class);
+        when(endpoint.environment()).thenReturn(environment);
+
+        queue = new ArrayDeque<AnalyticsRequest>();
+        channel = new EmbeddedChannel(new AnalyticsHandlerV2(endpoint, responseRingBuffer, queue, false, false));
+    }
+
+    @After
+    public void clear() throws Exception {
+        channel.close().awaitUninterruptibly();
+        responseBuffer.shutdown();
+    }
+
+    @Test
+    public void shouldEncodeJsonQuery() {
+        channel.writeOutbound(GenericAnalyticsRequest.jsonQuery("{\"statement\":\"select 1\"}", "bucket", "user",
+            "password"));
+        HttpRequest outbound = (HttpRequest) channel.readOutbound();
+
+        assertEquals(HttpMethod.POST, outbound.getMethod());
+        assertEquals("/query/service", outbound.getUri());
+        assertEquals("application/json", outbound.headers().get(HttpHeaders.Names.CONTENT_TYPE));
+        assertEquals("Couchbase Client Mock", outbound.headers().get(HttpHeaders.Names.USER_AGENT));
+        assertTrue(outbound.headers().contains(HttpHeaders.Names.AUTHORIZATION));
+        assertEquals("{\"statement\":\"select 1\"}",
+            ((FullHttpRequest) outbound).content().toString(CharsetUtil.UTF_8));
+        ((FullHttpRequest) outbound).release();
+    }
+
+    @Test
+    public void shouldDecodeRowsAndStatus() throws Exception {
+        String response = Resources.read("success_3.json", getClass());
+        GenericAnalyticsResponse inbound = decode(200, response, response.length());
+
+        assertEquals(ResponseStatus.SUCCESS, inbound.status());
+        assertEquals("4ab7a4a0-1a62-4b2f-a5d4-6c8a27f4b0c1", inbound.requestId());
+        assertEquals("analytics-context", inbound.clientRequestId());
+        assertRows(inbound);
+        assertEquals("success", inbound.queryStatus().timeout(1, TimeUnit.SECONDS).toBlocking().single());
+        assertEquals(0, contents(inbound.errors()).size());
+        assertEquals("{\"*\":\"*\"}", contents(inbound.signature()).get(0).replaceAll("\\s", ""));
+        assertTrue(contents(inbound.info()).get(0).contains("\"resultCount\": 3"));
+    }
+
+    @Test
+    public void shouldDecodeErrorsAndFailureStatus() throws Exception {
+        String response = Resources.read("errors.json", getClass());
+        GenericAnalyticsResponse inbound = decode(400, response, response.length());
+
+        assertEquals(ResponseStatus.FAILURE, inbound.status());
+        assertEquals(0, contents(inbound.rows()).size());
+        List<String> errors = contents(inbound.errors());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("24045"));
+        assertEquals("fatal", inbound.queryStatus().timeout(1, TimeUnit.SECONDS).toBlocking().single());
+    }
+
+    @Test
+    public void shouldDecodeAcrossChunkBoundaries() throws Exception {
+        String response = Resources.read("success_3.json", getClass());
+        for (int chunkSize : new int[] { 1, 7, 64 }) {
+            latch = new CountDownLatch(1);
+            firedEvents.clear();
+            GenericAnalyticsResponse inbound = decode(200, response, chunkSize);
+
+            assertEquals(ResponseStatus.SUCCESS, inbound.status());
+            assertEquals("4ab7a4a0-1a62-4b2f-a5d4-6c8a27f4b0c1", inbound.requestId());
+            assertRows(inbound);
+            assertEquals("success", inbound.queryStatus().timeout(1, TimeUnit.SECONDS).toBlocking().single());
+        }
+    }
+
+    @Test
+    public void shouldDecodeRawResponse() throws Exception {
+        String response = Resources.read("success_3.json", getClass());
+        queue.add(mock(RawAnalyticsRequest.class));
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK),
+            new DefaultHttpContent(Unpooled.copiedBuffer(response.substring(0, 100), CharsetUtil.UTF_8)),
+            new DefaultLastHttpContent(Unpooled.copiedBuffer(response.substring(100), CharsetUtil.UTF_8)));
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, firedEvents.size());
+        RawAnalyticsResponse inbound = (RawAnalyticsResponse) firedEvents.get(0);
+        assertEquals(ResponseStatus.SUCCESS, inbound.status());
+        assertEquals(200, inbound.httpStatusCode());
+        assertEquals(response, inbound.jsonResponse().toString(CharsetUtil.UTF_8));
+        inbound.jsonResponse().release();
+    }
+
+    /**
+     * Feeds the response into the channel in chunks of the given size and returns the decoded response.
+     */
+    private GenericAnalyticsResponse decode(final int httpStatus, final String response, final int chunkSize)
+        throws Exception {
+        queue.add(mock(GenericAnalyticsRequest.class));
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.valueOf(httpStatus)));
+        byte[] bytes = response.getBytes(CharsetUtil.UTF_8);
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            int length = Math.min(chunkSize, bytes.length - i);
+            ByteBuf chunk = Unpooled.copiedBuffer(bytes, i, length);
+            HttpContent content = i + length >= bytes.length
+                ? new DefaultLastHttpContent(chunk) : new DefaultHttpContent(chunk);
+            channel.writeInbound(content);
+        }
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, firedEvents.size());
+        return (GenericAnalyticsResponse) firedEvents.get(0);
+    }
+
+    private static void assertRows(final GenericAnalyticsResponse inbound) {
+        List<String> rows = contents(inbound.rows());
+        assertEquals(3, rows.size());
+        assertEquals("{ \"name\": \"alice\", \"age\": 31 }", rows.get(0));
+        assertEquals("{ \"name\": \"bob\", \"nested\": { \"list\": [1, 2, 3] } }", rows.get(1));
+        assertEquals("\"just a string, with \\\"quotes\\\" and {braces}\"", rows.get(2));
+    }
+
+    private static List<String> contents(final rx.Observable<ByteBuf> observable) {
+        return observable
+            .map(new Func1<ByteBuf, String>() {
+                @Override
+                public String call(ByteBuf buf) {
+                    String content = buf.toString(CharsetUtil.UTF_8);
+                    buf.release();
+                    return content;
+                }
+            })
+            .timeout(1, TimeUnit.SECONDS)
+            .toList()
+            .toBlocking()
+            .single();
+    }
+}
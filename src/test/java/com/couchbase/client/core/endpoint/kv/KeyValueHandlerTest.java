@@ -18,11 +18,16 @@ package com.couchbase.client.core.endpoint.kv;
 import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.core.RequestCancelledException;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.CircuitBreaker;
+import com.couchbase.client.core.endpoint.CircuitBreakerConfig;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.RequestKind;
+import com.couchbase.client.core.message.ResponseCallback;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.internal.ClustermapChangeNotification;
 import com.couchbase.client.core.message.kv.AppendRequest;
 import com.couchbase.client.core.message.kv.BinaryRequest;
 import com.couchbase.client.core.message.kv.CounterRequest;
@@ -32,6 +37,8 @@ import com.couchbase.client.core.message.kv.GetBucketConfigResponse;
 import com.couchbase.client.core.message.kv.GetRequest;
 import com.couchbase.client.core.message.kv.GetResponse;
 import com.couchbase.client.core.message.kv.InsertRequest;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.MultiObserveResponse;
 import com.couchbase.client.core.message.kv.ObserveRequest;
 import com.couchbase.client.core.message.kv.ObserveResponse;
 import com.couchbase.client.core.message.kv.PrependRequest;
@@ -43,8 +50,12 @@ import com.couchbase.client.core.message.kv.UnlockRequest;
 import com.couchbase.client.core.message.kv.UpsertRequest;
 import com.couchbase.client.core.util.CollectingResponseEventSink;
 import com.couchbase.client.core.utils.NetworkAddress;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.AbstractBinaryMemcacheDecoder;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheClientCodec;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheObjectAggregator;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheResponseStatus;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultBinaryMemcacheResponse;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheResponse;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheResponse;
@@ -62,13 +73,16 @@ import org.junit.Before;
 import org.junit.Test;
 import rx.observers.TestSubscriber;
 import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
 import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
 import java.nio.charset.Charset;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -185,6 +199,140 @@ public class KeyValueHandlerTest {
         assertEquals(BUCKET, event.bucket());
     }
 
+    @Test
+    public void shouldDecodeServerDurationFromFramingExtras() {
+        ByteBuf content = Unpooled.copiedBuffer("content", CharsetUtil.UTF_8);
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(KEY, Unpooled.EMPTY_BUFFER,
+            content.copy());
+        response.setMagic(DefaultBinaryMemcacheResponse.ALT_RESPONSE_MAGIC_BYTE);
+        response.setFramingExtrasLength((byte) 3);
+        response.setServerDuration(2074);
+
+        GetRequest requestMock = mock(GetRequest.class);
+        when(requestMock.bucket()).thenReturn(BUCKET);
+        requestQueue.add(requestMock);
+        channel.writeInbound(response);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        GetResponse event = (GetResponse) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(2074, event.serverDuration());
+        assertEquals("content", event.content().toString(CHARSET));
+    }
+
+    @Test
+    public void shouldNotReportServerDurationWithoutFramingExtras() {
+        assertEquals(-1, serverDuration(new byte[] {}));
+        assertEquals(-1, serverDuration(new byte[] { 0x12, 0x00, 0x01 }));
+        assertEquals(120125042, serverDuration(new byte[] { 0x11, 0x00, 0x02, (byte) 0xFF, (byte) 0xFF }));
+
+        ByteBuf offset = Unpooled.wrappedBuffer(new byte[] { 0x7F, 0x02, 0x00, 0x78 });
+        assertEquals(2074, AbstractBinaryMemcacheDecoder.serverDuration(offset, 1, 3));
+        assertEquals(0, offset.readerIndex());
+    }
+
+    @Test
+    public void shouldDecodeAlternativeResponseMagic() {
+        EmbeddedChannel codec = new EmbeddedChannel(new BinaryMemcacheClientCodec(),
+            new BinaryMemcacheObjectAggregator(Integer.MAX_VALUE));
+        ByteBuf raw = Unpooled.buffer();
+        raw.writeByte(DefaultBinaryMemcacheResponse.ALT_RESPONSE_MAGIC_BYTE);
+        raw.writeByte(KeyValueHandler.OP_GET);
+        raw.writeByte(3); // framing extras length
+        raw.writeByte(3); // key length
+        raw.writeByte(4); // extras length
+        raw.writeByte(0); // datatype
+        raw.writeShort(0); // status
+        raw.writeInt(3 + 4 + 3 + 7); // total body length
+        raw.writeInt(1); // opaque
+        raw.writeLong(123); // cas
+        raw.writeBytes(new byte[] { 0x02, 0x00, 0x78 });
+        raw.writeInt(42);
+        raw.writeBytes(KEY);
+        raw.writeBytes("content".getBytes(CHARSET));
+        codec.writeInbound(raw);
+
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) codec.readInbound();
+        assertEquals(3, response.getFramingExtrasLength());
+        assertEquals(2074, response.getServerDuration());
+        assertEquals(42, response.getExtras().getInt(0));
+        assertEquals("key", new String(response.getKey(), CHARSET));
+        assertEquals("content", response.content().toString(CHARSET));
+        assertEquals(123, response.getCAS());
+        response.release();
+        codec.finishAndReleaseAll();
+    }
+
+    @Test
+    public void shouldDecodeFramingExtrasLongerThan127Bytes() {
+        EmbeddedChannel codec = new EmbeddedChannel(new BinaryMemcacheClientCodec(),
+            new BinaryMemcacheObjectAggregator(Integer.MAX_VALUE));
+        byte[] framingExtras = new byte[200];
+        framingExtras[0] = 0x02;
+        framingExtras[1] = 0x00;
+        framingExtras[2] = 0x78;
+        ByteBuf raw = Unpooled.buffer();
+        raw.writeByte(DefaultBinaryMemcacheResponse.ALT_RESPONSE_MAGIC_BYTE);
+        raw.writeByte(KeyValueHandler.OP_GET);
+        raw.writeByte(framingExtras.length); // framing extras length
+        raw.writeByte(3); // key length
+        raw.writeByte(4); // extras length
+        raw.writeByte(0); // datatype
+        raw.writeShort(0); // status
+        raw.writeInt(framingExtras.length + 4 + 3 + 7); // total body length
+        raw.writeInt(1); // opaque
+        raw.writeLong(123); // cas
+        raw.writeBytes(framingExtras);
+        raw.writeInt(42);
+        raw.writeBytes(KEY);
+        raw.writeBytes("content".getBytes(CHARSET));
+        codec.writeInbound(raw);
+
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) codec.readInbound();
+        assertEquals(framingExtras.length, response.getFramingExtrasLength() & 0xFF);
+        assertEquals(2074, response.getServerDuration());
+        assertEquals(42, response.getExtras().getInt(0));
+        assertEquals("key", new String(response.getKey(), CHARSET));
+        assertEquals("content", response.content().toString(CHARSET));
+        response.release();
+        codec.finishAndReleaseAll();
+    }
+
+    @Test
+    public void shouldCompleteCallbackOfRequest() throws Exception {
+        ByteBuf content = Unpooled.copiedBuffer("content", CharsetUtil.UTF_8);
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(KEY, Unpooled.EMPTY_BUFFER,
+            content.copy());
+        response.setExtras(Unpooled.buffer().writeInt(123));
+        response.setExtrasLength((byte) 4);
+        content.release();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<CouchbaseResponse> received = new AtomicReference<CouchbaseResponse>();
+        GetRequest request = new GetRequest("key", BUCKET);
+        request.callback(new ResponseCallback() {
+            @Override
+            public void onResponse(CouchbaseResponse response) {
+                received.set(response);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                latch.countDown();
+            }
+        });
+        response.setOpaque(request.opaque());
+        requestQueue.add(request);
+        channel.writeInbound(response);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        GetResponse event = (GetResponse) received.get();
+        assertEquals(ResponseStatus.SUCCESS, event.status());
+        assertEquals("content", event.content().toString(CHARSET));
+        assertEquals(0, eventSink.responseEvents().size());
+        event.content().release();
+    }
+
     @Test
     public void shouldDecodeNotFoundGet() {
         ByteBuf content = Unpooled.copiedBuffer("Not Found", CharsetUtil.UTF_8);
@@ -636,6 +784,85 @@ public class KeyValueHandlerTest {
         ReferenceCountUtil.releaseLater(outbound);
     }
 
+    @Test
+    public void shouldDecodeObserveServerTimings() throws Exception {
+        ByteBuf content = Unpooled.buffer();
+        content.writeShort(1).writeShort(3).writeBytes("key".getBytes(CHARSET)).writeByte(0x01).writeLong(99);
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(new byte[] {},
+            Unpooled.EMPTY_BUFFER, content);
+        response.setCAS((120L << 32) | 7L);
+
+        ObserveRequest requestMock = mock(ObserveRequest.class);
+        when(requestMock.master()).thenReturn(true);
+        requestQueue.add(requestMock);
+        channel.writeInbound(response);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        ObserveResponse event = (ObserveResponse) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(ObserveResponse.ObserveStatus.FOUND_PERSISTED, event.observeStatus());
+        assertEquals(99, event.cas());
+        assertEquals(120, event.persistStat());
+        assertEquals(7, event.replicateStat());
+    }
+
+    @Test
+    public void shouldEncodeMultiObserveRequest() {
+        MultiObserveRequest request = new MultiObserveRequest(NetworkAddress.localhost(), "bucket",
+            Arrays.asList("key1", "key22"), new short[] { 1, 2 });
+
+        channel.writeOutbound(request);
+        FullBinaryMemcacheRequest outbound = (FullBinaryMemcacheRequest) channel.readOutbound();
+        assertNotNull(outbound);
+        assertEquals(0, outbound.getKeyLength());
+        assertEquals(17, outbound.getTotalBodyLength());
+        assertEquals(KeyValueHandler.OP_OBSERVE, outbound.getOpcode());
+        assertEquals(1, outbound.content().readShort());
+        assertEquals(4, outbound.content().readShort());
+        assertEquals("key1", outbound.content().readBytes(4).toString(CharsetUtil.UTF_8));
+        assertEquals(2, outbound.content().readShort());
+        assertEquals(5, outbound.content().readShort());
+        assertEquals("key22", outbound.content().readBytes(5).toString(CharsetUtil.UTF_8));
+        ReferenceCountUtil.releaseLater(outbound);
+    }
+
+    @Test
+    public void shouldDecodeMultiObserveResponse() throws Exception {
+        ByteBuf content = Unpooled.buffer();
+        content.writeShort(1).writeShort(4).writeBytes("key1".getBytes(CHARSET)).writeByte(0x01).writeLong(11);
+        content.writeShort(2).writeShort(5).writeBytes("key22".getBytes(CHARSET)).writeByte(0x00).writeLong(22);
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(new byte[] {},
+            Unpooled.EMPTY_BUFFER, content);
+
+        MultiObserveRequest requestMock = mock(MultiObserveRequest.class);
+        requestQueue.add(requestMock);
+        channel.writeInbound(response);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        MultiObserveResponse event = (MultiObserveResponse) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(ResponseStatus.SUCCESS, event.status());
+        assertEquals(Arrays.asList("key1", "key22"), event.keys());
+        assertEquals(ObserveResponse.ObserveStatus.FOUND_PERSISTED, event.observeStatuses()[0]);
+        assertEquals(ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED, event.observeStatuses()[1]);
+        assertEquals(11, event.cas()[0]);
+        assertEquals(22, event.cas()[1]);
+    }
+
+    @Test
+    public void shouldReportNotMyVbucketOnMultiObserve() throws Exception {
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(new byte[] {},
+            Unpooled.EMPTY_BUFFER, Unpooled.EMPTY_BUFFER);
+        response.setStatus(KeyValueStatus.ERR_NOT_MY_VBUCKET.code());
+
+        MultiObserveRequest requestMock = mock(MultiObserveRequest.class);
+        requestQueue.add(requestMock);
+        channel.writeInbound(response);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        MultiObserveResponse event = (MultiObserveResponse) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(ResponseStatus.RETRY, event.status());
+        assertEquals(0, event.keys().size());
+    }
+
     @Test
     public void shouldDecodeGetBucketConfigResponse() throws Exception {
         ByteBuf content = Unpooled.copiedBuffer("content", CharsetUtil.UTF_8);
@@ -923,6 +1150,8 @@ public class KeyValueHandlerTest {
         assertEquals(1, keepAliveEventCounter.get());
         assertTrue(requestQueue.peek() instanceof KeyValueHandler.KeepAliveRequest);
         KeyValueHandler.KeepAliveRequest keepAliveRequest = (KeyValueHandler.KeepAliveRequest) requestQueue.peek();
+        assertEquals(RequestKind.classify(keepAliveRequest), keepAliveRequest.kind());
+        assertEquals(RequestKind.KEEP_ALIVE, keepAliveRequest.kind());
 
         //test responding to the request with memcached response is interpreted into a KeepAliveResponse, hook is called
         DefaultFullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(new byte[] {}, Unpooled.EMPTY_BUFFER);
@@ -990,6 +1219,27 @@ public class KeyValueHandlerTest {
         assertTrue(onErrorEvents.get(0).getCause() instanceof IllegalReferenceCountException);
     }
 
+    @Test
+    public void shouldReopenCircuitIfCanaryIsCancelled() {
+        TestScheduler clock = new TestScheduler();
+        CircuitBreaker breaker = new CircuitBreaker(CircuitBreakerConfig.builder()
+            .volumeThreshold(1).sleepWindow(1, TimeUnit.SECONDS).build(), clock, null, "127.0.0.1", BUCKET,
+            "KeyValueEndpoint");
+        when(endpoint.circuitBreaker()).thenReturn(breaker);
+        breaker.onFailure(mock(BinaryRequest.class));
+        clock.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        GetRequest canary = new GetRequest("key", BUCKET);
+        canary.partition((short) 1);
+        assertTrue(breaker.allowRequest(canary));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        channel.writeOutbound(canary);
+        ReferenceCountUtil.releaseLater(channel.readOutbound());
+
+        channel.close().awaitUninterruptibly();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
     @Test
     public void testUnSubscribedRequest() {
         String id = "key";
@@ -1012,4 +1262,51 @@ public class KeyValueHandlerTest {
 
         assertTrue(request.isActive());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldPublishPushedClustermapChangeNotification() {
+        ByteBuf config = Unpooled.copiedBuffer("{\"rev\":1234}", CharsetUtil.UTF_8);
+        FullBinaryMemcacheResponse push = new DefaultFullBinaryMemcacheResponse(BUCKET.getBytes(CHARSET),
+            Unpooled.buffer().writeInt(1234), config);
+        push.setMagic(KeyValueHandler.MAGIC_SERVER_REQUEST);
+        push.setOpcode(KeyValueHandler.OP_CLUSTERMAP_CHANGE_NOTIFICATION);
+        push.setExtrasLength((byte) 4);
+        push.setKeyLength((short) BUCKET.length());
+
+        channel.writeInbound(push);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        ClustermapChangeNotification notification =
+            (ClustermapChangeNotification) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(BUCKET, notification.bucket());
+        assertEquals(1234, notification.rev());
+        assertEquals("{\"rev\":1234}", notification.content().toString(CharsetUtil.UTF_8));
+        assertEquals(1, notification.content().refCnt());
+        notification.content().release();
+        assertTrue(requestQueue.isEmpty());
+    }
+
+    @Test
+    public void shouldReadRevisionFromEpochAndRevisionExtras() {
+        ByteBuf config = Unpooled.copiedBuffer("{\"rev\":5000000000}", CharsetUtil.UTF_8);
+        FullBinaryMemcacheResponse push = new DefaultFullBinaryMemcacheResponse(BUCKET.getBytes(CHARSET),
+            Unpooled.buffer().writeLong(2).writeLong(5000000000L), config);
+        push.setMagic(KeyValueHandler.MAGIC_SERVER_REQUEST);
+        push.setOpcode(KeyValueHandler.OP_CLUSTERMAP_CHANGE_NOTIFICATION);
+        push.setExtrasLength((byte) 16);
+        push.setKeyLength((short) BUCKET.length());
+
+        channel.writeInbound(push);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        ClustermapChangeNotification notification =
+            (ClustermapChangeNotification) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(5000000000L, notification.rev());
+        notification.content().release();
+    }
+
+    private static long serverDuration(final byte[] framingExtras) {
+        return AbstractBinaryMemcacheDecoder.serverDuration(Unpooled.wrappedBuffer(framingExtras), 0,
+            framingExtras.length);
+    }
+}
@@ -27,23 +27,31 @@ import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.search.SearchQueryRequest;
 import com.couchbase.client.core.message.search.SearchRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryResponse;
 import com.couchbase.client.core.retry.FailFastRetryStrategy;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.CharsetUtil;
 import org.junit.Before;
 import org.junit.Test;
+import rx.functions.Func1;
 import rx.observers.TestSubscriber;
 import rx.schedulers.Schedulers;
 import rx.subjects.AsyncSubject;
@@ -205,4 +213,66 @@ public class SearchHandlerTest {
         assertEquals(0, responseEnd.refCnt());
     }
 
+    @Test
+    public void shouldStreamSearchQueryResponse() throws Exception {
+        String body = "{\"status\":{\"total\":6,\"failed\":0,\"successful\":6},\"request\":{\"query\":{}},"
+            + "\"hits\":[{\"id\":\"a\",\"score\":1.5},{\"id\":\"b\",\"score\":0.5}],"
+            + "\"total_hits\":2,\"max_score\":1.5,\"took\":1234,\"facets\":{\"type\":{\"total\":2}}}";
+        StreamingSearchQueryRequest request = new StreamingSearchQueryRequest("idx", "{}", "bucket", "bucket", "");
+        queue.add(request);
+
+        int split = body.indexOf("{\"id\":\"b\"") + 5;
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpContent first = new DefaultHttpContent(Unpooled.copiedBuffer(body.substring(0, split), CharsetUtil.UTF_8));
+        LastHttpContent last = new DefaultLastHttpContent(
+            Unpooled.copiedBuffer(body.substring(split), CharsetUtil.UTF_8));
+        channel.writeInbound(responseHeader, first, last);
+
+        StreamingSearchQueryResponse response = (StreamingSearchQueryResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(ResponseStatus.SUCCESS, response.status());
+
+        List<String> hits = response.hits().map(TO_STRING).toList().timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(2, hits.size());
+        assertEquals("a", mapper.readTree(hits.get(0)).get("id").asText());
+        assertEquals("b", mapper.readTree(hits.get(1)).get("id").asText());
+
+        String status = response.searchStatus().map(TO_STRING).timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(6, mapper.readTree(status).get("successful").asInt());
+        String facets = response.facets().map(TO_STRING).timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(2, mapper.readTree(facets).get("type").get("total").asInt());
+        String metrics = response.metrics().map(TO_STRING).timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(2, mapper.readTree(metrics).get("total_hits").asInt());
+        assertEquals(1234, mapper.readTree(metrics).get("took").asLong());
+        assertEquals(0, response.errors().toList().timeout(1, TimeUnit.SECONDS).toBlocking().single().size());
+    }
+
+    @Test
+    public void shouldEmitFailedStreamingSearchBodyAsError() throws Exception {
+        StreamingSearchQueryRequest request = new StreamingSearchQueryRequest("idx", "{}", "bucket", "bucket", "");
+        queue.add(request);
+
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+            HttpResponseStatus.BAD_REQUEST);
+        LastHttpContent last = new DefaultLastHttpContent(
+            Unpooled.copiedBuffer("rest_index: Query, err: bleve: QueryBleve parsing", CharsetUtil.UTF_8));
+        channel.writeInbound(responseHeader, last);
+
+        StreamingSearchQueryResponse response = (StreamingSearchQueryResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(ResponseStatus.INVALID_ARGUMENTS, response.status());
+        String error = response.errors().map(TO_STRING).timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertTrue(error.startsWith("rest_index"));
+        assertEquals(0, response.hits().toList().timeout(1, TimeUnit.SECONDS).toBlocking().single().size());
+    }
+
+    private static final Func1<ByteBuf, String> TO_STRING = new Func1<ByteBuf, String>() {
+        @Override
+        public String call(ByteBuf buf) {
+            String result = buf.toString(CharsetUtil.UTF_8);
+            buf.release();
+            return result;
+        }
+    };
+
 }
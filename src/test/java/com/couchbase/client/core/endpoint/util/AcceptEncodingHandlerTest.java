@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Verifies the functionality of the {@link AcceptEncodingHandler}.
+ *
+ * @since 1.5.2
+ */
+public class AcceptEncodingHandlerTest {
+
+    @Test
+    public void shouldAdvertiseCompression() {
+        EmbeddedChannel channel = new EmbeddedChannel(AcceptEncodingHandler.INSTANCE);
+        channel.writeOutbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+
+        FullHttpRequest outbound = (FullHttpRequest) channel.readOutbound();
+        assertEquals("gzip, deflate", outbound.headers().get(HttpHeaders.Names.ACCEPT_ENCODING));
+        ReferenceCountUtil.release(outbound);
+    }
+
+    @Test
+    public void shouldNotOverrideExplicitEncoding() {
+        EmbeddedChannel channel = new EmbeddedChannel(AcceptEncodingHandler.INSTANCE);
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, HttpHeaders.Values.IDENTITY);
+        channel.writeOutbound(request);
+
+        FullHttpRequest outbound = (FullHttpRequest) channel.readOutbound();
+        assertEquals("identity", outbound.headers().get(HttpHeaders.Names.ACCEPT_ENCODING));
+        ReferenceCountUtil.release(outbound);
+    }
+
+    @Test
+    public void shouldInflateCompressedResponsesChunkByChunk() throws Exception {
+        StringBuilder rows = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < 2000; i++) {
+            rows.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"row\"}");
+        }
+        String body = rows.append("]}").toString();
+        byte[] compressed = gzip(body);
+
+        EmbeddedChannel channel = new EmbeddedChannel();
+        AcceptEncodingHandler.addTo(channel.pipeline());
+
+        HttpResponse header = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        header.headers().set(HttpHeaders.Names.CONTENT_ENCODING, HttpHeaders.Values.GZIP);
+        channel.writeInbound(header);
+        HttpResponse inboundHeader = (HttpResponse) channel.readInbound();
+        assertFalse(inboundHeader.headers().contains(HttpHeaders.Names.CONTENT_ENCODING));
+
+        int half = compressed.length / 2;
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(compressed, 0, half)));
+        ByteBuf decoded = Unpooled.buffer();
+        int chunksBeforeLast = drain(channel, decoded);
+        assertTrue(chunksBeforeLast > 0);
+        assertTrue(decoded.readableBytes() > 0);
+
+        channel.writeInbound(new DefaultLastHttpContent(
+            Unpooled.wrappedBuffer(compressed, half, compressed.length - half)));
+        drain(channel, decoded);
+        assertEquals(body, decoded.toString(CharsetUtil.UTF_8));
+        assertNull(channel.readInbound());
+        decoded.release();
+    }
+
+    private static int drain(EmbeddedChannel channel, ByteBuf target) {
+        int chunks = 0;
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            HttpContent content = (HttpContent) msg;
+            target.writeBytes(content.content());
+            if (!(content instanceof LastHttpContent)) {
+                chunks++;
+            }
+            content.release();
+        }
+        return chunks;
+    }
+
+    private static byte[] gzip(String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(input.getBytes(CharsetUtil.UTF_8));
+        gzip.close();
+        return out.toByteArray();
+    }
+}
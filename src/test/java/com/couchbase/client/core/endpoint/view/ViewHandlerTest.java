@@ -135,10 +135,18 @@ public class ViewHandlerTest {
         when(environment.userAgent()).thenReturn("Couchbase Client Mock");
 
         queue = new ArrayDeque<ViewRequest>();
-        handler = new ViewHandler(endpoint, responseRingBuffer, queue, false, false);
+        handler = createHandler(endpoint, responseRingBuffer, queue);
         channel = new EmbeddedChannel(handler);
     }
 
+    /**
+     * Creates the handler under test, can be overridden to run the same tests against a different handler.
+     */
+    protected ViewHandler createHandler(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseRingBuffer,
+        Queue<ViewRequest> queue) {
+        return new ViewHandler(endpoint, responseRingBuffer, queue, false, false);
+    }
+
     @After
     public void clear() {
         //triggers the release of the responseContent common buffer
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.view;
+
+import com.couchbase.client.core.ResponseEvent;
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.message.view.ViewRequest;
+import com.lmax.disruptor.RingBuffer;
+
+import java.util.Queue;
+
+/**
+ * Runs all the {@link ViewHandlerTest} tests against the {@link ViewHandlerV2}.
+ *
+ * @since 1.5.2
+ */
+public class ViewHandlerV2Test extends ViewHandlerTest {
+
+    @Override
+    protected ViewHandler createHandler(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseRingBuffer,
+        Queue<ViewRequest> queue) {
+        return new ViewHandlerV2(endpoint, responseRingBuffer, queue, false, false);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.env;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SequenceBarrier;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the functionality of the {@link AdaptiveWaitStrategy}.
+ *
+ * @since 1.5.2
+ */
+public class AdaptiveWaitStrategyTest {
+
+    private static final EventFactory<Object> FACTORY = new EventFactory<Object>() {
+        @Override
+        public Object newInstance() {
+            return new Object();
+        }
+    };
+
+    @Test
+    public void shouldReturnAvailableSequenceWithoutWaiting() throws Exception {
+        AdaptiveWaitStrategy strategy = new AdaptiveWaitStrategy(4, 64, 2);
+        RingBuffer<Object> ringBuffer = RingBuffer.createMultiProducer(FACTORY, 8, strategy);
+        SequenceBarrier barrier = ringBuffer.newBarrier();
+        ringBuffer.publish(ringBuffer.next());
+
+        assertEquals(0, barrier.waitFor(0));
+        assertEquals(64, strategy.spinTries());
+    }
+
+    @Test
+    public void shouldParkAndShrinkSpinsWhenIdle() throws Exception {
+        final AdaptiveWaitStrategy strategy = new AdaptiveWaitStrategy(4, 64, 2);
+        RingBuffer<Object> ringBuffer = RingBuffer.createMultiProducer(FACTORY, 8, strategy);
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 5; i++) {
+                final long sequence = i;
+                Future<Long> waiter = executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        return barrier.waitFor(sequence);
+                    }
+                });
+                Thread.sleep(50);
+                ringBuffer.publish(ringBuffer.next());
+                assertEquals(sequence, (long) waiter.get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4, strategy.spinTries());
+    }
+
+    @Test
+    public void shouldWakeUpParkedConsumerOnAlert() throws Exception {
+        AdaptiveWaitStrategy strategy = new AdaptiveWaitStrategy(0, 0, 0);
+        RingBuffer<Object> ringBuffer = RingBuffer.createMultiProducer(FACTORY, 8, strategy);
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiter = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    try {
+                        barrier.waitFor(0);
+                        return false;
+                    } catch (AlertException ex) {
+                        return true;
+                    }
+                }
+            });
+            Thread.sleep(50);
+            barrier.alert();
+            assertTrue(waiter.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidSpinTries() {
+        new AdaptiveWaitStrategy(10, 5, 0);
+    }
+}
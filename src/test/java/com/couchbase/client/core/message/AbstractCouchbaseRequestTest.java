@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.StatRequest;
+import com.couchbase.client.core.utils.NetworkAddress;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the completion of {@link AbstractCouchbaseRequest}s through observables and callbacks.
+ *
+ * @since 1.5.2
+ */
+public class AbstractCouchbaseRequestTest {
+
+    @Test
+    public void shouldCompleteObservableByDefault() {
+        GetRequest request = new GetRequest("key", "bucket");
+        assertFalse(request.hasCallback());
+        assertSame(request.observable(), request.observable());
+
+        CouchbaseResponse response = new SimpleResponse(ResponseStatus.SUCCESS);
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        request.observable().subscribe(subscriber);
+        request.complete(response);
+
+        subscriber.assertValue(response);
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void shouldCompleteCallbackOnlyOnce() {
+        GetRequest request = new GetRequest("key", "bucket");
+        RecordingCallback callback = new RecordingCallback();
+        request.callback(callback);
+        assertTrue(request.hasCallback());
+
+        CouchbaseResponse response = new SimpleResponse(ResponseStatus.SUCCESS);
+        request.complete(response);
+        request.fail(new RuntimeException());
+        request.complete(response);
+
+        assertEquals(1, callback.responses.size());
+        assertSame(response, callback.responses.get(0));
+        assertEquals(0, callback.errors.size());
+    }
+
+    @Test
+    public void shouldForwardObservableSignalsToCallback() {
+        GetRequest request = new GetRequest("key", "bucket");
+        RecordingCallback callback = new RecordingCallback();
+        request.callback(callback);
+
+        RuntimeException error = new RuntimeException();
+        request.observable().onError(error);
+        request.observable().onCompleted();
+
+        assertEquals(0, callback.responses.size());
+        assertEquals(1, callback.errors.size());
+        assertSame(error, callback.errors.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotSetCallbackWithCustomObservable() {
+        StatRequest request = new StatRequest("", NetworkAddress.localhost(), "bucket");
+        request.callback(new RecordingCallback());
+    }
+
+    static class SimpleResponse extends AbstractCouchbaseResponse {
+        SimpleResponse(ResponseStatus status) {
+            super(status, null);
+        }
+    }
+
+    static class RecordingCallback implements ResponseCallback {
+        final List<CouchbaseResponse> responses = new ArrayList<CouchbaseResponse>();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        @Override
+        public void onResponse(CouchbaseResponse response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message;
+
+import com.couchbase.client.core.message.analytics.GenericAnalyticsRequest;
+import com.couchbase.client.core.message.cluster.SeedNodesRequest;
+import com.couchbase.client.core.message.config.BucketConfigRequest;
+import com.couchbase.client.core.message.kv.AppendRequest;
+import com.couchbase.client.core.message.kv.BinaryRequest;
+import com.couchbase.client.core.message.kv.CounterRequest;
+import com.couchbase.client.core.message.kv.GetAllMutationTokensRequest;
+import com.couchbase.client.core.message.kv.GetBucketConfigRequest;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.InsertRequest;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
+import com.couchbase.client.core.message.kv.PrependRequest;
+import com.couchbase.client.core.message.kv.RemoveRequest;
+import com.couchbase.client.core.message.kv.ReplaceRequest;
+import com.couchbase.client.core.message.kv.ReplicaGetRequest;
+import com.couchbase.client.core.message.kv.StatRequest;
+import com.couchbase.client.core.message.kv.TouchRequest;
+import com.couchbase.client.core.message.kv.UnlockRequest;
+import com.couchbase.client.core.message.kv.UpsertRequest;
+import com.couchbase.client.core.message.kv.subdoc.multi.Lookup;
+import com.couchbase.client.core.message.kv.subdoc.multi.LookupCommand;
+import com.couchbase.client.core.message.kv.subdoc.multi.Mutation;
+import com.couchbase.client.core.message.kv.subdoc.multi.MutationCommand;
+import com.couchbase.client.core.message.kv.subdoc.multi.SubMultiLookupRequest;
+import com.couchbase.client.core.message.kv.subdoc.multi.SubMultiMutationRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubArrayRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubCounterRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubDeleteRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubDictAddRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubDictUpsertRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubExistRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubGetCountRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubGetRequest;
+import com.couchbase.client.core.message.kv.subdoc.simple.SubReplaceRequest;
+import com.couchbase.client.core.message.query.GenericQueryRequest;
+import com.couchbase.client.core.message.search.SearchQueryRequest;
+import com.couchbase.client.core.message.view.ViewQueryRequest;
+import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies the functionality of {@link RequestKind}.
+ *
+ * @since 1.5.2
+ */
+public class RequestKindTest {
+
+    @Test
+    public void shouldDeclareSameKindAsClassified() {
+        List<CouchbaseRequest> requests = Arrays.<CouchbaseRequest>asList(
+            new GetRequest("key", "bucket"),
+            new ReplicaGetRequest("key", "bucket", (short) 1),
+            new InsertRequest("key", Unpooled.EMPTY_BUFFER, "bucket"),
+            new UpsertRequest("key", Unpooled.EMPTY_BUFFER, "bucket"),
+            new ReplaceRequest("key", Unpooled.EMPTY_BUFFER, "bucket"),
+            new RemoveRequest("key", 0, "bucket"),
+            new CounterRequest("key", 5, 10, 15, "bucket"),
+            new TouchRequest("key", 10, "bucket"),
+            new UnlockRequest("key", 1234, "bucket"),
+            new AppendRequest("key", 0, Unpooled.EMPTY_BUFFER, "bucket"),
+            new PrependRequest("key", 0, Unpooled.EMPTY_BUFFER, "bucket"),
+            new ObserveRequest("key", 0, false, (short) 1, "bucket"),
+            new MultiObserveRequest(NetworkAddress.localhost(), "bucket", Collections.singletonList("key"),
+                new short[] { 1 }),
+            new ObserveSeqnoRequest(1234, true, (short) 0, "key", "bucket"),
+            new StatRequest("", NetworkAddress.localhost(), "bucket"),
+            new GetBucketConfigRequest("bucket", NetworkAddress.localhost()),
+            new GetAllMutationTokensRequest(NetworkAddress.localhost(), "bucket"),
+            new SubGetRequest("key", "path", "bucket"),
+            new SubExistRequest("key", "path", "bucket"),
+            new SubGetCountRequest("key", "path", "bucket"),
+            new SubDictAddRequest("key", "path", Unpooled.EMPTY_BUFFER, "bucket"),
+            new SubDictUpsertRequest("key", "path", Unpooled.EMPTY_BUFFER, "bucket"),
+            new SubReplaceRequest("key", "path", Unpooled.EMPTY_BUFFER, "bucket"),
+            new SubArrayRequest("key", "path", SubArrayRequest.ArrayOperation.PUSH_FIRST, Unpooled.EMPTY_BUFFER,
+                "bucket"),
+            new SubCounterRequest("key", "path", 5, "bucket"),
+            new SubDeleteRequest("key", "path", "bucket"),
+            new SubMultiLookupRequest("key", "bucket", new LookupCommand(Lookup.GET, "path")),
+            new SubMultiMutationRequest("key", "bucket",
+                Collections.singletonList(new MutationCommand(Mutation.DICT_UPSERT, "path", Unpooled.EMPTY_BUFFER))),
+            new ViewQueryRequest("design", "view", true, "query", null, "bucket", "password"),
+            GenericQueryRequest.simpleStatement("select 1", "bucket", null),
+            new SearchQueryRequest("index", "{}", "bucket", "bucket", "password"),
+            GenericAnalyticsRequest.simpleStatement("select 1", "bucket", null)
+        );
+
+        for (CouchbaseRequest request : requests) {
+            assertEquals(request.toString(), RequestKind.classify(request), RequestKind.of(request));
+        }
+    }
+
+    @Test
+    public void shouldClassifyUndeclaredKinds() {
+        assertEquals(RequestKind.CONFIG,
+            new BucketConfigRequest("/path/", NetworkAddress.localhost(), "bucket", "password").kind());
+        assertEquals(RequestKind.INTERNAL, new SeedNodesRequest().kind());
+
+        BinaryRequest mocked = mock(BinaryRequest.class);
+        assertEquals(RequestKind.BINARY, RequestKind.of(mocked));
+    }
+
+    @Test
+    public void shouldMapFamilyToServiceType() {
+        assertEquals(RequestKind.BINARY, RequestKind.family(RequestKind.SUBDOC_MULTI_MUTATION));
+        assertEquals(ServiceType.BINARY, RequestKind.serviceType(RequestKind.GET));
+        assertEquals(ServiceType.CONFIG, RequestKind.serviceType(RequestKind.CONFIG));
+        assertEquals(ServiceType.QUERY, RequestKind.serviceType(RequestKind.QUERY));
+        assertEquals(ServiceType.ANALYTICS, RequestKind.serviceType(RequestKind.ANALYTICS));
+        assertNull(RequestKind.serviceType(RequestKind.INTERNAL));
+        assertNull(RequestKind.serviceType(RequestKind.UNKNOWN));
+    }
+}
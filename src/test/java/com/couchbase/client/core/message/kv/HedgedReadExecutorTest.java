@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.kv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.time.Delay;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Scheduler;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.AsyncSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the functionality of the {@link HedgedReadExecutor}.
+ *
+ * @since 1.5.2
+ */
+public class HedgedReadExecutorTest {
+
+    private static final long MIN_DELAY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private TestScheduler scheduler;
+    private ClusterFacade core;
+    private ConfigurationProvider configProvider;
+    private List<AsyncSubject<CouchbaseResponse>> primaries;
+    private List<AsyncSubject<CouchbaseResponse>> replicas;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        scheduler = new TestScheduler();
+        primaries = new ArrayList<AsyncSubject<CouchbaseResponse>>();
+        replicas = new ArrayList<AsyncSubject<CouchbaseResponse>>();
+
+        core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                AsyncSubject<CouchbaseResponse> subject = AsyncSubject.create();
+                if (invocation.getArguments()[0] instanceof ReplicaGetRequest) {
+                    replicas.add(subject);
+                } else {
+                    primaries.add(subject);
+                }
+                return subject;
+            }
+        });
+
+        NodeInfo replicaNode = mock(NodeInfo.class);
+        when(replicaNode.hostname()).thenReturn(NetworkAddress.create("10.0.0.2"));
+        CouchbaseBucketConfig bucketConfig = mock(CouchbaseBucketConfig.class);
+        when(bucketConfig.numberOfPartitions()).thenReturn(1024);
+        when(bucketConfig.numberOfReplicas()).thenReturn(1);
+        when(bucketConfig.nodeIndexForReplica(anyInt(), anyInt(), anyBoolean())).thenReturn((short) 1);
+        when(bucketConfig.nodeAtIndex(1)).thenReturn(replicaNode);
+        ClusterConfig clusterConfig = mock(ClusterConfig.class);
+        when(clusterConfig.bucketConfig("bucket")).thenReturn(bucketConfig);
+        configProvider = mock(ConfigurationProvider.class);
+        when(configProvider.config()).thenReturn(clusterConfig);
+    }
+
+    private HedgedReadExecutor executor(double maxHedgeRatio, int maxHedgeBurst) {
+        return new HedgedReadExecutor(HedgedReadConfig.builder()
+            .minSamples(1)
+            .minDelay(MIN_DELAY, TimeUnit.NANOSECONDS)
+            .maxHedgeRatio(maxHedgeRatio)
+            .maxHedgeBurst(maxHedgeBurst)
+            .build(), configProvider, scheduler, null);
+    }
+
+    private static GetResponse response(ResponseStatus status, ByteBuf content) {
+        return new GetResponse(status, (short) 0, 1234, 0, "bucket", content, null);
+    }
+
+    private void warmUp(HedgedReadExecutor executor) {
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        complete(primaries.get(primaries.size() - 1), response(ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER));
+        subscriber.assertCompleted();
+    }
+
+    private static void complete(AsyncSubject<CouchbaseResponse> subject, CouchbaseResponse response) {
+        subject.onNext(response);
+        subject.onCompleted();
+    }
+
+    @Test
+    public void shouldOnlyHandlePlainGets() {
+        assertTrue(HedgedReadExecutor.handles(new GetRequest("key", "bucket")));
+        assertFalse(HedgedReadExecutor.handles(new GetRequest("key", "bucket", true, false, 10)));
+        assertFalse(HedgedReadExecutor.handles(new HedgedGetRequest(new GetRequest("key", "bucket"))));
+        assertFalse(HedgedReadExecutor.handles(new ReplicaGetRequest("key", "bucket", (short) 1)));
+    }
+
+    @Test
+    public void shouldNotHedgeWithoutLatencyHistory() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        assertEquals(-1, executor.threshold("bucket"));
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(0, replicas.size());
+
+        GetResponse response = response(ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER);
+        complete(primaries.get(0), response);
+        subscriber.assertValue(response);
+        assertTrue(executor.threshold("bucket") >= MIN_DELAY);
+    }
+
+    @Test
+    public void shouldReturnReplicaIfFasterAndReleaseLoser() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        warmUp(executor);
+
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        scheduler.advanceTimeBy(executor.threshold("bucket"), TimeUnit.NANOSECONDS);
+        assertEquals(1, replicas.size());
+        assertEquals(1, executor.hedgedCount());
+
+        GetResponse replicaResponse = response(ResponseStatus.SUCCESS, Unpooled.copiedBuffer(new byte[] { 1 }));
+        complete(replicas.get(0), replicaResponse);
+        subscriber.assertValue(replicaResponse);
+        subscriber.assertCompleted();
+        assertEquals(1, executor.wonCount());
+
+        ByteBuf loser = Unpooled.copiedBuffer(new byte[] { 2 });
+        complete(primaries.get(1), response(ResponseStatus.SUCCESS, loser));
+        assertEquals(0, loser.refCnt());
+        replicaResponse.content().release();
+    }
+
+    @Test
+    public void shouldPreferActiveResponseOverUnsuccessfulReplica() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        warmUp(executor);
+
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        scheduler.advanceTimeBy(executor.threshold("bucket"), TimeUnit.NANOSECONDS);
+
+        ByteBuf replicaContent = Unpooled.copiedBuffer(new byte[] { 1 });
+        complete(replicas.get(0), response(ResponseStatus.NOT_EXISTS, replicaContent));
+        subscriber.assertNoValues();
+
+        GetResponse primaryResponse = response(ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER);
+        complete(primaries.get(1), primaryResponse);
+        subscriber.assertValue(primaryResponse);
+        assertEquals(0, replicaContent.refCnt());
+        assertEquals(0, executor.wonCount());
+    }
+
+    @Test
+    public void shouldFallBackToReplicaIfActiveFails() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        warmUp(executor);
+
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        scheduler.advanceTimeBy(executor.threshold("bucket"), TimeUnit.NANOSECONDS);
+
+        primaries.get(1).onError(new RuntimeException("stalled"));
+        subscriber.assertNoTerminalEvent();
+
+        GetResponse replicaResponse = response(ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER);
+        complete(replicas.get(0), replicaResponse);
+        subscriber.assertValue(replicaResponse);
+    }
+
+    @Test
+    public void shouldUseUnsuccessfulReplicaIfActiveFailsAfterwards() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        warmUp(executor);
+
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        scheduler.advanceTimeBy(executor.threshold("bucket"), TimeUnit.NANOSECONDS);
+
+        GetResponse replicaResponse = response(ResponseStatus.NOT_EXISTS, Unpooled.EMPTY_BUFFER);
+        complete(replicas.get(0), replicaResponse);
+        subscriber.assertNoValues();
+
+        primaries.get(1).onError(new RuntimeException("stalled"));
+        subscriber.assertValue(replicaResponse);
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void shouldCopyOriginalRequestToActiveRead() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        GetRequest original = new GetRequest("key", "bucket");
+        original.retryDelay(Delay.fixed(5, TimeUnit.MILLISECONDS));
+        original.maxRetryDuration(1234);
+
+        executor.send(core, original).subscribe(TestSubscriber.create());
+
+        ArgumentCaptor<CouchbaseRequest> captor = ArgumentCaptor.forClass(CouchbaseRequest.class);
+        verify(core).send(captor.capture());
+        GetRequest primary = (GetRequest) captor.getValue();
+        assertNotSame(original, primary);
+        assertEquals("key", primary.key());
+        assertEquals("bucket", primary.bucket());
+        assertSame(original.retryDelay(), primary.retryDelay());
+        assertEquals(1234, primary.maxRetryDuration());
+    }
+
+    @Test
+    public void shouldLimitHedgeRate() {
+        HedgedReadExecutor executor = executor(0.0, 1);
+        warmUp(executor);
+
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(TestSubscriber.create());
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(TestSubscriber.create());
+        scheduler.advanceTimeBy(executor.threshold("bucket"), TimeUnit.NANOSECONDS);
+
+        assertEquals(1, replicas.size());
+        assertEquals(1, executor.hedgedCount());
+        assertEquals(1, executor.limitedCount());
+    }
+
+    @Test
+    public void shouldNotHedgeIfActiveAnsweredInTime() {
+        HedgedReadExecutor executor = executor(1.0, 10);
+        warmUp(executor);
+
+        TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(subscriber);
+        GetResponse response = response(ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER);
+        complete(primaries.get(1), response);
+        scheduler.advanceTimeBy(executor.threshold("bucket"), TimeUnit.NANOSECONDS);
+
+        assertSame(response, subscriber.getOnNextEvents().get(0));
+        assertEquals(0, replicas.size());
+    }
+
+    @Test
+    public void shouldCancelHedgeTimerOnPrimaryResponse() {
+        final List<Scheduler.Worker> workers = new ArrayList<Scheduler.Worker>();
+        Scheduler recording = new Scheduler() {
+            @Override
+            public Worker createWorker() {
+                Worker worker = scheduler.createWorker();
+                workers.add(worker);
+                return worker;
+            }
+        };
+        HedgedReadExecutor executor = new HedgedReadExecutor(HedgedReadConfig.builder()
+            .minSamples(1)
+            .minDelay(MIN_DELAY, TimeUnit.NANOSECONDS)
+            .build(), configProvider, recording, null);
+        warmUp(executor);
+
+        executor.send(core, new GetRequest("key", "bucket")).subscribe(TestSubscriber.create());
+        assertEquals(1, workers.size());
+        assertFalse(workers.get(0).isUnsubscribed());
+
+        complete(primaries.get(1), response(ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER));
+        assertTrue(workers.get(0).isUnsubscribed());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.RequestCancelledException;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MultiObserveRequest;
+import com.couchbase.client.core.message.kv.MultiObserveResponse;
+import com.couchbase.client.core.message.kv.ObserveRequest;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.core.utils.NetworkAddress;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link ObserveBatcher}.
+ *
+ * @since 1.5.2
+ */
+public class ObserveBatcherTest {
+
+    private ClusterFacade core;
+    private CouchbaseBucketConfig config;
+    private TestScheduler scheduler;
+    private ObserveBatcher batcher;
+
+    @Before
+    public void setup() {
+        core = mock(ClusterFacade.class);
+        config = mock(CouchbaseBucketConfig.class);
+        NodeInfo node = mock(NodeInfo.class);
+        when(node.hostname()).thenReturn(NetworkAddress.localhost());
+        when(config.numberOfPartitions()).thenReturn(1024);
+        when(config.nodeIndexForMaster(anyInt(), any(Boolean.class))).thenReturn((short) 0);
+        when(config.nodeAtIndex(0)).thenReturn(node);
+        scheduler = new TestScheduler();
+        batcher = new ObserveBatcher(scheduler);
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentPollsForSameNode() {
+        MultiObserveResponse response = new MultiObserveResponse(ResponseStatus.SUCCESS,
+            KeyValueStatus.SUCCESS.code(), Arrays.asList("a", "b"),
+            new ObserveResponse.ObserveStatus[] {
+                ObserveResponse.ObserveStatus.FOUND_PERSISTED, ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED
+            }, new long[] { 1, 2 }, "bucket", null);
+        when(core.send(isA(MultiObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) response));
+
+        TestSubscriber<ObserveResponse> first = TestSubscriber.create();
+        TestSubscriber<ObserveResponse> second = TestSubscriber.create();
+        batcher.observe(core, config, "bucket", "a", 1, true, (short) 0).subscribe(first);
+        batcher.observe(core, config, "bucket", "b", 2, true, (short) 0).subscribe(second);
+        scheduler.triggerActions();
+
+        ArgumentCaptor<MultiObserveRequest> captor = ArgumentCaptor.forClass(MultiObserveRequest.class);
+        verify(core, times(1)).send(captor.capture());
+        assertEquals(Arrays.asList("a", "b"), captor.getValue().keys());
+        verify(core, never()).send(isA(ObserveRequest.class));
+
+        first.assertCompleted();
+        assertEquals(ObserveResponse.ObserveStatus.FOUND_PERSISTED, first.getOnNextEvents().get(0).observeStatus());
+        assertEquals(1, first.getOnNextEvents().get(0).cas());
+        assertEquals(true, first.getOnNextEvents().get(0).master());
+        second.assertCompleted();
+        assertEquals(ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED,
+            second.getOnNextEvents().get(0).observeStatus());
+        assertEquals(2, second.getOnNextEvents().get(0).cas());
+    }
+
+    @Test
+    public void shouldSendSingleObserveWhenAlone() {
+        ObserveResponse response = new ObserveResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+            ObserveResponse.ObserveStatus.FOUND_PERSISTED.value(), true, 1, "bucket", null);
+        when(core.send(isA(ObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) response));
+
+        TestSubscriber<ObserveResponse> subscriber = TestSubscriber.create();
+        batcher.observe(core, config, "bucket", "a", 1, true, (short) 0).subscribe(subscriber);
+        scheduler.triggerActions();
+
+        verify(core, never()).send(isA(MultiObserveRequest.class));
+        subscriber.assertValue(response);
+    }
+
+    @Test
+    public void shouldFallBackToSingleObservesWhenBatchFails() {
+        MultiObserveResponse failed = new MultiObserveResponse(ResponseStatus.RETRY,
+            KeyValueStatus.ERR_NOT_MY_VBUCKET.code(), Arrays.<String>asList(),
+            new ObserveResponse.ObserveStatus[0], new long[0], "bucket", null);
+        when(core.send(isA(MultiObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) failed));
+        ObserveResponse single = new ObserveResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+            ObserveResponse.ObserveStatus.FOUND_PERSISTED.value(), true, 1, "bucket", null);
+        when(core.send(isA(ObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) single));
+
+        TestSubscriber<ObserveResponse> first = TestSubscriber.create();
+        TestSubscriber<ObserveResponse> second = TestSubscriber.create();
+        batcher.observe(core, config, "bucket", "a", 1, true, (short) 0).subscribe(first);
+        batcher.observe(core, config, "bucket", "b", 1, true, (short) 0).subscribe(second);
+        scheduler.triggerActions();
+
+        verify(core, times(2)).send(isA(ObserveRequest.class));
+        first.assertValue(single);
+        second.assertValue(single);
+    }
+
+    @Test
+    public void shouldFallBackToSingleObservesWhenBatchErrors() {
+        when(core.send(isA(MultiObserveRequest.class)))
+            .thenReturn(Observable.<CouchbaseResponse>error(new RequestCancelledException("cancelled")));
+        ObserveResponse single = new ObserveResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+            ObserveResponse.ObserveStatus.FOUND_PERSISTED.value(), true, 1, "bucket", null);
+        when(core.send(isA(ObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) single));
+
+        TestSubscriber<ObserveResponse> first = TestSubscriber.create();
+        TestSubscriber<ObserveResponse> second = TestSubscriber.create();
+        batcher.observe(core, config, "bucket", "a", 1, true, (short) 0).subscribe(first);
+        batcher.observe(core, config, "bucket", "b", 1, true, (short) 0).subscribe(second);
+        scheduler.triggerActions();
+
+        verify(core, times(2)).send(isA(ObserveRequest.class));
+        first.assertValue(single);
+        second.assertValue(single);
+    }
+
+    @Test
+    public void shouldNotBatchWhenReplicaNotAvailable() {
+        when(config.nodeIndexForReplica(anyInt(), anyInt(), any(Boolean.class))).thenReturn((short) -1);
+        when(core.send(isA(ObserveRequest.class))).thenReturn(Observable.<CouchbaseResponse>empty());
+
+        batcher.observe(core, config, "bucket", "a", 1, false, (short) 1).subscribe();
+        batcher.observe(core, config, "bucket", "b", 1, false, (short) 1).subscribe();
+        scheduler.triggerActions();
+
+        verify(core, never()).send(isA(MultiObserveRequest.class));
+        verify(core, times(2)).send(isA(ObserveRequest.class));
+    }
+
+    @Test
+    public void shouldSendPendingPollsOnShutdown() {
+        ObserveResponse response = new ObserveResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+            ObserveResponse.ObserveStatus.FOUND_PERSISTED.value(), true, 1, "bucket", null);
+        when(core.send(isA(ObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) response));
+
+        TestSubscriber<ObserveResponse> pending = TestSubscriber.create();
+        batcher.observe(core, config, "bucket", "a", 1, true, (short) 0).subscribe(pending);
+        batcher.shutdown();
+        pending.assertValue(response);
+
+        TestSubscriber<ObserveResponse> afterShutdown = TestSubscriber.create();
+        batcher.observe(core, config, "bucket", "b", 1, true, (short) 0).subscribe(afterShutdown);
+        afterShutdown.assertValue(response);
+        verify(core, times(2)).send(isA(ObserveRequest.class));
+    }
+
+    @Test
+    public void shouldNotBatchForCoreWithoutBatcher() {
+        ObserveResponse response = new ObserveResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+            ObserveResponse.ObserveStatus.FOUND_PERSISTED.value(), true, 1, "bucket", null);
+        when(core.send(isA(ObserveRequest.class))).thenReturn(Observable.just((CouchbaseResponse) response));
+
+        TestSubscriber<ObserveResponse> subscriber = TestSubscriber.create();
+        ObserveBatcher.forCore(core).observe(core, config, "bucket", "a", 1, true, (short) 0).subscribe(subscriber);
+
+        subscriber.assertValue(response);
+        verify(core, never()).send(isA(MultiObserveRequest.class));
+    }
+}
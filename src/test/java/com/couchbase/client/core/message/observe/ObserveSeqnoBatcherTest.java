@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.MutationToken;
+import com.couchbase.client.core.message.kv.NoFailoverObserveSeqnoResponse;
+import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link ObserveSeqnoBatcher}.
+ *
+ * @since 1.5.2
+ */
+public class ObserveSeqnoBatcherTest {
+
+    private ClusterFacade core;
+    private TestScheduler scheduler;
+    private ObserveSeqnoBatcher batcher;
+
+    @Before
+    public void setup() {
+        core = mock(ClusterFacade.class);
+        scheduler = new TestScheduler();
+        batcher = new ObserveSeqnoBatcher(scheduler);
+    }
+
+    @Test
+    public void shouldShareOneRequestPerVbucket() {
+        NoFailoverObserveSeqnoResponse response = new NoFailoverObserveSeqnoResponse(true, (short) 12, 1234, 10, 12,
+            ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), "bucket", null);
+        when(core.send(isA(ObserveSeqnoRequest.class))).thenReturn(Observable.just((CouchbaseResponse) response));
+
+        TestSubscriber<CouchbaseResponse> first = TestSubscriber.create();
+        TestSubscriber<CouchbaseResponse> second = TestSubscriber.create();
+        batcher.observe(core, "bucket", "a", new MutationToken(12, 1234, 9, "bucket"), true, (short) 0)
+            .subscribe(first);
+        batcher.observe(core, "bucket", "b", new MutationToken(12, 1234, 10, "bucket"), true, (short) 0)
+            .subscribe(second);
+        scheduler.triggerActions();
+
+        verify(core, times(1)).send(isA(ObserveSeqnoRequest.class));
+        first.assertValue(response);
+        first.assertCompleted();
+        second.assertValue(response);
+        second.assertCompleted();
+    }
+
+    @Test
+    public void shouldNotMergeDifferentVbucketsOrCopies() {
+        when(core.send(isA(ObserveSeqnoRequest.class))).thenReturn(Observable.<CouchbaseResponse>empty());
+
+        batcher.observe(core, "bucket", "a", new MutationToken(12, 1234, 9, "bucket"), true, (short) 0).subscribe();
+        batcher.observe(core, "bucket", "a", new MutationToken(12, 1234, 9, "bucket"), false, (short) 1).subscribe();
+        batcher.observe(core, "bucket", "b", new MutationToken(13, 5678, 9, "bucket"), true, (short) 0).subscribe();
+        scheduler.triggerActions();
+
+        verify(core, times(3)).send(isA(ObserveSeqnoRequest.class));
+    }
+
+    @Test
+    public void shouldPropagateErrorsToAllWaiters() {
+        when(core.send(isA(ObserveSeqnoRequest.class)))
+            .thenReturn(Observable.<CouchbaseResponse>error(new IllegalStateException()));
+
+        TestSubscriber<CouchbaseResponse> first = TestSubscriber.create();
+        TestSubscriber<CouchbaseResponse> second = TestSubscriber.create();
+        batcher.observe(core, "bucket", "a", new MutationToken(12, 1234, 9, "bucket"), true, (short) 0)
+            .subscribe(first);
+        batcher.observe(core, "bucket", "b", new MutationToken(12, 1234, 10, "bucket"), true, (short) 0)
+            .subscribe(second);
+        scheduler.triggerActions();
+
+        first.assertError(IllegalStateException.class);
+        second.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldSendPendingPollsOnShutdown() {
+        NoFailoverObserveSeqnoResponse response = new NoFailoverObserveSeqnoResponse(true, (short) 12, 1234, 10, 12,
+            ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(), "bucket", null);
+        when(core.send(isA(ObserveSeqnoRequest.class))).thenReturn(Observable.just((CouchbaseResponse) response));
+
+        TestSubscriber<CouchbaseResponse> pending = TestSubscriber.create();
+        batcher.observe(core, "bucket", "a", new MutationToken(12, 1234, 9, "bucket"), true, (short) 0)
+            .subscribe(pending);
+        batcher.shutdown();
+        pending.assertValue(response);
+
+        TestSubscriber<CouchbaseResponse> afterShutdown = TestSubscriber.create();
+        batcher.observe(core, "bucket", "b", new MutationToken(12, 1234, 10, "bucket"), true, (short) 0)
+            .subscribe(afterShutdown);
+        afterShutdown.assertValue(response);
+        verify(core, times(2)).send(isA(ObserveSeqnoRequest.class));
+    }
+}
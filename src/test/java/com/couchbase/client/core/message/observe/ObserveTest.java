@@ -38,7 +38,7 @@ import java.util.concurrent.TimeUnit;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -173,7 +173,7 @@ public class ObserveTest {
             .toBlocking()
             .single();
 
-        verify(cluster, times(2)).send(isA(ObserveRequest.class));
+        verify(cluster, timeout(1000).times(2)).send(isA(ObserveRequest.class));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.observe;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.ObserveResponse;
+import com.couchbase.client.core.metrics.registry.Gauge;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.time.Delay;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies the functionality of the {@link ObserveTimings}.
+ *
+ * @since 1.5.2
+ */
+public class ObserveTimingsTest {
+
+    private static final Delay DELAY = Delay.fixed(10, TimeUnit.MICROSECONDS);
+
+    @Test
+    public void shouldUseConfiguredDelayWithoutEstimate() {
+        ObserveTimings timings = new ObserveTimings();
+        ObserveTimings.Tracker tracker = timings.track(true, false);
+
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10), tracker.nextDelay(DELAY, 1));
+    }
+
+    @Test
+    public void shouldWaitForServerReportedPersistTime() {
+        ObserveTimings timings = new ObserveTimings();
+        ObserveTimings.Tracker tracker = timings.track(true, false);
+        tracker.onResponse(response(true, 200, 5));
+
+        long next = tracker.nextDelay(DELAY, 1);
+        assertTrue(next > TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(next <= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), timings.estimates().get("10.0.0.1").persistNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), timings.estimates().get("10.0.0.1").replicateNanos());
+    }
+
+    @Test
+    public void shouldFallBackToConfiguredDelayOncePastEstimate() {
+        ObserveTimings timings = new ObserveTimings();
+        ObserveTimings.Tracker tracker = timings.track(false, true);
+        tracker.onResponse(response(true, 0, 0));
+        tracker.onResponse(response(false, 0, 0));
+
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10), tracker.nextDelay(DELAY, 5));
+    }
+
+    @Test
+    public void shouldLearnFromCompletions() throws Exception {
+        ObserveTimings timings = new ObserveTimings();
+        ObserveTimings.Tracker tracker = timings.track(true, false);
+        tracker.onResponse(response(true, 0, 0));
+        Thread.sleep(5);
+        tracker.onComplete();
+
+        ObserveTimings.Estimate estimate = timings.estimates().get("10.0.0.1");
+        assertEquals(1, estimate.persistSamples());
+        assertTrue(estimate.persistNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, estimate.replicateSamples());
+    }
+
+    @Test
+    public void shouldKeepTimingsPerCore() {
+        ClusterFacade core1 = mock(ClusterFacade.class);
+        ClusterFacade core2 = mock(ClusterFacade.class);
+
+        assertSame(ObserveTimings.forCore(core1), ObserveTimings.forCore(core1));
+        assertNotSame(ObserveTimings.forCore(core1), ObserveTimings.forCore(core2));
+
+        ObserveTimings.forCore(core1).track(true, false).onResponse(response(true, 200, 5));
+        assertEquals(1, ObserveTimings.forCore(core1).estimates().size());
+        assertEquals(0, ObserveTimings.forCore(core2).estimates().size());
+    }
+
+    @Test
+    public void shouldExportEstimatesAsGauges() {
+        MetricsRegistry registry = new MetricsRegistry();
+        ObserveTimings timings = new ObserveTimings(registry, "1");
+        timings.track(true, false).onResponse(response(true, 200, 5));
+
+        assertEquals(2, registry.size());
+        Gauge persist = (Gauge) registry.metrics().get(
+            "couchbase_observe_estimate_seconds{core=\"1\",node=\"10.0.0.1\",operation=\"persist\"}");
+        Gauge replicate = (Gauge) registry.metrics().get(
+            "couchbase_observe_estimate_seconds{core=\"1\",node=\"10.0.0.1\",operation=\"replicate\"}");
+        assertEquals(0.2, persist.value(), 0.0001);
+        assertEquals(0.005, replicate.value(), 0.0001);
+
+        timings.close();
+        assertEquals(0, registry.size());
+    }
+
+    private static ObserveResponse response(boolean master, long persistStat, long replicateStat) {
+        return new ObserveResponse(ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+            ObserveResponse.ObserveStatus.FOUND_NOT_PERSISTED.value(), master, 1234, persistStat, replicateStat,
+            "10.0.0.1", "bucket", null);
+    }
+}
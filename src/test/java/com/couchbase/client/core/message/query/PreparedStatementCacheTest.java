@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the functionality of the {@link PreparedStatementCache}.
+ *
+ * @since 1.5.2
+ */
+public class PreparedStatementCacheTest {
+
+    private static final ObjectMapper JACKSON = new ObjectMapper();
+    private static final String STATEMENT = "SELECT * FROM `default` WHERE id = $1";
+
+    private ClusterFacade core;
+    private List<JsonNode> sent;
+    private int staleExecutions;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        sent = new ArrayList<JsonNode>();
+        staleExecutions = 0;
+        core = mock(ClusterFacade.class);
+        when(core.send(any(CouchbaseRequest.class))).thenAnswer(new Answer<Observable<GenericQueryResponse>>() {
+            @Override
+            public Observable<GenericQueryResponse> answer(InvocationOnMock invocation) throws Throwable {
+                GenericQueryRequest request = (GenericQueryRequest) invocation.getArguments()[0];
+                JsonNode query = request.isJsonFormat()
+                    ? JACKSON.readTree(request.query())
+                    : JACKSON.createObjectNode().put("statement", request.query());
+                sent.add(query);
+                return Observable.just(respond(request, query));
+            }
+        });
+    }
+
+    private GenericQueryResponse respond(GenericQueryRequest request, JsonNode query) {
+        if (query.path("statement").asText().startsWith("PREPARE ")) {
+            return response(request, "{\"name\":\"p1\",\"encoded_plan\":\"plan\"}", null);
+        } else if (query.has("prepared") && staleExecutions > 0) {
+            staleExecutions--;
+            return response(request, null, "{\"code\":4050,\"msg\":\"Unrecognizable prepared statement\"}");
+        }
+        return response(request, "{\"id\":1}", null);
+    }
+
+    private static GenericQueryResponse response(GenericQueryRequest request, String row, String error) {
+        Observable<ByteBuf> rows = row == null ? Observable.<ByteBuf>empty() : Observable.just(buf(row));
+        Observable<ByteBuf> signature = row == null ? Observable.<ByteBuf>empty() : Observable.just(buf("{\"*\":\"*\"}"));
+        Observable<ByteBuf> errors = error == null ? Observable.<ByteBuf>empty() : Observable.just(buf(error));
+        return new GenericQueryResponse(errors, rows, signature, Observable.just(error == null ? "success" : "fatal"),
+            Observable.<ByteBuf>empty(), Observable.<ByteBuf>empty(), request, ResponseStatus.SUCCESS, "id", "");
+    }
+
+    private static ByteBuf buf(String input) {
+        return Unpooled.copiedBuffer(input, CharsetUtil.UTF_8);
+    }
+
+    private List<String> execute(PreparedStatementCache cache, GenericQueryRequest request) {
+        GenericQueryResponse response = cache.send(core, request).toBlocking().single();
+        assertEquals(request, response.request());
+        final List<String> rows = new ArrayList<String>();
+        for (ByteBuf row : response.rows().toList().toBlocking().single()) {
+            rows.add(row.toString(CharsetUtil.UTF_8));
+            row.release();
+        }
+        for (ByteBuf error : response.errors().toList().toBlocking().single()) {
+            rows.add(error.toString(CharsetUtil.UTF_8));
+            error.release();
+        }
+        return rows;
+    }
+
+    private static GenericQueryRequest query() {
+        return GenericQueryRequest.jsonQuery("{\"statement\":\"" + STATEMENT + "\",\"args\":[1]}", "default", "");
+    }
+
+    @Test
+    public void shouldPrepareRepeatedStatements() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+
+        assertEquals("[{\"id\":1}]", execute(cache, query()).toString());
+        assertEquals(1, sent.size());
+        assertEquals(STATEMENT, sent.get(0).path("statement").asText());
+        assertFalse(cache.isPrepared(STATEMENT));
+
+        assertEquals("[{\"id\":1}]", execute(cache, query()).toString());
+        assertEquals(3, sent.size());
+        assertEquals("PREPARE " + STATEMENT, sent.get(1).path("statement").asText());
+        assertExecutesPrepared(sent.get(2));
+        assertTrue(cache.isPrepared(STATEMENT));
+
+        assertEquals("[{\"id\":1}]", execute(cache, query()).toString());
+        assertEquals(4, sent.size());
+        assertExecutesPrepared(sent.get(3));
+    }
+
+    @Test
+    public void shouldPrepareAgainIfStale() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        execute(cache, query());
+        execute(cache, query());
+        assertEquals(3, sent.size());
+
+        staleExecutions = 1;
+        assertEquals("[{\"id\":1}]", execute(cache, query()).toString());
+        assertEquals(6, sent.size());
+        assertExecutesPrepared(sent.get(3));
+        assertEquals("PREPARE " + STATEMENT, sent.get(4).path("statement").asText());
+        assertExecutesPrepared(sent.get(5));
+    }
+
+    @Test
+    public void shouldRetryStalePlanOnlyOnce() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        execute(cache, query());
+        execute(cache, query());
+
+        staleExecutions = 2;
+        List<String> result = execute(cache, query());
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).contains("4050"));
+        assertEquals(6, sent.size());
+    }
+
+    @Test
+    public void shouldPassThroughPreparedAndSimpleStatements() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        for (int i = 0; i < 3; i++) {
+            execute(cache, GenericQueryRequest.jsonQuery("{\"prepared\":\"foo\"}", "default", ""));
+            execute(cache, GenericQueryRequest.simpleStatement("EXECUTE foo", "default", ""));
+        }
+        assertEquals(6, sent.size());
+        assertEquals(0, cache.size());
+
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 1", "default", ""));
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 1", "default", ""));
+        assertTrue(cache.isPrepared("SELECT 1"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedStatements() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 1", "default", ""));
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 2", "default", ""));
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 1", "default", ""));
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 3", "default", ""));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.isPrepared("SELECT 1"));
+        execute(cache, GenericQueryRequest.simpleStatement("SELECT 2", "default", ""));
+        assertFalse(cache.isPrepared("SELECT 2"));
+    }
+
+    private static void assertExecutesPrepared(JsonNode query) {
+        assertFalse(query.has("statement"));
+        assertEquals("p1", query.path("prepared").asText());
+        assertEquals("plan", query.path("encoded_plan").asText());
+        assertEquals(1, query.path("args").path(0).asInt());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.couchbase.client.core.event.EventBus;
+import com.couchbase.client.core.event.metrics.RuntimeMetricsEvent;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.Test;
+import rx.schedulers.Schedulers;
+
+import java.util.Map;
+
+/**
+ * Verifies the functionality of the {@link RuntimeMetricsCollector}.
+ *
+ * @since 1.5.2
+ */
+public class RuntimeMetricsCollectorTest {
+
+    private static final EventFactory<Object> FACTORY = new EventFactory<Object>() {
+        @Override
+        public Object newInstance() {
+            return new Object();
+        }
+    };
+
+    private static RuntimeMetricsCollector collector(MetricsRegistry registry) {
+        return new RuntimeMetricsCollector(mock(EventBus.class), Schedulers.computation(),
+            DefaultMetricsCollectorConfig.disabled(), registry);
+    }
+
+    @Test
+    public void shouldReportRingBufferCapacity() {
+        MetricsRegistry registry = new MetricsRegistry();
+        RuntimeMetricsCollector collector = collector(registry);
+        RingBuffer<Object> ringBuffer = RingBuffer.createMultiProducer(FACTORY, 16);
+        ringBuffer.addGatingSequences(new Sequence());
+        ringBuffer.publish(ringBuffer.next());
+
+        collector.registerRingBuffer("request", ringBuffer);
+        Map<String, Object> metrics = ((RuntimeMetricsEvent) collector.generateCouchbaseEvent()).all();
+        assertEquals(16, metrics.get("ring.request.bufferSize"));
+        assertEquals(15L, metrics.get("ring.request.remainingCapacity"));
+        assertNotNull(registry.get("couchbase_ring_remaining_capacity{ring=\"request\"}"));
+
+        collector.unregisterRingBuffer("request");
+        metrics = ((RuntimeMetricsEvent) collector.generateCouchbaseEvent()).all();
+        assertFalse(metrics.containsKey("ring.request.bufferSize"));
+        assertNull(registry.get("couchbase_ring_remaining_capacity{ring=\"request\"}"));
+    }
+
+    @Test
+    public void shouldReportBackpressure() {
+        RuntimeMetricsCollector collector = collector(null);
+        RuntimeMetricsCollector other = collector(null);
+        collector.recordBackpressure();
+        assertEquals(1L, ((RuntimeMetricsEvent) collector.generateCouchbaseEvent()).all().get("backpressure.count"));
+        assertEquals(0L, ((RuntimeMetricsEvent) other.generateCouchbaseEvent()).all().get("backpressure.count"));
+    }
+
+    @Test
+    public void shouldReportAllocatorArenas() {
+        RuntimeMetricsCollector collector = collector(null);
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 2, 2, 8192, 11);
+        collector.registerAllocator(allocator);
+
+        ByteBuf buffer = allocator.directBuffer(1024);
+        try {
+            Map<String, Object> metrics = ((RuntimeMetricsEvent) collector.generateCouchbaseEvent()).all();
+            assertEquals(2, metrics.get("allocator.direct.arenas"));
+            assertEquals(2, metrics.get("allocator.heap.arenas"));
+            assertEquals(8192 << 11, metrics.get("allocator.chunkSize"));
+            assertTrue((Long) metrics.get("allocator.direct.allocations") >= 1);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void shouldReportEventLoopsAndDirectMemory() {
+        RuntimeMetricsCollector collector = collector(null);
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            collector.registerEventLoopGroup("io", group);
+            Map<String, Object> metrics = ((RuntimeMetricsEvent) collector.generateCouchbaseEvent()).all();
+            assertTrue(metrics.containsKey("eventLoop.io.pendingTasks"));
+            assertTrue(metrics.containsKey("eventLoop.io.maxPendingTasks"));
+            assertTrue(metrics.containsKey("directMemory.max"));
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
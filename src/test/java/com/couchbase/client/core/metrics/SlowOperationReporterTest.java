@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.couchbase.client.core.event.EventBus;
+import com.couchbase.client.core.event.metrics.SlowOperationsEvent;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.RequestPhase;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.service.ServiceType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the functionality of the {@link SlowOperationReporter}.
+ *
+ * @since 1.5.2
+ */
+public class SlowOperationReporterTest {
+
+    private SlowOperationReporter reporter;
+
+    @Before
+    public void setup() {
+        reporter = new SlowOperationReporter(mock(EventBus.class), Schedulers.computation(),
+            SlowOperationReporterConfig.builder()
+                .emitFrequency(1)
+                .emitFrequencyUnit(TimeUnit.HOURS)
+                .sampleSize(2)
+                .threshold(ServiceType.BINARY, 1, TimeUnit.MILLISECONDS)
+                .build()
+        );
+    }
+
+    @After
+    public void cleanup() {
+        reporter.shutdown();
+    }
+
+    @Test
+    public void shouldIgnoreOperationsBelowThreshold() {
+        reporter.record(request(500, 0), ServiceType.BINARY);
+        reporter.record(request(5000, 0), ServiceType.QUERY);
+
+        assertNull(reporter.generateCouchbaseEvent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReportSlowestOperationsPerService() {
+        reporter.record(request(2000, 0), ServiceType.BINARY);
+        reporter.record(request(4000, 0), ServiceType.BINARY);
+        reporter.record(request(3000, 0), ServiceType.BINARY);
+        reporter.record(request(100, 0), ServiceType.BINARY);
+
+        SlowOperationsEvent event = (SlowOperationsEvent) reporter.generateCouchbaseEvent();
+        Map<String, Object> binary = (Map<String, Object>) event.services().get("binary");
+        assertEquals(3L, binary.get("count"));
+        List<Map<String, Object>> top = (List<Map<String, Object>>) binary.get("top");
+        assertEquals(2, top.size());
+        assertEquals(4000L, top.get(0).get("total_us"));
+        assertEquals(3000L, top.get(1).get("total_us"));
+        assertFalse(event.services().containsKey("query"));
+
+        assertNull(reporter.generateCouchbaseEvent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBreakDownReachedPhases() {
+        reporter.record(request(2000, 500), ServiceType.BINARY);
+
+        SlowOperationsEvent event = (SlowOperationsEvent) reporter.generateCouchbaseEvent();
+        Map<String, Object> binary = (Map<String, Object>) event.services().get("binary");
+        Map<String, Object> operation = ((List<Map<String, Object>>) binary.get("top")).get(0);
+        assertTrue(((String) operation.get("operation")).startsWith("GetRequest"));
+        assertEquals("127.0.0.1", operation.get("remote"));
+
+        Map<String, Object> phases = (Map<String, Object>) operation.get("phases");
+        assertEquals(2, phases.size());
+        assertEquals(500L, phases.get("send_to_dispatch_us"));
+        assertEquals(1500L, phases.get("dispatch_to_complete_us"));
+        assertTrue(event.toMap().containsKey("binary"));
+    }
+
+    /**
+     * Creates a request which completed after the given micros, optionally dispatched after the given micros.
+     */
+    private static CouchbaseRequest request(long totalMicros, long dispatchMicros) {
+        long start = TimeUnit.SECONDS.toNanos(1);
+        GetRequest request = mock(GetRequest.class);
+        when(request.dispatchHostname()).thenReturn("127.0.0.1");
+        when(request.phaseTime(RequestPhase.SEND)).thenReturn(start);
+        if (dispatchMicros > 0) {
+            when(request.phaseTime(RequestPhase.DISPATCH)).thenReturn(start + TimeUnit.MICROSECONDS.toNanos(dispatchMicros));
+        }
+        when(request.phaseTime(RequestPhase.COMPLETE)).thenReturn(start + TimeUnit.MICROSECONDS.toNanos(totalMicros));
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.CharsetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ReflectionException;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the functionality of the {@link PrometheusExporter} and the {@link JmxExporter}.
+ *
+ * @since 1.5.2
+ */
+public class MetricsExporterTest {
+
+    private static NioEventLoopGroup group;
+    private static MetricsRegistry registry;
+
+    @BeforeClass
+    public static void setup() {
+        group = new NioEventLoopGroup(1);
+        registry = new MetricsRegistry();
+        registry.histogram("couchbase_latency_seconds", null, null).record(TimeUnit.MILLISECONDS.toNanos(1));
+        registry.register(new Gauge("couchbase_threads", null, null) {
+            @Override
+            public double value() {
+                return 3;
+            }
+        });
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+    }
+
+    @Test
+    public void shouldServeMetricsOverHttp() throws Exception {
+        PrometheusExporter exporter = new PrometheusExporter(registry, group, 0);
+        try {
+            assertTrue(exporter.address().getAddress().isLoopbackAddress());
+            HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://127.0.0.1:" + exporter.port() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(PrometheusTextFormat.CONTENT_TYPE, connection.getContentType());
+            String body = read(connection.getInputStream());
+            assertTrue(body.contains("couchbase_latency_seconds_count 1\n"));
+            assertTrue(body.contains("couchbase_threads 3\n"));
+
+            connection = (HttpURLConnection)
+                new URL("http://127.0.0.1:" + exporter.port() + "/other").openConnection();
+            assertEquals(404, connection.getResponseCode());
+        } finally {
+            exporter.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldExposeMetricsAsMBean() throws Exception {
+        JmxExporter exporter = new JmxExporter(registry);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1L, server.getAttribute(exporter.objectName(), "couchbase_latency_seconds.count"));
+            assertEquals(0.001, (Double) server.getAttribute(exporter.objectName(), "couchbase_latency_seconds.sum"),
+                0.000001);
+            assertEquals(3.0, server.getAttribute(exporter.objectName(), "couchbase_threads"));
+            assertEquals(3, server.getMBeanInfo(exporter.objectName()).getAttributes().length);
+
+            try {
+                server.invoke(exporter.objectName(), "reset", new Object[0], new String[0]);
+                assertTrue(false);
+            } catch (ReflectionException ex) {
+                assertTrue(ex.getTargetException() instanceof NoSuchMethodException);
+            }
+        } finally {
+            exporter.shutdown();
+        }
+        assertFalse(server.isRegistered(exporter.objectName()));
+    }
+
+    private static String read(InputStream input) throws Exception {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), CharsetUtil.UTF_8);
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the functionality of the {@link MetricsRegistry} and the {@link PrometheusTextFormat}.
+ *
+ * @since 1.5.2
+ */
+public class PrometheusTextFormatTest {
+
+    @Test
+    public void shouldReuseHistogramWithSameLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Map<String, String> labels = new HashMap<String, String>();
+        labels.put("service", "BINARY");
+        labels.put("host", "127.0.0.1");
+
+        LatencyHistogram histogram = registry.histogram("latency", null, labels);
+        assertSame(histogram, registry.histogram("latency", null, new HashMap<String, String>(labels)));
+        assertEquals("latency{host=\"127.0.0.1\",service=\"BINARY\"}", histogram.id());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void shouldRecordIntoBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram("latency", null, null);
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(20));
+
+        assertEquals(2, histogram.cumulativeCount(0));
+        assertEquals(2, histogram.cumulativeCount(4));
+        assertEquals(3, histogram.cumulativeCount(5));
+        assertEquals(3, histogram.cumulativeCount(histogram.bucketCount() - 1));
+        assertEquals(4, histogram.count());
+        assertEquals(20.00315, histogram.sum(TimeUnit.SECONDS), 0.000001);
+    }
+
+    @Test
+    public void shouldRenderTextFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("couchbase_latency_seconds", "The latency.",
+            Collections.singletonMap("host", "a\"b")).record(TimeUnit.MILLISECONDS.toNanos(2));
+        registry.register(new Gauge("couchbase_threads", null, null) {
+            @Override
+            public double value() {
+                return 12;
+            }
+        });
+
+        String rendered = PrometheusTextFormat.render(registry);
+        assertTrue(rendered.contains("# HELP couchbase_latency_seconds The latency.\n"));
+        assertTrue(rendered.contains("# TYPE couchbase_latency_seconds histogram\n"));
+        assertTrue(rendered.contains("couchbase_latency_seconds_bucket{host=\"a\\\"b\",le=\"0.001\"} 0\n"));
+        assertTrue(rendered.contains("couchbase_latency_seconds_bucket{host=\"a\\\"b\",le=\"0.0025\"} 1\n"));
+        assertTrue(rendered.contains("couchbase_latency_seconds_bucket{host=\"a\\\"b\",le=\"+Inf\"} 1\n"));
+        assertTrue(rendered.contains("couchbase_latency_seconds_sum{host=\"a\\\"b\"} 0.002\n"));
+        assertTrue(rendered.contains("couchbase_latency_seconds_count{host=\"a\\\"b\"} 1\n"));
+        assertTrue(rendered.contains("# TYPE couchbase_threads gauge\ncouchbase_threads 12\n"));
+    }
+}
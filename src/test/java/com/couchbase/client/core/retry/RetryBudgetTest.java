@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.retry;
+
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.query.GenericQueryRequest;
+import com.couchbase.client.core.metrics.registry.Gauge;
+import com.couchbase.client.core.metrics.registry.Metric;
+import com.couchbase.client.core.metrics.registry.MetricsRegistry;
+import com.couchbase.client.core.service.ServiceType;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.TestScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link RetryBudget}.
+ *
+ * @since 1.5.2
+ */
+public class RetryBudgetTest {
+
+    private TestScheduler scheduler;
+    private MetricsRegistry registry;
+    private RetryBudget budget;
+
+    @Before
+    public void setup() {
+        scheduler = new TestScheduler();
+        registry = new MetricsRegistry();
+        RetryBudgetConfig config = RetryBudgetConfig.builder()
+            .retryRatio(0.1)
+            .minRetriesPerSecond(2)
+            .maxRetryBurst(5)
+            .build();
+        budget = new RetryBudget(config, scheduler, registry);
+    }
+
+    @Test
+    public void shouldAllowMinimumRetriesWithoutTraffic() {
+        GetRequest request = new GetRequest("key", "bucket");
+        assertTrue(budget.tryRetry(request));
+        assertTrue(budget.tryRetry(request));
+        assertFalse(budget.tryRetry(request));
+        assertEquals(1, budget.exhausted("bucket", ServiceType.BINARY));
+    }
+
+    @Test
+    public void shouldRefillMinimumRetriesOverTime() {
+        GetRequest request = new GetRequest("key", "bucket");
+        assertTrue(budget.tryRetry(request));
+        assertTrue(budget.tryRetry(request));
+        assertFalse(budget.tryRetry(request));
+
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        assertTrue(budget.tryRetry(request));
+        assertFalse(budget.tryRetry(request));
+    }
+
+    @Test
+    public void shouldAddRatioOfFirstAttempts() {
+        GetRequest request = new GetRequest("key", "bucket");
+        assertTrue(budget.tryRetry(request));
+        assertTrue(budget.tryRetry(request));
+
+        for (int i = 0; i < 10; i++) {
+            budget.recordAttempt(new GetRequest("key", "bucket"));
+        }
+        assertTrue(budget.tryRetry(request));
+        assertFalse(budget.tryRetry(request));
+    }
+
+    @Test
+    public void shouldNotAddRetriedAttempts() {
+        GetRequest request = new GetRequest("key", "bucket");
+        request.incrementRetryCount();
+        for (int i = 0; i < 2; i++) {
+            assertTrue(budget.tryRetry(request));
+        }
+        for (int i = 0; i < 10; i++) {
+            budget.recordAttempt(request);
+        }
+        assertFalse(budget.tryRetry(request));
+    }
+
+    @Test
+    public void shouldCapBalanceAtBurst() {
+        for (int i = 0; i < 1000; i++) {
+            budget.recordAttempt(new GetRequest("key", "bucket"));
+        }
+        GetRequest request = new GetRequest("key", "bucket");
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryRetry(request));
+        }
+        assertFalse(budget.tryRetry(request));
+    }
+
+    @Test
+    public void shouldKeepBudgetsPerBucketAndService() {
+        GetRequest get = new GetRequest("key", "bucket");
+        assertTrue(budget.tryRetry(get));
+        assertTrue(budget.tryRetry(get));
+        assertFalse(budget.tryRetry(get));
+
+        assertTrue(budget.tryRetry(new GetRequest("key", "other")));
+        assertTrue(budget.tryRetry(GenericQueryRequest.simpleStatement("select 1", "bucket", null)));
+    }
+
+    @Test
+    public void shouldExposeCounters() {
+        GetRequest request = new GetRequest("key", "bucket");
+        budget.tryRetry(request);
+        budget.tryRetry(request);
+        budget.tryRetry(request);
+
+        double permitted = 0;
+        double exhausted = 0;
+        for (Metric metric : registry.metrics().values()) {
+            if (!"couchbase_retries".equals(metric.name()) || !"binary".equals(metric.labels().get("service"))) {
+                continue;
+            }
+            if ("permitted".equals(metric.labels().get("result"))) {
+                permitted = ((Gauge) metric).value();
+            } else if ("exhausted".equals(metric.labels().get("result"))) {
+                exhausted = ((Gauge) metric).value();
+            }
+        }
+        assertEquals(2, permitted, 0);
+        assertEquals(1, exhausted, 0);
+    }
+
+    @Test
+    public void shouldAlwaysAllowIfDisabled() {
+        RetryBudget disabled = new RetryBudget(RetryBudgetConfig.disabled(), scheduler, null);
+        GetRequest request = new GetRequest("key", "bucket");
+        for (int i = 0; i < 100; i++) {
+            assertTrue(disabled.tryRetry(request));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.time;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DecorrelatedJitterDelayTest {
+
+    @Test
+    public void shouldStayWithinGrowingCeiling() {
+        Delay delay = Delay.decorrelatedJitter(TimeUnit.MILLISECONDS, 4096, 32);
+
+        assertEquals(32, delay.calculate(0));
+        for (int i = 0; i < 1000; i++) {
+            long first = delay.calculate(1);
+            assertTrue(first >= 32 && first <= 96);
+            long second = delay.calculate(2);
+            assertTrue(second >= 32 && second <= 288);
+            long capped = delay.calculate(100);
+            assertTrue(capped >= 32 && capped <= 4096);
+        }
+    }
+
+    @Test
+    public void shouldSpreadDelays() {
+        Delay delay = Delay.decorrelatedJitter(TimeUnit.MILLISECONDS, 4096, 32);
+
+        Set<Long> delays = new HashSet<Long>();
+        for (int i = 0; i < 100; i++) {
+            delays.add(delay.calculate(5));
+        }
+        assertTrue(delays.size() > 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnBaseAboveUpper() {
+        Delay.decorrelatedJitter(TimeUnit.MILLISECONDS, 10, 20);
+    }
+
+    @Test
+    public void shouldPrintBounds() {
+        Delay delay = Delay.decorrelatedJitter(TimeUnit.MILLISECONDS, 4096, 32);
+        assertEquals("DecorrelatedJitterDelay{base=32 MILLISECONDS, upper=4096}", delay.toString());
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies the functionality of the {@link CompositeByteBufHelper}.
+ *
+ * @since 1.5.2
+ */
+public class CompositeByteBufHelperTest {
+
+    @Test
+    public void shouldSliceWithinComponentWithoutCopy() {
+        CompositeByteBuf accumulator = CompositeByteBufHelper.newAccumulator(ByteBufAllocator.DEFAULT);
+        ByteBuf first = Unpooled.copiedBuffer("{\"a\":1},", CharsetUtil.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("{\"b\":2}", CharsetUtil.UTF_8);
+        CompositeByteBufHelper.append(accumulator, first);
+        CompositeByteBufHelper.append(accumulator, second);
+        first.release();
+        second.release();
+
+        ByteBuf row = CompositeByteBufHelper.readRetainedSlice(accumulator, 7);
+        accumulator.skipBytes(1);
+        CompositeByteBufHelper.discardRead(accumulator);
+
+        assertEquals(1, accumulator.numComponents());
+        assertEquals("{\"a\":1}", row.toString(CharsetUtil.UTF_8));
+        assertSame(first, row.unwrap());
+        assertEquals(1, first.refCnt());
+
+        row.release();
+        assertEquals(0, first.refCnt());
+        assertEquals("{\"b\":2}", accumulator.toString(CharsetUtil.UTF_8));
+        accumulator.release();
+        assertEquals(0, second.refCnt());
+    }
+
+    @Test
+    public void shouldCopyWhenSpanningComponents() {
+        CompositeByteBuf accumulator = CompositeByteBufHelper.newAccumulator(ByteBufAllocator.DEFAULT);
+        ByteBuf first = Unpooled.copiedBuffer("{\"a\":", CharsetUtil.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("1}", CharsetUtil.UTF_8);
+        CompositeByteBufHelper.append(accumulator, first);
+        CompositeByteBufHelper.append(accumulator, second);
+        first.release();
+        second.release();
+
+        ByteBuf row = CompositeByteBufHelper.readRetainedSlice(accumulator, 7);
+        CompositeByteBufHelper.discardRead(accumulator);
+
+        assertEquals("{\"a\":1}", row.toString(CharsetUtil.UTF_8));
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        row.release();
+        accumulator.release();
+    }
+
+    @Test
+    public void shouldReleaseComponentsOnReset() {
+        CompositeByteBuf accumulator = CompositeByteBufHelper.newAccumulator(ByteBufAllocator.DEFAULT);
+        ByteBuf chunk = Unpooled.copiedBuffer("{}", CharsetUtil.UTF_8);
+        CompositeByteBufHelper.append(accumulator, chunk);
+        chunk.release();
+
+        CompositeByteBufHelper.reset(accumulator);
+        assertEquals(0, chunk.refCnt());
+        assertEquals(0, accumulator.numComponents());
+
+        ByteBuf next = Unpooled.copiedBuffer("[1]", CharsetUtil.UTF_8);
+        CompositeByteBufHelper.append(accumulator, next);
+        next.release();
+        assertEquals("[1]", accumulator.toString(CharsetUtil.UTF_8));
+        accumulator.release();
+    }
+}
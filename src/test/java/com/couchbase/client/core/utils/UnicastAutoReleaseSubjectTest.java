@@ -37,6 +37,7 @@ import org.junit.Test;
 import rx.functions.Action0;
 import rx.functions.Action1;
 import rx.functions.Actions;
+import rx.observers.TestSubscriber;
 import rx.observers.Subscribers;
 import rx.schedulers.Schedulers;
 import rx.schedulers.TestScheduler;
@@ -210,6 +211,84 @@ public class UnicastAutoReleaseSubjectTest {
         Assert.assertEquals("Byte buffer not fully released", 0, buffer.refCnt());
     }
 
+    @Test
+    public void shouldPauseAndResumeOnWatermarks() throws Exception {
+        UnicastAutoReleaseSubject<Integer> subject = UnicastAutoReleaseSubject.createWithoutNoSubscriptionTimeout();
+        final AtomicInteger paused = new AtomicInteger();
+        final AtomicInteger resumed = new AtomicInteger();
+        subject.withWatermarks(4, 1, new Action0() {
+            @Override
+            public void call() {
+                paused.incrementAndGet();
+            }
+        }, new Action0() {
+            @Override
+            public void call() {
+                resumed.incrementAndGet();
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            subject.onNext(i);
+        }
+        assertThat(paused.get()).isEqualTo(1);
+        assertThat(resumed.get()).isEqualTo(0);
+
+        final List<Integer> received = new ArrayList<Integer>();
+        TestSubscriber<Integer> subscriber = new TestSubscriber<Integer>(0) {
+            @Override
+            public void onNext(Integer value) {
+                received.add(value);
+            }
+        };
+        subject.subscribe(subscriber);
+        assertThat(received).isEmpty();
+
+        subscriber.requestMore(2);
+        assertThat(received).containsExactly(0, 1);
+        assertThat(resumed.get()).isEqualTo(0);
+
+        subscriber.requestMore(1);
+        assertThat(resumed.get()).isEqualTo(1);
+
+        subject.onNext(4);
+        subject.onNext(5);
+        subject.onNext(6);
+        assertThat(paused.get()).isEqualTo(2);
+
+        subscriber.unsubscribe();
+        assertThat(resumed.get()).isEqualTo(2);
+        subject.onNext(7);
+        assertThat(paused.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldResumeWhenDisposed() throws Exception {
+        TestScheduler testScheduler = Schedulers.test();
+        UnicastAutoReleaseSubject<ByteBuf> subject = UnicastAutoReleaseSubject.create(1, TimeUnit.SECONDS,
+            testScheduler);
+        final AtomicInteger resumed = new AtomicInteger();
+        subject.withWatermarks(1, 0, Actions.empty(), new Action0() {
+            @Override
+            public void call() {
+                resumed.incrementAndGet();
+            }
+        });
+
+        ByteBuf buffer = Unpooled.buffer();
+        subject.onNext(buffer);
+        testScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertThat(buffer.refCnt()).isEqualTo(0);
+        assertThat(resumed.get()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidWatermarks() {
+        UnicastAutoReleaseSubject.createWithoutNoSubscriptionTimeout()
+            .withWatermarks(2, 2, Actions.empty(), Actions.empty());
+    }
+
     private static class OnUnsubscribeAction implements Action0 {
 
         private volatile boolean called;
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils.yasjl;
+
+import static org.junit.Assert.assertEquals;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+/**
+ * Verifies the functionality of the {@link JsonStructuralScanner}.
+ *
+ * @since 1.5.2
+ */
+public class JsonStructuralScannerTest {
+
+    @Test
+    public void shouldSkipWhitespace() {
+        assertEquals(0, skipWhitespace("{"));
+        assertEquals(3, skipWhitespace(" \t\n{"));
+        assertEquals(13, skipWhitespace("  \r\n  \t     \n\"a\""));
+        assertEquals(-1, skipWhitespace("            "));
+        assertEquals(-1, skipWhitespace(""));
+    }
+
+    @Test
+    public void shouldFindStringEnd() {
+        assertEquals(3, findStringEnd("abc\""));
+        assertEquals(15, findStringEnd("0123456789abcde\"xyz"));
+        assertEquals(12, findStringEnd("abc\\\"def\\\\gh\"ij"));
+        assertEquals(16, findStringEnd("a\\u00e9\\\"xxxxxxx\""));
+        assertEquals(-1, findStringEnd("abcdefghijklmnop"));
+        assertEquals(-1, findStringEnd("abcdefgh\\"));
+    }
+
+    @Test
+    public void shouldFindContainerEnd() {
+        assertEquals(6, findObjectEnd("\"a\": 1}"));
+        assertEquals(29, findObjectEnd("\"a\": {\"b\": \"}{\\\"\"}, \"c\": [{}]},"));
+        assertEquals(-1, findObjectEnd("\"a\": {\"b\": 1}"));
+        assertEquals(-1, findObjectEnd("\"a\": \"}"));
+        assertEquals(6, findArrayEnd("1, \"]\"]"));
+        assertEquals(12, findArrayEnd("[1, [2]], {}] "));
+    }
+
+    @Test
+    public void shouldScanAcrossComponents() {
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, buf("\"key\": \"val"));
+        composite.addComponent(true, buf("ue\\\"}\", \"o\": {}}"));
+        try {
+            assertEquals(26, JsonStructuralScanner.findContainerEnd(composite, 0, composite.writerIndex(),
+                (byte) '{', (byte) '}'));
+        } finally {
+            composite.release();
+        }
+    }
+
+    @Test
+    public void shouldMatchEveryByteOfAWord() {
+        for (int i = 0; i < 8; i++) {
+            byte[] bytes = "abcdefgh".getBytes(CharsetUtil.UTF_8);
+            bytes[i] = '"';
+            ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+            long word = buf.getLong(0);
+            long found = JsonStructuralScanner.matches(word, JsonStructuralScanner.pattern((byte) '"'));
+            assertEquals(i, JsonStructuralScanner.firstMatch(found));
+            assertEquals(1, Long.bitCount(found));
+        }
+    }
+
+    private static ByteBuf buf(String input) {
+        return Unpooled.copiedBuffer(input, CharsetUtil.UTF_8);
+    }
+
+    private static int skipWhitespace(String input) {
+        ByteBuf buf = buf(input);
+        return JsonStructuralScanner.skipWhitespace(buf, 0, buf.writerIndex());
+    }
+
+    private static int findStringEnd(String input) {
+        ByteBuf buf = buf(input);
+        return JsonStructuralScanner.findStringEnd(buf, 0, buf.writerIndex());
+    }
+
+    private static int findObjectEnd(String input) {
+        ByteBuf buf = buf(input);
+        return JsonStructuralScanner.findContainerEnd(buf, 0, buf.writerIndex(), (byte) '{', (byte) '}');
+    }
+
+    private static int findArrayEnd(String input) {
+        ByteBuf buf = buf(input);
+        return JsonStructuralScanner.findContainerEnd(buf, 0, buf.writerIndex(), (byte) '[', (byte) ']');
+    }
+}
@@ -19,7 +19,10 @@ package com.couchbase.client.core.utils.yasjl;
 import static org.junit.Assert.assertEquals;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import java.io.EOFException;
@@ -27,6 +30,7 @@ import java.io.EOFException;
 import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ResourceLeakDetector;
 import org.junit.Test;
 
@@ -214,4 +218,47 @@ public class SimpleParserTest {
         assertEquals(10, results.get("parseCount"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNestedPointersWithSiblings() throws Exception {
+        String json = "{\"a\": {\"x\": 1, \"b\": {\"y\": 2, \"c\": 3}, \"z\": {\"c\": 4}, \"c\": 5}, \"c\": 6}";
+        List<String> results = parseInChunks(json, 5, "/a/b/c", "/a/c");
+        assertEquals(Arrays.asList("3", "5"), results);
+    }
+
+    @Test
+    public void testArrayRowsSplitAcrossChunks() throws Exception {
+        String json = "{\"rows\": [{\"id\": \"a\\\"}\"}, {\"id\": \"b\"}, [1], \"c\"], \"total\": 3}";
+        for (int chunkSize = 1; chunkSize <= json.length(); chunkSize++) {
+            List<String> results = parseInChunks(json, chunkSize, "/rows/-", "/total");
+            assertEquals(Arrays.asList("{\"id\": \"a\\\"}\"}", "{\"id\": \"b\"}", "[1]", "\"c\"", "3"),
+                results);
+        }
+    }
+
+    private static List<String> parseInChunks(String json, int chunkSize, String... paths) throws Exception {
+        final List<String> results = new ArrayList<String>();
+        JsonPointer[] jp = new JsonPointer[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            jp[i] = new JsonPointer(paths[i], new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    results.add(buf.toString(CharsetUtil.UTF_8));
+                    buf.release();
+                }
+            });
+        }
+        ByteBufJsonParser parser = new ByteBufJsonParser(jp);
+        ByteBuf inBuf = Unpooled.buffer();
+        parser.initialize(inBuf);
+        byte[] bytes = json.getBytes(CharsetUtil.UTF_8);
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            inBuf.writeBytes(bytes, i, Math.min(chunkSize, bytes.length - i));
+            try {
+                parser.parse();
+            } catch (EOFException ex) {
+                //need more data
+            }
+        }
+        inBuf.release();
+        return results;
+    }
+}